@@ -22,6 +22,14 @@ android {
             proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
         }
     }
+    androidResources {
+        // KTX 压缩纹理和 glTF 二进制模型需要不压缩存放，才能通过 openFd 直接内存映射
+        noCompress += listOf("ktx", "ktx2", "glb")
+    }
+    testOptions {
+        // JVM 单元测试中 GLStateCache 会用到 SparseArray，android.jar 中未实现的方法返回默认值
+        unitTests.isReturnDefaultValues = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
@@ -30,6 +38,7 @@ android {
 
 dependencies {
 
+    implementation(project(":core"))
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.9.0")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
@@ -0,0 +1,13 @@
+#version 300 es  // 指定 GLSL 版本
+
+// 滤镜 pass 使用的全屏三角形，不需要顶点缓冲：gl_VertexID 0, 1, 2 对应 (-1, -1), (3, -1), (-1, 3)
+// 纹理坐标 (0, 0) 对应输出的第 0 行，输出纹理和输入纹理的行顺序相同，多个 pass 之间不会上下翻转
+
+// 输出变量
+out vec2 vTexCoord;  // 传递给片段着色器的纹理坐标
+
+void main() {
+    vec2 position = vec2(float((gl_VertexID & 1) << 2) - 1.0, float((gl_VertexID & 2) << 1) - 1.0);
+    vTexCoord = position * 0.5 + 0.5;
+    gl_Position = vec4(position, 0.0, 1.0);
+}
\ No newline at end of file
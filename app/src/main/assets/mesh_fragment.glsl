@@ -0,0 +1,22 @@
+#version 300 es  // 指定 GLSL 版本
+precision mediump float;  // 定义浮点数精度
+
+// 统一变量
+uniform vec4 uColor;  // 模型颜色
+
+// 输入变量
+in vec3 vNormal;  // 从顶点着色器传递的法线
+
+// 输出变量
+out vec4 fragColor;  // 片段着色器的输出颜色
+
+const vec3 LIGHT_DIRECTION = vec3(0.3, 0.8, 0.52);  // 指向光源的方向（已归一化）
+
+void main() {
+    // 没有法线时按正对光源处理
+    float len = length(vNormal);
+    vec3 normal = len > 0.0 ? vNormal / len : LIGHT_DIRECTION;
+    // 双面漫反射加环境光
+    float diffuse = abs(dot(normal, LIGHT_DIRECTION));
+    fragColor = vec4(uColor.rgb * (0.3 + 0.7 * diffuse), uColor.a);
+}
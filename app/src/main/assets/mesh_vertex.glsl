@@ -0,0 +1,17 @@
+#version 300 es  // 指定 GLSL 版本
+precision mediump float;  // 定义浮点数精度
+
+// 统一变量
+uniform mat4 uMVPMatrix;  // 变换矩阵
+
+// 属性变量（location 固定，GlbMesh 的 VAO 按此布局配置）
+layout(location = 0) in vec4 aPosition;  // 顶点位置
+layout(location = 1) in vec3 aNormal;    // 顶点法线，模型没有法线时为 0
+
+// 输出变量
+out vec3 vNormal;  // 传递给片段着色器的法线
+
+void main() {
+    gl_Position = uMVPMatrix * aPosition;
+    vNormal = aNormal;
+}
@@ -6,6 +6,9 @@ uniform sampler2D uSampler;  // 纹理采样器
 
 // 输入变量
 in vec2 vTexCoord;  // 从顶点着色器传递的纹理坐标
+#ifdef USE_TINT
+in vec4 vColor;     // 从顶点着色器传递的颜色
+#endif
 
 // 输出变量
 out vec4 fragColor;  // 片段着色器的输出颜色
@@ -13,4 +16,8 @@ out vec4 fragColor;  // 片段着色器的输出颜色
 void main() {
     // 通过纹理采样器获取最终颜色
     fragColor = texture(uSampler, vTexCoord);
+#ifdef USE_TINT
+    // 纹理颜色乘以顶点颜色得到最终颜色
+    fragColor *= vColor;
+#endif
 }
\ No newline at end of file
@@ -4,12 +4,18 @@ precision mediump float;  // 定义浮点数精度
 // 统一变量
 uniform mat4 uMVPMatrix;  // 变换矩阵
 
-// 属性变量
-in vec4 aPosition;  // 顶点位置
-in vec2 aTexCoord;  // 纹理坐标
+// 属性变量（location 固定，SpriteBatch 的 VAO 按此布局配置）
+layout(location = 0) in vec4 aPosition;  // 顶点位置
+layout(location = 1) in vec2 aTexCoord;  // 纹理坐标
+#ifdef USE_TINT
+layout(location = 2) in vec4 aColor;     // 顶点颜色（tint）
+#endif
 
 // 输出变量
 out vec2 vTexCoord;  // 传递给片段着色器的纹理坐标
+#ifdef USE_TINT
+out vec4 vColor;     // 传递给片段着色器的颜色
+#endif
 
 void main() {
     // 应用变换矩阵并设置顶点位置
@@ -17,4 +23,7 @@ void main() {
 
     // 将纹理坐标传递给片段着色器
     vTexCoord = aTexCoord;
+#ifdef USE_TINT
+    vColor = aColor;
+#endif
 }
\ No newline at end of file
@@ -0,0 +1,396 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLSurface;
+import android.opengl.GLES30;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GLBackend;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步纹理加载器：
+ * <ol>
+ *     <li>在工作线程池中解码图片，不占用 UI 线程</li>
+ *     <li>在共享 EGL 上下文的加载线程中上传纹理，不占用 GL 线程</li>
+ *     <li>上传完成后插入 GL fence，渲染线程每帧非阻塞地检查 fence，完成后通过回调交付纹理</li>
+ * </ol>
+ * 无法创建共享上下文时，退化为在 GL 线程上每帧最多上传一张纹理。
+ * <p>
+ * {@link #load} 可以在任意线程调用（包括 GL surface 创建之前）；{@link #onSurfaceCreated()} 和
+ * {@link #processCompleted()} 必须在 GL 线程调用，回调也在 GL 线程执行。
+ */
+public class AsyncTextureLoader {
+    private static final String TAG = "AsyncTextureLoader";
+    private static final int EGL_OPENGL_ES3_BIT_KHR = 0x40;
+
+    /**
+     * 纹理加载完成的回调，在 GL 线程执行
+     */
+    public interface Callback {
+        void onTextureLoaded(int textureId, int width, int height);
+    }
+
+    /**
+     * 在工作线程中解码图片
+     */
+    public interface Decoder {
+        Bitmap decode();
+    }
+
+    // 一次加载请求，在各个线程之间传递
+    private static class Request {
+        final Decoder decoder;
+        final Callback callback;
+        Bitmap bitmap;
+        int textureId;
+        int width;
+        int height;
+        long fence;
+        int generation; // 加载线程上传时所在的 EGL 上下文代数，纹理和 fence 只在这一代的上下文中有效
+        boolean uploadOnGLThread; // 加载线程的上传无法确认完成时改在 GL 线程上传
+
+        Request(Decoder decoder, Callback callback) {
+            this.decoder = decoder;
+            this.callback = callback;
+        }
+    }
+
+    private final Context mContext;
+    private final ExecutorService mDecodePool;
+    private final ExecutorService mUploadThread;
+    private final RenderInvalidator mInvalidator;
+
+    // 等待在 GL 线程上传的请求（没有共享上下文时）和等待 fence 完成的请求
+    private final ConcurrentLinkedQueue<Request> mPendingUploads = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Request> mUploaded = new ConcurrentLinkedQueue<>();
+    private Request mWaitingFence; // 只在 GL 线程访问
+    // 共享上下文已经就绪之前解码完成的请求，先放在这里
+    private final ConcurrentLinkedQueue<Request> mDecoded = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean mSurfaceReady = false;
+    private volatile boolean mSharedContextReady = false;
+    private volatile int mGeneration = 0; // 每次 EGL 上下文重建加一，丢弃旧上下文中的结果
+    private volatile boolean mReleased = false; // release 之后线程池不再接受任务
+
+    // 加载线程上的 EGL 对象，只在加载线程访问
+    private EGLDisplay mEglDisplay = EGL14.EGL_NO_DISPLAY;
+    private EGLContext mEglContext = EGL14.EGL_NO_CONTEXT;
+    private EGLSurface mEglSurface = EGL14.EGL_NO_SURFACE;
+
+    public AsyncTextureLoader(Context context, RenderInvalidator invalidator) {
+        mContext = context.getApplicationContext();
+        mInvalidator = invalidator;
+        int decodeThreads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        mDecodePool = Executors.newFixedThreadPool(decodeThreads, namedFactory("TextureDecode"));
+        mUploadThread = Executors.newSingleThreadExecutor(namedFactory("TextureUpload"));
+    }
+
+    /**
+     * 异步加载 drawable 资源
+     */
+    public void load(int resId, Callback callback) {
+        load(resourceDecoder(resId), callback);
+    }
+
+    /**
+     * 按原始尺寸解码 drawable 资源的解码器
+     */
+    public Decoder resourceDecoder(final int resId) {
+        return () -> {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inScaled = false;
+            return BitmapFactory.decodeResource(mContext.getResources(), resId, options);
+        };
+    }
+
+    /**
+     * 异步加载任意图片
+     *
+     * @param decoder  在工作线程中执行的解码逻辑
+     * @param callback 纹理就绪后在 GL 线程执行的回调
+     */
+    public void load(Decoder decoder, Callback callback) {
+        decode(new Request(decoder, callback));
+    }
+
+    private void decode(final Request request) {
+        if (mReleased) {
+            return;
+        }
+        mDecodePool.execute(() -> {
+            Bitmap bitmap = request.decoder.decode();
+            if (bitmap == null) {
+                Log.e(TAG, "Failed to decode bitmap");
+                return;
+            }
+            request.bitmap = bitmap;
+            request.width = bitmap.getWidth();
+            request.height = bitmap.getHeight();
+            dispatchUpload(request);
+        });
+    }
+
+    private void dispatchUpload(final Request request) {
+        if (mReleased) {
+            request.bitmap.recycle();
+            return;
+        }
+        if (!mSurfaceReady) {
+            mDecoded.add(request); // GL surface 还没有创建，等 onSurfaceCreated 再派发
+            if (mSurfaceReady) {
+                drainDecoded(); // 加入队列的同时 surface 刚好就绪，自己派发，避免请求滞留
+            }
+            return;
+        }
+        if (mSharedContextReady && !request.uploadOnGLThread) {
+            final int generation = mGeneration;
+            mUploadThread.execute(() -> uploadOnLoaderThread(request, generation));
+        } else {
+            mPendingUploads.add(request);
+            mInvalidator.invalidate();
+        }
+    }
+
+    /**
+     * 在 GL 线程的 onSurfaceCreated 中调用：基于当前 EGL 上下文创建共享上下文的加载线程
+     */
+    public void onSurfaceCreated() {
+        if (mReleased) {
+            return;
+        }
+        final EGLContext shared = EGL14.eglGetCurrentContext();
+        final EGLDisplay display = EGL14.eglGetCurrentDisplay();
+        final int generation = ++mGeneration;
+        mWaitingFence = null;
+        mUploaded.clear();
+        mSharedContextReady = false;
+        // 在加载线程上（重新）创建共享上下文，完成之前的上传任务会按顺序排在它后面
+        mUploadThread.execute(() -> {
+            releaseEgl();
+            boolean ok = createSharedContext(display, shared);
+            mSharedContextReady = ok;
+            Log.i(TAG, ok ? "Shared upload context created" : "Shared context unavailable, uploading on GL thread");
+            mSurfaceReady = true;
+            drainDecoded();
+            // 之前排队在 GL 线程上传的请求也交给加载线程
+            Request request;
+            if (ok) {
+                while ((request = mPendingUploads.poll()) != null) {
+                    uploadOnLoaderThread(request, generation);
+                }
+            }
+        });
+    }
+
+    private void drainDecoded() {
+        Request request;
+        while ((request = mDecoded.poll()) != null) {
+            dispatchUpload(request);
+        }
+    }
+
+    /**
+     * 每帧开始时在 GL 线程调用：交付已经完成的纹理；没有共享上下文时在这里上传（每帧最多一张）
+     */
+    public void processCompleted() {
+        Request request = mPendingUploads.poll();
+        if (request != null) {
+            request.textureId = uploadTexture(request.bitmap, true);
+            request.bitmap.recycle();
+            request.bitmap = null;
+            request.callback.onTextureLoaded(request.textureId, request.width, request.height);
+            if (!mPendingUploads.isEmpty()) {
+                mInvalidator.invalidate();
+            }
+        }
+
+        while (true) {
+            if (mWaitingFence == null) {
+                mWaitingFence = mUploaded.poll();
+                if (mWaitingFence == null) {
+                    return;
+                }
+            }
+            if (mWaitingFence.generation != mGeneration) {
+                // 旧上下文中上传的纹理和 fence 已经随上下文失效，同名对象可能属于新上下文：不做任何 GL 调用，重新解码
+                Request stale = mWaitingFence;
+                mWaitingFence = null;
+                resend(stale);
+                continue;
+            }
+            // 超时时间为 0：只检查状态，不会阻塞渲染线程
+            int status = GLBackends.get().glClientWaitSync(mWaitingFence.fence, 0, 0);
+            if (status == GLES30.GL_TIMEOUT_EXPIRED) {
+                mInvalidator.invalidate(); // 下一帧再检查
+                return;
+            }
+            GLBackends.get().glDeleteSync(mWaitingFence.fence);
+            Request done = mWaitingFence;
+            mWaitingFence = null;
+            if (status == GLES30.GL_WAIT_FAILED) {
+                // 无法确认加载线程的上传已经完成，这份纹理不能使用：删除它，重新解码后在 GL 线程上传
+                Log.w(TAG, "Fence wait failed, retrying upload on GL thread");
+                GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, done.textureId);
+                done.uploadOnGLThread = true;
+                resend(done);
+            } else {
+                // 加载线程上传的纹理没有经过记账的后端，在 GL 线程交付时记账，和 onContextLost 不会交错；
+                // 纹理之后交给 TextureCache 或调用方删除
+                GpuMemoryTracker tracker = GLBackends.getMemoryTracker();
+                tracker.onCreate(GpuMemoryTracker.TEXTURE, done.textureId, TAG);
+                tracker.setTextureLevel(done.textureId, 0, done.width, done.height, 4,
+                        (long) done.width * done.height * 4);
+                done.callback.onTextureLoaded(done.textureId, done.width, done.height);
+            }
+        }
+    }
+
+    // 加载线程的上传结果不能使用，位图已经回收，从解码开始重新加载
+    private void resend(Request request) {
+        request.textureId = 0;
+        request.fence = 0;
+        decode(request);
+    }
+
+    private void uploadOnLoaderThread(Request request, int generation) {
+        if (!mSharedContextReady || generation != mGeneration) {
+            mPendingUploads.add(request); // 共享上下文失效，退回到 GL 线程上传
+            mInvalidator.invalidate();
+            return;
+        }
+        request.generation = generation;
+        request.textureId = uploadTexture(request.bitmap, false);
+        request.bitmap.recycle();
+        request.bitmap = null;
+        request.fence = GLES30.glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        // 必须 flush，否则 fence 可能永远不会被提交给 GPU
+        GLES30.glFlush();
+        if (generation != mGeneration) {
+            // 上传期间 EGL 上下文重建了，mUploaded 已经被清空：结果随旧上下文一起失效，重新解码
+            resend(request);
+            return;
+        }
+        mUploaded.add(request);
+        mInvalidator.invalidate();
+    }
+
+    // 上传纹理到GPU（在当前线程的 GL 上下文中）。GL 线程经过 GL 后端（记账、可统计）；
+    // 加载线程有自己的上下文，而 GLBackends 和 GLStateCache 跟踪的是 GL 线程的绑定状态，所以直接使用 GLES30
+    private static int uploadTexture(Bitmap bitmap, boolean onGLThread) {
+        GLBackend gl = onGLThread ? GLBackends.get() : GLES30Backend.INSTANCE;
+        GpuMemoryTracker tracker = GLBackends.getMemoryTracker();
+        String previousOwner = onGLThread ? tracker.enterOwner(TAG) : null;
+        int[] textureIds = new int[1];
+        try {
+            gl.glGenTextures(1, textureIds, 0); // 创建纹理
+            bindTexture(textureIds[0], onGLThread); // 绑定纹理
+            gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR); // 设置缩小策略
+            gl.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR); // 设置放大策略
+            // 纹理上传到GPU
+            gl.texImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, bitmap, bitmap.getWidth(), bitmap.getHeight());
+            bindTexture(0, onGLThread); // 解绑纹理，避免后续误操作
+        } finally {
+            if (onGLThread) {
+                tracker.exitOwner(previousOwner);
+            }
+        }
+        return textureIds[0];
+    }
+
+    private static void bindTexture(int textureId, boolean onGLThread) {
+        if (onGLThread) {
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, textureId);
+        } else {
+            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureId);
+        }
+    }
+
+    private boolean createSharedContext(EGLDisplay display, EGLContext shared) {
+        if (display == EGL14.EGL_NO_DISPLAY || shared == EGL14.EGL_NO_CONTEXT) {
+            return false;
+        }
+        int[] configAttribs = {
+                EGL14.EGL_RENDERABLE_TYPE, EGL_OPENGL_ES3_BIT_KHR,
+                EGL14.EGL_SURFACE_TYPE, EGL14.EGL_PBUFFER_BIT,
+                EGL14.EGL_RED_SIZE, 8,
+                EGL14.EGL_GREEN_SIZE, 8,
+                EGL14.EGL_BLUE_SIZE, 8,
+                EGL14.EGL_NONE
+        };
+        EGLConfig[] configs = new EGLConfig[1];
+        int[] numConfigs = new int[1];
+        if (!EGL14.eglChooseConfig(display, configAttribs, 0, configs, 0, 1, numConfigs, 0) || numConfigs[0] == 0) {
+            return false;
+        }
+        int[] contextAttribs = {EGL14.EGL_CONTEXT_CLIENT_VERSION, 3, EGL14.EGL_NONE};
+        EGLContext context = EGL14.eglCreateContext(display, configs[0], shared, contextAttribs, 0);
+        if (context == EGL14.EGL_NO_CONTEXT) {
+            return false;
+        }
+        // 加载线程不需要绘制，1x1 的 pbuffer 只是为了 makeCurrent
+        int[] surfaceAttribs = {EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE};
+        EGLSurface surface = EGL14.eglCreatePbufferSurface(display, configs[0], surfaceAttribs, 0);
+        if (surface == EGL14.EGL_NO_SURFACE || !EGL14.eglMakeCurrent(display, surface, surface, context)) {
+            if (surface != EGL14.EGL_NO_SURFACE) {
+                EGL14.eglDestroySurface(display, surface);
+            }
+            EGL14.eglDestroyContext(display, context);
+            return false;
+        }
+        mEglDisplay = display;
+        mEglContext = context;
+        mEglSurface = surface;
+        return true;
+    }
+
+    private void releaseEgl() {
+        if (mEglContext == EGL14.EGL_NO_CONTEXT) {
+            return;
+        }
+        EGL14.eglMakeCurrent(mEglDisplay, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+        EGL14.eglDestroySurface(mEglDisplay, mEglSurface);
+        EGL14.eglDestroyContext(mEglDisplay, mEglContext);
+        mEglDisplay = EGL14.EGL_NO_DISPLAY;
+        mEglContext = EGL14.EGL_NO_CONTEXT;
+        mEglSurface = EGL14.EGL_NO_SURFACE;
+    }
+
+    /**
+     * 停止所有线程并释放加载线程的 EGL 上下文，可以在任意线程调用，重复调用时什么也不做
+     */
+    public synchronized void release() {
+        if (mReleased) {
+            return;
+        }
+        mReleased = true;
+        mDecodePool.shutdownNow();
+        mUploadThread.execute(this::releaseEgl);
+        mUploadThread.shutdown();
+    }
+
+    private static ThreadFactory namedFactory(final String name) {
+        final AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + index.incrementAndGet());
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.glsurfaceviewdemo;
+
+import android.graphics.Bitmap;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 在后台线程把 {@link PixelReadback.Capture} 写成文件，GL 线程只负责交出缓冲区。
+ * <ul>
+ *     <li>PNG：用于缩略图和人工查看，压缩比较耗时</li>
+ *     <li>RAW：直接写出 RGBA 字节（行从上到下，无文件头），用于服务端的黄金图片逐像素比较</li>
+ * </ul>
+ * 编码完成后 Capture 会被自动回收。
+ */
+public class CaptureEncoder {
+    private static final String TAG = "CaptureEncoder";
+
+    public enum Format {
+        PNG,
+        RAW
+    }
+
+    /**
+     * 编码结果的回调，在编码线程调用
+     */
+    public interface Listener {
+        /**
+         * @param file    输出文件
+         * @param success 是否写入成功
+         */
+        void onEncoded(File file, boolean success);
+    }
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "CaptureEncoder"));
+
+    /**
+     * 提交一次编码，可以在任意线程调用（通常直接在 {@link PixelReadback.Callback} 中调用）
+     *
+     * @param listener 可以为 null
+     */
+    public void encode(final PixelReadback.Capture capture, final File file, final Format format,
+                       final Listener listener) {
+        mExecutor.execute(() -> {
+            boolean success = false;
+            try {
+                if (format == Format.PNG) {
+                    writePng(capture, file);
+                } else {
+                    writeRaw(capture, file);
+                }
+                success = true;
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write " + file, e);
+            } finally {
+                capture.recycle();
+            }
+            if (listener != null) {
+                listener.onEncoded(file, success);
+            }
+        });
+    }
+
+    private static void writePng(PixelReadback.Capture capture, File file) throws IOException {
+        // ARGB_8888 在内存中的字节顺序就是 R, G, B, A，可以直接拷贝
+        Bitmap bitmap = Bitmap.createBitmap(capture.width, capture.height, Bitmap.Config.ARGB_8888);
+        try (OutputStream out = new FileOutputStream(file)) {
+            capture.pixels.position(0);
+            bitmap.copyPixelsFromBuffer(capture.pixels);
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("PNG compression failed");
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static void writeRaw(PixelReadback.Capture capture, File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            FileChannel channel = out.getChannel();
+            capture.pixels.position(0);
+            while (capture.pixels.hasRemaining()) {
+                channel.write(capture.pixels);
+            }
+        }
+    }
+
+    // 停止接收新的编码任务，已经提交的任务会继续完成
+    public void release() {
+        mExecutor.shutdown();
+    }
+}
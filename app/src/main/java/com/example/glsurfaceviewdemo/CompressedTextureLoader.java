@@ -0,0 +1,172 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.KtxTexture;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * 从 assets 加载 KTX / KTX2 压缩纹理（ETC2 / EAC / ASTC）。
+ * <p>
+ * 资源文件描述符被直接映射成内存（assets 中的 .ktx / .ktx2 不压缩存放，见 build.gradle.kts 的 noCompress），
+ * 各 mip 层级以映射缓冲区切片的形式交给 glCompressedTexImage2D，整个过程没有解码也没有 Java 堆上的拷贝。
+ * 驱动不支持文件中的格式、文件不存在或解析失败时回退到 AsyncTextureLoader 的位图路径。
+ * 所有方法都必须在 GL 线程调用。
+ */
+public class CompressedTextureLoader {
+    private static final String TAG = "CompressedTextureLoader";
+    private static final String ASTC_EXTENSION = "GL_KHR_texture_compression_astc_ldr";
+
+    private final Context mContext;
+    private int[] mSupportedFormats = new int[0]; // 已排序，便于二分查找
+    private boolean mAstcSupported = false;
+
+    // 统计数据
+    private int mCompressedLoads = 0;
+    private int mFallbackLoads = 0;
+    private long mCompressedBytes = 0;
+
+    public CompressedTextureLoader(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * EGL 上下文创建后调用，查询驱动支持的压缩格式
+     */
+    public void onSurfaceCreated() {
+        int[] count = new int[1];
+        GLES30.glGetIntegerv(GLES30.GL_NUM_COMPRESSED_TEXTURE_FORMATS, count, 0);
+        int[] formats = new int[Math.max(0, count[0])];
+        if (formats.length > 0) {
+            GLES30.glGetIntegerv(GLES30.GL_COMPRESSED_TEXTURE_FORMATS, formats, 0);
+        }
+        Arrays.sort(formats);
+        mSupportedFormats = formats;
+        String extensions = GLES30.glGetString(GLES30.GL_EXTENSIONS);
+        mAstcSupported = extensions != null && extensions.contains(ASTC_EXTENSION);
+    }
+
+    /**
+     * 驱动是否能直接使用该压缩格式；ETC2 / EAC 是 ES 3.0 的必备格式
+     */
+    public boolean isFormatSupported(int internalFormat) {
+        if (KtxTexture.isEtc2(internalFormat)) {
+            return true;
+        }
+        if (KtxTexture.isAstc(internalFormat) && mAstcSupported) {
+            return true;
+        }
+        return Arrays.binarySearch(mSupportedFormats, internalFormat) >= 0;
+    }
+
+    /**
+     * 通过纹理缓存获取 assets 中的 KTX / KTX2 纹理，key 为 "asset:" + assetName
+     *
+     * @param assetName 例如 "android_logo.ktx"
+     * @param loader    回退时使用的异步加载器
+     * @param fallback  压缩纹理不可用时的位图解码逻辑
+     * @param callback  纹理就绪后的回调；压缩纹理在本次调用中同步就绪
+     */
+    public void acquire(TextureCache cache, String assetName, AsyncTextureLoader loader,
+                        AsyncTextureLoader.Decoder fallback, TextureCache.Callback callback) {
+        String key = "asset:" + assetName;
+        if (!cache.isCachedOrLoading(key)) {
+            TextureCache.Texture texture = loadCompressed(cache, key, assetName);
+            if (texture != null) {
+                callback.onTextureReady(texture);
+                return;
+            }
+            mFallbackLoads++;
+        }
+        cache.acquire(key, loader, fallback, callback);
+    }
+
+    // 加载压缩纹理并放入缓存，失败时返回 null
+    private TextureCache.Texture loadCompressed(TextureCache cache, String key, String assetName) {
+        KtxTexture ktx;
+        try {
+            ktx = KtxTexture.parse(mapAsset(assetName));
+        } catch (FileNotFoundException e) {
+            Log.w(TAG, "Compressed texture not found: " + assetName);
+            return null;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to parse " + assetName, e);
+            return null;
+        }
+        if (!ktx.isCompressed() || !isFormatSupported(ktx.getInternalFormat())) {
+            Log.w(TAG, assetName + ": format 0x" + Integer.toHexString(ktx.getInternalFormat())
+                    + " not supported, falling back to bitmap");
+            return null;
+        }
+        int textureId = upload(ktx);
+        if (textureId == 0) {
+            return null;
+        }
+        mCompressedLoads++;
+        mCompressedBytes += ktx.getTotalBytes();
+        return cache.put(key, textureId, ktx.getWidth(), ktx.getHeight(), ktx.getTotalBytes());
+    }
+
+    // 把 asset 映射成只读的直接缓冲区；通道关闭后映射依然有效
+    private ByteBuffer mapAsset(String assetName) throws IOException {
+        try (AssetFileDescriptor afd = mContext.getAssets().openFd(assetName);
+             FileInputStream input = afd.createInputStream();
+             FileChannel channel = input.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+        }
+    }
+
+    // 逐层上传压缩数据，失败时删除纹理并返回 0
+    private static int upload(KtxTexture ktx) {
+        // 先清掉之前的命令留下的错误，后面的 glGetError 只反映这次上传
+        while (GLBackends.get().glGetError() != GLES30.GL_NO_ERROR) {
+        }
+        int[] textureIds = new int[1];
+        GLBackends.get().glGenTextures(1, textureIds, 0);
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, textureIds[0]);
+        int levels = ktx.getLevelCount();
+        GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER,
+                levels > 1 ? GLES30.GL_LINEAR_MIPMAP_LINEAR : GLES30.GL_LINEAR);
+        GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+        // mip 链可能不完整，限制最大层级保证纹理完整
+        GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAX_LEVEL, levels - 1);
+        int error = GLES30.GL_NO_ERROR;
+        for (int level = 0; level < levels && error == GLES30.GL_NO_ERROR; level++) {
+            ByteBuffer data = ktx.getLevelData(level);
+            GLBackends.get().glCompressedTexImage2D(GLES30.GL_TEXTURE_2D, level, ktx.getInternalFormat(),
+                    ktx.getLevelWidth(level), ktx.getLevelHeight(level), 0, data.remaining(), data);
+            error = GLBackends.get().glGetError();
+            if (error != GLES30.GL_NO_ERROR) {
+                Log.e(TAG, "glCompressedTexImage2D failed at level " + level + ": 0x" + Integer.toHexString(error));
+            }
+        }
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, 0);
+        if (error != GLES30.GL_NO_ERROR) {
+            GLStateCache.deleteTextures(1, textureIds, 0);
+            return 0;
+        }
+        return textureIds[0];
+    }
+
+    public int getCompressedLoads() {
+        return mCompressedLoads;
+    }
+
+    public int getFallbackLoads() {
+        return mFallbackLoads;
+    }
+
+    // 以压缩格式上传的数据总字节数
+    public long getCompressedBytes() {
+        return mCompressedBytes;
+    }
+}
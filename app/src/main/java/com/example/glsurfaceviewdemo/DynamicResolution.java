@@ -0,0 +1,149 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+
+import com.example.glsurfaceviewdemo.core.ResolutionController;
+
+/**
+ * 动态分辨率：场景先画到缩放后的离屏目标，再用一次 glBlitFramebuffer 线性放大到窗口。
+ * <p>
+ * 离屏目标按窗口的完整尺寸分配一次，缩放只改变使用的视口区域，切换档位时不需要重新分配显存。
+ * 处于最高档（1.0x）时直接画到窗口，没有额外的拷贝。档位由 {@link ResolutionController} 根据帧耗时决定。
+ * <p>
+ * 用法：每帧 update(profiler) -> beginFrame() -> 绘制场景 -> endFrame()，所有方法都必须在 GL 线程调用。
+ */
+public class DynamicResolution {
+    private static final int[] ATTACHMENTS = {GLES30.GL_COLOR_ATTACHMENT0, GLES30.GL_DEPTH_ATTACHMENT};
+
+    private final ResolutionController mController;
+    private OffscreenTarget mTarget;
+    private int mSurfaceWidth = 0;
+    private int mSurfaceHeight = 0;
+    private int mScaledWidth = 0;
+    private int mScaledHeight = 0;
+    private boolean mScaling = false; // 本帧是否画到了离屏目标
+    private long mLastGpuSamples = 0;
+
+    /**
+     * @param minScale         最低缩放比例，例如 0.5
+     * @param levelCount       0.5x ~ 1.0x 之间的档位个数
+     * @param targetFrameNanos 每帧的目标耗时（通常略小于刷新周期）
+     */
+    public DynamicResolution(float minScale, int levelCount, long targetFrameNanos) {
+        mController = new ResolutionController(minScale, 1.0f, levelCount, targetFrameNanos);
+    }
+
+    /**
+     * 窗口尺寸变化（或 EGL 上下文重建）后调用，重新分配离屏目标并回到最高档
+     */
+    public void onSurfaceChanged(int width, int height) {
+        releaseTarget();
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+        mTarget = new OffscreenTarget(width, height, true); // 场景中的三维模型需要深度测试
+        mController.reset();
+    }
+
+    /**
+     * EGL 上下文重建后调用，旧的离屏目标已经随上下文销毁
+     */
+    public void onContextLost() {
+        mTarget = null;
+    }
+
+    /**
+     * 把上一帧的测量结果交给控制器：支持 GPU 计时时使用 GPU 耗时（填充率瓶颈只体现在这里），否则使用 CPU 耗时
+     */
+    public void update(FrameProfiler profiler) {
+        // 上一帧是按切换之前的档位绘制的，先计入停留时间
+        mController.advance(profiler.getLastFrameInterval());
+        if (profiler.isGpuTimerSupported()) {
+            long samples = profiler.getGpuSampleCount();
+            if (samples != mLastGpuSamples) {
+                mLastGpuSamples = samples;
+                mController.addSample(profiler.getLastGpuFrameTime());
+            }
+        } else if (profiler.getLastCpuFrameTime() > 0) {
+            mController.addSample(profiler.getLastCpuFrameTime());
+        }
+    }
+
+    /**
+     * 开始绘制场景：低于最高档时绑定离屏目标并把视口设为缩放后的尺寸，否则直接使用窗口
+     */
+    public void beginFrame() {
+        float scale = mController.getScale();
+        mScaling = mTarget != null && mTarget.isValid() && scale < 1.0f;
+        if (mScaling) {
+            mScaledWidth = Math.max(1, Math.round(mSurfaceWidth * scale));
+            mScaledHeight = Math.max(1, Math.round(mSurfaceHeight * scale));
+            mTarget.bind(mScaledWidth, mScaledHeight);
+        } else {
+            mScaledWidth = mSurfaceWidth;
+            mScaledHeight = mSurfaceHeight;
+            GLBackends.get().glViewport(0, 0, mSurfaceWidth, mSurfaceHeight);
+        }
+    }
+
+    /**
+     * 结束场景绘制：把缩放后的画面放大到窗口，之后的绘制（例如 UI）使用窗口的完整分辨率
+     */
+    public void endFrame() {
+        if (!mScaling) {
+            return;
+        }
+        GLBackends.get().glBindFramebuffer(GLES30.GL_READ_FRAMEBUFFER, mTarget.getFramebufferId());
+        GLBackends.get().glBindFramebuffer(GLES30.GL_DRAW_FRAMEBUFFER, 0);
+        GLBackends.get().glBlitFramebuffer(0, 0, mScaledWidth, mScaledHeight, 0, 0, mSurfaceWidth, mSurfaceHeight,
+                GLES30.GL_COLOR_BUFFER_BIT, GLES30.GL_LINEAR);
+        // 离屏内容已经用完，告诉驱动不需要写回内存（对分块渲染的 GPU 可以省掉一次带宽）
+        GLBackends.get().glInvalidateFramebuffer(GLES30.GL_READ_FRAMEBUFFER, ATTACHMENTS.length, ATTACHMENTS, 0);
+        GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        GLBackends.get().glViewport(0, 0, mSurfaceWidth, mSurfaceHeight);
+    }
+
+    /**
+     * 画面即将静止时调用（按需渲染下不会再有新的帧）：升档需要连续 {@link ResolutionController#UP_FRAMES} 帧的样本，
+     * 静止的画面等不到这些帧，直接回到最高档，调用方需要再以全分辨率画一帧
+     *
+     * @return 之前低于最高档、需要重画时返回 true
+     */
+    public boolean resetForIdle() {
+        if (mController.getScale() >= 1.0f) {
+            return false;
+        }
+        mController.reset(); // 同时清空耗时窗口，重画的这一帧不会立刻降档
+        return true;
+    }
+
+    // 当前缩放比例
+    public float getScale() {
+        return mController.getScale();
+    }
+
+    // 本帧场景实际使用的宽高
+    public int getScaledWidth() {
+        return mScaledWidth;
+    }
+
+    public int getScaledHeight() {
+        return mScaledHeight;
+    }
+
+    // 控制器，可以读取每个档位的停留时间等统计数据
+    public ResolutionController getController() {
+        return mController;
+    }
+
+    private void releaseTarget() {
+        if (mTarget != null) {
+            mTarget.release();
+            mTarget = null;
+        }
+    }
+
+    // 释放资源
+    public void release() {
+        releaseTarget();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.FilterGraph;
+import com.example.glsurfaceviewdemo.core.FilterPass;
+import com.example.glsurfaceviewdemo.core.ImageFilter;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 在 GL 线程执行 {@link FilterGraph}：每个 pass 用一个全屏三角形把上一步的结果画进对象池中的离屏目标，
+ * 两个目标来回交替（ping-pong），最后一个 pass 的输出纹理一直保留到下一次执行。
+ * <p>
+ * 每个 pass 的片段着色器由 {@link FilterPass} 生成，经 {@link ShaderController} 编译（可以命中程序二进制缓存），
+ * 按滤镜种类的组合缓存，修改参数只需要重新上传 uniform。滤镜链和参数都没有变化时直接返回上一次的输出，不执行任何 pass。
+ * <p>
+ * 所有方法都必须在 GL 线程调用。
+ */
+public class FilterPipeline {
+    private static final String TAG = "FilterPipeline";
+
+    private final Context mContext;
+    private final RenderTargetPool mPool = new RenderTargetPool();
+    private final HashMap<String, FilterProgram> mPrograms = new HashMap<>();
+    private String mVertexShader; // 第一次执行时加载
+    private final int[] mSavedState = new int[5]; // 执行前绑定的帧缓冲和视口
+
+    // 上一次的输出，以及生成它时的输入
+    private OffscreenTarget mOutput;
+    private long mOutputVersion = -1;
+    private int mOutputSource = 0;
+
+    // 统计数据
+    private long mRuns = 0;
+    private long mCachedRuns = 0;     // 没有变化、直接复用输出的次数
+    private long mTotalPasses = 0;
+    private int mLastPassCount = 0;
+    private int mLastFilterCount = 0;
+
+    public FilterPipeline(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * 对纹理执行滤镜链，返回结果纹理；滤镜链为空或执行失败时返回原来的纹理。
+     * 执行时会临时绑定离屏目标，返回前恢复调用时的帧缓冲和视口
+     *
+     * @param sourceTexture 输入纹理，行顺序和输出相同（例如从 Bitmap 上传的纹理）
+     * @param width         输出宽度（通常为图片宽度）
+     * @param height        输出高度
+     */
+    public int process(FilterGraph graph, int sourceTexture, int width, int height) {
+        if (graph == null || graph.isEmpty() || width <= 0 || height <= 0) {
+            releaseOutput();
+            return sourceTexture;
+        }
+        long version = graph.getVersion();
+        if (mOutput != null && version == mOutputVersion && sourceTexture == mOutputSource
+                && mOutput.getWidth() == width && mOutput.getHeight() == height) {
+            mCachedRuns++;
+            return mOutput.getTextureId();
+        }
+
+        if (mOutput != null && (mOutput.getWidth() != width || mOutput.getHeight() != height)) {
+            releaseOutput();
+            mPool.trim(); // 尺寸变了，旧尺寸的目标不会再被使用
+        } else {
+            releaseOutput();
+        }
+        if (mVertexShader == null) {
+            mVertexShader = ShaderController.loadShaderCodeFromFile("filter_vertex_shader.glsl", mContext);
+        }
+
+        GLBackends.get().glGetIntegerv(GLES30.GL_FRAMEBUFFER_BINDING, mSavedState, 0);
+        GLBackends.get().glGetIntegerv(GLES30.GL_VIEWPORT, mSavedState, 1);
+        // 全屏三角形不需要顶点属性，使用默认 VAO
+        GLStateCache.bindVertexArray(0);
+        GLStateCache.activeTexture(GLES30.GL_TEXTURE0);
+
+        List<FilterPass> passes = graph.getPasses();
+        int input = sourceTexture;
+        OffscreenTarget inputTarget = null;
+        boolean success = true;
+        for (int i = 0; i < passes.size(); i++) {
+            FilterPass pass = passes.get(i);
+            FilterProgram program = obtainProgram(pass);
+            OffscreenTarget target = program != null ? mPool.acquire(width, height) : null;
+            if (target == null) {
+                success = false;
+                break;
+            }
+            target.bind();
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, input);
+            program.apply(pass, 1.0f / width, 1.0f / height);
+            GLStateCache.drawArrays(GLES30.GL_TRIANGLES, 0, 3);
+            // 上一步的结果已经读完，归还给对象池，下一个 pass 会把它当作输出目标（ping-pong）
+            mPool.release(inputTarget);
+            inputTarget = target;
+            input = target.getTextureId();
+        }
+
+        GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mSavedState[0]);
+        GLBackends.get().glViewport(mSavedState[1], mSavedState[2], mSavedState[3], mSavedState[4]);
+        mRuns++;
+        if (!success) {
+            mPool.release(inputTarget);
+            mLastPassCount = 0;
+            return sourceTexture;
+        }
+        mOutput = inputTarget;
+        mOutputVersion = version;
+        mOutputSource = sourceTexture;
+        mLastPassCount = passes.size();
+        mLastFilterCount = graph.size();
+        mTotalPasses += passes.size();
+        return input;
+    }
+
+    // 获取 pass 对应的 program，第一次使用时编译；编译失败的组合会被记住，不再重复尝试
+    private FilterProgram obtainProgram(FilterPass pass) {
+        String key = pass.getKey();
+        if (mPrograms.containsKey(key)) {
+            return mPrograms.get(key);
+        }
+        FilterProgram program = null;
+        int id = ShaderController.createGLProgram(mVertexShader, pass.getFragmentShader());
+        if (id == 0) {
+            Log.e(TAG, "Failed to create filter program for " + key);
+        } else {
+            program = new FilterProgram(new ShaderProgram(id), pass);
+        }
+        mPrograms.put(key, program);
+        return program;
+    }
+
+    private void releaseOutput() {
+        if (mOutput != null) {
+            mPool.release(mOutput);
+            mOutput = null;
+            mOutputVersion = -1;
+        }
+    }
+
+    // 纹理对象池，可以查看分配的目标个数、峰值和显存占用
+    public RenderTargetPool getPool() {
+        return mPool;
+    }
+
+    // 实际执行滤镜链的次数
+    public long getRunCount() {
+        return mRuns;
+    }
+
+    // 没有变化、直接复用上一次输出的次数
+    public long getCachedRunCount() {
+        return mCachedRuns;
+    }
+
+    public long getTotalPassCount() {
+        return mTotalPasses;
+    }
+
+    // 上一次执行的 pass 数和滤镜数，两者之差就是合并省掉的 pass 数
+    public int getLastPassCount() {
+        return mLastPassCount;
+    }
+
+    public int getLastFilterCount() {
+        return mLastFilterCount;
+    }
+
+    // 已编译的 program 个数（每种滤镜组合一个）
+    public int getProgramCount() {
+        return mPrograms.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FilterPipeline{runs=" + mRuns + ", cached=" + mCachedRuns + ", lastPasses=" + mLastPassCount
+                + ", lastFilters=" + mLastFilterCount + ", programs=" + mPrograms.size() + ", " + mPool + "}";
+    }
+
+    // 释放资源
+    public void release() {
+        releaseOutput();
+        mPool.release();
+        for (FilterProgram program : mPrograms.values()) {
+            if (program != null) {
+                program.mProgram.release();
+            }
+        }
+        mPrograms.clear();
+    }
+
+    /**
+     * 一个 pass 的 program，以及每个滤镜的 uniform 在 {@link ShaderProgram} 中的下标
+     */
+    private static class FilterProgram implements ImageFilter.Uniforms {
+        final ShaderProgram mProgram;
+        private final int mSamplerIndex;
+        private final int mTexelSizeIndex;
+        private final int[][] mUniformIndices;
+        private int[] mCurrent; // 正在上传 uniform 的滤镜
+
+        FilterProgram(ShaderProgram program, FilterPass pass) {
+            mProgram = program;
+            mSamplerIndex = program.uniformIndex("uSampler");
+            // 只有采样滤镜用到，没有采样滤镜的 pass 中会被编译器优化掉
+            mTexelSizeIndex = pass.hasSamplingHead() ? program.uniformIndex("uTexelSize") : -1;
+            mUniformIndices = new int[pass.getFilterCount()][];
+            for (int i = 0; i < pass.getFilterCount(); i++) {
+                ImageFilter filter = pass.getFilter(i);
+                mUniformIndices[i] = new int[filter.getUniformCount()];
+                for (int u = 0; u < filter.getUniformCount(); u++) {
+                    mUniformIndices[i][u] = program.uniformIndex(FilterPass.uniformName(i, filter.getUniformName(u)));
+                }
+            }
+        }
+
+        // 激活 program 并上传所有滤镜的参数，值没有变化的 uniform 由 ShaderProgram 跳过
+        void apply(FilterPass pass, float texelWidth, float texelHeight) {
+            mProgram.use();
+            mProgram.setUniform1i(mSamplerIndex, 0);
+            mProgram.setUniform2f(mTexelSizeIndex, texelWidth, texelHeight);
+            for (int i = 0; i < mUniformIndices.length; i++) {
+                mCurrent = mUniformIndices[i];
+                pass.getFilter(i).applyUniforms(this);
+            }
+        }
+
+        @Override
+        public void set1f(int uniform, float x) {
+            mProgram.setUniform1f(mCurrent[uniform], x);
+        }
+
+        @Override
+        public void set2f(int uniform, float x, float y) {
+            mProgram.setUniform2f(mCurrent[uniform], x, y);
+        }
+
+        @Override
+        public void set4fv(int uniform, float[] value, int offset) {
+            mProgram.setUniform4fv(mCurrent[uniform], value, offset);
+        }
+
+        @Override
+        public void setMatrix4fv(int uniform, float[] value, int offset) {
+            mProgram.setUniformMatrix4fv(mCurrent[uniform], value, offset);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 帧性能分析器：统计每帧以及每个命名渲染阶段（pass）的 CPU 耗时、帧间隔、掉帧次数、
+ * 每帧的绘制调用和状态切换次数；驱动支持 GL_EXT_disjoint_timer_query 时还会统计每帧的 GPU 耗时。
+ * <p>
+ * 所有数据都记录在固定大小的 {@link LatencyHistogram} 中，记录过程不分配内存，可以在线上常开。
+ * 除 {@link #snapshot(boolean)} 外的方法都必须在 GL 线程调用；snapshot 可以在任意线程调用。
+ * <pre>
+ * int pass = profiler.registerPass("sprites"); // 初始化时注册
+ * profiler.beginFrame();
+ * profiler.beginPass(pass); ... profiler.endPass(pass);
+ * profiler.endFrame();
+ * </pre>
+ */
+public class FrameProfiler {
+    private static final String TAG = "FrameProfiler";
+    private static final String TIMER_QUERY_EXTENSION = "GL_EXT_disjoint_timer_query";
+    private static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    private static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+    private static final int QUERY_COUNT = 4; // GPU 计时结果通常滞后 1~3 帧，用环形队列轮流使用
+
+    private long mFrameBudgetNanos = 1_000_000_000L / 60;
+
+    private final LatencyHistogram mCpuFrameTime = new LatencyHistogram();
+    private final LatencyHistogram mFrameInterval = new LatencyHistogram();
+    private final LatencyHistogram mGpuFrameTime = new LatencyHistogram();
+    private final List<String> mPassNames = new ArrayList<>();
+    private final List<LatencyHistogram> mPassTimes = new ArrayList<>();
+    private long[] mPassStart = new long[0];
+
+    private long mFrameStart = 0;
+    private long mLastFrameStart = 0;
+    // 最近一次的测量值，供动态分辨率等需要逐帧反馈的模块读取（只在 GL 线程访问）
+    private long mLastFrameInterval = 0;
+    private long mLastCpuFrameTime = 0;
+    private long mLastGpuFrameTime = 0;
+    private long mGpuSamples = 0;
+    private long mFrames = 0;
+    private long mJankFrames = 0;  // 帧间隔超过 1.5 个刷新周期，说明至少错过了一次 vsync
+    private long mSlowFrames = 0;  // CPU 耗时超过一个刷新周期
+
+    // 每帧的绘制调用和状态切换（来自 GLStateCache）
+    private int mLastDrawCalls = 0;
+    private int mMaxDrawCalls = 0;
+    private long mTotalDrawCalls = 0;
+    private int mLastStateChanges = 0;
+    private int mMaxStateChanges = 0;
+    private long mTotalStateChanges = 0;
+    private long mTotalSkippedStateChanges = 0;
+
+    // GPU 计时
+    private boolean mGpuTimerSupported = false;
+    private final int[] mQueries = new int[QUERY_COUNT];
+    private final boolean[] mQueryPending = new boolean[QUERY_COUNT];
+    private int mQueryIndex = 0;
+    private boolean mQueryActive = false;
+    private final int[] mQueryResult = new int[1];
+
+    /**
+     * 在 onSurfaceCreated 中调用：检测并创建 GPU 计时查询对象
+     */
+    public void onSurfaceCreated() {
+        String extensions = GLES30.glGetString(GLES30.GL_EXTENSIONS);
+        mGpuTimerSupported = extensions != null && extensions.contains(TIMER_QUERY_EXTENSION);
+        Arrays.fill(mQueryPending, false);
+        mQueryActive = false;
+        if (mGpuTimerSupported) {
+            GLES30.glGenQueries(QUERY_COUNT, mQueries, 0);
+        }
+        Log.i(TAG, "GPU timer query " + (mGpuTimerSupported ? "enabled" : "not supported"));
+    }
+
+    /**
+     * 设置显示刷新率，用于计算每帧的时间预算（默认 60Hz）
+     */
+    public void setRefreshRate(float hz) {
+        if (hz > 0) {
+            mFrameBudgetNanos = (long) (1_000_000_000L / hz);
+        }
+    }
+
+    // 是否支持 GPU 计时（GL_EXT_disjoint_timer_query）
+    public boolean isGpuTimerSupported() {
+        return mGpuTimerSupported;
+    }
+
+    // 最近一次的帧间隔
+    public long getLastFrameInterval() {
+        return mLastFrameInterval;
+    }
+
+    // 最近一帧 onDrawFrame 的 CPU 耗时
+    public long getLastCpuFrameTime() {
+        return mLastCpuFrameTime;
+    }
+
+    // 最近取回的一次 GPU 耗时，结果比当前帧滞后 1~3 帧
+    public long getLastGpuFrameTime() {
+        return mLastGpuFrameTime;
+    }
+
+    // 已经取回的 GPU 计时结果个数，变化时说明有新的 GPU 耗时
+    public long getGpuSampleCount() {
+        return mGpuSamples;
+    }
+
+    /**
+     * 注册一个命名的渲染阶段，只应在初始化时调用
+     *
+     * @return 阶段 ID，用于 beginPass / endPass
+     */
+    public synchronized int registerPass(String name) {
+        int index = mPassNames.indexOf(name);
+        if (index >= 0) {
+            return index;
+        }
+        mPassNames.add(name);
+        mPassTimes.add(new LatencyHistogram());
+        mPassStart = Arrays.copyOf(mPassStart, mPassNames.size());
+        return mPassNames.size() - 1;
+    }
+
+    public void beginFrame() {
+        long now = System.nanoTime();
+        boolean hasPreviousFrame = mLastFrameStart != 0;
+        if (hasPreviousFrame) {
+            long interval = now - mLastFrameStart;
+            mLastFrameInterval = interval;
+            synchronized (this) {
+                mFrameInterval.record(interval);
+                if (interval > mFrameBudgetNanos + mFrameBudgetNanos / 2) {
+                    mJankFrames++;
+                }
+            }
+        }
+        mLastFrameStart = now;
+        mFrameStart = now;
+
+        // GLStateCache 的计数翻页，得到的是上一帧的数据
+        GLStateCache.beginFrame();
+        if (hasPreviousFrame) {
+            recordGLCounters(GLStateCache.getDrawCalls(), GLStateCache.getIssuedCalls(), GLStateCache.getSkippedCalls());
+        }
+
+        if (mGpuTimerSupported) {
+            collectGpuTimes();
+            beginGpuQuery();
+        }
+    }
+
+    public void endFrame() {
+        if (mQueryActive) {
+            GLES30.glEndQuery(GL_TIME_ELAPSED_EXT);
+            mQueryActive = false;
+        }
+        long cpuTime = System.nanoTime() - mFrameStart;
+        mLastCpuFrameTime = cpuTime;
+        synchronized (this) {
+            mCpuFrameTime.record(cpuTime);
+            mFrames++;
+            if (cpuTime > mFrameBudgetNanos) {
+                mSlowFrames++;
+            }
+        }
+    }
+
+    public void beginPass(int pass) {
+        mPassStart[pass] = System.nanoTime();
+    }
+
+    public void endPass(int pass) {
+        long duration = System.nanoTime() - mPassStart[pass];
+        synchronized (this) {
+            mPassTimes.get(pass).record(duration);
+        }
+    }
+
+    private synchronized void recordGLCounters(int drawCalls, int stateChanges, int skipped) {
+        mLastDrawCalls = drawCalls;
+        mMaxDrawCalls = Math.max(mMaxDrawCalls, drawCalls);
+        mTotalDrawCalls += drawCalls;
+        mLastStateChanges = stateChanges;
+        mMaxStateChanges = Math.max(mMaxStateChanges, stateChanges);
+        mTotalStateChanges += stateChanges;
+        mTotalSkippedStateChanges += skipped;
+    }
+
+    private void beginGpuQuery() {
+        int slot = mQueryIndex;
+        if (mQueryPending[slot]) {
+            return; // 结果还没取回，这一帧不计时，避免等待 GPU
+        }
+        GLES30.glBeginQuery(GL_TIME_ELAPSED_EXT, mQueries[slot]);
+        mQueryPending[slot] = true;
+        mQueryActive = true;
+        mQueryIndex = (slot + 1) % QUERY_COUNT;
+    }
+
+    // 取回所有已经完成的 GPU 计时结果，不会阻塞
+    private void collectGpuTimes() {
+        // 发生 disjoint（例如 GPU 降频或被抢占）时，所有未取回的结果都不可信
+        int[] result = mQueryResult;
+        GLES30.glGetIntegerv(GL_GPU_DISJOINT_EXT, result, 0);
+        boolean disjoint = result[0] != 0;
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int slot = (mQueryIndex + i) % QUERY_COUNT;
+            if (!mQueryPending[slot]) {
+                continue;
+            }
+            GLES30.glGetQueryObjectuiv(mQueries[slot], GLES30.GL_QUERY_RESULT_AVAILABLE, result, 0);
+            if (result[0] == 0) {
+                break; // 查询按顺序完成，后面的也还没好
+            }
+            GLES30.glGetQueryObjectuiv(mQueries[slot], GLES30.GL_QUERY_RESULT, result, 0);
+            mQueryPending[slot] = false;
+            if (!disjoint) {
+                mLastGpuFrameTime = result[0] & 0xFFFFFFFFL;
+                mGpuSamples++;
+                synchronized (this) {
+                    mGpuFrameTime.record(mLastGpuFrameTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取当前统计数据的快照
+     *
+     * @param reset 是否在取快照后清空统计数据（定期导出时使用）
+     */
+    public synchronized Snapshot snapshot(boolean reset) {
+        Snapshot snapshot = new Snapshot(this);
+        if (reset) {
+            mCpuFrameTime.reset();
+            mFrameInterval.reset();
+            mGpuFrameTime.reset();
+            for (LatencyHistogram pass : mPassTimes) {
+                pass.reset();
+            }
+            mFrames = 0;
+            mJankFrames = 0;
+            mSlowFrames = 0;
+            mMaxDrawCalls = 0;
+            mTotalDrawCalls = 0;
+            mMaxStateChanges = 0;
+            mTotalStateChanges = 0;
+            mTotalSkippedStateChanges = 0;
+        }
+        return snapshot;
+    }
+
+    // 释放 GPU 计时查询对象，在 GL 线程调用
+    public void release() {
+        if (mGpuTimerSupported) {
+            GLES30.glDeleteQueries(QUERY_COUNT, mQueries, 0);
+            mGpuTimerSupported = false;
+        }
+    }
+
+    /**
+     * 某一时刻的统计数据，所有耗时单位都是纳秒
+     */
+    public static class Snapshot {
+        public final long frames;
+        public final long jankFrames;
+        public final long slowFrames;
+        public final long frameBudgetNanos;
+        public final Percentiles cpuFrameTime;
+        public final Percentiles frameInterval;
+        public final Percentiles gpuFrameTime; // 不支持 GPU 计时时 count 为 0
+        public final String[] passNames;
+        public final Percentiles[] passTimes;
+        public final int lastDrawCalls;
+        public final int maxDrawCalls;
+        public final double avgDrawCalls;
+        public final int lastStateChanges;
+        public final int maxStateChanges;
+        public final double avgStateChanges;
+        public final long skippedStateChanges;
+
+        private Snapshot(FrameProfiler profiler) {
+            frames = profiler.mFrames;
+            jankFrames = profiler.mJankFrames;
+            slowFrames = profiler.mSlowFrames;
+            frameBudgetNanos = profiler.mFrameBudgetNanos;
+            cpuFrameTime = new Percentiles(profiler.mCpuFrameTime);
+            frameInterval = new Percentiles(profiler.mFrameInterval);
+            gpuFrameTime = new Percentiles(profiler.mGpuFrameTime);
+            int passCount = profiler.mPassNames.size();
+            passNames = profiler.mPassNames.toArray(new String[passCount]);
+            passTimes = new Percentiles[passCount];
+            for (int i = 0; i < passCount; i++) {
+                passTimes[i] = new Percentiles(profiler.mPassTimes.get(i));
+            }
+            lastDrawCalls = profiler.mLastDrawCalls;
+            maxDrawCalls = profiler.mMaxDrawCalls;
+            avgDrawCalls = frames == 0 ? 0.0 : (double) profiler.mTotalDrawCalls / frames;
+            lastStateChanges = profiler.mLastStateChanges;
+            maxStateChanges = profiler.mMaxStateChanges;
+            avgStateChanges = frames == 0 ? 0.0 : (double) profiler.mTotalStateChanges / frames;
+            skippedStateChanges = profiler.mTotalSkippedStateChanges;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("frames=").append(frames)
+                    .append(" jank=").append(jankFrames)
+                    .append(" slow=").append(slowFrames)
+                    .append(" cpu[").append(cpuFrameTime).append(']')
+                    .append(" interval[").append(frameInterval).append(']');
+            if (gpuFrameTime.count > 0) {
+                sb.append(" gpu[").append(gpuFrameTime).append(']');
+            }
+            for (int i = 0; i < passNames.length; i++) {
+                sb.append(' ').append(passNames[i]).append('[').append(passTimes[i]).append(']');
+            }
+            sb.append(String.format(Locale.US, " draws avg=%.1f max=%d state avg=%.1f max=%d skipped=%d",
+                    avgDrawCalls, maxDrawCalls, avgStateChanges, maxStateChanges, skippedStateChanges));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 一个直方图的摘要
+     */
+    public static class Percentiles {
+        public final long count;
+        public final long p50;
+        public final long p95;
+        public final long p99;
+        public final long max;
+
+        Percentiles(LatencyHistogram histogram) {
+            count = histogram.getCount();
+            p50 = histogram.getPercentile(50);
+            p95 = histogram.getPercentile(95);
+            p99 = histogram.getPercentile(99);
+            max = histogram.getMax();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    p50 / 1e6, p95 / 1e6, p99 / 1e6, max / 1e6);
+        }
+    }
+}
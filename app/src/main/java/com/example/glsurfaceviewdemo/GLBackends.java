@@ -0,0 +1,49 @@
+package com.example.glsurfaceviewdemo;
+
+import com.example.glsurfaceviewdemo.core.GLBackend;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.TrackingGLBackend;
+
+/**
+ * 当前使用的 GL 后端，默认是包装了 {@link GLES30Backend} 的 {@link TrackingGLBackend}。
+ * <p>
+ * 渲染器、{@link GLStateCache}、{@link ShaderController} 和 {@link ShaderProgram} 的 GL 命令都经过这里，
+ * 测试时可以在创建渲染器之前换成 RecordingGLBackend 统计每帧的调用。只能在 GL 线程切换。
+ * <p>
+ * 分配 GL 对象和显存的命令经过这里时记入 {@link #getMemoryTracker()}；记账只发生在创建、删除和上传时，
+ * 每帧的绑定只多写一个字段，可以在正式版本中保留。
+ */
+public class GLBackends {
+    private static final GpuMemoryTracker sMemoryTracker = new GpuMemoryTracker();
+    private static TrackingGLBackend sBackend = new TrackingGLBackend(GLES30Backend.INSTANCE, sMemoryTracker);
+
+    private GLBackends() {
+    }
+
+    public static GLBackend get() {
+        return sBackend;
+    }
+
+    /**
+     * 替换 GL 后端，传入 null 表示恢复默认的 GLES30 实现；新的后端同样会被记账。切换后会重置 {@link GLStateCache}
+     */
+    public static void set(GLBackend backend) {
+        sBackend = new TrackingGLBackend(backend == null ? GLES30Backend.INSTANCE : backend, sMemoryTracker);
+        GLStateCache.reset();
+    }
+
+    /**
+     * 所有 GL 对象和显存的账本
+     */
+    public static GpuMemoryTracker getMemoryTracker() {
+        return sMemoryTracker;
+    }
+
+    /**
+     * EGL 上下文重建后调用：旧上下文的对象全部作废，绑定回到 0
+     */
+    public static void onContextLost() {
+        sMemoryTracker.onContextLost();
+        sBackend.resetBindings();
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.glsurfaceviewdemo;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES30;
+import android.opengl.GLUtils;
+
+import com.example.glsurfaceviewdemo.core.GLBackend;
+
+import java.nio.Buffer;
+
+/**
+ * 默认的 GL 后端：每个方法直接转发给 GLES30 的同名静态方法。
+ * <p>
+ * 类是 final 的，{@link GLBackends} 中包装它的 TrackingGLBackend 也只有这一个被包装的实现，
+ * 调用点是单态的，JIT / AOT 会把接口调用内联成直接的 JNI 调用。
+ */
+public final class GLES30Backend implements GLBackend {
+    public static final GLES30Backend INSTANCE = new GLES30Backend();
+
+    private GLES30Backend() {
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        GLES30.glGenBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        GLES30.glGenTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        GLES30.glGenVertexArrays(n, arrays, offset);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        GLES30.glDeleteBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        GLES30.glDeleteTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) {
+        GLES30.glDeleteVertexArrays(n, arrays, offset);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        GLES30.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        GLES30.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        GLES30.glBindVertexArray(array);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        GLES30.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        GLES30.glUseProgram(program);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        GLES30.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        GLES30.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height,
+                             int border, int format, int type, Buffer pixels) {
+        GLES30.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalformat, Object bitmap, int width, int height) {
+        GLUtils.texImage2D(target, level, internalformat, (Bitmap) bitmap, 0);
+    }
+
+    @Override
+    public void texSubImage2D(int target, int level, int xoffset, int yoffset, Object bitmap, int width, int height) {
+        GLUtils.texSubImage2D(target, level, xoffset, yoffset, (Bitmap) bitmap);
+    }
+
+    @Override
+    public void glTexStorage2D(int target, int levels, int internalformat, int width, int height) {
+        GLES30.glTexStorage2D(target, levels, internalformat, width, height);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        GLES30.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        GLES30.glGenerateMipmap(target);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        GLES30.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        GLES30.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        GLES30.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        GLES30.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        GLES30.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        GLES30.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        GLES30.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        GLES30.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        GLES30.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        GLES30.glUniform4fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        GLES30.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        return GLES30.glCreateShader(type);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        GLES30.glShaderSource(shader, string);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        GLES30.glCompileShader(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        GLES30.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        return GLES30.glCreateProgram();
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        GLES30.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        GLES30.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        GLES30.glLinkProgram(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        GLES30.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        GLES30.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        return GLES30.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        return GLES30.glGetActiveAttrib(program, index, size, sizeOffset, type, typeOffset);
+    }
+
+    @Override
+    public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        return GLES30.glGetActiveUniform(program, index, size, sizeOffset, type, typeOffset);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        return GLES30.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        return GLES30.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int glGetError() {
+        return GLES30.glGetError();
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        GLES30.glGenFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        GLES30.glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        GLES30.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        GLES30.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        return GLES30.glCheckFramebufferStatus(target);
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        GLES30.glGenRenderbuffers(n, renderbuffers, offset);
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        GLES30.glDeleteRenderbuffers(n, renderbuffers, offset);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        GLES30.glBindRenderbuffer(target, renderbuffer);
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        GLES30.glRenderbufferStorage(target, internalformat, width, height);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        GLES30.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+    }
+
+    @Override
+    public void glBlitFramebuffer(int srcX0, int srcY0, int srcX1, int srcY1, int dstX0, int dstY0, int dstX1, int dstY1,
+                                  int mask, int filter) {
+        GLES30.glBlitFramebuffer(srcX0, srcY0, srcX1, srcY1, dstX0, dstY0, dstX1, dstY1, mask, filter);
+    }
+
+    @Override
+    public void glInvalidateFramebuffer(int target, int numAttachments, int[] attachments, int offset) {
+        GLES30.glInvalidateFramebuffer(target, numAttachments, attachments, offset);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        GLES30.glReadPixels(x, y, width, height, format, type, offset);
+    }
+
+    @Override
+    public Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        return GLES30.glMapBufferRange(target, offset, length, access);
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        return GLES30.glUnmapBuffer(target);
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        return GLES30.glFenceSync(condition, flags);
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        return GLES30.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        GLES30.glDeleteSync(sync);
+    }
+
+    @Override
+    public void glFlush() {
+        GLES30.glFlush();
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        GLES30.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        GLES30.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        GLES30.glClear(mask);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        GLES30.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        GLES30.glDisable(cap);
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        GLES30.glGetIntegerv(pname, params, offset);
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.glsurfaceviewdemo;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.opengl.GLES30;
 import android.opengl.GLSurfaceView;
-import android.opengl.Matrix;
 import android.util.Log;
 
+import com.example.glsurfaceviewdemo.core.FilterGraph;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.Mat4;
+import com.example.glsurfaceviewdemo.core.QuadScene;
+import com.example.glsurfaceviewdemo.core.RenderCommandList;
+import com.example.glsurfaceviewdemo.core.RenderCommandQueue;
+import com.example.glsurfaceviewdemo.core.ViewportMath;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
@@ -21,7 +29,39 @@ public class GLRenderTest implements GLSurfaceView.Renderer {
     private int mViewportHeight = 0; // 视口高
     private int mViewportX = 0; // 视口起始横坐标
     private int mViewportY = 0; // 视口起始纵坐标
-    private Bitmap mBitmap;
+    private int mImageWidth = 1; // 图片宽（异步加载完成前按正方形计算）
+    private int mImageHeight = 1; // 图片高
+    private AsyncTextureLoader mTextureLoader; // 异步纹理加载器
+    private CompressedTextureLoader mCompressedLoader; // KTX 压缩纹理加载器
+    private final TextureCache mTextureCache = new TextureCache(64L * 1024 * 1024); // 纹理缓存，显存预算 64MB
+    // 记录渲染器创建的 GL 对象，上下文丢失后先重建绘制用到的对象，其余的每帧在 2ms 预算内按优先级重建
+    private final GpuResourceRegistry mResources = new GpuResourceRegistry(GLStateCache::deleteResource);
+    private static final long RESTORE_BUDGET_NANOS = 2_000_000L;
+    private TextureCache.Texture mImageTexture; // 当前显示的图片纹理（持有一次引用）
+    private final FrameProfiler mFrameProfiler = new FrameProfiler(); // 帧性能分析器
+    private RenderScheduler mRenderScheduler; // 按需渲染调度器，可以为空（连续渲染）
+    private final RenderCommandQueue mCommandQueue; // 逻辑线程记录、GL 线程回放的命令队列
+    private RenderCommandPlayer mCommandPlayer; // 第一次收到命令时在 GL 线程创建
+    private PixelReadback mPixelReadback; // 截图的异步像素读回
+    private OffscreenTarget mCaptureTarget; // 截图使用的离屏目标，尺寸变化时重新创建
+    private final ConcurrentLinkedQueue<CaptureRequest> mCaptureRequests = new ConcurrentLinkedQueue<>();
+    private final float[] mCaptureMVPMatrix = new float[16];
+    private DynamicResolution mDynamicResolution; // 动态分辨率，为空时始终按窗口分辨率绘制
+    private volatile FilterGraph mFilterGraph; // 作用在图片上的滤镜链，可以为空
+    private TiledImageRenderer mTiledRenderer; // 大图分块显示，为空时显示整张纹理
+    private volatile float mTiledZoom = 1.0f; // 分块显示的缩放倍数和视图中心（图片宽高的比例，左上角为原点）
+    private volatile float mTiledCenterX = 0.5f;
+    private volatile float mTiledCenterY = 0.5f;
+    private final float[] mTiledMVPMatrix = new float[16];
+    private volatile QuadScene mScene; // 由大量矩形组成的二维场景，可以为空
+    private SceneRenderer mSceneRenderer; // 第一次绘制场景时在 GL 线程创建
+    private volatile float mSceneCenterX = 0.0f; // 场景相机：视图中心（世界坐标）和每个像素对应的世界单位
+    private volatile float mSceneCenterY = 0.0f;
+    private volatile float mSceneUnitsPerPixel = 1.0f;
+    private final float[] mSceneMVPMatrix = new float[16];
+    private volatile String mModelAsset; // 要绘制的 glTF 模型（assets 中的 .glb），可以为空
+    private volatile GlbMesh mModel; // 第一次绘制模型时在 GL 线程创建，文件变化时重新创建；shutdown 可能在其他线程读取
+    private boolean mDestroyed = false; // GL 资源已经释放，只在 GL 线程访问
 
     private float[] mProjectionMatrix = new float[16]; // 投影矩阵
     private float[] mViewMatrix = new float[16]; // 视图矩阵
@@ -29,13 +69,152 @@ public class GLRenderTest implements GLSurfaceView.Renderer {
 
     public GLRenderTest(Context context) {
         this.mContext = context;
-        mBitmap = loadImage();
+        ProgramBinaryCache.init(context); // 启用着色器程序二进制缓存
+        ShaderController.preloadShaders(context); // 在 GL surface 创建之前后台预加载着色器源码
+        // 图片在工作线程解码，不阻塞 UI 线程；GL surface 就绪前解码完成的图片会排队等待上传
+        mTextureLoader = new AsyncTextureLoader(context, this::requestRender);
+        mCompressedLoader = new CompressedTextureLoader(context);
+        // 命令发布后请求重新绘制，按需渲染模式下也能及时显示
+        mCommandQueue = new RenderCommandQueue(1024, this::requestRender);
+        mResources.setMemoryTracker(GLBackends.getMemoryTracker()); // 重建的对象仍然记在原来的所有者名下
+    }
+
+    // 设置按需渲染调度器，需要在 setRenderer 之前调用
+    public void setRenderScheduler(RenderScheduler scheduler) {
+        mRenderScheduler = scheduler;
+    }
+
+    /**
+     * 开启动态分辨率：场景按帧耗时在较低的分辨率下绘制后放大到窗口，需要在 setRenderer 之前调用
+     */
+    public void setDynamicResolution(DynamicResolution dynamicResolution) {
+        mDynamicResolution = dynamicResolution;
+    }
+
+    /**
+     * 设置作用在图片上的滤镜链，传入 null 取消，可以在任意线程调用。
+     * 滤镜链本身（添加滤镜、修改参数）只能在 GL 线程修改，例如通过 GLSurfaceView.queueEvent，修改后需要请求重新绘制
+     */
+    public void setFilterGraph(FilterGraph graph) {
+        mFilterGraph = graph;
+        requestRender();
+    }
+
+    /**
+     * 开启大图分块显示：只解码当前缩放层级下可见的瓦片，用于超过 GL_MAX_TEXTURE_SIZE 或整张解码内存不足的图片，
+     * 需要在 setRenderer 之前调用。开启后不再显示 loadImage 加载的图片（截图仍然使用它）
+     *
+     * @param path 图片文件路径
+     */
+    public void setTiledImage(String path) {
+        mTiledRenderer = new TiledImageRenderer(mContext, path, this::requestRender);
+    }
+
+    /**
+     * 设置分块显示的视图，可以在任意线程调用
+     *
+     * @param zoom    缩放倍数，1 为整张图片适配窗口
+     * @param centerX 视图中心在图片中的位置（0 ~ 1，左上角为原点）
+     * @param centerY
+     */
+    public void setTiledImageView(float zoom, float centerX, float centerY) {
+        mTiledZoom = zoom;
+        mTiledCenterX = centerX;
+        mTiledCenterY = centerY;
+        requestRender();
+    }
+
+    // 分块显示的统计数据（层级、解码、上传、缓存命中率），没有开启时为 null，在 GL 线程读取
+    public TiledImageRenderer getTiledImageRenderer() {
+        return mTiledRenderer;
+    }
+
+    /**
+     * 设置要绘制的二维场景，传入 null 取消，可以在任意线程调用。
+     * 场景本身（添加、移动、删除矩形）只能在 GL 线程修改，例如通过 GLSurfaceView.queueEvent，修改后需要请求重新绘制
+     */
+    public void setScene(QuadScene scene) {
+        mScene = scene;
+        requestRender();
+    }
+
+    /**
+     * 设置场景相机，可以在任意线程调用
+     *
+     * @param centerX       视图中心（世界坐标）
+     * @param unitsPerPixel 每个屏幕像素对应的世界单位，越小放得越大
+     */
+    public void setSceneCamera(float centerX, float centerY, float unitsPerPixel) {
+        mSceneCenterX = centerX;
+        mSceneCenterY = centerY;
+        mSceneUnitsPerPixel = unitsPerPixel;
+        requestRender();
+    }
+
+    // 场景渲染器（可以查看绘制调用次数），还没有绘制过场景时为 null，在 GL 线程读取
+    public SceneRenderer getSceneRenderer() {
+        return mSceneRenderer;
+    }
+
+    /**
+     * 设置要绘制的 glTF 二进制模型，传入 null 取消，可以在任意线程调用。
+     * 模型在 GL 线程增量加载，已经上传的部分会先显示出来
+     *
+     * @param assetName assets 中的 .glb 文件，例如 "model.glb"
+     */
+    public void setModel(String assetName) {
+        mModelAsset = assetName;
+        requestRender();
+    }
+
+    // 模型渲染器（可以查看已经上传的 primitive 个数和字节数），还没有绘制过模型时为 null，在 GL 线程读取
+    public GlbMesh getModel() {
+        return mModel;
+    }
+
+    // 滤镜执行器的统计数据（pass 数、纹理池使用情况），没有设置过滤镜链时为 null，在 GL 线程读取
+    public FilterPipeline getFilterPipeline() {
+        return mTextureRender.getFilterPipeline();
+    }
+
+    // 请求重新绘制（连续渲染模式下不需要）
+    private void requestRender() {
+        if (mRenderScheduler != null) {
+            mRenderScheduler.invalidate();
+        }
     }
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        GLES30.glClearColor(1.0f, 1.0f, 1.0f, 1.0f);
+        GLStateCache.reset(); // 新的 EGL 上下文，之前缓存的 GL 状态全部失效
+        GLBackends.onContextLost(); // 旧上下文中的对象不再占用显存
+        GLBackends.get().glClearColor(1.0f, 1.0f, 1.0f, 1.0f);
+        mFrameProfiler.onSurfaceCreated();
+        mTextureLoader.onSurfaceCreated();
+        mCompressedLoader.onSurfaceCreated();
+        mTextureCache.onContextLost(); // 旧上下文中的纹理已经随上下文销毁
+        mImageTexture = null;
         // mTriangle = new Triangle(mContext);
-        mTextureRender = new TextureRender(mContext, mBitmap);
+        if (mTextureRender == null) {
+            mTextureRender = new TextureRender(mContext, mResources); // 纹理加载完成前显示占位纹理
+            mTextureRender.setInvalidator(mRenderScheduler);
+        } else {
+            // 上下文丢失（暂停时没能保留上下文）：渲染器不重新创建，登记的对象（包括批量渲染器的 SpriteBatch）在绘制时按需重建
+            mResources.onContextLost();
+            mTextureRender.onContextLost();
+        }
+        if (mModel != null) {
+            mModel.cancelLoading();
+            mModel = null; // 旧上下文中的 VBO / VAO 已经失效，下次绘制时重新映射、上传
+        }
+        mPixelReadback = new PixelReadback();
+        mCaptureTarget = null;
+        if (mDynamicResolution != null) {
+            mDynamicResolution.onContextLost();
+        }
+        if (mTiledRenderer != null) {
+            mTiledRenderer.onSurfaceCreated(); // 内存中已经解码的瓦片保留，重新上传即可
+        }
+        loadImage();
     }
 
     @Override
@@ -47,70 +226,299 @@ public class GLRenderTest implements GLSurfaceView.Renderer {
         calculateViewport2(width, height); // 计算正交投影参数
         mTextureRender.setCustomMVPMatrix(mMVPMatrix); // 设置mvp矩阵给渲染器
 
-        // GLES30.glViewport(mViewportX, mViewportY, mViewportWidth, mViewportHeight); // 视口调整
-        GLES30.glViewport(0, 0,  width, height); // 正交矩阵从屏幕左上角开始即可
+        // GLBackends.get().glViewport(mViewportX, mViewportY, mViewportWidth, mViewportHeight); // 视口调整
+        GLBackends.get().glViewport(0, 0,  width, height); // 正交矩阵从屏幕左上角开始即可
+        if (mDynamicResolution != null) {
+            // 离屏目标和窗口同样大小，缩放时只改变视口，宽高比不变，mvp 矩阵不需要重新计算
+            mDynamicResolution.onSurfaceChanged(width, height);
+        }
     }
 
     @Override
     public void onDrawFrame(GL10 gl){
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        if (mRenderScheduler != null) {
+            mRenderScheduler.onFrameStarted();
+        }
+        mFrameProfiler.beginFrame();
+        mResources.beginFrame();
+        mTextureLoader.processCompleted(); // 交付已经上传完成的纹理
+        mPixelReadback.poll(); // 交付 GPU 已经完成的截图
+        if (mDynamicResolution != null) {
+            mDynamicResolution.update(mFrameProfiler); // 根据上一帧的耗时调整分辨率
+            mDynamicResolution.beginFrame();
+        }
+        mTextureRender.setFilterGraph(mFilterGraph, mImageWidth, mImageHeight);
+        GLBackends.get().glClear(GLES30.GL_COLOR_BUFFER_BIT);
         // mTriangle.draw();
-        mTextureRender.draw();
+        if (mTiledRenderer != null) {
+            drawTiledImage();
+        } else {
+            mTextureRender.draw();
+        }
+        drawScene();
+        drawModel();
+        drawCommands();
+        if (mDynamicResolution != null) {
+            mDynamicResolution.endFrame(); // 放大到窗口
+        }
+        drawCaptures();
+        if (mResources.getPendingCount() > 0) {
+            mResources.restorePending(RESTORE_BUDGET_NANOS); // 这一帧没有用到的对象在后台逐步重建
+            requestRender();
+        }
+        mFrameProfiler.endFrame();
+        if (mPixelReadback.hasPending()) {
+            requestRender(); // 按需渲染时继续出帧，直到读回交付
+        }
+        if (mRenderScheduler != null) {
+            if (mDynamicResolution != null && mRenderScheduler.isIdleAfterFrame()
+                    && mDynamicResolution.resetForIdle()) {
+                requestRender(); // 静止的画面不能停在降档后的分辨率，以全分辨率再画一帧
+            }
+            mRenderScheduler.onFrameRendered();
+        }
+    }
+
+
+    // 分块绘制大图：复用 calculateViewport2 的正交投影，在模型坐标中再叠加缩放和平移
+    private void drawTiledImage() {
+        if (!mTiledRenderer.isReady()) {
+            mTiledRenderer.draw(mMVPMatrix, mSurfaceWidth); // 文件打开后会通知重新绘制
+            return;
+        }
+        if (mImageWidth != mTiledRenderer.getImageWidth() || mImageHeight != mTiledRenderer.getImageHeight()) {
+            mImageWidth = mTiledRenderer.getImageWidth();
+            mImageHeight = mTiledRenderer.getImageHeight();
+            calculateViewport2(mSurfaceWidth, mSurfaceHeight);
+        }
+        Mat4.copy(mTiledMVPMatrix, 0, mMVPMatrix, 0);
+        Mat4.scale(mTiledMVPMatrix, 0, mTiledZoom, mTiledZoom, 1.0f);
+        // 图片占模型坐标的 [-1, 1]，y 轴向上
+        Mat4.translate(mTiledMVPMatrix, 0, 1.0f - mTiledCenterX * 2.0f, mTiledCenterY * 2.0f - 1.0f, 0.0f);
+        mTiledRenderer.draw(mTiledMVPMatrix, mSurfaceWidth);
     }
 
+    // 按场景相机的正交投影绘制场景，屏幕外的矩形在四叉树中被剔除
+    private void drawScene() {
+        QuadScene scene = mScene;
+        if (scene == null || mSurfaceWidth == 0 || mSurfaceHeight == 0) {
+            return;
+        }
+        if (mSceneRenderer == null) {
+            mSceneRenderer = new SceneRenderer(new SpriteBatch(mContext, mResources));
+        }
+        float halfWidth = mSurfaceWidth * mSceneUnitsPerPixel * 0.5f;
+        float halfHeight = mSurfaceHeight * mSceneUnitsPerPixel * 0.5f;
+        Mat4.ortho(mSceneMVPMatrix, 0, mSceneCenterX - halfWidth, mSceneCenterX + halfWidth,
+                mSceneCenterY - halfHeight, mSceneCenterY + halfHeight, -1.0f, 1.0f);
+        mSceneRenderer.draw(scene, mSceneMVPMatrix);
+    }
+
+    // 绘制 glTF 模型，深度测试只在绘制模型时开启
+    private void drawModel() {
+        String asset = mModelAsset;
+        if (mModel != null && (asset == null || !asset.equals(mModel.getAssetName()))) {
+            mModel.release();
+            mModel = null;
+        }
+        if (asset == null || mSurfaceWidth == 0 || mSurfaceHeight == 0) {
+            return;
+        }
+        if (mModel == null) {
+            mModel = new GlbMesh(mContext, asset, mRenderScheduler);
+        }
+        GLBackends.get().glClear(GLES30.GL_DEPTH_BUFFER_BIT);
+        mModel.draw((float) mSurfaceWidth / mSurfaceHeight);
+    }
+
+    // 回放逻辑线程发布的最新一帧命令，没有发布过命令时什么也不做
+    private void drawCommands() {
+        RenderCommandList commands = mCommandQueue.acquire();
+        if (commands == null) {
+            return;
+        }
+        if (mCommandPlayer == null) {
+            mCommandPlayer = new RenderCommandPlayer(new SpriteBatch(mContext, mResources));
+        }
+        mCommandPlayer.play(mCommandQueue, commands);
+    }
+
+    /**
+     * 渲染命令队列：逻辑线程通过 beginFrame / publish 记录精灵、矩阵和纹理命令，
+     * GL 线程每帧回放最新的一帧，可以调用 snapshot 查看队列深度、记录延迟和回放耗时
+     */
+    public RenderCommandQueue getCommandQueue() {
+        return mCommandQueue;
+    }
+
+    // 把图片按目标尺寸重新绘制到离屏目标，并发起异步读回
+    private void drawCaptures() {
+        CaptureRequest request;
+        while ((request = mCaptureRequests.poll()) != null) {
+            if (mCaptureTarget == null || mCaptureTarget.getWidth() != request.width
+                    || mCaptureTarget.getHeight() != request.height) {
+                if (mCaptureTarget != null) {
+                    mCaptureTarget.release();
+                }
+                mCaptureTarget = new OffscreenTarget(request.width, request.height);
+            }
+            if (!mCaptureTarget.isValid()) {
+                continue;
+            }
+            mCaptureTarget.bind();
+            GLBackends.get().glClear(GLES30.GL_COLOR_BUFFER_BIT);
+            calculateMVP(mCaptureMVPMatrix, request.width, request.height);
+            mTextureRender.draw(mCaptureMVPMatrix);
+            if (!mPixelReadback.request(0, 0, request.width, request.height, request.callback)) {
+                Log.w("GLRenderTest", "Capture dropped, all readback buffers busy");
+            }
+            mCaptureTarget.unbind();
+            GLBackends.get().glViewport(0, 0, mSurfaceWidth, mSurfaceHeight);
+        }
+    }
+
+    /**
+     * 请求一张截图：图片按 width x height 重新绘制到离屏目标，像素在之后的 1~2 帧通过 callback 交付（GL 线程），
+     * 可以交给 {@link CaptureEncoder} 在后台写成 PNG 或 RAW。可以在任意线程调用
+     */
+    public void requestCapture(int width, int height, PixelReadback.Callback callback) {
+        mCaptureRequests.offer(new CaptureRequest(width, height, callback));
+        requestRender();
+    }
+
+    // 截图的读回统计，在 GL 线程读取
+    public PixelReadback getPixelReadback() {
+        return mPixelReadback;
+    }
+
+    // 帧性能分析器，可定期调用 snapshot 导出统计数据
+    public FrameProfiler getFrameProfiler() {
+        return mFrameProfiler;
+    }
+
+    /**
+     * 释放所有 GL 资源，必须在 GL 线程调用，重复调用时什么也不做；之后账本中还存活的对象会作为泄漏打印出来
+     */
     public void onDestroy() {
+        if (mDestroyed) {
+            return;
+        }
+        mDestroyed = true;
         // mTriangle.release();
-        mBitmap.recycle(); // 回收bitmap
+        mTextureCache.release(mImageTexture);
+        mImageTexture = null;
+        mTextureCache.evictUnused();
         mTextureRender.release();
+        if (mCommandPlayer != null) {
+            mCommandPlayer.release();
+        }
+        mPixelReadback.release();
+        if (mDynamicResolution != null) {
+            mDynamicResolution.release();
+        }
+        if (mCaptureTarget != null) {
+            mCaptureTarget.release();
+        }
+        if (mTiledRenderer != null) {
+            mTiledRenderer.release();
+        }
+        if (mSceneRenderer != null) {
+            mSceneRenderer.release();
+        }
+        if (mModel != null) {
+            mModel.release();
+        }
+        GpuMemoryTracker tracker = GLBackends.getMemoryTracker();
+        if (tracker.getLeakCount() > 0) {
+            Log.w("GLRenderTest", tracker.report());
+        }
     }
 
-    // 加载图片
-    private Bitmap loadImage() {
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inScaled = false;
-        return BitmapFactory.decodeResource(mContext.getResources(), R.drawable.android_logo, options);
+    /**
+     * 停止所有工作线程（纹理解码和上传、大图瓦片解码、模型读取），可以在任意线程调用。
+     * 不删除 GL 对象：GL 对象由 onDestroy 在 GL 线程删除，上下文已经销毁时随上下文一起释放
+     */
+    public void shutdown() {
+        mTextureLoader.release();
+        if (mTiledRenderer != null) {
+            mTiledRenderer.stopDecoding();
+        }
+        GlbMesh model = mModel;
+        if (model != null) {
+            model.cancelLoading();
+        }
+    }
+
+    // 通过纹理缓存获取图片：优先使用 assets 中的 KTX 压缩纹理，不可用时异步解码 drawable；
+    // 纹理就绪后在 GL 线程替换占位纹理并按图片宽高比重新计算 mvp 矩阵
+    private void loadImage() {
+        mCompressedLoader.acquire(mTextureCache, "android_logo.ktx", mTextureLoader,
+                mTextureLoader.resourceDecoder(R.drawable.android_logo), texture -> {
+            mTextureCache.release(mImageTexture);
+            mImageTexture = texture;
+            if (mTiledRenderer != null) {
+                mTextureRender.setTexture(texture.textureId); // 分块显示时图片尺寸由大图决定
+                return;
+            }
+            mImageWidth = texture.width;
+            mImageHeight = texture.height;
+            if (mSurfaceWidth > 0 && mSurfaceHeight > 0) {
+                calculateViewport2(mSurfaceWidth, mSurfaceHeight);
+                mTextureRender.setCustomMVPMatrix(mMVPMatrix);
+            }
+            mTextureRender.setTexture(texture.textureId);
+        });
+    }
+
+    // 纹理缓存，用于查看命中率、淘汰次数和显存占用
+    public TextureCache getTextureCache() {
+        return mTextureCache;
+    }
+
+    // GPU 资源登记表，用于查看上下文丢失次数和重建耗时，在 GL 线程读取
+    public GpuResourceRegistry getResourceRegistry() {
+        return mResources;
+    }
+
+    // 显存账本：各类 GL 对象的数量和显存占用，可以随时调用 report() 导出
+    public GpuMemoryTracker getMemoryTracker() {
+        return GLBackends.getMemoryTracker();
     }
 
     // 视口变换：通过调整视口大小，保证图片不被拉伸
     private void calculateViewport() {
-        // 获取图片的宽高比
-        float imageRatio = (float) mBitmap.getWidth() / mBitmap.getHeight();
-        // 获取surface（窗口）的宽高比
-        float surfaceRatio = (float) mSurfaceWidth / mSurfaceHeight;
-
-        if (imageRatio > surfaceRatio) {
-            // 图片宽高比大于窗口的宽高比，按照宽度填满
-            mViewportWidth = mSurfaceWidth;
-            mViewportHeight = (int) (mSurfaceWidth / imageRatio);
-        } else {
-            // 图片宽高比小于等于窗口的宽高比，按照高度填满
-            mViewportWidth = (int) (mSurfaceHeight * imageRatio);
-            mViewportHeight = mSurfaceHeight;
-        }
-
-        // 计算视口的中心位置
-        mViewportX = (mSurfaceWidth - mViewportWidth) / 2;
-        mViewportY = (mSurfaceHeight - mViewportHeight) / 2;
+        int[] viewport = new int[4];
+        ViewportMath.fitViewport(mImageWidth, mImageHeight, mSurfaceWidth, mSurfaceHeight, viewport);
+        mViewportX = viewport[0];
+        mViewportY = viewport[1];
+        mViewportWidth = viewport[2];
+        mViewportHeight = viewport[3];
     }
     // 正交投影变换
     private void calculateViewport2(int width, int height) {
-        float imageAspectRatio = (float) mBitmap.getWidth() / (float) mBitmap.getHeight();
-        float surfaceAspectRatio = (float) width / (float) height;
-
-        if (imageAspectRatio > surfaceAspectRatio) {
-            // 图片宽高比大于屏幕,按照宽度填满计算高度
-            float tb = imageAspectRatio / surfaceAspectRatio;
-            // 计算投影矩阵
-            Matrix.orthoM(mProjectionMatrix, 0, -1.0f, 1.0f, -tb, tb, -1.0f, 1.0f);
-        } else {
-            // 图片宽高比小于等于屏幕,按照高度填满计算宽度
-            float tb = surfaceAspectRatio / imageAspectRatio;
-            // 计算投影矩阵
-            Matrix.orthoM(mProjectionMatrix, 0, -tb, tb, -1.0f, 1.0f, -1.0f, 1.0f);
-        }
+        calculateMVP(mMVPMatrix, width, height);
+    }
+
+    // 计算图片在 width x height 的目标上等比例显示的 mvp 矩阵
+    private void calculateMVP(float[] mvpMatrix, int width, int height) {
+        // 计算投影矩阵（按宽高比较大的一边填满）
+        ViewportMath.fitOrtho(mProjectionMatrix, 0, mImageWidth, mImageHeight, width, height);
         // 计算视图矩阵
-        Matrix.setLookAtM(mViewMatrix, 0, 0.0f, 0.0f, -1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        Mat4.lookAt(mViewMatrix, 0, 0.0f, 0.0f, -1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
         // 计算mvp矩阵
-        Matrix.multiplyMM(mMVPMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+        Mat4.multiply(mvpMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+    }
+
+    // 等待在 GL 线程处理的截图请求
+    private static class CaptureRequest {
+        final int width;
+        final int height;
+        final PixelReadback.Callback callback;
+
+        CaptureRequest(int width, int height, PixelReadback.Callback callback) {
+            this.width = width;
+            this.height = height;
+            this.callback = callback;
+        }
     }
 }
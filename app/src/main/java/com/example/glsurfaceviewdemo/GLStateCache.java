@@ -0,0 +1,373 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES11Ext;
+import android.opengl.GLES30;
+import android.util.SparseArray;
+
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+
+import java.util.Arrays;
+
+/**
+ * GL 状态缓存：记录当前的 program、缓冲绑定、VAO、激活的纹理单元、各单元绑定的纹理以及
+ * 最近一次上传的 uniform 值，对不会改变任何状态的调用直接跳过。
+ * <p>
+ * 只能在 GL 线程使用；一旦使用了这个类，所有的绑定操作都必须经过它，否则缓存会和驱动的真实状态不一致。
+ * EGL 上下文重建后（onSurfaceCreated）需要调用 {@link #reset()}。
+ */
+public class GLStateCache {
+    private static final int UNKNOWN = -1;
+    private static final int MAX_TEXTURE_UNITS = 32;
+
+    // 支持缓存的纹理目标，其余目标直接透传
+    private static final int[] TEXTURE_TARGETS = {
+            GLES30.GL_TEXTURE_2D,
+            GLES30.GL_TEXTURE_CUBE_MAP,
+            GLES30.GL_TEXTURE_3D,
+            GLES30.GL_TEXTURE_2D_ARRAY,
+            GLES11Ext.GL_TEXTURE_EXTERNAL_OES
+    };
+
+    private static int sProgram = UNKNOWN;
+    private static int sArrayBuffer = UNKNOWN;
+    private static int sElementArrayBuffer = UNKNOWN;
+    private static int sVertexArray = UNKNOWN;
+    private static int sActiveTextureUnit = UNKNOWN; // 0 表示 GL_TEXTURE0
+    private static final int[][] sBoundTextures = new int[MAX_TEXTURE_UNITS][TEXTURE_TARGETS.length];
+    // program -> (location -> 以原始 bit 形式保存的 uniform 值)
+    private static final SparseArray<SparseArray<int[]>> sUniforms = new SparseArray<>();
+    private static final int[] sDeleteIds = new int[1]; // deleteResource 使用，避免每次分配数组
+
+    // 统计数据：当前帧和上一帧实际下发 / 被跳过的调用次数，以及绘制调用次数
+    private static int sIssuedCalls = 0;
+    private static int sSkippedCalls = 0;
+    private static int sDrawCalls = 0;
+    private static int sLastFrameIssuedCalls = 0;
+    private static int sLastFrameSkippedCalls = 0;
+    private static int sLastFrameDrawCalls = 0;
+
+    static {
+        reset();
+    }
+
+    private GLStateCache() {
+    }
+
+    /**
+     * 丢弃所有缓存的状态，EGL 上下文创建或丢失之后调用
+     */
+    public static void reset() {
+        sProgram = UNKNOWN;
+        sArrayBuffer = UNKNOWN;
+        sElementArrayBuffer = UNKNOWN;
+        sVertexArray = UNKNOWN;
+        sActiveTextureUnit = UNKNOWN;
+        for (int[] unit : sBoundTextures) {
+            Arrays.fill(unit, UNKNOWN);
+        }
+        sUniforms.clear();
+    }
+
+    /**
+     * 开始新的一帧：把当前计数保存为上一帧的统计结果并清零
+     */
+    public static void beginFrame() {
+        sLastFrameIssuedCalls = sIssuedCalls;
+        sLastFrameSkippedCalls = sSkippedCalls;
+        sLastFrameDrawCalls = sDrawCalls;
+        sIssuedCalls = 0;
+        sSkippedCalls = 0;
+        sDrawCalls = 0;
+    }
+
+    // 上一帧实际下发给驱动的调用次数
+    public static int getIssuedCalls() {
+        return sLastFrameIssuedCalls;
+    }
+
+    // 上一帧被缓存跳过的调用次数
+    public static int getSkippedCalls() {
+        return sLastFrameSkippedCalls;
+    }
+
+    // 上一帧的绘制调用次数
+    public static int getDrawCalls() {
+        return sLastFrameDrawCalls;
+    }
+
+    public static void drawArrays(int mode, int first, int count) {
+        GLBackends.get().glDrawArrays(mode, first, count);
+        sDrawCalls++;
+    }
+
+    public static void drawElements(int mode, int count, int type, int offset) {
+        GLBackends.get().glDrawElements(mode, count, type, offset);
+        sDrawCalls++;
+    }
+
+    // 记录一次由调用方自行缓存（例如 ShaderProgram 的 uniform）并实际下发的调用
+    static void recordIssued() {
+        sIssuedCalls++;
+    }
+
+    // 记录一次由调用方自行缓存并跳过的调用
+    static void recordSkipped() {
+        sSkippedCalls++;
+    }
+
+    public static void useProgram(int program) {
+        if (sProgram == program) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glUseProgram(program);
+        sProgram = program;
+        sIssuedCalls++;
+    }
+
+    public static void bindBuffer(int target, int buffer) {
+        if (target == GLES30.GL_ARRAY_BUFFER) {
+            if (sArrayBuffer == buffer) {
+                sSkippedCalls++;
+                return;
+            }
+            sArrayBuffer = buffer;
+        } else if (target == GLES30.GL_ELEMENT_ARRAY_BUFFER) {
+            if (sElementArrayBuffer == buffer) {
+                sSkippedCalls++;
+                return;
+            }
+            sElementArrayBuffer = buffer;
+        }
+        GLBackends.get().glBindBuffer(target, buffer);
+        sIssuedCalls++;
+    }
+
+    public static void bindVertexArray(int vao) {
+        if (sVertexArray == vao) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glBindVertexArray(vao);
+        sVertexArray = vao;
+        // EBO 的绑定属于 VAO 状态，切换 VAO 后不再可知
+        sElementArrayBuffer = UNKNOWN;
+        sIssuedCalls++;
+    }
+
+    /**
+     * @param texture 纹理单元枚举值，例如 GLES30.GL_TEXTURE0
+     */
+    public static void activeTexture(int texture) {
+        int unit = texture - GLES30.GL_TEXTURE0;
+        if (sActiveTextureUnit == unit) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glActiveTexture(texture);
+        sActiveTextureUnit = unit;
+        sIssuedCalls++;
+    }
+
+    public static void bindTexture(int target, int texture) {
+        int targetIndex = textureTargetIndex(target);
+        int unit = sActiveTextureUnit;
+        if (targetIndex >= 0 && unit >= 0 && unit < MAX_TEXTURE_UNITS) {
+            if (sBoundTextures[unit][targetIndex] == texture) {
+                sSkippedCalls++;
+                return;
+            }
+            sBoundTextures[unit][targetIndex] = texture;
+        }
+        GLBackends.get().glBindTexture(target, texture);
+        sIssuedCalls++;
+    }
+
+    public static void uniform1i(int location, int value) {
+        int[] slot = uniformSlot(location, 1);
+        if (slot != null && slot[0] == value && slot[1] != 0) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glUniform1i(location, value);
+        if (slot != null) {
+            slot[0] = value;
+            slot[1] = 1;
+        }
+        sIssuedCalls++;
+    }
+
+    public static void uniform1f(int location, float value) {
+        int[] slot = uniformSlot(location, 1);
+        int bits = Float.floatToRawIntBits(value);
+        if (slot != null && slot[0] == bits && slot[1] != 0) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glUniform1f(location, value);
+        if (slot != null) {
+            slot[0] = bits;
+            slot[1] = 1;
+        }
+        sIssuedCalls++;
+    }
+
+    public static void uniform4f(int location, float x, float y, float z, float w) {
+        int[] slot = uniformSlot(location, 4);
+        if (slot != null && slot[4] != 0
+                && slot[0] == Float.floatToRawIntBits(x)
+                && slot[1] == Float.floatToRawIntBits(y)
+                && slot[2] == Float.floatToRawIntBits(z)
+                && slot[3] == Float.floatToRawIntBits(w)) {
+            sSkippedCalls++;
+            return;
+        }
+        GLBackends.get().glUniform4f(location, x, y, z, w);
+        if (slot != null) {
+            slot[0] = Float.floatToRawIntBits(x);
+            slot[1] = Float.floatToRawIntBits(y);
+            slot[2] = Float.floatToRawIntBits(z);
+            slot[3] = Float.floatToRawIntBits(w);
+            slot[4] = 1;
+        }
+        sIssuedCalls++;
+    }
+
+    public static void uniform4fv(int location, float[] value, int offset) {
+        uniformFloats(location, value, offset, 4, false);
+    }
+
+    public static void uniformMatrix4fv(int location, float[] value, int offset) {
+        uniformFloats(location, value, offset, 16, true);
+    }
+
+    private static void uniformFloats(int location, float[] value, int offset, int count, boolean matrix) {
+        int[] slot = uniformSlot(location, count);
+        if (slot != null && slot[count] != 0 && sameBits(slot, value, offset, count)) {
+            sSkippedCalls++;
+            return;
+        }
+        if (matrix) {
+            GLBackends.get().glUniformMatrix4fv(location, 1, false, value, offset);
+        } else {
+            GLBackends.get().glUniform4fv(location, 1, value, offset);
+        }
+        if (slot != null) {
+            for (int i = 0; i < count; i++) {
+                slot[i] = Float.floatToRawIntBits(value[offset + i]);
+            }
+            slot[count] = 1;
+        }
+        sIssuedCalls++;
+    }
+
+    private static boolean sameBits(int[] slot, float[] value, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (slot[i] != Float.floatToRawIntBits(value[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 获取当前 program 中某个 uniform 的缓存槽，最后一个元素标记是否已经写入过
+    private static int[] uniformSlot(int location, int count) {
+        if (location < 0 || sProgram <= 0) {
+            return null;
+        }
+        SparseArray<int[]> slots = sUniforms.get(sProgram);
+        if (slots == null) {
+            slots = new SparseArray<>();
+            sUniforms.put(sProgram, slots);
+        }
+        int[] slot = slots.get(location);
+        if (slot == null || slot.length != count + 1) {
+            slot = new int[count + 1];
+            slots.put(location, slot);
+        }
+        return slot;
+    }
+
+    private static int textureTargetIndex(int target) {
+        for (int i = 0; i < TEXTURE_TARGETS.length; i++) {
+            if (TEXTURE_TARGETS[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * program 重新链接之后，其 uniform 值会被重置，需要丢弃对应的缓存
+     */
+    public static void invalidateProgram(int program) {
+        sUniforms.remove(program);
+    }
+
+    public static void deleteProgram(int program) {
+        GLBackends.get().glDeleteProgram(program);
+        if (sProgram == program) {
+            sProgram = UNKNOWN;
+        }
+        sUniforms.remove(program);
+    }
+
+    public static void deleteBuffers(int n, int[] buffers, int offset) {
+        GLBackends.get().glDeleteBuffers(n, buffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            // 删除正在绑定的缓冲会使其绑定点回到 0
+            if (sArrayBuffer == buffers[i]) {
+                sArrayBuffer = 0;
+            }
+            if (sElementArrayBuffer == buffers[i]) {
+                sElementArrayBuffer = 0;
+            }
+        }
+    }
+
+    public static void deleteVertexArrays(int n, int[] arrays, int offset) {
+        GLBackends.get().glDeleteVertexArrays(n, arrays, offset);
+        for (int i = offset; i < offset + n; i++) {
+            if (sVertexArray == arrays[i]) {
+                sVertexArray = 0;
+                sElementArrayBuffer = UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * 删除 {@link GpuResourceRegistry} 中登记的对象，可以直接作为登记表的 Deleter（GLStateCache::deleteResource）
+     */
+    public static void deleteResource(int kind, int id) {
+        sDeleteIds[0] = id;
+        switch (kind) {
+            case GpuResourceRegistry.PROGRAM:
+                deleteProgram(id);
+                break;
+            case GpuResourceRegistry.BUFFER:
+                deleteBuffers(1, sDeleteIds, 0);
+                break;
+            case GpuResourceRegistry.TEXTURE:
+                deleteTextures(1, sDeleteIds, 0);
+                break;
+            case GpuResourceRegistry.VERTEX_ARRAY:
+                deleteVertexArrays(1, sDeleteIds, 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public static void deleteTextures(int n, int[] textures, int offset) {
+        GLBackends.get().glDeleteTextures(n, textures, offset);
+        for (int i = offset; i < offset + n; i++) {
+            for (int[] unit : sBoundTextures) {
+                for (int t = 0; t < unit.length; t++) {
+                    if (unit[t] == textures[i]) {
+                        unit[t] = 0;
+                    }
+                }
+            }
+        }
+    }
+}
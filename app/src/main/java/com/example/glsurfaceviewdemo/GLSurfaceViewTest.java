@@ -1,23 +1,62 @@
 package com.example.glsurfaceviewdemo;
 
 import android.content.Context;
+import android.hardware.display.DisplayManager;
 import android.opengl.GLSurfaceView;
 import android.util.AttributeSet;
+import android.view.Display;
 
 public class GLSurfaceViewTest extends GLSurfaceView {
     private GLRenderTest mGlRenderTest;
+    private RenderScheduler mRenderScheduler;
     public GLSurfaceViewTest(Context context) {
         super(context);
 
         // 设置OpenGL ES版本（由于3.0兼容2.0，我们使用3.0）
         setEGLContextClientVersion(3);
+        // 暂停时尽量保留 EGL 上下文，恢复时不需要重新创建任何 GL 对象；设备不支持时由 GpuResourceRegistry 按需重建。
+        // Activity 的 onPause / onResume 必须转发给本 View（见 MainActivity）
+        setPreserveEGLContextOnPause(true);
 
         // 设置渲染器Renderer，函数调用后，里面会启动一个新线程构造EGL环境
         mGlRenderTest = new GLRenderTest(context);
+        // 画面静止时不再每个 vsync 都重绘，只有渲染器内容失效时才绘制
+        mRenderScheduler = new RenderScheduler(this);
+        mGlRenderTest.setRenderScheduler(mRenderScheduler);
+        // 按屏幕实际刷新率计算每帧的时间预算
+        DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        Display display = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
+        float refreshRate = 60.0f;
+        if (display != null) {
+            refreshRate = display.getRefreshRate();
+            mGlRenderTest.getFrameProfiler().setRefreshRate(refreshRate);
+            mRenderScheduler.setRefreshRate(refreshRate);
+        }
+        // 动态分辨率：帧耗时超过刷新周期的 85% 时降低场景分辨率（0.5x ~ 1.0x，5 档），1.0x 时没有额外开销
+        long targetFrameNanos = (long) (1_000_000_000L / refreshRate * 0.85);
+        mGlRenderTest.setDynamicResolution(new DynamicResolution(0.5f, 5, targetFrameNanos));
         setRenderer(mGlRenderTest);
+        mRenderScheduler.start();
     }
 
+    // 按需渲染调度器，动画期间可通过 beginContinuous / requestContinuousFor 临时连续渲染
+    public RenderScheduler getRenderScheduler() {
+        return mRenderScheduler;
+    }
+
+    /**
+     * 释放渲染器的 GL 资源：排队到 GL 线程执行，在 onPause 之前调用时上下文一定还在
+     */
+    public void releaseGL() {
+        queueEvent(mGlRenderTest::onDestroy);
+    }
+
+    /**
+     * Activity 销毁时调用（包括配置变化）：停止渲染器的工作线程，并排队释放 GL 资源。
+     * 已经通过 releaseGL 释放过时 GL 部分什么也不做；上下文已经销毁时 GL 对象随上下文一起释放
+     */
     public void onDestroy() {
-        mGlRenderTest.onDestroy();
+        releaseGL();
+        mGlRenderTest.shutdown();
     }
 }
@@ -0,0 +1,389 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.opengl.GLES30;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import com.example.glsurfaceviewdemo.core.GLBackend;
+import com.example.glsurfaceviewdemo.core.GlbModel;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.Mat4;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从 assets 加载并绘制 glTF 二进制模型（.glb）。
+ * <p>
+ * 文件被直接映射成内存（assets 中的 .glb 不压缩存放，见 build.gradle.kts 的 noCompress），
+ * 每个 bufferView 以映射缓冲区切片的形式交给 glBufferData 生成一个 VBO / EBO，中间没有 Java 数组；
+ * 每个 primitive 一个 VAO，属性指针直接使用 accessor 中的类型、步长和偏移。
+ * 上传按 primitive 增量进行，每帧不超过 2ms，已经上传的部分先显示出来；
+ * asset 被压缩而无法映射时，在后台线程把文件读进直接缓冲区，读到哪里解析到哪里。
+ * 除构造函数外所有方法都必须在 GL 线程调用。
+ */
+public class GlbMesh {
+    private static final String TAG = "GlbMesh";
+    private static final long UPLOAD_BUDGET_NANOS = 2_000_000L;
+    private static final int READ_CHUNK = 64 * 1024;
+    private static final int MAX_STREAM_LENGTH = 256 * 1024 * 1024;
+    // 属性 location，与 mesh_vertex.glsl 对应
+    private static final int POSITION_LOCATION = 0;
+    private static final int NORMAL_LOCATION = 1;
+
+    private final GLBackend mGL = GLBackends.get(); // GL 命令的后端，创建时确定
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者
+    private final String mAssetName;
+    private final RenderInvalidator mInvalidator;
+    private ShaderProgram mProgram;
+    private int mMVPMatrixIndex = -1;
+    private int mColorIndex = -1;
+    private final float[] mColor = new float[]{0.8f, 0.8f, 0.8f, 1.0f};
+    private final float[] mMVPMatrix = new float[16];
+    private final float[] mProjectionMatrix = new float[16];
+    private final float[] mViewMatrix = new float[16];
+    private final float[] mBounds = new float[6];
+
+    private GlbModel mModel; // 数据可用后在 GL 线程创建
+    private int mMappedLength = 0; // 映射的文件长度，按流读取时为 0
+    private boolean mFailed = false;
+    // 后台读取时使用：缓冲区的视图先于 mStreamAvailable 发布，GL 线程读到 mStreamAvailable 后才访问缓冲区
+    private ByteBuffer mStreamData;
+    private volatile int mStreamAvailable = 0;
+    private volatile boolean mStreamFailed = false;
+    private volatile Thread mStreamThread; // shutdown 可能在其他线程读取
+
+    private final SparseIntArray mBufferIds = new SparseIntArray(); // bufferView 下标 -> VBO / EBO
+    private final List<Part> mParts = new ArrayList<>(); // 已经上传、可以绘制的 primitive
+    private int mSkippedPrimitives = 0;
+    private long mUploadedBytes = 0;
+
+    // 一个已经上传的 primitive
+    private static class Part {
+        int vaoId;
+        int mode;
+        int count;
+        int indexType; // 0 表示没有索引，使用 glDrawArrays
+        int indexOffset;
+    }
+
+    /**
+     * @param assetName   assets 中的 .glb 文件
+     * @param invalidator 新的数据就绪后请求重新绘制，可以为空（连续渲染）
+     */
+    public GlbMesh(Context context, String assetName, RenderInvalidator invalidator) {
+        mAssetName = assetName;
+        mInvalidator = invalidator;
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            String vertexShaderCode = ShaderController.loadShaderCodeFromFile("mesh_vertex.glsl", context);
+            String fragmentShaderCode = ShaderController.loadShaderCodeFromFile("mesh_fragment.glsl", context);
+            mProgram = new ShaderProgram(ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode));
+            mMVPMatrixIndex = mProgram.uniformIndex("uMVPMatrix");
+            mColorIndex = mProgram.uniformIndex("uColor");
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+        AssetManager assets = context.getApplicationContext().getAssets();
+        try {
+            ByteBuffer mapped = mapAsset(assets, assetName);
+            mMappedLength = mapped.remaining();
+            mModel = new GlbModel(mapped);
+        } catch (FileNotFoundException e) {
+            // 不存在，或者被压缩存放（openFd 不能打开压缩的 asset），尝试按流读取
+            startStreaming(assets);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to map " + assetName, e);
+            mFailed = true;
+        }
+    }
+
+    // 把 asset 映射成只读的直接缓冲区；通道关闭后映射依然有效
+    private static ByteBuffer mapAsset(AssetManager assets, String assetName) throws IOException {
+        try (AssetFileDescriptor afd = assets.openFd(assetName);
+             FileInputStream input = afd.createInputStream();
+             FileChannel channel = input.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getLength());
+        }
+    }
+
+    // 在后台线程按块读取 asset：先读 12 字节的文件头得到总长度，再逐块填入直接缓冲区
+    private void startStreaming(AssetManager assets) {
+        mStreamThread = new Thread(() -> {
+            try (InputStream input = assets.open(mAssetName)) {
+                byte[] chunk = new byte[READ_CHUNK];
+                int headerRead = 0;
+                while (headerRead < 12) {
+                    int read = input.read(chunk, headerRead, 12 - headerRead);
+                    if (read < 0) {
+                        throw new IOException("Truncated GLB header");
+                    }
+                    headerRead += read;
+                }
+                int length = ByteBuffer.wrap(chunk, 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+                if (length < 12 || length > MAX_STREAM_LENGTH) {
+                    throw new IOException("Invalid GLB length " + length);
+                }
+                ByteBuffer data = ByteBuffer.allocateDirect(length);
+                // GL 线程使用独立的视图，position 固定为 0，不受这里写入时移动的 position 影响
+                mStreamData = data.duplicate();
+                data.put(chunk, 0, 12);
+                mStreamAvailable = 12;
+                while (data.hasRemaining() && !Thread.currentThread().isInterrupted()) {
+                    int read = input.read(chunk, 0, Math.min(chunk.length, data.remaining()));
+                    if (read < 0) {
+                        throw new IOException("Truncated GLB: " + data.position() + " of " + length + " bytes");
+                    }
+                    data.put(chunk, 0, read);
+                    mStreamAvailable = data.position();
+                    invalidate();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read " + mAssetName, e);
+                mStreamFailed = true;
+                invalidate();
+            }
+        }, "GlbMesh-" + mAssetName);
+        mStreamThread.start();
+    }
+
+    private void invalidate() {
+        if (mInvalidator != null) {
+            mInvalidator.invalidate();
+        }
+    }
+
+    /**
+     * 解析新到达的数据，在预算内上传已经就绪的 primitive 并绘制已经上传的部分
+     *
+     * @param aspect 视口宽高比
+     */
+    public void draw(float aspect) {
+        update();
+        if (mParts.isEmpty()) {
+            return;
+        }
+        if (!mModel.getBounds(mBounds)) {
+            mBounds[0] = mBounds[1] = mBounds[2] = -1.0f;
+            mBounds[3] = mBounds[4] = mBounds[5] = 1.0f;
+        }
+        // 相机看向包围盒中心，距离按包围球半径确定，整个模型都在视野内
+        float centerX = (mBounds[0] + mBounds[3]) * 0.5f;
+        float centerY = (mBounds[1] + mBounds[4]) * 0.5f;
+        float centerZ = (mBounds[2] + mBounds[5]) * 0.5f;
+        float dx = mBounds[3] - mBounds[0];
+        float dy = mBounds[4] - mBounds[1];
+        float dz = mBounds[5] - mBounds[2];
+        float radius = Math.max(0.5f * (float) Math.sqrt(dx * dx + dy * dy + dz * dz), 1e-4f);
+        float distance = radius * 2.6f; // 45 度视野下包围球恰好可见，并留出边距
+        Mat4.perspective(mProjectionMatrix, 0, 45.0f, aspect, distance - radius * 1.5f, distance + radius * 1.5f);
+        Mat4.lookAt(mViewMatrix, 0, centerX, centerY + distance * 0.4f, centerZ + distance * 0.92f,
+                centerX, centerY, centerZ, 0.0f, 1.0f, 0.0f);
+        Mat4.multiply(mMVPMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+
+        mGL.glEnable(GLES30.GL_DEPTH_TEST);
+        mProgram.use();
+        mProgram.setUniformMatrix4fv(mMVPMatrixIndex, mMVPMatrix, 0);
+        mProgram.setUniform4fv(mColorIndex, mColor, 0);
+        for (int i = 0; i < mParts.size(); i++) {
+            Part part = mParts.get(i);
+            GLStateCache.bindVertexArray(part.vaoId);
+            if (part.indexType != 0) {
+                GLStateCache.drawElements(part.mode, part.count, part.indexType, part.indexOffset);
+            } else {
+                GLStateCache.drawArrays(part.mode, 0, part.count);
+            }
+        }
+        GLStateCache.bindVertexArray(0);
+        mGL.glDisable(GLES30.GL_DEPTH_TEST);
+    }
+
+    // 推进解析并上传就绪的 primitive；还有没上传的部分时请求下一帧继续
+    private void update() {
+        if (mFailed) {
+            return;
+        }
+        int available = mMappedLength; // 映射的文件一开始就是完整的
+        if (mStreamThread != null) {
+            if (mStreamFailed) {
+                mFailed = true;
+                return;
+            }
+            available = mStreamAvailable;
+            if (available == 0) {
+                return; // 后台还没有读到文件头
+            }
+            if (mModel == null) {
+                mModel = new GlbModel(mStreamData);
+            }
+        }
+        try {
+            if (!mModel.isComplete()) {
+                mModel.advance(available);
+                if (mStreamThread == null && !mModel.isComplete()) {
+                    throw new IOException("Truncated GLB: " + available + " of " + mModel.getLength() + " bytes");
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to parse " + mAssetName, e);
+            mFailed = true;
+            return;
+        }
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            upload();
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+        if (mModel.getReadyCount() > mParts.size() + mSkippedPrimitives || !mModel.isComplete()) {
+            invalidate();
+        }
+    }
+
+    // 在预算内上传就绪的 primitive，至少上传一个
+    private void upload() {
+        long start = System.nanoTime();
+        GlbModel.Primitive primitive;
+        while ((primitive = mModel.poll()) != null) {
+            Part part = createPart(primitive);
+            if (part != null) {
+                mParts.add(part);
+            } else {
+                mSkippedPrimitives++;
+            }
+            if (System.nanoTime() - start > UPLOAD_BUDGET_NANOS) {
+                break;
+            }
+        }
+    }
+
+    // 为 primitive 创建 VAO，用到的 bufferView 第一次出现时上传
+    private Part createPart(GlbModel.Primitive primitive) {
+        GlbModel.Accessor position = primitive.getAttribute("POSITION");
+        if (position == null) {
+            Log.w(TAG, mAssetName + ": primitive " + primitive.getIndex() + " has no POSITION, skipped");
+            return null;
+        }
+        GlbModel.Accessor normal = primitive.getAttribute("NORMAL");
+        GlbModel.Accessor indices = primitive.getIndices();
+        // 上传时不能影响其他 VAO 中的 EBO 绑定
+        GLStateCache.bindVertexArray(0);
+        int positionBuffer = requireBuffer(position.getBufferView(), GLES30.GL_ARRAY_BUFFER);
+        int normalBuffer = normal != null ? requireBuffer(normal.getBufferView(), GLES30.GL_ARRAY_BUFFER) : 0;
+        int indexBuffer = indices != null ? requireBuffer(indices.getBufferView(), GLES30.GL_ELEMENT_ARRAY_BUFFER) : 0;
+
+        int[] vaos = new int[1];
+        mGL.glGenVertexArrays(1, vaos, 0);
+        Part part = new Part();
+        part.vaoId = vaos[0];
+        part.mode = primitive.getMode(); // glTF 的 mode 与 GL 的图元枚举值相同
+        part.count = primitive.getDrawCount();
+        GLStateCache.bindVertexArray(part.vaoId);
+        setAttribute(POSITION_LOCATION, position, positionBuffer);
+        if (normal != null) {
+            setAttribute(NORMAL_LOCATION, normal, normalBuffer);
+        }
+        if (indices != null) {
+            GLStateCache.bindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, indexBuffer);
+            part.indexType = indices.getComponentType();
+            part.indexOffset = indices.getByteOffset();
+        }
+        GLStateCache.bindVertexArray(0);
+        return part;
+    }
+
+    // 类型、normalized、步长和偏移都直接来自 accessor，顶点数据保持文件中的布局
+    private void setAttribute(int location, GlbModel.Accessor accessor, int bufferId) {
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, bufferId);
+        mGL.glEnableVertexAttribArray(location);
+        mGL.glVertexAttribPointer(location, accessor.getComponents(), accessor.getComponentType(),
+                accessor.isNormalized(), accessor.getByteStride(), accessor.getByteOffset());
+    }
+
+    // 每个 bufferView 上传一次，数据是映射缓冲区的切片；文件没有指定 target 时按第一次的用途上传
+    private int requireBuffer(GlbModel.BufferView view, int defaultTarget) {
+        int bufferId = mBufferIds.get(view.getIndex());
+        if (bufferId != 0) {
+            return bufferId;
+        }
+        int target = view.getTarget() != 0 ? view.getTarget() : defaultTarget;
+        int[] buffers = new int[1];
+        mGL.glGenBuffers(1, buffers, 0);
+        bufferId = buffers[0];
+        GLStateCache.bindBuffer(target, bufferId);
+        mGL.glBufferData(target, view.getByteLength(), view.getData(), GLES30.GL_STATIC_DRAW);
+        mBufferIds.put(view.getIndex(), bufferId);
+        mUploadedBytes += view.getByteLength();
+        return bufferId;
+    }
+
+    // 设置模型颜色
+    public void setColor(float r, float g, float b, float a) {
+        mColor[0] = r;
+        mColor[1] = g;
+        mColor[2] = b;
+        mColor[3] = a;
+        invalidate();
+    }
+
+    public String getAssetName() {
+        return mAssetName;
+    }
+
+    // 解析出的模型结构，数据还没有到达文件头时为 null
+    public GlbModel getModel() {
+        return mModel;
+    }
+
+    // 已经上传、正在绘制的 primitive 个数
+    public int getDrawnPrimitiveCount() {
+        return mParts.size();
+    }
+
+    // 已经上传到 VBO / EBO 的字节数
+    public long getUploadedBytes() {
+        return mUploadedBytes;
+    }
+
+    // 文件读取、解析失败，或者 primitive 都已经上传完
+    public boolean isFinished() {
+        return mFailed || (mModel != null && mModel.isComplete()
+                && mParts.size() + mSkippedPrimitives == mModel.getPrimitiveCount());
+    }
+
+    /**
+     * 停止后台读取，已经读到的部分仍然可以绘制；可以在任意线程调用
+     */
+    public void cancelLoading() {
+        Thread thread = mStreamThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // 释放资源
+    public void release() {
+        cancelLoading();
+        for (int i = 0; i < mParts.size(); i++) {
+            GLStateCache.deleteResource(GpuResourceRegistry.VERTEX_ARRAY, mParts.get(i).vaoId);
+        }
+        mParts.clear();
+        for (int i = 0; i < mBufferIds.size(); i++) {
+            GLStateCache.deleteResource(GpuResourceRegistry.BUFFER, mBufferIds.valueAt(i));
+        }
+        mBufferIds.clear();
+        mProgram.release();
+        GLBackends.getMemoryTracker().releaseOwner(mTag); // 还没有删除的对象记为泄漏
+    }
+}
@@ -15,10 +15,29 @@ public class MainActivity extends AppCompatActivity {
         setContentView(mGlSurfaceViewTest);
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+
+        if (isFinishing()) {
+            // GL 对象只能在 GL 线程、上下文还在时删除，所以在暂停（可能销毁上下文）之前排队释放
+            mGlSurfaceViewTest.releaseGL();
+        }
+        mGlSurfaceViewTest.onPause();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        mGlSurfaceViewTest.onResume();
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
 
+        // 配置变化或暂停之后才结束时 onPause 中没有释放，这里总是停止工作线程
         mGlSurfaceViewTest.onDestroy();
     }
 }
\ No newline at end of file
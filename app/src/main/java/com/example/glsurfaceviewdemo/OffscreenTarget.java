@@ -0,0 +1,152 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+
+/**
+ * 离屏渲染目标：一个 RGBA8 颜色纹理挂在 FBO 上，绑定之后的绘制不会出现在窗口中。
+ * 绘制三维内容时可以再挂一个 24 位的深度 renderbuffer。
+ * <p>
+ * 用法：bind() -> 绘制 -> unbind()，然后可以把 {@link #getTextureId()} 当作普通纹理使用，
+ * 或者用 {@link PixelReadback} 异步读回像素。所有方法都必须在 GL 线程调用。
+ */
+public class OffscreenTarget {
+    private static final String TAG = "OffscreenTarget";
+    private static final int[] sDeleteIds = new int[1]; // release 使用，避免每次分配数组（只在 GL 线程访问）
+
+    private final int mWidth;
+    private final int mHeight;
+    private int mFramebufferId;
+    private int mTextureId;
+    private int mDepthBufferId; // 没有深度附件时为 0
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者
+
+    public OffscreenTarget(int width, int height) {
+        this(width, height, false);
+    }
+
+    /**
+     * @param depth 是否需要深度附件（深度测试只在有深度缓冲时生效）
+     */
+    public OffscreenTarget(int width, int height, boolean depth) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid target size " + width + "x" + height);
+        }
+        mWidth = width;
+        mHeight = height;
+
+        int[] ids = new int[1];
+        int status;
+        // 纹理、帧缓冲和深度 renderbuffer 都记在这个目标名下，release 之后没有删除的会被标记为泄漏
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            GLBackends.get().glGenTextures(1, ids, 0);
+            mTextureId = ids[0];
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, mTextureId);
+            // 不可变存储，驱动不需要为以后可能的重新定义保留余地
+            GLBackends.get().glTexStorage2D(GLES30.GL_TEXTURE_2D, 1, GLES30.GL_RGBA8, width, height);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, 0);
+
+            GLBackends.get().glGenFramebuffers(1, ids, 0);
+            mFramebufferId = ids[0];
+            GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFramebufferId);
+            GLBackends.get().glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_COLOR_ATTACHMENT0,
+                    GLES30.GL_TEXTURE_2D, mTextureId, 0);
+            if (depth) {
+                GLBackends.get().glGenRenderbuffers(1, ids, 0);
+                mDepthBufferId = ids[0];
+                GLBackends.get().glBindRenderbuffer(GLES30.GL_RENDERBUFFER, mDepthBufferId);
+                GLBackends.get().glRenderbufferStorage(GLES30.GL_RENDERBUFFER, GLES30.GL_DEPTH_COMPONENT24, width, height);
+                GLBackends.get().glBindRenderbuffer(GLES30.GL_RENDERBUFFER, 0);
+                GLBackends.get().glFramebufferRenderbuffer(GLES30.GL_FRAMEBUFFER, GLES30.GL_DEPTH_ATTACHMENT,
+                        GLES30.GL_RENDERBUFFER, mDepthBufferId);
+            }
+            status = GLBackends.get().glCheckFramebufferStatus(GLES30.GL_FRAMEBUFFER);
+            GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+        if (status != GLES30.GL_FRAMEBUFFER_COMPLETE) {
+            Log.e(TAG, "Framebuffer incomplete: 0x" + Integer.toHexString(status));
+            release();
+        }
+    }
+
+    // FBO 是否创建成功
+    public boolean isValid() {
+        return mFramebufferId != 0;
+    }
+
+    /**
+     * 把后续绘制重定向到这个目标，并把视口设置为整个目标
+     */
+    public void bind() {
+        bind(mWidth, mHeight);
+    }
+
+    /**
+     * 把后续绘制重定向到这个目标，只使用左下角 width x height 的区域（例如动态分辨率的缩放画面）
+     */
+    public void bind(int width, int height) {
+        GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFramebufferId);
+        GLBackends.get().glViewport(0, 0, width, height);
+    }
+
+    /**
+     * 恢复到窗口的默认帧缓冲，视口需要由调用方恢复
+     */
+    public void unbind() {
+        GLBackends.get().glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+    }
+
+    public int getFramebufferId() {
+        return mFramebufferId;
+    }
+
+    public int getTextureId() {
+        return mTextureId;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public boolean hasDepth() {
+        return mDepthBufferId != 0;
+    }
+
+    // 颜色附件和深度附件占用的显存字节数（DEPTH_COMPONENT24 按 4 字节计算）
+    public long getBytes() {
+        return (long) mWidth * mHeight * (mDepthBufferId != 0 ? 8 : 4);
+    }
+
+    // 释放资源
+    public void release() {
+        if (mFramebufferId != 0) {
+            sDeleteIds[0] = mFramebufferId;
+            GLBackends.get().glDeleteFramebuffers(1, sDeleteIds, 0);
+            mFramebufferId = 0;
+        }
+        if (mDepthBufferId != 0) {
+            sDeleteIds[0] = mDepthBufferId;
+            GLBackends.get().glDeleteRenderbuffers(1, sDeleteIds, 0);
+            mDepthBufferId = 0;
+        }
+        if (mTextureId != 0) {
+            GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, mTextureId);
+            mTextureId = 0;
+        }
+        GLBackends.getMemoryTracker().releaseOwner(mTag);
+    }
+}
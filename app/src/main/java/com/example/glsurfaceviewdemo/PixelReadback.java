@@ -0,0 +1,258 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 不阻塞 GPU 的像素读回：glReadPixels 写入像素打包缓冲（PBO）后立即返回，
+ * 每次读回插入一个 fence，之后的帧里用超时为 0 的 glClientWaitSync 检查 GPU 是否完成，完成后才映射 PBO 拷贝数据。
+ * <p>
+ * 多个 PBO 组成环形队列（默认 3 个），像素一般在请求之后的 1~2 帧交付；所有 PBO 都在等待 GPU 时，
+ * 新的请求会被丢弃而不是等待。读回的像素是 RGBA、行从上到下排列的直接内存 ByteBuffer。
+ * <p>
+ * 用法：每帧调用一次 {@link #poll()}，需要截图时在绘制之后调用 {@link #request}。
+ * 除 {@link Capture#recycle()} 外，所有方法都必须在 GL 线程调用。
+ */
+public class PixelReadback {
+    private static final String TAG = "PixelReadback";
+
+    /**
+     * 读回完成的回调，在 GL 线程调用
+     */
+    public interface Callback {
+        /**
+         * @param capture 读回的像素，用完后调用 {@link Capture#recycle()} 归还缓冲区，可以交给其他线程处理
+         */
+        void onCapture(Capture capture);
+    }
+
+    /**
+     * 一次读回的结果
+     */
+    public static class Capture {
+        public final int width;
+        public final int height;
+        public final long frame;       // 发起请求时的帧序号（poll 的调用次数）
+        public final ByteBuffer pixels; // RGBA，行从上到下，position 为 0，limit 为 width * height * 4
+        private final PixelReadback mOwner;
+
+        private Capture(PixelReadback owner, int width, int height, long frame, ByteBuffer pixels) {
+            mOwner = owner;
+            this.width = width;
+            this.height = height;
+            this.frame = frame;
+            this.pixels = pixels;
+        }
+
+        /**
+         * 归还像素缓冲区，之后不能再访问 pixels，可以在任意线程调用
+         */
+        public void recycle() {
+            mOwner.mFreeBuffers.offer(pixels);
+        }
+    }
+
+    // 环形队列中的一个 PBO
+    private static class Slot {
+        int bufferId;
+        int capacity;    // PBO 当前的字节数
+        long fence;      // 0 表示空闲
+        int width;
+        int height;
+        long frame;
+        Callback callback;
+    }
+
+    private final Slot[] mSlots;
+    private final int[] mBufferIds; // 所有 PBO，release 时一次删除
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者
+    private int mNext = 0;   // 下一个请求使用的槽
+    private int mOldest = 0; // 最早的未完成请求所在的槽
+    private int mPending = 0;
+    private long mFrame = 0;
+    // 可以在其他线程归还，所以使用并发队列
+    private final ConcurrentLinkedQueue<ByteBuffer> mFreeBuffers = new ConcurrentLinkedQueue<>();
+
+    // 统计数据
+    private long mRequests = 0;
+    private long mDelivered = 0;
+    private long mDropped = 0;        // 所有 PBO 都忙而被丢弃的请求
+    private long mTotalLatencyFrames = 0;
+    private long mMaxLatencyFrames = 0;
+
+    public PixelReadback() {
+        this(3);
+    }
+
+    /**
+     * @param slotCount PBO 个数，决定最多可以同时等待多少次读回
+     */
+    public PixelReadback(int slotCount) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("slotCount must be positive: " + slotCount);
+        }
+        mSlots = new Slot[slotCount];
+        mBufferIds = new int[slotCount];
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            GLBackends.get().glGenBuffers(slotCount, mBufferIds, 0);
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+        for (int i = 0; i < slotCount; i++) {
+            mSlots[i] = new Slot();
+            mSlots[i].bufferId = mBufferIds[i];
+        }
+    }
+
+    /**
+     * 把当前绑定的读帧缓冲中的一个区域读进下一个空闲的 PBO，不等待 GPU
+     *
+     * @return 所有 PBO 都在等待 GPU 时返回 false，本次请求被丢弃
+     */
+    public boolean request(int x, int y, int width, int height, Callback callback) {
+        mRequests++;
+        Slot slot = mSlots[mNext];
+        if (slot.fence != 0) {
+            mDropped++;
+            return false;
+        }
+        int bytes = width * height * 4;
+        GLBackends.get().glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, slot.bufferId);
+        if (slot.capacity < bytes) {
+            GLBackends.get().glBufferData(GLES30.GL_PIXEL_PACK_BUFFER, bytes, null, GLES30.GL_STREAM_READ);
+            slot.capacity = bytes;
+        }
+        // 绑定了 PIXEL_PACK_BUFFER 时最后一个参数是 PBO 内的偏移，调用只是排队，不会等待 GPU
+        GLBackends.get().glReadPixels(x, y, width, height, GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, 0);
+        GLBackends.get().glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        slot.fence = GLBackends.get().glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        slot.width = width;
+        slot.height = height;
+        slot.frame = mFrame;
+        slot.callback = callback;
+        mNext = (mNext + 1) % mSlots.length;
+        mPending++;
+        return true;
+    }
+
+    /**
+     * 交付所有 GPU 已经完成的读回，按请求顺序调用回调；每帧调用一次
+     */
+    public void poll() {
+        mFrame++;
+        while (mPending > 0) {
+            Slot slot = mSlots[mOldest];
+            int status = GLBackends.get().glClientWaitSync(slot.fence, GLES30.GL_SYNC_FLUSH_COMMANDS_BIT, 0);
+            if (status == GLES30.GL_TIMEOUT_EXPIRED) {
+                return; // GPU 还没完成，下一帧再检查
+            }
+            GLBackends.get().glDeleteSync(slot.fence);
+            slot.fence = 0;
+            mOldest = (mOldest + 1) % mSlots.length;
+            mPending--;
+            Callback callback = slot.callback;
+            slot.callback = null;
+            if (status == GLES30.GL_WAIT_FAILED) {
+                Log.e(TAG, "glClientWaitSync failed, dropping readback");
+                continue;
+            }
+            Capture capture = copyOut(slot);
+            if (capture == null) {
+                continue;
+            }
+            long latency = mFrame - slot.frame;
+            mTotalLatencyFrames += latency;
+            if (latency > mMaxLatencyFrames) {
+                mMaxLatencyFrames = latency;
+            }
+            mDelivered++;
+            callback.onCapture(capture);
+        }
+    }
+
+    // GPU 已经写完，映射 PBO 并按从上到下的行顺序拷贝到直接内存
+    private Capture copyOut(Slot slot) {
+        int rowBytes = slot.width * 4;
+        int bytes = rowBytes * slot.height;
+        GLBackends.get().glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, slot.bufferId);
+        ByteBuffer mapped = (ByteBuffer) GLBackends.get().glMapBufferRange(GLES30.GL_PIXEL_PACK_BUFFER, 0, bytes,
+                GLES30.GL_MAP_READ_BIT);
+        if (mapped == null) {
+            GLBackends.get().glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+            Log.e(TAG, "glMapBufferRange failed: 0x" + Integer.toHexString(GLBackends.get().glGetError()));
+            return null;
+        }
+        ByteBuffer pixels = obtainBuffer(bytes);
+        // GL 的第 0 行在底部，翻转成图片常用的从上到下
+        for (int row = 0; row < slot.height; row++) {
+            int src = (slot.height - 1 - row) * rowBytes;
+            mapped.limit(src + rowBytes).position(src);
+            pixels.put(mapped);
+        }
+        pixels.flip();
+        GLBackends.get().glUnmapBuffer(GLES30.GL_PIXEL_PACK_BUFFER);
+        GLBackends.get().glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        return new Capture(this, slot.width, slot.height, slot.frame, pixels);
+    }
+
+    // 复用归还的缓冲区，容量不够的直接丢弃
+    private ByteBuffer obtainBuffer(int bytes) {
+        ByteBuffer buffer;
+        while ((buffer = mFreeBuffers.poll()) != null) {
+            if (buffer.capacity() >= bytes) {
+                buffer.clear();
+                buffer.limit(bytes);
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // 是否还有等待 GPU 的读回（按需渲染时需要继续请求绘制才能交付）
+    public boolean hasPending() {
+        return mPending > 0;
+    }
+
+    public long getRequestCount() {
+        return mRequests;
+    }
+
+    public long getDeliveredCount() {
+        return mDelivered;
+    }
+
+    public long getDroppedCount() {
+        return mDropped;
+    }
+
+    // 从请求到交付平均经过的帧数
+    public float getAverageLatencyFrames() {
+        return mDelivered == 0 ? 0.0f : (float) mTotalLatencyFrames / mDelivered;
+    }
+
+    public long getMaxLatencyFrames() {
+        return mMaxLatencyFrames;
+    }
+
+    // 释放资源，未交付的读回会被丢弃
+    public void release() {
+        for (Slot slot : mSlots) {
+            if (slot.fence != 0) {
+                GLBackends.get().glDeleteSync(slot.fence);
+                slot.fence = 0;
+            }
+            slot.callback = null;
+        }
+        GLStateCache.deleteBuffers(mBufferIds.length, mBufferIds, 0);
+        GLBackends.getMemoryTracker().releaseOwner(mTag);
+        mPending = 0;
+        mFreeBuffers.clear();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.opengl.GLES30;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 着色器程序二进制缓存：把链接好的 program 通过 glGetProgramBinary 保存到应用私有目录，
+ * 下次启动或 EGL 上下文重建时用 glProgramBinary 直接加载，省去编译和链接的时间。
+ * <p>
+ * 缓存文件名由顶点 / 片元着色器源码的哈希决定，文件头中保存了包含驱动信息（GL_VENDOR / GL_RENDERER / GL_VERSION）
+ * 的完整 key；key 不匹配或驱动拒绝二进制时回退到源码编译，并覆盖旧的缓存文件。
+ */
+public class ProgramBinaryCache {
+    private static final String TAG = "ProgramBinaryCache";
+    private static final String CACHE_DIR = "program_binaries";
+    private static final int MAGIC = 0x47504243; // "GPBC"
+    private static final int VERSION = 1;
+
+    private static File sCacheDir;
+    private static String sDriverInfo; // 首次在 GL 线程使用时获取
+    private static boolean sSupported = true;
+    // 写文件放到后台线程，不占用 GL 线程
+    private static final ExecutorService sWriter = Executors.newSingleThreadExecutor();
+
+    // 统计数据
+    private static int sHits = 0;
+    private static int sMisses = 0;
+    private static int sRejected = 0;
+    private static long sBinaryLoadNanos = 0; // 从二进制加载 program 的累计耗时
+    private static long sSourceLinkNanos = 0; // 从源码编译链接 program 的累计耗时
+    private static long sLastLoadNanos = 0;   // 最近一次获取 program 的耗时
+
+    private ProgramBinaryCache() {
+    }
+
+    /**
+     * 启用缓存，在创建任何 program 之前调用一次即可
+     *
+     * @param context 上下文对象，用于定位应用私有的 code cache 目录（应用升级时系统会自动清空）
+     */
+    public static synchronized void init(Context context) {
+        if (sCacheDir != null) {
+            return;
+        }
+        File dir = new File(context.getCodeCacheDir(), CACHE_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Failed to create cache dir: " + dir);
+            return;
+        }
+        sCacheDir = dir;
+    }
+
+    // 缓存是否可用：已经 init 且驱动支持至少一种 program binary 格式
+    static boolean isEnabled() {
+        if (sCacheDir == null || !sSupported) {
+            return false;
+        }
+        if (sDriverInfo == null) {
+            int[] formats = new int[1];
+            GLES30.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+            if (formats[0] <= 0) {
+                Log.i(TAG, "Driver reports no program binary formats, cache disabled.");
+                sSupported = false;
+                return false;
+            }
+            sDriverInfo = GLES30.glGetString(GLES30.GL_VENDOR) + "|"
+                    + GLES30.glGetString(GLES30.GL_RENDERER) + "|"
+                    + GLES30.glGetString(GLES30.GL_VERSION);
+        }
+        return true;
+    }
+
+    /**
+     * 尝试从缓存加载 program
+     *
+     * @return 加载成功的 program ID，缓存未命中或被驱动拒绝时返回 0
+     */
+    static int loadProgram(String vertexShader, String fragmentShader) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        File file = cacheFile(vertexShader, fragmentShader);
+        String key = fullKey(vertexShader, fragmentShader);
+        if (!file.isFile()) {
+            sMisses++;
+            return 0;
+        }
+
+        int format;
+        ByteBuffer binary;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(in.readUTF())) {
+                // 驱动或着色器源码变化，key 不再匹配
+                Log.i(TAG, "Stale program binary: " + file.getName());
+                sMisses++;
+                return 0;
+            }
+            format = in.readInt();
+            int length = in.readInt();
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            binary = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+            binary.put(bytes).position(0);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read program binary: " + file.getName(), e);
+            sMisses++;
+            return 0;
+        }
+
+        int program = GLBackends.get().glCreateProgram();
+        GLES30.glProgramBinary(program, format, binary, binary.capacity());
+        int[] linkStatus = new int[1];
+        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0] == 0) {
+            // 驱动拒绝了这份二进制（例如驱动升级），删除后回退到源码编译
+            Log.i(TAG, "Program binary rejected by driver: " + file.getName());
+            GLStateCache.deleteProgram(program);
+            file.delete();
+            sRejected++;
+            sMisses++;
+            return 0;
+        }
+        sHits++;
+        sLastLoadNanos = SystemClock.elapsedRealtimeNanos() - start;
+        sBinaryLoadNanos += sLastLoadNanos;
+        return program;
+    }
+
+    /**
+     * 在 GL 线程取出刚链接好的 program 的二进制，并在后台线程写入缓存文件
+     */
+    static void saveProgram(String vertexShader, String fragmentShader, int program) {
+        int[] values = new int[1];
+        GLES30.glGetProgramiv(program, GLES30.GL_PROGRAM_BINARY_LENGTH, values, 0);
+        int length = values[0];
+        if (length <= 0) {
+            return;
+        }
+        ByteBuffer binary = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+        int[] written = new int[1];
+        int[] format = new int[1];
+        GLES30.glGetProgramBinary(program, length, written, 0, format, 0, binary);
+        if (written[0] <= 0) {
+            return;
+        }
+        final File file = cacheFile(vertexShader, fragmentShader);
+        final String key = fullKey(vertexShader, fragmentShader);
+        final int binaryFormat = format[0];
+        final byte[] bytes = new byte[written[0]];
+        binary.get(bytes);
+        sWriter.execute(() -> writeFile(file, key, binaryFormat, bytes));
+    }
+
+    private static void writeFile(File file, String key, int format, byte[] bytes) {
+        // 先写临时文件再重命名，避免进程被杀时留下不完整的缓存
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key);
+            out.writeInt(format);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write program binary: " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    // 记录一次源码编译链接的耗时
+    static void recordSourceLink(long nanos) {
+        sSourceLinkNanos += nanos;
+        sLastLoadNanos = nanos;
+    }
+
+    private static File cacheFile(String vertexShader, String fragmentShader) {
+        return new File(sCacheDir, sha1(vertexShader + "\u0000" + fragmentShader) + ".bin");
+    }
+
+    private static String fullKey(String vertexShader, String fragmentShader) {
+        return sha1(vertexShader + "\u0000" + fragmentShader + "\u0000" + sDriverInfo);
+    }
+
+    private static String sha1(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 缓存命中次数
+    public static int getHitCount() {
+        return sHits;
+    }
+
+    // 缓存未命中次数（包含被驱动拒绝的次数）
+    public static int getMissCount() {
+        return sMisses;
+    }
+
+    // 二进制被驱动拒绝的次数
+    public static int getRejectedCount() {
+        return sRejected;
+    }
+
+    // 从二进制加载 program 的累计耗时（纳秒）
+    public static long getBinaryLoadNanos() {
+        return sBinaryLoadNanos;
+    }
+
+    // 从源码编译链接 program 的累计耗时（纳秒）
+    public static long getSourceLinkNanos() {
+        return sSourceLinkNanos;
+    }
+
+    // 最近一次获取 program（无论命中与否）的耗时（纳秒）
+    public static long getLastLoadNanos() {
+        return sLastLoadNanos;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.glsurfaceviewdemo;
+
+import com.example.glsurfaceviewdemo.core.Mat4;
+import com.example.glsurfaceviewdemo.core.RenderCommandList;
+import com.example.glsurfaceviewdemo.core.RenderCommandQueue;
+
+/**
+ * 在 GL 线程回放 {@link RenderCommandQueue} 中的命令：精灵合并进 {@link SpriteBatch}，
+ * 切换矩阵时结束当前批次。回放过程不分配内存，只能在 GL 线程使用。
+ */
+public class RenderCommandPlayer implements RenderCommandList.Visitor {
+    private final SpriteBatch mSpriteBatch;
+    private final float[] mIdentity = new float[16];
+    private final float[] mMatrix = new float[16];
+    private int mTextureId = 0;
+
+    public RenderCommandPlayer(SpriteBatch spriteBatch) {
+        mSpriteBatch = spriteBatch;
+        Mat4.setIdentity(mIdentity, 0);
+    }
+
+    /**
+     * 回放一帧命令，第一条 setMatrix 之前的精灵使用单位矩阵
+     */
+    public void play(RenderCommandQueue queue, RenderCommandList commands) {
+        mTextureId = 0;
+        mSpriteBatch.begin(mIdentity);
+        queue.replay(commands, this);
+        mSpriteBatch.end();
+    }
+
+    @Override
+    public void setMatrix(float[] matrix, int offset) {
+        System.arraycopy(matrix, offset, mMatrix, 0, 16);
+        // 矩阵是整个批次共用的 uniform，SpriteBatch 切换前先提交已经写入的精灵；不重新 begin，统计覆盖整帧
+        mSpriteBatch.setMatrix(mMatrix);
+    }
+
+    @Override
+    public void bindTexture(int textureId) {
+        mTextureId = textureId;
+    }
+
+    @Override
+    public void drawSprite(float x, float y, float width, float height,
+                           float u0, float v0, float u1, float v1, int rgba) {
+        mSpriteBatch.draw(mTextureId, x, y, width, height, u0, v0, u1, v1, rgba);
+    }
+
+    public SpriteBatch getSpriteBatch() {
+        return mSpriteBatch;
+    }
+
+    // 释放资源
+    public void release() {
+        mSpriteBatch.release();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.glsurfaceviewdemo;
+
+/**
+ * 渲染器在自身内容（矩阵、纹理、几何数据等）发生变化时，通过这个接口通知需要重新绘制
+ */
+public interface RenderInvalidator {
+    /**
+     * 标记画面已失效，请求在下一个 vsync 重新绘制；可以在任意线程调用，多次调用会被合并
+     */
+    void invalidate();
+}
@@ -0,0 +1,135 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLSurfaceView;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按需渲染调度器：让 GLSurfaceView 工作在 RENDERMODE_WHEN_DIRTY 模式，只有内容失效时才请求绘制；
+ * 动画期间可以临时切换到连续渲染（burst）。
+ * <p>
+ * 同时统计实际绘制的帧数和被跳过的 vsync 数（根据两次绘制之间的时间间隔估算，不会为了计数而唤醒 CPU）。
+ */
+public class RenderScheduler implements RenderInvalidator {
+    private final GLSurfaceView mView;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mEndBurst = this::endContinuous;
+
+    private int mContinuousCount = 0; // 正在进行的连续渲染请求个数，只在 synchronized 中访问
+    private volatile long mVsyncPeriodNanos = 1_000_000_000L / 60;
+
+    // 统计数据
+    private final AtomicLong mInvalidations = new AtomicLong();
+    private volatile long mRenderedFrames = 0;
+    private volatile long mSkippedFrames = 0;
+    private long mLastFrameTime = 0; // 只在 GL 线程访问
+    private long mFrameInvalidations = 0; // 本帧开始时的失效请求次数，只在 GL 线程访问
+
+    public RenderScheduler(GLSurfaceView view) {
+        mView = view;
+    }
+
+    /**
+     * 在 setRenderer 之后调用，切换到按需渲染模式
+     */
+    public void start() {
+        mView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        mView.requestRender();
+    }
+
+    public void setRefreshRate(float hz) {
+        if (hz > 0) {
+            mVsyncPeriodNanos = (long) (1_000_000_000L / hz);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        mInvalidations.incrementAndGet();
+        mView.requestRender();
+    }
+
+    /**
+     * 开始一段连续渲染（例如动画开始），必须与 {@link #endContinuous()} 成对调用，支持嵌套
+     */
+    public synchronized void beginContinuous() {
+        if (mContinuousCount++ == 0) {
+            mView.setRenderMode(GLSurfaceView.RENDERMODE_CONTINUOUSLY);
+        }
+    }
+
+    /**
+     * 结束一段连续渲染；所有连续渲染请求都结束后回到按需渲染模式
+     */
+    public synchronized void endContinuous() {
+        if (mContinuousCount == 0) {
+            return;
+        }
+        if (--mContinuousCount == 0) {
+            mView.setRenderMode(GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        }
+    }
+
+    /**
+     * 在接下来的一段时间内连续渲染，时间到后自动结束
+     *
+     * @param durationMillis 连续渲染的时长（毫秒）
+     */
+    public void requestContinuousFor(long durationMillis) {
+        beginContinuous();
+        mMainHandler.postDelayed(mEndBurst, durationMillis);
+    }
+
+    public synchronized boolean isContinuous() {
+        return mContinuousCount > 0;
+    }
+
+    /**
+     * 在 onDrawFrame 开始时调用，之前的失效请求都合并到本帧
+     */
+    public void onFrameStarted() {
+        mFrameInvalidations = mInvalidations.get();
+    }
+
+    /**
+     * 在 onDrawFrame 中调用：本帧开始之后没有新的失效请求、也不在连续渲染时返回 true，
+     * 即画面会停在这一帧，直到下一次失效
+     */
+    public boolean isIdleAfterFrame() {
+        return !isContinuous() && mInvalidations.get() == mFrameInvalidations;
+    }
+
+    /**
+     * 在 onDrawFrame 中调用，记录一帧已经绘制
+     */
+    public void onFrameRendered() {
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (mLastFrameTime != 0) {
+            // 两次绘制之间经过的 vsync 数减一，就是这段时间里没有绘制的帧数
+            long vsyncs = (now - mLastFrameTime + mVsyncPeriodNanos / 2) / mVsyncPeriodNanos;
+            if (vsyncs > 1) {
+                mSkippedFrames += vsyncs - 1;
+            }
+        }
+        mLastFrameTime = now;
+        mRenderedFrames++;
+    }
+
+    // 实际绘制的帧数
+    public long getRenderedFrames() {
+        return mRenderedFrames;
+    }
+
+    // 因内容没有变化而跳过的帧数（估算值，截止到最近一次绘制）
+    public long getSkippedFrames() {
+        return mSkippedFrames;
+    }
+
+    // 收到的失效请求次数（同一帧内的多次请求会被合并为一次绘制）
+    public long getInvalidations() {
+        return mInvalidations.get();
+    }
+}
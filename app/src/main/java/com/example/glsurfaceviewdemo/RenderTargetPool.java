@@ -0,0 +1,108 @@
+package com.example.glsurfaceviewdemo;
+
+import java.util.ArrayList;
+
+/**
+ * {@link OffscreenTarget} 的对象池：按尺寸复用离屏目标，多 pass 的滤镜链只需要两个目标来回交替（ping-pong），
+ * 不会每个 pass 都分配新的纹理。空闲的目标一直保留，直到调用 {@link #trim()}。
+ * <p>
+ * 所有方法都必须在 GL 线程调用。
+ */
+public class RenderTargetPool {
+    private final ArrayList<OffscreenTarget> mFree = new ArrayList<>();
+    private int mAllocated = 0;
+    private int mInUse = 0;
+    private int mPeakInUse = 0;
+    private long mBytes = 0;
+    private long mAcquires = 0;
+    private long mReuses = 0;
+
+    /**
+     * 取出一个指定尺寸的目标，没有空闲的同尺寸目标时新建
+     *
+     * @return FBO 不完整时返回 null
+     */
+    public OffscreenTarget acquire(int width, int height) {
+        mAcquires++;
+        OffscreenTarget target = null;
+        for (int i = mFree.size() - 1; i >= 0; i--) {
+            OffscreenTarget candidate = mFree.get(i);
+            if (candidate.getWidth() == width && candidate.getHeight() == height) {
+                target = mFree.remove(i);
+                mReuses++;
+                break;
+            }
+        }
+        if (target == null) {
+            target = new OffscreenTarget(width, height);
+            if (!target.isValid()) {
+                target.release();
+                return null;
+            }
+            mAllocated++;
+            mBytes += target.getBytes();
+        }
+        mInUse++;
+        if (mInUse > mPeakInUse) {
+            mPeakInUse = mInUse;
+        }
+        return target;
+    }
+
+    // 归还目标，之后可以被下一次 acquire 复用
+    public void release(OffscreenTarget target) {
+        if (target == null) {
+            return;
+        }
+        mInUse--;
+        mFree.add(target);
+    }
+
+    // 释放所有空闲的目标（例如图片尺寸变化之后）
+    public void trim() {
+        for (int i = 0; i < mFree.size(); i++) {
+            OffscreenTarget target = mFree.get(i);
+            mAllocated--;
+            mBytes -= target.getBytes();
+            target.release();
+        }
+        mFree.clear();
+    }
+
+    // 已分配的目标个数（使用中 + 空闲）
+    public int getAllocatedCount() {
+        return mAllocated;
+    }
+
+    public int getInUseCount() {
+        return mInUse;
+    }
+
+    public int getPeakInUseCount() {
+        return mPeakInUse;
+    }
+
+    // 已分配的目标占用的显存字节数
+    public long getBytes() {
+        return mBytes;
+    }
+
+    public long getAcquireCount() {
+        return mAcquires;
+    }
+
+    public long getReuseCount() {
+        return mReuses;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderTargetPool{allocated=" + mAllocated + ", inUse=" + mInUse + ", peakInUse=" + mPeakInUse
+                + ", bytes=" + mBytes + ", acquires=" + mAcquires + ", reuses=" + mReuses + "}";
+    }
+
+    // 释放所有空闲的目标，使用中的目标由持有者负责释放
+    public void release() {
+        trim();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.glsurfaceviewdemo;
+
+import com.example.glsurfaceviewdemo.core.QuadScene;
+
+/**
+ * 绘制 {@link QuadScene}：每帧先按 mvp 矩阵剔除屏幕外的矩形，再把可见的矩形合并进 {@link SpriteBatch}。
+ * 十万个以上的矩形中通常只有几百个在屏幕内，剔除之后 CPU 打包和 GPU 顶点处理都只和可见数量有关。
+ * 只能在 GL 线程使用。
+ */
+public class SceneRenderer {
+    private final SpriteBatch mSpriteBatch;
+
+    public SceneRenderer(SpriteBatch spriteBatch) {
+        mSpriteBatch = spriteBatch;
+    }
+
+    /**
+     * 绘制场景中可见的矩形
+     *
+     * @param mvpMatrix 场景世界坐标到裁剪空间的矩阵，同时用于剔除
+     */
+    public void draw(QuadScene scene, float[] mvpMatrix) {
+        int count = scene.cull(mvpMatrix, 0);
+        if (count == 0) {
+            return;
+        }
+        mSpriteBatch.begin(mvpMatrix);
+        for (int i = 0; i < count; i++) {
+            int item = scene.getVisibleItem(i);
+            mSpriteBatch.draw(scene.getTexture(item), scene.getX(item), scene.getY(item),
+                    scene.getWidth(item), scene.getHeight(item),
+                    scene.getU0(item), scene.getV0(item), scene.getU1(item), scene.getV1(item),
+                    scene.getColor(item));
+        }
+        mSpriteBatch.end();
+    }
+
+    public SpriteBatch getSpriteBatch() {
+        return mSpriteBatch;
+    }
+
+    // 释放资源
+    public void release() {
+        mSpriteBatch.release();
+    }
+}
@@ -1,63 +1,117 @@
 package com.example.glsurfaceviewdemo;
 
 import android.content.Context;
+import android.content.res.AssetManager;
 import android.opengl.GLES30;
+import android.os.SystemClock;
 import android.util.Log;
 
-import java.io.BufferedReader;
+import com.example.glsurfaceviewdemo.core.ShaderPreprocessor;
+
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ShaderController {
+    private static final String SHADER_SUFFIX = ".glsl";
+    private static ShaderPreprocessor sPreprocessor; // 基于 assets 的着色器源码缓存
+
     /**
-     * 从 assets 文件夹中读取指定文件的内容并返回为字符串
+     * 从 assets 文件夹中读取指定文件的内容并返回为字符串，#include 会被展开，结果按（文件, define 集合）缓存
      *
      * @param filename 文件名
      * @param context  上下文对象
-     * @return 读取的文件内容字符串
+     * @param defines  需要注入的宏定义，格式为 "NAME" 或 "NAME=VALUE"
+     * @return 读取的文件内容字符串，读取失败时返回空字符串
      */
-    public static String loadShaderCodeFromFile(String filename, Context context) {
-        // 用于存储读取的着色器代码的字符串
-        StringBuilder shaderCode = new StringBuilder();
+    public static String loadShaderCodeFromFile(String filename, Context context, String... defines) {
         try {
-            InputStream inputStream = context.getAssets().open(filename);
-            // 使用 BufferedReader 包装输入流，以便逐行读取文件内容
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream));
-
-            String line;
-            // 逐行读取文件内容并将每行内容追加到 shaderCode 中
-            while ((line = bufferedReader.readLine()) != null) {
-                shaderCode.append(line).append("\n");
-            }
-            // 关闭 BufferedReader
-            bufferedReader.close();
+            return getPreprocessor(context).load(filename, defines);
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.e("ShaderController", "Failed to load shader " + filename, e);
+            return "";
         }
-        // 返回读取的文件内容字符串
-        return shaderCode.toString();
+    }
+
+    /**
+     * 在后台线程预加载 assets 根目录下的所有着色器文件，可以在 GL surface 创建之前调用
+     *
+     * @param context 上下文对象
+     */
+    public static void preloadShaders(Context context) {
+        final ShaderPreprocessor preprocessor = getPreprocessor(context);
+        final AssetManager assets = context.getApplicationContext().getAssets();
+        Thread thread = new Thread(() -> {
+            List<String> names = new ArrayList<>();
+            try {
+                String[] files = assets.list("");
+                if (files != null) {
+                    for (String file : files) {
+                        if (file.endsWith(SHADER_SUFFIX)) {
+                            names.add(file);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Log.e("ShaderController", "Failed to list shader assets", e);
+            }
+            preprocessor.preload(names);
+        }, "ShaderPreload");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    private static synchronized ShaderPreprocessor getPreprocessor(Context context) {
+        if (sPreprocessor == null) {
+            final AssetManager assets = context.getApplicationContext().getAssets();
+            sPreprocessor = new ShaderPreprocessor(name -> readAsset(assets, name));
+        }
+        return sPreprocessor;
+    }
+
+    // 读取 assets 中的原始文件内容
+    private static String readAsset(AssetManager assets, String filename) throws IOException {
+        return ShaderPreprocessor.readSource(assets.open(filename));
     }
 
     // 创建并编译着色器
     private static int compileShader(int type, String shaderCode) {
         // 创建一个着色器
-        int shader = GLES30.glCreateShader(type);
+        int shader = GLBackends.get().glCreateShader(type);
         // 将着色器代码设置到着色器对象中
-        GLES30.glShaderSource(shader, shaderCode);
+        GLBackends.get().glShaderSource(shader, shaderCode);
         // 编译着色器
-        GLES30.glCompileShader(shader);
+        GLBackends.get().glCompileShader(shader);
         return shader;
     }
 
     /**
-     * 创建 OpenGL Program 对象，用于链接顶点着色器和片段着色器
+     * 创建 OpenGL Program 对象，用于链接顶点着色器和片段着色器。
+     * 如果已经调用过 {@link ProgramBinaryCache#init}，优先从程序二进制缓存加载，未命中时再从源码编译并写入缓存
      *
      * @param vertexShader   顶点着色器源代码
      * @param fragmentShader 片段着色器源代码
      * @return 创建的 OpenGL Program 对象 ID
      */
     public static int createGLProgram(String vertexShader, String fragmentShader) {
+        if (!ProgramBinaryCache.isEnabled()) {
+            return linkGLProgram(vertexShader, fragmentShader, false);
+        }
+        int program = ProgramBinaryCache.loadProgram(vertexShader, fragmentShader);
+        if (program != 0) {
+            return program;
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        program = linkGLProgram(vertexShader, fragmentShader, true);
+        ProgramBinaryCache.recordSourceLink(SystemClock.elapsedRealtimeNanos() - start);
+        if (program != 0) {
+            ProgramBinaryCache.saveProgram(vertexShader, fragmentShader, program);
+        }
+        return program;
+    }
+
+    // 从源码编译并链接 program，retrievable 为 true 时提示驱动保留程序二进制以便写入缓存
+    private static int linkGLProgram(String vertexShader, String fragmentShader, boolean retrievable) {
         // 编译生成顶点着色器
         int vShader = compileShader(GLES30.GL_VERTEX_SHADER, vertexShader);
         if (vShader == 0) {
@@ -68,40 +122,43 @@ public class ShaderController {
         int fShader = compileShader(GLES30.GL_FRAGMENT_SHADER, fragmentShader);
         if (fShader == 0) {
             Log.e("GLProgram", "Failed to compile fragment shader.");
-            GLES30.glDeleteShader(vShader); // 删除已经生成的顶点着色器
+            GLBackends.get().glDeleteShader(vShader); // 删除已经生成的顶点着色器
             return 0;
         }
 
         // 创建一个OpenGL程序
-        int program = GLES30.glCreateProgram();
+        int program = GLBackends.get().glCreateProgram();
         if (program == 0) {
             Log.e("GLProgram", "Failed to create OpenGL program.");
-            GLES30.glDeleteShader(vShader);
-            GLES30.glDeleteShader(fShader);
+            GLBackends.get().glDeleteShader(vShader);
+            GLBackends.get().glDeleteShader(fShader);
             return 0;
         }
 
         // attach两个编译好的着色器到program当中
-        GLES30.glAttachShader(program, vShader);
-        GLES30.glAttachShader(program, fShader);
+        GLBackends.get().glAttachShader(program, vShader);
+        GLBackends.get().glAttachShader(program, fShader);
+        if (retrievable) {
+            GLBackends.get().glProgramParameteri(program, GLES30.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GLES30.GL_TRUE);
+        }
 
         // 链接OpenGL程序
-        GLES30.glLinkProgram(program);
+        GLBackends.get().glLinkProgram(program);
 
         // 检查链接结果是否成功
         int[] linkStatus = new int[1];
-        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
+        GLBackends.get().glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
         if (linkStatus[0] == 0) {
-            Log.e("GLProgram", "Failed to link program: " + GLES30.glGetProgramInfoLog(program));
-            GLES30.glDeleteProgram(program);
-            GLES30.glDeleteShader(vShader);
-            GLES30.glDeleteShader(fShader);
+            Log.e("GLProgram", "Failed to link program: " + GLBackends.get().glGetProgramInfoLog(program));
+            GLBackends.get().glDeleteProgram(program);
+            GLBackends.get().glDeleteShader(vShader);
+            GLBackends.get().glDeleteShader(fShader);
             return 0;
         }
 
         // 删除着色器，因为已经链接到程序中，不再需要保留
-        GLES30.glDeleteShader(vShader);
-        GLES30.glDeleteShader(fShader);
+        GLBackends.get().glDeleteShader(vShader);
+        GLBackends.get().glDeleteShader(fShader);
 
         Log.i("GLProgram", "GL program created successfully.");
         return program;
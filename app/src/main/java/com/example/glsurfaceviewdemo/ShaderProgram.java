@@ -0,0 +1,312 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GLBackend;
+
+import java.util.Arrays;
+
+/**
+ * 对已链接的 program 做一次反射：通过 GL_ACTIVE_ATTRIBUTES / GL_ACTIVE_UNIFORMS 枚举所有属性和 uniform，
+ * 把它们的 location 存进以下标访问的数组。
+ * <p>
+ * 初始化阶段用 {@link #attributeIndex(String)} / {@link #uniformIndex(String)} 把名字换成下标，
+ * 绘制时只用下标访问：没有字符串查找，也不分配内存。uniform 的 setter 会记住上一次上传的值，值没变时直接跳过。
+ * <p>
+ * setter 作用于当前正在使用的 program，调用前必须先 {@link #use()}。通过本类设置 uniform 的 program
+ * 不要再使用 {@link GLStateCache} 的 uniform 方法，否则两边缓存的值会不一致。
+ */
+public class ShaderProgram {
+    private static final String TAG = "ShaderProgram";
+
+    private final GLBackend mGL = GLBackends.get(); // GL 命令的后端，创建时确定
+    private final int mProgram;
+
+    private final String[] mAttributeNames;
+    private final int[] mAttributeLocations;
+    private final int[] mAttributeTypes;
+
+    private final String[] mUniformNames;
+    private final int[] mUniformLocations;
+    private final int[] mUniformTypes;
+    private final int[] mUniformSizes;     // 数组 uniform 的元素个数
+    private final int[] mValueOffsets;     // 每个 uniform 的缓存值在 mValues 中的起始位置
+    private final int[] mValues;           // 以原始 bit 形式保存的最近一次上传的值
+    private final boolean[] mValueValid;   // 对应的缓存值是否有效
+
+    public ShaderProgram(int program) {
+        mProgram = program;
+        int[] count = new int[1];
+        int[] size = new int[1];
+        int[] type = new int[1];
+
+        // 枚举所有激活的顶点属性
+        mGL.glGetProgramiv(program, GLES30.GL_ACTIVE_ATTRIBUTES, count, 0);
+        int attributeCount = count[0];
+        mAttributeNames = new String[attributeCount];
+        mAttributeLocations = new int[attributeCount];
+        mAttributeTypes = new int[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            String name = mGL.glGetActiveAttrib(program, i, size, 0, type, 0);
+            mAttributeNames[i] = name;
+            mAttributeLocations[i] = mGL.glGetAttribLocation(program, name);
+            mAttributeTypes[i] = type[0];
+        }
+
+        // 枚举所有激活的 uniform
+        mGL.glGetProgramiv(program, GLES30.GL_ACTIVE_UNIFORMS, count, 0);
+        int uniformCount = count[0];
+        mUniformNames = new String[uniformCount];
+        mUniformLocations = new int[uniformCount];
+        mUniformTypes = new int[uniformCount];
+        mUniformSizes = new int[uniformCount];
+        mValueOffsets = new int[uniformCount];
+        mValueValid = new boolean[uniformCount];
+        int valueCount = 0;
+        for (int i = 0; i < uniformCount; i++) {
+            String name = mGL.glGetActiveUniform(program, i, size, 0, type, 0);
+            // 数组 uniform 的名字形如 "uColors[0]"，统一去掉下标
+            if (name.endsWith("[0]")) {
+                name = name.substring(0, name.length() - 3);
+            }
+            mUniformNames[i] = name;
+            mUniformLocations[i] = mGL.glGetUniformLocation(program, name);
+            mUniformTypes[i] = type[0];
+            mUniformSizes[i] = size[0];
+            mValueOffsets[i] = valueCount;
+            valueCount += componentCount(type[0]) * size[0];
+        }
+        mValues = new int[valueCount];
+    }
+
+    public int getProgramId() {
+        return mProgram;
+    }
+
+    // 激活这个 program
+    public void use() {
+        GLStateCache.useProgram(mProgram);
+    }
+
+    /**
+     * 查找属性的下标，只应在初始化阶段调用
+     *
+     * @return 属性下标，找不到（或被编译器优化掉）时返回 -1
+     */
+    public int attributeIndex(String name) {
+        for (int i = 0; i < mAttributeNames.length; i++) {
+            if (mAttributeNames[i].equals(name)) {
+                return i;
+            }
+        }
+        Log.w(TAG, "Could not find attribute " + name);
+        return -1;
+    }
+
+    /**
+     * 查找 uniform 的下标，只应在初始化阶段调用
+     *
+     * @return uniform 下标，找不到（或被编译器优化掉）时返回 -1
+     */
+    public int uniformIndex(String name) {
+        for (int i = 0; i < mUniformNames.length; i++) {
+            if (mUniformNames[i].equals(name)) {
+                return i;
+            }
+        }
+        Log.w(TAG, "Could not find uniform " + name);
+        return -1;
+    }
+
+    public int getAttributeCount() {
+        return mAttributeNames.length;
+    }
+
+    public int getAttributeLocation(int index) {
+        return index < 0 ? -1 : mAttributeLocations[index];
+    }
+
+    public int getAttributeType(int index) {
+        return mAttributeTypes[index];
+    }
+
+    public String getAttributeName(int index) {
+        return mAttributeNames[index];
+    }
+
+    public int getUniformCount() {
+        return mUniformNames.length;
+    }
+
+    public int getUniformLocation(int index) {
+        return index < 0 ? -1 : mUniformLocations[index];
+    }
+
+    public int getUniformType(int index) {
+        return mUniformTypes[index];
+    }
+
+    public String getUniformName(int index) {
+        return mUniformNames[index];
+    }
+
+    public void setUniform1i(int index, int value) {
+        if (index < 0) {
+            return;
+        }
+        int offset = mValueOffsets[index];
+        if (mValueValid[index] && mValues[offset] == value) {
+            GLStateCache.recordSkipped();
+            return;
+        }
+        mGL.glUniform1i(mUniformLocations[index], value);
+        mValues[offset] = value;
+        mValueValid[index] = true;
+        GLStateCache.recordIssued();
+    }
+
+    public void setUniform1f(int index, float value) {
+        if (index < 0) {
+            return;
+        }
+        int offset = mValueOffsets[index];
+        int bits = Float.floatToRawIntBits(value);
+        if (mValueValid[index] && mValues[offset] == bits) {
+            GLStateCache.recordSkipped();
+            return;
+        }
+        mGL.glUniform1f(mUniformLocations[index], value);
+        mValues[offset] = bits;
+        mValueValid[index] = true;
+        GLStateCache.recordIssued();
+    }
+
+    public void setUniform2f(int index, float x, float y) {
+        if (index < 0) {
+            return;
+        }
+        int offset = mValueOffsets[index];
+        int bx = Float.floatToRawIntBits(x);
+        int by = Float.floatToRawIntBits(y);
+        if (mValueValid[index] && mValues[offset] == bx && mValues[offset + 1] == by) {
+            GLStateCache.recordSkipped();
+            return;
+        }
+        mGL.glUniform2f(mUniformLocations[index], x, y);
+        mValues[offset] = bx;
+        mValues[offset + 1] = by;
+        mValueValid[index] = true;
+        GLStateCache.recordIssued();
+    }
+
+    public void setUniform4f(int index, float x, float y, float z, float w) {
+        if (index < 0) {
+            return;
+        }
+        int offset = mValueOffsets[index];
+        int bx = Float.floatToRawIntBits(x);
+        int by = Float.floatToRawIntBits(y);
+        int bz = Float.floatToRawIntBits(z);
+        int bw = Float.floatToRawIntBits(w);
+        int[] values = mValues;
+        if (mValueValid[index] && values[offset] == bx && values[offset + 1] == by
+                && values[offset + 2] == bz && values[offset + 3] == bw) {
+            GLStateCache.recordSkipped();
+            return;
+        }
+        mGL.glUniform4f(mUniformLocations[index], x, y, z, w);
+        values[offset] = bx;
+        values[offset + 1] = by;
+        values[offset + 2] = bz;
+        values[offset + 3] = bw;
+        mValueValid[index] = true;
+        GLStateCache.recordIssued();
+    }
+
+    public void setUniform4fv(int index, float[] value, int offset) {
+        if (index < 0 || !changed(index, value, offset, 4)) {
+            return;
+        }
+        mGL.glUniform4fv(mUniformLocations[index], 1, value, offset);
+    }
+
+    public void setUniformMatrix4fv(int index, float[] value, int offset) {
+        if (index < 0 || !changed(index, value, offset, 16)) {
+            return;
+        }
+        mGL.glUniformMatrix4fv(mUniformLocations[index], 1, false, value, offset);
+    }
+
+    // 比较并更新缓存值，返回是否需要真正上传
+    private boolean changed(int index, float[] value, int offset, int count) {
+        int[] values = mValues;
+        int base = mValueOffsets[index];
+        if (mValueValid[index]) {
+            boolean same = true;
+            for (int i = 0; i < count; i++) {
+                if (values[base + i] != Float.floatToRawIntBits(value[offset + i])) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                GLStateCache.recordSkipped();
+                return false;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            values[base + i] = Float.floatToRawIntBits(value[offset + i]);
+        }
+        mValueValid[index] = true;
+        GLStateCache.recordIssued();
+        return true;
+    }
+
+    // 丢弃缓存的 uniform 值，例如 program 重新链接之后
+    public void invalidateUniforms() {
+        Arrays.fill(mValueValid, false);
+    }
+
+    public void release() {
+        GLStateCache.deleteProgram(mProgram);
+    }
+
+    // 每种 uniform 类型占用的 32 位分量个数（用于分配值缓存）
+    private static int componentCount(int type) {
+        switch (type) {
+            case GLES30.GL_FLOAT_VEC2:
+            case GLES30.GL_INT_VEC2:
+            case GLES30.GL_UNSIGNED_INT_VEC2:
+            case GLES30.GL_BOOL_VEC2:
+                return 2;
+            case GLES30.GL_FLOAT_VEC3:
+            case GLES30.GL_INT_VEC3:
+            case GLES30.GL_UNSIGNED_INT_VEC3:
+            case GLES30.GL_BOOL_VEC3:
+                return 3;
+            case GLES30.GL_FLOAT_VEC4:
+            case GLES30.GL_INT_VEC4:
+            case GLES30.GL_UNSIGNED_INT_VEC4:
+            case GLES30.GL_BOOL_VEC4:
+            case GLES30.GL_FLOAT_MAT2:
+                return 4;
+            case GLES30.GL_FLOAT_MAT2x3:
+            case GLES30.GL_FLOAT_MAT3x2:
+                return 6;
+            case GLES30.GL_FLOAT_MAT2x4:
+            case GLES30.GL_FLOAT_MAT4x2:
+                return 8;
+            case GLES30.GL_FLOAT_MAT3:
+                return 9;
+            case GLES30.GL_FLOAT_MAT3x4:
+            case GLES30.GL_FLOAT_MAT4x3:
+                return 12;
+            case GLES30.GL_FLOAT_MAT4:
+                return 16;
+            default:
+                // 标量以及所有 sampler 类型
+                return 1;
+        }
+    }
+}
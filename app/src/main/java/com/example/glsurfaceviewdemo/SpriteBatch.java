@@ -0,0 +1,378 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.VertexPacking;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 批量精灵渲染器：把一帧内的大量纹理四边形打包进同一个动态 VBO，
+ * 只有在纹理或着色器程序切换（或缓冲写满）时才真正发起一次绘制调用。
+ * <p>
+ * 用法：begin(mvp) -> 多次 draw(...) -> end()，所有方法都必须在 GL 线程调用。
+ * <p>
+ * 默认 program、VAO、EBO 和环形 VBO 登记在 {@link GpuResourceRegistry} 中：使用共享的登记表时，
+ * EGL 上下文丢失后不需要重新创建 SpriteBatch，这些对象在下一次 flush 时重建。通过 {@link #setProgram} 设置的 program 由调用方负责。
+ */
+public class SpriteBatch {
+    private static final String TAG = "SpriteBatch";
+
+    // 顶点布局：x, y, u, v, rgba(4 个 unsigned byte)，与 texture_vertex_shader.glsl 中的 location 对应
+    private static final int POSITION_LOCATION = 0;
+    private static final int TEXCOORD_LOCATION = 1;
+    private static final int COLOR_LOCATION = 2;
+    private static final int INTS_PER_VERTEX = VertexPacking.SPRITE_INTS_PER_VERTEX;
+    private static final int VERTEX_STRIDE = INTS_PER_VERTEX * 4; // 20 字节
+    private static final int VERTICES_PER_QUAD = VertexPacking.VERTICES_PER_QUAD;
+    private static final int INDICES_PER_QUAD = VertexPacking.INDICES_PER_QUAD;
+    // 16 位索引最多能寻址 65536 个顶点
+    public static final int MAX_QUADS = VertexPacking.MAX_QUADS_16BIT;
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final int mMaxQuads;
+    private final int[] mVertexData; // CPU 端暂存区，float 以原始 bit 形式存放，flush 时一次性拷贝
+    private StreamingVertexBuffer mStreamBuffer; // 三重缓冲的环形 VBO
+
+    private final GpuResourceRegistry mRegistry;
+    private GpuResourceRegistry.Resource mProgramResource;
+    private GpuResourceRegistry.Resource mEboResource;
+    private GpuResourceRegistry.Resource mVaoResource;
+    private int mProgramCreateCount; // mDefaultProgram 对应的创建次数，program 重建后需要重新反射
+
+    private ShaderProgram mProgram;
+    private ShaderProgram mDefaultProgram;
+    private int mMVPMatrixIndex = -1;
+    private int mSamplerIndex = -1;
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者
+
+    private final float[] mMVPMatrix = new float[16];
+    private boolean mDrawing = false;
+    private int mCurrentTexture = 0;
+    private int mQuadCount = 0; // 当前批次中已写入的四边形个数
+
+    // 统计数据：begin() 时清零，end() 后可读取
+    private int mDrawCalls = 0;
+    private int mTotalQuads = 0;
+    private int mMaxQuadsInDraw = 0;
+    private int mDroppedQuads = 0; // 环形 VBO 映射或提交失败而没有画出来的四边形
+
+    public SpriteBatch(Context context) {
+        this(context, 4096);
+    }
+
+    public SpriteBatch(Context context, int maxQuads) {
+        this(context, maxQuads, new GpuResourceRegistry(GLStateCache::deleteResource));
+    }
+
+    /**
+     * GL 对象登记到共享的登记表，随登记表一起在上下文丢失后重建
+     */
+    public SpriteBatch(Context context, GpuResourceRegistry registry) {
+        this(context, 4096, registry);
+    }
+
+    public SpriteBatch(Context context, int maxQuads, GpuResourceRegistry registry) {
+        this(programCreator(context), maxQuads, registry);
+    }
+
+    /**
+     * 默认 program 由 programCreator 创建，不读取 assets；JVM 测试中配合 RecordingGLBackend 使用
+     */
+    SpriteBatch(GpuResourceRegistry.Creator programCreator, int maxQuads, GpuResourceRegistry registry) {
+        if (maxQuads <= 0 || maxQuads > MAX_QUADS) {
+            throw new IllegalArgumentException("maxQuads must be in [1, " + MAX_QUADS + "]: " + maxQuads);
+        }
+        mMaxQuads = maxQuads;
+        mVertexData = new int[maxQuads * VERTICES_PER_QUAD * INTS_PER_VERTEX];
+        mRegistry = registry;
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            mProgramResource = registry.register(GpuResourceRegistry.PROGRAM, "SpriteBatch.program",
+                    GpuResourceRegistry.PRIORITY_NORMAL, programCreator);
+            mProgramCreateCount = mProgramResource.getCreateCount();
+            mDefaultProgram = new ShaderProgram(mProgramResource.getId());
+            useProgram(mDefaultProgram);
+            initVao();
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+    }
+
+    // 加载着色器源码，源码保留在登记表中用于重建
+    private static GpuResourceRegistry.Creator programCreator(Context context) {
+        // 复用 TextureRender 的着色器，打开 USE_TINT 变体以支持顶点颜色
+        final String vertexShaderCode = ShaderController.loadShaderCodeFromFile("texture_vertex_shader.glsl", context, "USE_TINT");
+        final String fragmentShaderCode = ShaderController.loadShaderCodeFromFile("texture_fragment_shader.glsl", context, "USE_TINT");
+        return () -> {
+            int program = ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode);
+            if (program == 0) {
+                Log.e(TAG, "Failed to create OpenGL program.");
+            }
+            return program;
+        };
+    }
+
+    // 初始化 VAO：环形动态 VBO + 预先生成的静态 EBO
+    private void initVao() {
+        // 每段能容纳一个满批次，数据在每次 flush 时写入
+        mStreamBuffer = new StreamingVertexBuffer(VERTEX_STRIDE, mMaxQuads * VERTICES_PER_QUAD, 3, mRegistry);
+        mEboResource = mRegistry.register(GpuResourceRegistry.BUFFER, "SpriteBatch.ebo",
+                GpuResourceRegistry.PRIORITY_NORMAL, this::createEbo);
+        mVaoResource = mRegistry.register(GpuResourceRegistry.VERTEX_ARRAY, "SpriteBatch.vao",
+                GpuResourceRegistry.PRIORITY_NORMAL, this::createVao);
+    }
+
+    private int createEbo() {
+        int[] ids = new int[1];
+        GLBackends.get().glGenBuffers(1, ids, 0);
+        // EBO 的绑定属于 VAO 状态，先解绑 VAO，避免改动其他对象的 VAO
+        GLStateCache.bindVertexArray(0);
+        // 每个四边形的索引都是 0,1,2, 2,1,3 的模式，和 TextureRender 中 TRIANGLE_STRIP 的顶点顺序一致
+        ShortBuffer indices = VertexPacking.quadIndices(mMaxQuads);
+        GLStateCache.bindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, ids[0]);
+        GLBackends.get().glBufferData(GLES30.GL_ELEMENT_ARRAY_BUFFER, indices.capacity() * 2, indices, GLES30.GL_STATIC_DRAW);
+        return ids[0];
+    }
+
+    private int createVao() {
+        int ebo = mRegistry.require(mEboResource); // 上下文丢失后先重建 EBO，再配置新的 VAO
+        int[] ids = new int[1];
+        GLBackends.get().glGenVertexArrays(1, ids, 0);
+        GLStateCache.bindVertexArray(ids[0]);
+        GLStateCache.bindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, ebo);
+
+        // 配置交错的顶点属性
+        GLBackends.get().glEnableVertexAttribArray(POSITION_LOCATION);
+        GLBackends.get().glEnableVertexAttribArray(TEXCOORD_LOCATION);
+        GLBackends.get().glEnableVertexAttribArray(COLOR_LOCATION);
+        setupVertexAttribPointer(0);
+
+        // 解绑 VAO（EBO 的绑定保存在 VAO 中，必须先解绑 VAO）
+        GLStateCache.bindVertexArray(0);
+        return ids[0];
+    }
+
+    // 把交错的顶点属性指向 VBO 中的 offset 处，需要先绑定 VAO
+    private void setupVertexAttribPointer(int offset) {
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mStreamBuffer.getVboId());
+        GLBackends.get().glVertexAttribPointer(POSITION_LOCATION, 2, GLES30.GL_FLOAT, false, VERTEX_STRIDE, offset);
+        GLBackends.get().glVertexAttribPointer(TEXCOORD_LOCATION, 2, GLES30.GL_FLOAT, false, VERTEX_STRIDE, offset + 2 * 4);
+        GLBackends.get().glVertexAttribPointer(COLOR_LOCATION, 4, GLES30.GL_UNSIGNED_BYTE, true, VERTEX_STRIDE, offset + 4 * 4);
+    }
+
+    /**
+     * 开始一帧（或一段）批量绘制
+     *
+     * @param mvpMatrix 本批次使用的 mvp 矩阵，长度必须为 16
+     */
+    public void begin(float[] mvpMatrix) {
+        if (mDrawing) {
+            throw new IllegalStateException("end() must be called before begin()");
+        }
+        System.arraycopy(mvpMatrix, 0, mMVPMatrix, 0, 16);
+        mDrawing = true;
+        mDrawCalls = 0;
+        mTotalQuads = 0;
+        mMaxQuadsInDraw = 0;
+        mDroppedQuads = 0;
+        mCurrentTexture = 0;
+        mQuadCount = 0;
+    }
+
+    /**
+     * 以完整纹理、白色 tint 绘制一个四边形
+     */
+    public void draw(int textureId, float x, float y, float width, float height) {
+        draw(textureId, x, y, width, height, 0.0f, 0.0f, 1.0f, 1.0f, WHITE);
+    }
+
+    /**
+     * 绘制图集中的一张图片，同一图集页面上的图片会合并到同一次绘制调用中
+     */
+    public void draw(TextureAtlas.Region region, float x, float y, float width, float height) {
+        draw(region.getTextureId(), x, y, width, height, region.u0, region.v0, region.u1, region.v1, WHITE);
+    }
+
+    /**
+     * 绘制一个四边形
+     *
+     * @param textureId 纹理 ID
+     * @param x         左下角横坐标（mvp 矩阵所在的坐标系）
+     * @param y         左下角纵坐标
+     * @param width     宽
+     * @param height    高
+     * @param u0        左上角纹理坐标 u
+     * @param v0        左上角纹理坐标 v
+     * @param u1        右下角纹理坐标 u
+     * @param v1        右下角纹理坐标 v
+     * @param rgba      tint 颜色，按 0xRRGGBBAA 打包
+     */
+    public void draw(int textureId, float x, float y, float width, float height,
+                     float u0, float v0, float u1, float v1, int rgba) {
+        if (!mDrawing) {
+            throw new IllegalStateException("begin() must be called before draw()");
+        }
+        if (textureId != mCurrentTexture) {
+            flush();
+            mCurrentTexture = textureId;
+        } else if (mQuadCount == mMaxQuads) {
+            flush();
+        }
+
+        // 颜色按内存顺序 r, g, b, a 存放，转换成本机字节序的 int
+        VertexPacking.putSpriteQuad(mVertexData, mQuadCount * VertexPacking.SPRITE_INTS_PER_QUAD,
+                x, y, width, height, u0, v0, u1, v1, VertexPacking.nativeColor(rgba));
+        mQuadCount++;
+    }
+
+    /**
+     * 切换着色器程序；program 必须使用与 texture_vertex_shader.glsl 相同的属性 location，
+     * 以及 uMVPMatrix / uSampler 两个 uniform。传入 null 表示恢复默认程序
+     */
+    public void setProgram(ShaderProgram program) {
+        ShaderProgram target = program == null ? mDefaultProgram : program;
+        if (target == mProgram) {
+            return;
+        }
+        flush();
+        useProgram(target);
+    }
+
+    /**
+     * 在 begin 和 end 之间切换 mvp 矩阵：提交已经写入的四边形，之后的四边形使用新矩阵；
+     * 和 end + begin 不同，统计数据继续累加
+     *
+     * @param mvpMatrix 新的 mvp 矩阵，长度必须为 16
+     */
+    public void setMatrix(float[] mvpMatrix) {
+        if (!mDrawing) {
+            throw new IllegalStateException("begin() must be called before setMatrix()");
+        }
+        flush();
+        System.arraycopy(mvpMatrix, 0, mMVPMatrix, 0, 16);
+    }
+
+    // 默认 program 在上下文丢失后重建时对象名和 uniform 位置都可能变化，重新反射
+    private void restoreDefaultProgram() {
+        int program = mRegistry.require(mProgramResource);
+        if (mProgramResource.getCreateCount() == mProgramCreateCount) {
+            return;
+        }
+        mProgramCreateCount = mProgramResource.getCreateCount();
+        boolean active = mProgram == mDefaultProgram;
+        mDefaultProgram = new ShaderProgram(program);
+        if (active) {
+            useProgram(mDefaultProgram);
+        }
+    }
+
+    private void useProgram(ShaderProgram program) {
+        mProgram = program;
+        mMVPMatrixIndex = program.uniformIndex("uMVPMatrix");
+        mSamplerIndex = program.uniformIndex("uSampler");
+    }
+
+    /**
+     * 把当前批次提交给 GPU，一次 glDrawElements 画完所有已写入的四边形
+     */
+    public void flush() {
+        if (mQuadCount == 0) {
+            return;
+        }
+        int vertexCount = mQuadCount * VERTICES_PER_QUAD;
+        ByteBuffer mapped = mStreamBuffer.reserve(vertexCount);
+        if (mapped == null) {
+            dropBatch("map failed");
+            return;
+        }
+        VertexPacking.putInts(mapped, mVertexData, vertexCount * INTS_PER_VERTEX); // 不创建 asIntBuffer 视图
+        int firstVertex = mStreamBuffer.commit();
+        if (firstVertex < 0) {
+            dropBatch("unmap failed");
+            return;
+        }
+
+        restoreDefaultProgram();
+        mProgram.use();
+        mProgram.setUniformMatrix4fv(mMVPMatrixIndex, mMVPMatrix, 0);
+        GLStateCache.activeTexture(GLES30.GL_TEXTURE0);
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, mCurrentTexture);
+        mProgram.setUniform1i(mSamplerIndex, 0);
+
+        GLStateCache.bindVertexArray(mRegistry.require(mVaoResource));
+        // ES 3.0 的 glDrawElements 没有 baseVertex，通过属性偏移指向本批次在环形缓冲区中的位置
+        setupVertexAttribPointer(firstVertex * VERTEX_STRIDE);
+        GLStateCache.drawElements(GLES30.GL_TRIANGLES, mQuadCount * INDICES_PER_QUAD, GLES30.GL_UNSIGNED_SHORT, 0);
+
+        mDrawCalls++;
+        mTotalQuads += mQuadCount;
+        if (mQuadCount > mMaxQuadsInDraw) {
+            mMaxQuadsInDraw = mQuadCount;
+        }
+        mQuadCount = 0;
+    }
+
+    // 顶点没能写进环形 VBO，丢弃当前批次
+    private void dropBatch(String reason) {
+        Log.w(TAG, "Dropped " + mQuadCount + " quads: " + reason);
+        mDroppedQuads += mQuadCount;
+        mQuadCount = 0;
+    }
+
+    /**
+     * 结束批量绘制，提交剩余的四边形
+     */
+    public void end() {
+        if (!mDrawing) {
+            throw new IllegalStateException("begin() must be called before end()");
+        }
+        flush();
+        mDrawing = false;
+    }
+
+    // 上一帧（begin 到 end 之间）发起的绘制调用次数
+    public int getDrawCallCount() {
+        return mDrawCalls;
+    }
+
+    // 上一帧绘制的四边形总数
+    public int getQuadCount() {
+        return mTotalQuads;
+    }
+
+    // 上一帧平均每次绘制调用画的四边形个数
+    public float getQuadsPerDraw() {
+        return mDrawCalls == 0 ? 0.0f : (float) mTotalQuads / mDrawCalls;
+    }
+
+    // 上一帧单次绘制调用画的最多四边形个数
+    public int getMaxQuadsPerDraw() {
+        return mMaxQuadsInDraw;
+    }
+
+    // 上一帧因为环形 VBO 映射或提交失败而丢弃的四边形个数
+    public int getDroppedQuadCount() {
+        return mDroppedQuads;
+    }
+
+    // 环形 VBO，可以读取 fence 等待次数等统计数据
+    public StreamingVertexBuffer getStreamBuffer() {
+        return mStreamBuffer;
+    }
+
+    // 释放资源
+    public void release() {
+        mStreamBuffer.release(); // 删除 VBO
+        mRegistry.release(mEboResource); // 删除 EBO
+        mRegistry.release(mVaoResource); // 删除 VAO
+        mRegistry.release(mProgramResource); // 删除 shader program
+        GLBackends.getMemoryTracker().releaseOwner(mTag); // 还没有删除的对象记为泄漏
+    }
+}
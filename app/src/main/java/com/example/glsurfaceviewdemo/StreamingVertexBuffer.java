@@ -0,0 +1,224 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 每帧变化的顶点数据使用的环形动态 VBO。
+ * <p>
+ * 一个大 VBO 被分成若干段（默认 3 段，即三重缓冲），写入时用
+ * GL_MAP_UNSYNCHRONIZED_BIT | GL_MAP_INVALIDATE_RANGE_BIT 映射尚未被 GPU 使用的区间，驱动不需要同步也不需要重新分配存储。
+ * 离开一段时插入 glFenceSync，再次回到这一段之前用 glClientWaitSync 确认 GPU 已经读完其中的数据。
+ * <p>
+ * 用法：reserve(n) -> 向返回的缓冲区写入 n 个顶点 -> commit() 得到首个顶点的下标 -> 绘制。
+ * VBO 登记在 {@link GpuResourceRegistry} 中，EGL 上下文丢失后在下一次使用时重建（内容每帧重写，不需要保留）。
+ * 所有方法都必须在 GL 线程调用。
+ */
+public class StreamingVertexBuffer {
+    private static final String TAG = "StreamingVertexBuffer";
+    private static final long FENCE_TIMEOUT_NANOS = 1_000_000_000L; // 最多等待 1 秒，避免驱动异常时卡死
+
+    private final int mStride;
+    private final int mSegmentVertices;
+    private final int mSegmentCount;
+    private final long[] mFences; // 每段的 fence，0 表示没有未完成的 GPU 读取
+    private final GpuResourceRegistry mRegistry;
+    private final GpuResourceRegistry.Resource mVboResource;
+
+    private int mSegment = 0;        // 当前写入的段
+    private int mSegmentUsed = 0;    // 当前段已经提交的顶点个数
+    private int mReservedVertices = 0;
+    private boolean mMapped = false;
+
+    // 统计数据
+    private long mReservations = 0;
+    private long mCommittedBytes = 0;
+    private long mSegmentSwitches = 0;
+    private long mFenceWaits = 0;     // CPU 因为 GPU 还没读完而真正阻塞的次数
+    private long mFenceWaitNanos = 0;
+
+    /**
+     * @param stride          每个顶点的字节数
+     * @param segmentVertices 每段能容纳的顶点个数，单次 reserve 不能超过它
+     * @param segmentCount    段数，至少为 2，通常为 3
+     */
+    public StreamingVertexBuffer(int stride, int segmentVertices, int segmentCount) {
+        this(stride, segmentVertices, segmentCount, new GpuResourceRegistry(GLStateCache::deleteResource));
+    }
+
+    /**
+     * @param registry VBO 登记到这里，随登记表一起在上下文丢失后重建
+     */
+    public StreamingVertexBuffer(int stride, int segmentVertices, int segmentCount, GpuResourceRegistry registry) {
+        if (stride <= 0 || segmentVertices <= 0 || segmentCount < 2) {
+            throw new IllegalArgumentException("Invalid streaming buffer parameters");
+        }
+        mStride = stride;
+        mSegmentVertices = segmentVertices;
+        mSegmentCount = segmentCount;
+        mFences = new long[segmentCount];
+        mRegistry = registry;
+        mVboResource = registry.register(GpuResourceRegistry.BUFFER, "StreamingVertexBuffer.vbo",
+                GpuResourceRegistry.PRIORITY_NORMAL, this::createVbo);
+    }
+
+    private int createVbo() {
+        // 重建时旧上下文中的 fence 和映射都已经随上下文销毁，从第一段重新开始
+        for (int i = 0; i < mSegmentCount; i++) {
+            mFences[i] = 0;
+        }
+        mSegment = 0;
+        mSegmentUsed = 0;
+        mMapped = false;
+        int[] ids = new int[1];
+        GLBackends.get().glGenBuffers(1, ids, 0);
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, ids[0]);
+        GLBackends.get().glBufferData(GLES30.GL_ARRAY_BUFFER, getCapacityBytes(), null, GLES30.GL_STREAM_DRAW);
+        return ids[0];
+    }
+
+    /**
+     * 预留 vertexCount 个顶点的空间并映射
+     *
+     * @return 可写入的缓冲区（本机字节序，position 为 0，limit 为 vertexCount * stride），
+     * 必须在下一次 reserve 或绘制之前调用 {@link #commit()}；映射失败时返回 null
+     */
+    public ByteBuffer reserve(int vertexCount) {
+        if (mMapped) {
+            throw new IllegalStateException("commit() must be called before the next reserve()");
+        }
+        if (vertexCount <= 0 || vertexCount > mSegmentVertices) {
+            throw new IllegalArgumentException("vertexCount must be in [1, " + mSegmentVertices + "]: " + vertexCount);
+        }
+        int vbo = getVboId(); // 上下文丢失后在这里重建，环形状态随之复位
+        if (mSegmentUsed + vertexCount > mSegmentVertices) {
+            nextSegment();
+        }
+        int offset = (mSegment * mSegmentVertices + mSegmentUsed) * mStride;
+        int length = vertexCount * mStride;
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, vbo);
+        ByteBuffer mapped = (ByteBuffer) GLBackends.get().glMapBufferRange(GLES30.GL_ARRAY_BUFFER, offset, length,
+                GLES30.GL_MAP_WRITE_BIT | GLES30.GL_MAP_UNSYNCHRONIZED_BIT | GLES30.GL_MAP_INVALIDATE_RANGE_BIT);
+        if (mapped == null) {
+            Log.e(TAG, "glMapBufferRange failed: 0x" + Integer.toHexString(GLBackends.get().glGetError()));
+            return null;
+        }
+        mMapped = true;
+        mReservedVertices = vertexCount;
+        mReservations++;
+        return mapped.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 结束写入并解除映射
+     *
+     * @return 写入的首个顶点在整个 VBO 中的下标，可以直接用作 glDrawArrays 的 first，
+     * 或乘以 stride 作为 glVertexAttribPointer 的偏移；数据在解除映射时损坏（极少见）返回 -1
+     */
+    public int commit() {
+        if (!mMapped) {
+            throw new IllegalStateException("reserve() must be called before commit()");
+        }
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mVboResource.getId());
+        boolean intact = GLBackends.get().glUnmapBuffer(GLES30.GL_ARRAY_BUFFER);
+        mMapped = false;
+        int first = mSegment * mSegmentVertices + mSegmentUsed;
+        mSegmentUsed += mReservedVertices;
+        if (!intact) {
+            Log.w(TAG, "Buffer contents lost during unmap");
+            return -1;
+        }
+        mCommittedBytes += (long) mReservedVertices * mStride;
+        return first;
+    }
+
+    // 给当前段加 fence，切换到下一段，必要时等待 GPU 读完下一段之前的数据
+    private void nextSegment() {
+        if (mSegmentUsed > 0) {
+            mFences[mSegment] = GLBackends.get().glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        mSegment = (mSegment + 1) % mSegmentCount;
+        mSegmentUsed = 0;
+        mSegmentSwitches++;
+        long fence = mFences[mSegment];
+        if (fence == 0) {
+            return;
+        }
+        mFences[mSegment] = 0;
+        int status = GLBackends.get().glClientWaitSync(fence, GLES30.GL_SYNC_FLUSH_COMMANDS_BIT, 0);
+        if (status == GLES30.GL_TIMEOUT_EXPIRED) {
+            // GPU 还在读这一段，只能等待；说明段数或每段大小不足
+            mFenceWaits++;
+            long start = SystemClock.elapsedRealtimeNanos();
+            status = GLBackends.get().glClientWaitSync(fence, GLES30.GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NANOS);
+            mFenceWaitNanos += SystemClock.elapsedRealtimeNanos() - start;
+            if (status == GLES30.GL_TIMEOUT_EXPIRED || status == GLES30.GL_WAIT_FAILED) {
+                Log.w(TAG, "Fence wait failed: 0x" + Integer.toHexString(status));
+            }
+        }
+        GLBackends.get().glDeleteSync(fence);
+    }
+
+    // VBO 的对象名，失效时当场重建；重建后对象名可能变化，不要缓存
+    public int getVboId() {
+        return mRegistry.require(mVboResource);
+    }
+
+    public int getStride() {
+        return mStride;
+    }
+
+    public int getCapacityBytes() {
+        return mStride * mSegmentVertices * mSegmentCount;
+    }
+
+    public long getReservations() {
+        return mReservations;
+    }
+
+    public long getCommittedBytes() {
+        return mCommittedBytes;
+    }
+
+    public long getSegmentSwitches() {
+        return mSegmentSwitches;
+    }
+
+    // CPU 等待 fence 的次数，大于 0 说明环形缓冲区太小
+    public long getFenceWaits() {
+        return mFenceWaits;
+    }
+
+    public long getFenceWaitNanos() {
+        return mFenceWaitNanos;
+    }
+
+    /**
+     * 删除 VBO 和未完成的 fence，必须在 GL 线程调用
+     */
+    public void release() {
+        // VBO 失效（上下文丢失后还没有重建）时映射和 fence 也已经随旧上下文销毁
+        if (mVboResource.isResident()) {
+            if (mMapped) {
+                GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mVboResource.getId());
+                GLBackends.get().glUnmapBuffer(GLES30.GL_ARRAY_BUFFER);
+            }
+            for (int i = 0; i < mSegmentCount; i++) {
+                if (mFences[i] != 0) {
+                    GLBackends.get().glDeleteSync(mFences[i]);
+                }
+            }
+        }
+        mMapped = false;
+        for (int i = 0; i < mSegmentCount; i++) {
+            mFences[i] = 0;
+        }
+        mRegistry.release(mVboResource);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.glsurfaceviewdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.opengl.GLES30;
+
+import com.example.glsurfaceviewdemo.core.AtlasPacker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 纹理图集：把许多小图片合并到少数几张带 mipmap 的大纹理中，渲染器拿到的是页面纹理 ID 加 UV 子矩形，
+ * 同一页面上的图片可以在一次绘制调用中完成（配合 SpriteBatch），不再需要来回切换纹理。
+ * <p>
+ * 每张图片四周复制 padding 像素的边缘（bleed），并按 padding 对齐，mipmap 最大层级限制为 log2(padding)，
+ * 保证缩小时不会混入相邻图片的颜色。
+ * <p>
+ * 用法：add(...) -> build()（可以在工作线程执行）-> upload()（GL 线程）-> getRegion(name)。
+ */
+public class TextureAtlas {
+    /**
+     * 图集中的一张图片
+     */
+    public static class Region {
+        public final String name;
+        public final int page;
+        public final int width;
+        public final int height;
+        public final float u0; // 左上角
+        public final float v0;
+        public final float u1; // 右下角
+        public final float v1;
+        private int mTextureId;
+
+        Region(String name, int page, int x, int y, int width, int height, int pageWidth, int pageHeight) {
+            this.name = name;
+            this.page = page;
+            this.width = width;
+            this.height = height;
+            u0 = (float) x / pageWidth;
+            v0 = (float) y / pageHeight;
+            u1 = (float) (x + width) / pageWidth;
+            v1 = (float) (y + height) / pageHeight;
+        }
+
+        // 所在页面的纹理 ID，upload() 之前为 0
+        public int getTextureId() {
+            return mTextureId;
+        }
+    }
+
+    private final AtlasPacker mPacker;
+    private final List<String> mNames = new ArrayList<>();
+    private final List<Bitmap> mBitmaps = new ArrayList<>();
+    private final HashMap<String, Region> mRegions = new HashMap<>();
+    private Bitmap[] mPageBitmaps; // build() 生成，upload() 后回收
+    private int[] mPageTextures = new int[0];
+
+    /**
+     * @param pageSize 页面边长，例如 2048
+     * @param padding  每张图片四周复制的边缘像素，2 的幂，例如 4
+     */
+    public TextureAtlas(int pageSize, int padding) {
+        if (Integer.bitCount(padding) != 1) {
+            throw new IllegalArgumentException("padding must be a power of two: " + padding);
+        }
+        mPacker = new AtlasPacker(pageSize, pageSize, padding, padding);
+    }
+
+    /**
+     * 添加一张图片，build() 之后调用方可以回收这张位图
+     */
+    public void add(String name, Bitmap bitmap) {
+        mNames.add(name);
+        mBitmaps.add(bitmap);
+    }
+
+    /**
+     * 装箱并把图片绘制到页面位图中，只使用 CPU，可以在工作线程调用
+     *
+     * @return 页面个数
+     */
+    public int build() {
+        int count = mBitmaps.size();
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = mBitmaps.get(i).getWidth();
+            heights[i] = mBitmaps.get(i).getHeight();
+        }
+        int[] pages = new int[count];
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        mPacker.reset();
+        mPacker.pack(count, widths, heights, pages, xs, ys);
+
+        int pageWidth = mPacker.getPageWidth();
+        int pageHeight = mPacker.getPageHeight();
+        mPageBitmaps = new Bitmap[mPacker.getPageCount()];
+        Canvas[] canvases = new Canvas[mPageBitmaps.length];
+        for (int i = 0; i < mPageBitmaps.length; i++) {
+            mPageBitmaps[i] = Bitmap.createBitmap(pageWidth, pageHeight, Bitmap.Config.ARGB_8888);
+            canvases[i] = new Canvas(mPageBitmaps[i]);
+        }
+        Paint paint = new Paint();
+        paint.setFilterBitmap(false); // 边缘拉伸时不做插值，原样复制像素
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        mRegions.clear();
+        for (int i = 0; i < count; i++) {
+            if (pages[i] < 0) {
+                throw new IllegalArgumentException("Image " + mNames.get(i) + " is larger than an atlas page");
+            }
+            drawWithBleed(canvases[pages[i]], mBitmaps.get(i), xs[i], ys[i], mPacker.getPadding(), paint);
+            mRegions.put(mNames.get(i), new Region(mNames.get(i), pages[i], xs[i], ys[i],
+                    widths[i], heights[i], pageWidth, pageHeight));
+        }
+        mNames.clear();
+        mBitmaps.clear();
+        return mPageBitmaps.length;
+    }
+
+    // 绘制图片，并把四条边和四个角的像素向外复制 padding 像素
+    private static void drawWithBleed(Canvas canvas, Bitmap bitmap, int x, int y, int pad, Paint paint) {
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        canvas.drawBitmap(bitmap, new Rect(0, 0, w, h), new Rect(x, y, x + w, y + h), paint);
+        // 四条边
+        canvas.drawBitmap(bitmap, new Rect(0, 0, 1, h), new Rect(x - pad, y, x, y + h), paint);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, 0, w, h), new Rect(x + w, y, x + w + pad, y + h), paint);
+        canvas.drawBitmap(bitmap, new Rect(0, 0, w, 1), new Rect(x, y - pad, x + w, y), paint);
+        canvas.drawBitmap(bitmap, new Rect(0, h - 1, w, h), new Rect(x, y + h, x + w, y + h + pad), paint);
+        // 四个角
+        canvas.drawBitmap(bitmap, new Rect(0, 0, 1, 1), new Rect(x - pad, y - pad, x, y), paint);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, 0, w, 1), new Rect(x + w, y - pad, x + w + pad, y), paint);
+        canvas.drawBitmap(bitmap, new Rect(0, h - 1, 1, h), new Rect(x - pad, y + h, x, y + h + pad), paint);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, h - 1, w, h), new Rect(x + w, y + h, x + w + pad, y + h + pad), paint);
+    }
+
+    /**
+     * 上传页面并生成 mipmap，必须在 GL 线程调用；上传后页面位图会被回收
+     */
+    public void upload() {
+        if (mPageBitmaps == null) {
+            throw new IllegalStateException("build() must be called before upload()");
+        }
+        // bleed 宽度为 padding，到第 log2(padding) 级 mipmap 仍然至少隔着一个纹素
+        int maxLevel = Integer.numberOfTrailingZeros(mPacker.getPadding());
+        mPageTextures = new int[mPageBitmaps.length];
+        GLBackends.get().glGenTextures(mPageTextures.length, mPageTextures, 0);
+        for (int i = 0; i < mPageTextures.length; i++) {
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, mPageTextures[i]);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR_MIPMAP_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAX_LEVEL, maxLevel);
+            GLBackends.get().texImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, mPageBitmaps[i],
+                    mPageBitmaps[i].getWidth(), mPageBitmaps[i].getHeight());
+            GLBackends.get().glGenerateMipmap(GLES30.GL_TEXTURE_2D);
+            mPageBitmaps[i].recycle();
+        }
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, 0);
+        mPageBitmaps = null;
+        for (Region region : mRegions.values()) {
+            region.mTextureId = mPageTextures[region.page];
+        }
+    }
+
+    /**
+     * @return 名称对应的图片，不存在时返回 null
+     */
+    public Region getRegion(String name) {
+        return mRegions.get(name);
+    }
+
+    public int getPageCount() {
+        return mPacker.getPageCount();
+    }
+
+    public int getPageTextureId(int page) {
+        return mPageTextures[page];
+    }
+
+    // 装箱率：图片面积 / 页面总面积
+    public float getEfficiency() {
+        return mPacker.getEfficiency();
+    }
+
+    // 所有页面占用的显存（含 mipmap）
+    public long getTotalBytes() {
+        long pageBytes = (long) mPacker.getPageWidth() * mPacker.getPageHeight() * 4;
+        return pageBytes * 4 / 3 * mPageTextures.length;
+    }
+
+    /**
+     * 删除页面纹理，必须在 GL 线程调用
+     */
+    public void release() {
+        if (mPageTextures.length > 0) {
+            GLStateCache.deleteTextures(mPageTextures.length, mPageTextures, 0);
+        }
+        mPageTextures = new int[0];
+        for (Region region : mRegions.values()) {
+            region.mTextureId = 0;
+        }
+        if (mPageBitmaps != null) {
+            for (Bitmap bitmap : mPageBitmaps) {
+                bitmap.recycle();
+            }
+            mPageBitmaps = null;
+        }
+    }
+}
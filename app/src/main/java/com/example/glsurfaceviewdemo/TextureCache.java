@@ -0,0 +1,287 @@
+package com.example.glsurfaceviewdemo;
+
+import android.opengl.GLES30;
+
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GPU 纹理缓存：按资源 ID 或 URI 等字符串 key 共享纹理。
+ * <ul>
+ *     <li>多个渲染器通过引用计数共享同一个 GL 纹理，acquire 和 release 必须成对调用</li>
+ *     <li>按 宽 x 高 x 每像素字节数（有 mipmap 时再乘 4/3）统计显存占用，压缩纹理按实际数据大小统计</li>
+ *     <li>显存超过预算时，按最近最少使用的顺序删除引用计数为 0 的纹理</li>
+ * </ul>
+ * 所有方法都必须在 GL 线程调用。
+ */
+public class TextureCache {
+    /**
+     * 缓存中的一张纹理
+     */
+    public static class Texture {
+        public final String key;
+        public final int textureId;
+        public final int width;
+        public final int height;
+        public final long bytes;
+        private int mRefCount;
+        private boolean mReplaced; // 同一个 key 已经换成了新纹理，最后一次 release 时删除
+
+        Texture(String key, int textureId, int width, int height, long bytes) {
+            this.key = key;
+            this.textureId = textureId;
+            this.width = width;
+            this.height = height;
+            this.bytes = bytes;
+        }
+
+        public int getRefCount() {
+            return mRefCount;
+        }
+    }
+
+    /**
+     * 纹理就绪的回调，在 GL 线程执行；拿到的纹理已经计入一次引用
+     */
+    public interface Callback {
+        void onTextureReady(Texture texture);
+    }
+
+    private long mMaxBytes;
+    private long mResidentBytes = 0;
+    // accessOrder 为 true：迭代顺序即从最久未使用到最近使用
+    private final LinkedHashMap<String, Texture> mTextures = new LinkedHashMap<>(16, 0.75f, true);
+    // 正在加载中的 key 以及等待它的回调，同一个 key 只会加载一次
+    private final HashMap<String, List<Callback>> mPending = new HashMap<>();
+    // 被同一个 key 的新纹理替换、但还有人在使用的旧纹理，引用计数归零时删除
+    private final List<Texture> mReplaced = new ArrayList<>();
+
+    // 统计数据
+    private long mHits = 0;
+    private long mMisses = 0;
+    private long mEvictions = 0;
+
+    /**
+     * @param maxBytes 显存预算（字节），只约束引用计数为 0 的纹理，正在使用的纹理不会被删除
+     */
+    public TextureCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        trimToBudget();
+    }
+
+    /**
+     * 获取已经在显存中的纹理并增加引用计数
+     *
+     * @return 缓存命中时返回纹理，否则返回 null
+     */
+    public Texture acquire(String key) {
+        Texture texture = mTextures.get(key);
+        if (texture == null) {
+            mMisses++;
+            return null;
+        }
+        mHits++;
+        texture.mRefCount++;
+        return texture;
+    }
+
+    /**
+     * 获取纹理，缓存未命中时通过 AsyncTextureLoader 异步加载；命中时回调会立即执行
+     *
+     * @param key      纹理的唯一标识，例如 "res:" + resId 或图片 URI
+     * @param loader   异步加载器
+     * @param decoder  缓存未命中时在工作线程执行的解码逻辑
+     * @param callback 纹理就绪后的回调
+     */
+    public void acquire(final String key, AsyncTextureLoader loader, AsyncTextureLoader.Decoder decoder,
+                        Callback callback) {
+        Texture texture = acquire(key);
+        if (texture != null) {
+            callback.onTextureReady(texture);
+            return;
+        }
+        List<Callback> waiting = mPending.get(key);
+        if (waiting != null) {
+            waiting.add(callback); // 已经在加载，不重复加载
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        mPending.put(key, waiting);
+        loader.load(decoder, (textureId, width, height) -> onLoaded(key, textureId, width, height));
+    }
+
+    /**
+     * key 对应的纹理是否已经在缓存中或正在加载，不影响命中统计和 LRU 顺序
+     */
+    public boolean isCachedOrLoading(String key) {
+        return mTextures.containsKey(key) || mPending.containsKey(key);
+    }
+
+    /**
+     * 获取 drawable 资源对应的纹理，key 为 "res:" + resId
+     */
+    public void acquireResource(int resId, AsyncTextureLoader loader, Callback callback) {
+        acquire("res:" + resId, loader, loader.resourceDecoder(resId), callback);
+    }
+
+    private void onLoaded(String key, int textureId, int width, int height) {
+        List<Callback> waiting = mPending.remove(key);
+        if (waiting == null) {
+            // 没有人在等待（例如加载期间上下文重建，同一个 key 又被重新请求并先完成了）
+            if (mTextures.containsKey(key)) {
+                GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, textureId);
+            } else {
+                insert(key, textureId, width, height, textureBytes(width, height, GLES30.GL_RGBA8, false), 0);
+            }
+            return;
+        }
+        Texture texture = insert(key, textureId, width, height,
+                textureBytes(width, height, GLES30.GL_RGBA8, false), waiting.size());
+        for (Callback callback : waiting) {
+            callback.onTextureReady(texture);
+        }
+    }
+
+    /**
+     * 把一张已经创建好的纹理放进缓存，缓存接管它的生命周期；返回的纹理已经计入一次引用
+     *
+     * @param internalFormat 纹理的内部格式，用于计算显存占用，例如 GLES30.GL_RGBA8
+     * @param mipmapped      是否生成了 mipmap
+     */
+    public Texture put(String key, int textureId, int width, int height, int internalFormat, boolean mipmapped) {
+        return insert(key, textureId, width, height, textureBytes(width, height, internalFormat, mipmapped), 1);
+    }
+
+    /**
+     * 同 {@link #put(String, int, int, int, int, boolean)}，显存占用由调用方给出，用于压缩纹理
+     *
+     * @param bytes 所有 mip 层级数据的总字节数
+     */
+    public Texture put(String key, int textureId, int width, int height, long bytes) {
+        return insert(key, textureId, width, height, bytes, 1);
+    }
+
+    private Texture insert(String key, int textureId, int width, int height, long bytes, int refCount) {
+        Texture old = mTextures.remove(key);
+        if (old != null) {
+            // 同一个 key 被替换：没人用的旧纹理直接删除，还在用的等最后一次 release 时删除（仍然计入显存占用）
+            if (old.mRefCount == 0) {
+                GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, old.textureId);
+                mResidentBytes -= old.bytes;
+            } else {
+                old.mReplaced = true;
+                mReplaced.add(old);
+            }
+        }
+        Texture texture = new Texture(key, textureId, width, height, bytes);
+        texture.mRefCount = refCount;
+        mTextures.put(key, texture);
+        mResidentBytes += bytes;
+        trimToBudget();
+        return texture;
+    }
+
+    /**
+     * 释放一次引用；引用计数归零后纹理仍然保留在显存中，直到超过预算被淘汰（已经被替换的纹理立即删除）
+     */
+    public void release(Texture texture) {
+        if (texture == null || texture.mRefCount <= 0) {
+            return;
+        }
+        texture.mRefCount--;
+        if (texture.mRefCount > 0) {
+            return;
+        }
+        if (texture.mReplaced) {
+            mReplaced.remove(texture);
+            GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, texture.textureId);
+            mResidentBytes -= texture.bytes;
+            return;
+        }
+        trimToBudget();
+    }
+
+    // 从最久未使用的纹理开始，删除没有被引用的纹理，直到显存占用不超过预算
+    private void trimToBudget() {
+        if (mResidentBytes <= mMaxBytes) {
+            return;
+        }
+        Iterator<Map.Entry<String, Texture>> iterator = mTextures.entrySet().iterator();
+        while (mResidentBytes > mMaxBytes && iterator.hasNext()) {
+            Texture texture = iterator.next().getValue();
+            if (texture.mRefCount > 0) {
+                continue;
+            }
+            iterator.remove();
+            GLStateCache.deleteResource(GpuResourceRegistry.TEXTURE, texture.textureId);
+            mResidentBytes -= texture.bytes;
+            mEvictions++;
+        }
+    }
+
+    /**
+     * 删除所有没有被引用的纹理
+     */
+    public void evictUnused() {
+        long maxBytes = mMaxBytes;
+        mMaxBytes = 0;
+        trimToBudget();
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * EGL 上下文丢失后调用：纹理已经随上下文销毁，只清空记录，不调用 glDeleteTextures
+     */
+    public void onContextLost() {
+        mTextures.clear();
+        mPending.clear();
+        for (Texture texture : mReplaced) {
+            texture.mReplaced = false; // 之后的 release 不再删除旧上下文中的 ID
+        }
+        mReplaced.clear();
+        mResidentBytes = 0;
+    }
+
+    public long getHits() {
+        return mHits;
+    }
+
+    public long getMisses() {
+        return mMisses;
+    }
+
+    public long getEvictions() {
+        return mEvictions;
+    }
+
+    // 当前驻留在显存中的纹理总字节数
+    public long getResidentBytes() {
+        return mResidentBytes;
+    }
+
+    // 驻留的纹理个数，包括已经被替换、还在使用的旧纹理
+    public int getResidentCount() {
+        return mTextures.size() + mReplaced.size();
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    private static long textureBytes(int width, int height, int internalFormat, boolean mipmapped) {
+        long bytes = (long) width * height * GpuMemoryTracker.bytesPerPixel(internalFormat);
+        return mipmapped ? bytes * 4 / 3 : bytes;
+    }
+}
@@ -4,14 +4,24 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLES30;
-import android.opengl.GLUtils;
-import android.opengl.Matrix;
 import android.util.Log;
 
+import com.example.glsurfaceviewdemo.core.FilterGraph;
+import com.example.glsurfaceviewdemo.core.GLBackend;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.Mat4;
+import com.example.glsurfaceviewdemo.core.VertexLayout;
+
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+
+/**
+ * 绘制一张铺满 [-1, 1] 的纹理。program、VBO、VAO 和自己创建的纹理都登记在 {@link GpuResourceRegistry} 中，
+ * EGL 上下文丢失后不需要重新创建渲染器，调用 {@link #onContextLost()} 后在下一次绘制时按需重建。
+ */
 public class TextureRender {
+    private final GLBackend mGL = GLBackends.get(); // GL 命令的后端，创建时确定
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者，登记的对象重建后仍然记在它名下
     private Context mContext;
     private float[] mCoordData = {
             // 顶点坐标          纹理坐标
@@ -21,46 +31,92 @@ public class TextureRender {
             1.0f, -1.0f, 0.0f, 1.0f, 1.0f   // 右下角
     };
 
-    private int mTextureId = -1;
-    private FloatBuffer mCoordBuffer;
-    private int mProgram = -1;
-    private int mVboId;
+    private final GpuResourceRegistry mRegistry; // 记录 GL 对象的创建方式，上下文丢失后用于重建
+    private GpuResourceRegistry.Resource mProgramResource;
+    private GpuResourceRegistry.Resource mVboResource;
+    private GpuResourceRegistry.Resource mVaoResource;
+    private GpuResourceRegistry.Resource mPlaceholderResource; // 外部纹理就绪之前（包括上下文丢失之后）显示的占位纹理
+    private GpuResourceRegistry.Resource mBitmapResource; // 由 mBitmap 上传的纹理，设置外部纹理后删除
+    private int mTextureId = 0; // 调用方通过 setTexture 设置的纹理，为 0 时显示自己创建的纹理
+    private VertexLayout mVertexLayout; // 量化后的顶点布局：位置 3 x snorm16，纹理坐标 2 x unorm16，每个顶点 12 字节
+    private ByteBuffer mCoordBuffer; // 始终保存最新的顶点数据，VBO 重建时直接上传
+    private ShaderProgram mProgram;
+    private int mProgramCreateCount = 0; // mProgram 对应 program 的第几次创建，重建后需要重新反射
+    private int mVaoId;
 
     private int mPositionHandle = -1; // 顶点位置属性的操作句柄
     private int mTexCoordHandle = -1; // 纹理坐标属性的操作句柄
-    private int mMVPMatrixHandle = -1;  // 变换矩阵操作句柄，用于实现顶点的变换
-    private int mSamplerHandle = -1;  // 纹理采样器操作句柄，相当于一个指向某个纹理单元的指针
+    private int mMVPMatrixIndex = -1;  // 变换矩阵在 ShaderProgram 中的下标，用于实现顶点的变换
+    private int mSamplerIndex = -1;  // 纹理采样器在 ShaderProgram 中的下标，相当于一个指向某个纹理单元的指针
     Bitmap mBitmap;
-    private float[] mMVPMatrix; // mvp矩阵
+    private final float[] mMVPMatrix = new float[16]; // mvp矩阵
+    private RenderInvalidator mInvalidator; // 内容变化时通知重新绘制
+    private FilterGraph mFilterGraph; // 显示之前作用在纹理上的滤镜链，为空时直接显示纹理
+    private FilterPipeline mFilterPipeline; // 第一次设置滤镜链时创建
+    private int mFilterWidth = 0; // 滤镜输出的宽高（图片尺寸）
+    private int mFilterHeight = 0;
 
-    public TextureRender(Context context, Bitmap bitmap) {
+    /**
+     * 显示一张图片。上下文丢失后会从 bitmap 重新上传纹理，渲染器释放之前不要 recycle 它
+     */
+    public TextureRender(Context context, GpuResourceRegistry registry, Bitmap bitmap) {
         mContext = context;
+        mRegistry = registry;
+        Mat4.setIdentity(mMVPMatrix, 0);
         mBitmap = bitmap;
         initialize();
     }
 
+    /**
+     * 先显示一个占位纹理，真正的纹理准备好后通过 {@link #setTexture(int)} 设置（例如由 AsyncTextureLoader 加载）
+     */
+    public TextureRender(Context context, GpuResourceRegistry registry) {
+        mContext = context;
+        mRegistry = registry;
+        Mat4.setIdentity(mMVPMatrix, 0);
+        initialize();
+    }
+
     private void initialize() {
-        mTextureId = uploadTexture(); // 上传纹理到GPU
-        initVertexBuffer();           // 初始化坐标数据
-        initShaders(mContext);        // 加载并编译着色器
-        initVbo();                    // 初始化 VBO
-        initHandles();                // 获取GPU和Shader的一些操作接口
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            // 上传纹理到GPU，同时准备占位纹理
+            mPlaceholderResource = mRegistry.register(GpuResourceRegistry.TEXTURE, "TextureRender.placeholder",
+                    GpuResourceRegistry.PRIORITY_HIGH, this::uploadPlaceholderTexture);
+            if (mBitmap != null) {
+                mBitmapResource = mRegistry.register(GpuResourceRegistry.TEXTURE, "TextureRender.bitmap",
+                        GpuResourceRegistry.PRIORITY_HIGH, this::uploadTexture);
+            }
+            initShaders(mContext);        // 加载并编译着色器
+            initHandles();                // 获取GPU和Shader的一些操作接口
+            initVertexBuffer();           // 初始化坐标数据（布局需要属性位置）
+            initVao();                    // 初始化 VAO，封装 VBO 和顶点属性的配置
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
+    }
+
+    /**
+     * EGL 上下文丢失后调用（登记表的 onContextLost 之后）：外部纹理和滤镜的离屏目标已经失效，
+     * 在调用方重新 setTexture 之前显示自己创建的纹理；program、VBO 和 VAO 在下一次绘制时重建
+     */
+    public void onContextLost() {
+        mTextureId = 0;
+        mFilterPipeline = null; // 旧上下文中的离屏目标和 program 已经销毁，需要时重新创建
     }
 
     // 获取GPU和Shader的一些操作接口
     private void initHandles() {
         // 获取顶点坐标操作接口的句柄
-        mPositionHandle = GLES30.glGetAttribLocation(mProgram, "aPosition");
+        mPositionHandle = mProgram.getAttributeLocation(mProgram.attributeIndex("aPosition"));
         validateAttributeLocation(mPositionHandle, "aPosition");
-        GLES30.glEnableVertexAttribArray(mPositionHandle); // 启用位置属性数组
         // 获取纹理坐标操作接口的句柄
-        mTexCoordHandle = GLES30.glGetAttribLocation(mProgram, "aTexCoord");
+        mTexCoordHandle = mProgram.getAttributeLocation(mProgram.attributeIndex("aTexCoord"));
         validateAttributeLocation(mTexCoordHandle, "aTexCoord");
-        GLES30.glEnableVertexAttribArray(mTexCoordHandle); // 启用纹理坐标属性数组
-        // 获取变换矩阵操作接口的句柄
-        mMVPMatrixHandle = GLES30.glGetUniformLocation(mProgram, "uMVPMatrix");
-        // 用于获取Shader当中纹理采样器的操作接口的句柄
-        mSamplerHandle = GLES30.glGetUniformLocation(mProgram, "uSampler");
+        // 获取变换矩阵的下标
+        mMVPMatrixIndex = mProgram.uniformIndex("uMVPMatrix");
+        // 获取Shader当中纹理采样器的下标
+        mSamplerIndex = mProgram.uniformIndex("uSampler");
     }
     // 用于验证属性句柄的有效性
     private void validateAttributeLocation(int handle, String attributeName) {
@@ -70,102 +126,289 @@ public class TextureRender {
     }
     // 绘制纹理
     public void draw() {
-        // 激活着色器程序
-        GLES30.glUseProgram(mProgram);
-        // 绑定VBO
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, mVboId);
-        // 设置顶点坐标和纹理坐标给OpenGL
-        setupVertexAttribPointer();
+        draw(mMVPMatrix);
+    }
+
+    /**
+     * 使用指定的 mvp 矩阵绘制纹理（例如绘制到尺寸不同的离屏目标），不改变 setCustomMVPMatrix 设置的矩阵
+     */
+    public void draw(float[] mvpMatrix) {
+        // 先执行滤镜链（会切换 program、VAO 和帧缓冲，必须在设置本渲染器的状态之前）
+        int textureId = filteredTexture();
+        // 上下文丢失后，在这里重建 program 和 VAO
+        if (!prepareResources()) {
+            return;
+        }
+        // 激活着色器程序（状态没有变化时由 GLStateCache 跳过，下同）
+        mProgram.use();
+        // 绑定 VAO（自动恢复顶点属性和 VBO 的绑定状态）
+        GLStateCache.bindVertexArray(mVaoId);
         // 上传变换矩阵
-        GLES30.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
+        mProgram.setUniformMatrix4fv(mMVPMatrixIndex, mvpMatrix, 0);
         // 绑定纹理并设置采样器
-        bindTexture();
+        bindTexture(textureId);
         // 绘制矩形
-        GLES30.glDrawArrays(GLES30.GL_TRIANGLE_STRIP, 0, 4);
-        // 解绑当前的 VBO，避免后续操作意外影响到这个缓冲
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, 0);
+        GLStateCache.drawArrays(GLES30.GL_TRIANGLE_STRIP, 0, 4);
         // 检查 OpenGL 错误
         checkOpenGLError();
     }
 
+    /**
+     * 设置显示之前作用在纹理上的滤镜链，传入 null 取消。滤镜链或参数变化后需要请求重新绘制，没有变化时不会重新执行
+     *
+     * @param width  图片宽度，滤镜按这个尺寸输出
+     * @param height 图片高度
+     */
+    public void setFilterGraph(FilterGraph graph, int width, int height) {
+        if (graph != null && mFilterPipeline == null) {
+            mFilterPipeline = new FilterPipeline(mContext);
+        }
+        if (mFilterGraph != graph || mFilterWidth != width || mFilterHeight != height) {
+            mFilterGraph = graph;
+            mFilterWidth = width;
+            mFilterHeight = height;
+            invalidate();
+        }
+    }
+
+    // 滤镜执行器，可以查看 pass 数和纹理池的使用情况，没有设置过滤镜链时为 null
+    public FilterPipeline getFilterPipeline() {
+        return mFilterPipeline;
+    }
+
+    // 经过滤镜链处理之后的纹理，结果会被缓存，只有纹理、滤镜或参数变化时才重新执行
+    private int filteredTexture() {
+        int textureId = currentTexture();
+        if (mFilterPipeline == null) {
+            return textureId;
+        }
+        return mFilterPipeline.process(mFilterGraph, textureId, mFilterWidth, mFilterHeight);
+    }
+
+    // 当前显示的纹理：外部纹理 > 自己上传的图片 > 占位纹理（必要时重建）
+    private int currentTexture() {
+        if (mTextureId != 0) {
+            return mTextureId;
+        }
+        if (mBitmapResource != null) {
+            return mRegistry.require(mBitmapResource);
+        }
+        return mRegistry.require(mPlaceholderResource);
+    }
+
+    // 获取可用的 program 和 VAO，program 重建过时重新反射 uniform（location 可能变化，缓存的值也已失效）
+    private boolean prepareResources() {
+        int program = mRegistry.require(mProgramResource);
+        if (program == 0) {
+            return false;
+        }
+        if (mProgramCreateCount != mProgramResource.getCreateCount()) {
+            mProgram = new ShaderProgram(program);
+            mProgramCreateCount = mProgramResource.getCreateCount();
+            initHandles();
+        }
+        mVaoId = mRegistry.require(mVaoResource);
+        return mVaoId != 0;
+    }
+
+    // 设置失效通知接口，矩阵或纹理变化时会调用 invalidate 请求重新绘制
+    public void setInvalidator(RenderInvalidator invalidator) {
+        mInvalidator = invalidator;
+    }
+
+    private void invalidate() {
+        if (mInvalidator != null) {
+            mInvalidator.invalidate();
+        }
+    }
+
     // 接收mvp矩阵
     public void setCustomMVPMatrix(float[] mvpMatrix) {
         if (mvpMatrix.length == 16) { // 确保传入的数组长度为 16
-            mMVPMatrix = new float[16];
-            System.arraycopy(mvpMatrix, 0, mMVPMatrix, 0, 16);
+            if (Mat4.equals(mMVPMatrix, 0, mvpMatrix, 0)) {
+                return; // 矩阵没有变化，不需要重新绘制
+            }
+            Mat4.copy(mMVPMatrix, 0, mvpMatrix, 0); // 复制到固定的数组中，不分配内存
+            invalidate();
         } else {
             Log.e("TextureRender", "mvp Matrix length invalid!");
         }
     }
 
-    // 设置顶点坐标和纹理坐标
-    private void setupVertexAttribPointer() {
-        // 指定位置属性的布局(设置顶点位置数据)
-        // 3表示：每个顶点有3个浮点数（x, y, z），步长stride为 5*Float.BYTES，偏移量是0
-        GLES30.glVertexAttribPointer(mPositionHandle, 3, GLES30.GL_FLOAT, false, 5 * Float.BYTES, 0);
-        // 指定纹理坐标属性的布局（设置纹理坐标数据）
-        // 2表示：每个纹理有 2 个浮点数（u, v），步长是同样是 5*Float.BYTES，偏移量是3*Float.BYTES（前三个是顶点坐标）
-        GLES30.glVertexAttribPointer(mTexCoordHandle, 2, GLES30.GL_FLOAT, false, 5 * Float.BYTES, 3 * Float.BYTES);
-    }
     // 绑定纹理
-    private void bindTexture() {
+    private void bindTexture(int textureId) {
         // 激活纹理单元 0
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
+        GLStateCache.activeTexture(GLES30.GL_TEXTURE0);
         // 绑定纹理
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mTextureId);
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, textureId);
         // 上传纹理单元索引到Shader中的 uSampler 变量
-        GLES30.glUniform1i(mSamplerHandle, 0);
+        mProgram.setUniform1i(mSamplerIndex, 0);
     }
     // 检查OpengGL的错误
     private void checkOpenGLError() {
-        int error = GLES30.glGetError();
+        int error = mGL.glGetError();
         if (error != GLES30.GL_NO_ERROR) {
             Log.e("OpenGL", "OpenGL Error: " + error);
         }
     }
-    // 加载并编译着色器
+    // 加载并编译着色器，源码保留在登记表中用于重建（有程序二进制缓存时重建不需要重新编译）
     private void initShaders(Context context) {
-        String vertexShaderCode = ShaderController.loadShaderCodeFromFile("texture_vertex_shader.glsl", context);
-        String fragmentShaderCode = ShaderController.loadShaderCodeFromFile("texture_fragment_shader.glsl", context);
-        mProgram = ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode);
-        if (mProgram == 0) {
-            Log.e("TextureRender", "Failed to create OpenGL program.");
-        }
+        final String vertexShaderCode = ShaderController.loadShaderCodeFromFile("texture_vertex_shader.glsl", context);
+        final String fragmentShaderCode = ShaderController.loadShaderCodeFromFile("texture_fragment_shader.glsl", context);
+        mProgramResource = mRegistry.register(GpuResourceRegistry.PROGRAM, "TextureRender.program",
+                GpuResourceRegistry.PRIORITY_HIGH, () -> {
+            int program = ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode);
+            if (program == 0) {
+                Log.e("TextureRender", "Failed to create OpenGL program.");
+            }
+            return program;
+        });
+        mProgram = new ShaderProgram(mProgramResource.getId()); // 一次性获取所有属性和 uniform 的位置
+        mProgramCreateCount = mProgramResource.getCreateCount();
     }
     // 初始化坐标数据
     private void initVertexBuffer() {
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(mCoordData.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        mCoordBuffer = byteBuffer.asFloatBuffer();
-        mCoordBuffer.put(mCoordData);
-        mCoordBuffer.position(0);
+        // 顶点坐标都在 [-1, 1]，纹理坐标在 [0, 1]，量化成 16 位定点数没有可见的误差，20 字节 -> 12 字节
+        mVertexLayout = new VertexLayout()
+                .add(mPositionHandle, 3, VertexLayout.SNORM16)
+                .add(mTexCoordHandle, 2, VertexLayout.UNORM16);
+        mCoordBuffer = mVertexLayout.pack(mCoordData, 5, 4);
+    }
+    // 初始化 VAO，封装 VBO 的绑定和顶点属性的配置，draw 时只需绑定 VAO
+    private void initVao() {
+        mVboResource = mRegistry.register(GpuResourceRegistry.BUFFER, "TextureRender.vbo",
+                GpuResourceRegistry.PRIORITY_HIGH, this::createVbo);
+        mVaoResource = mRegistry.register(GpuResourceRegistry.VERTEX_ARRAY, "TextureRender.vao",
+                GpuResourceRegistry.PRIORITY_HIGH, this::createVao);
+        mVaoId = mVaoResource.getId();
+    }
+
+    private int createVao() {
+        int[] vaos = new int[1];
+        mGL.glGenVertexArrays(1, vaos, 0);
+        GLStateCache.bindVertexArray(vaos[0]); // 绑定 VAO
+
+        // 绑定 VBO（上下文丢失后先重建 VBO）
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mRegistry.require(mVboResource));
+
+        // 启用并配置顶点属性（glVertexAttribPointer 的类型、normalized 和偏移由布局决定，location 在着色器中固定）
+        mVertexLayout.apply(mGL, 0);
+
+        // 解绑 VAO（防止后续操作误改 VAO 状态）
+        GLStateCache.bindVertexArray(0);
+        return vaos[0];
     }
-    // 初始化 VBO
-    private void initVbo() {
+
+    // 创建 VBO 并上传 mCoordBuffer 中最新的顶点数据
+    private int createVbo() {
         int[] vbos = new int[1];
-        GLES30.glGenBuffers(1, vbos, 0);
-        mVboId = vbos[0];
+        mGL.glGenBuffers(1, vbos, 0);
 
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, mVboId);
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, vbos[0]);
         mCoordBuffer.position(0);
-        GLES30.glBufferData(GLES30.GL_ARRAY_BUFFER, mCoordBuffer.capacity() * 4, mCoordBuffer, GLES30.GL_STATIC_DRAW);
+        mGL.glBufferData(GLES30.GL_ARRAY_BUFFER, mCoordBuffer.capacity(), mCoordBuffer, GLES30.GL_STATIC_DRAW);
+        return vbos[0];
     }
 
     // 上传纹理到GPU
     private int uploadTexture() {
         int[] textureIds = new int[1];
-        GLES30.glGenTextures(1, textureIds, 0); // 创建纹理
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureIds[0]); // 绑定纹理
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR); // 设置缩小策略
-        GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR); // 设置放大策略
-        GLUtils.texImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, mBitmap, 0); // 纹理上传到GPU
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, 0); // 解绑纹理，避免后续误操作
+        mGL.glGenTextures(1, textureIds, 0); // 创建纹理
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, textureIds[0]); // 绑定纹理
+        mGL.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR); // 设置缩小策略
+        mGL.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR); // 设置放大策略
+        mGL.texImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, mBitmap, mBitmap.getWidth(), mBitmap.getHeight()); // 纹理上传到GPU
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, 0); // 解绑纹理，避免后续误操作
+        return textureIds[0];
+    }
+
+    // 上传 1x1 的浅灰色占位纹理
+    private int uploadPlaceholderTexture() {
+        int[] textureIds = new int[1];
+        mGL.glGenTextures(1, textureIds, 0); // 创建纹理
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, textureIds[0]); // 绑定纹理
+        mGL.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
+        mGL.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_NEAREST);
+        ByteBuffer pixel = ByteBuffer.allocateDirect(4);
+        pixel.put(new byte[]{(byte) 0xE0, (byte) 0xE0, (byte) 0xE0, (byte) 0xFF}).position(0);
+        mGL.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, 1, 1, 0,
+                GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, pixel);
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, 0); // 解绑纹理，避免后续误操作
         return textureIds[0];
     }
 
+    /**
+     * 替换当前显示的纹理（例如异步加载完成后替换占位纹理），由 bitmap 上传的纹理会被删除，占位纹理保留用于上下文丢失之后
+     *
+     * @param textureId 新的纹理 ID，由调用方创建并负责释放（例如来自 TextureCache）；上下文丢失后需要重新设置
+     */
+    public void setTexture(int textureId) {
+        setTexture(textureId, 0.0f, 0.0f, 1.0f, 1.0f);
+    }
+
+    /**
+     * 显示图集中的一张图片
+     */
+    public void setTexture(TextureAtlas.Region region) {
+        setTexture(region.getTextureId(), region.u0, region.v0, region.u1, region.v1);
+    }
+
+    /**
+     * 显示纹理的一个子矩形（例如图集页面中的一张图片）
+     *
+     * @param u0 左上角纹理坐标 u
+     * @param v0 左上角纹理坐标 v
+     * @param u1 右下角纹理坐标 u
+     * @param v1 右下角纹理坐标 v
+     */
+    public void setTexture(int textureId, float u0, float v0, float u1, float v1) {
+        boolean uvChanged = setTexCoords(u0, v0, u1, v1);
+        if (textureId == mTextureId && !uvChanged) {
+            return;
+        }
+        if (textureId != mTextureId) {
+            if (mBitmapResource != null) {
+                mRegistry.release(mBitmapResource);
+                mBitmapResource = null;
+            }
+            mTextureId = textureId;
+        }
+        invalidate();
+    }
+
+    // 更新四个顶点的纹理坐标并重新上传 VBO，坐标没有变化时返回 false
+    private boolean setTexCoords(float u0, float v0, float u1, float v1) {
+        if (mCoordData[3] == u0 && mCoordData[4] == v0 && mCoordData[18] == u1 && mCoordData[19] == v1) {
+            return false;
+        }
+        mCoordData[3] = u0;  // 左上角
+        mCoordData[4] = v0;
+        mCoordData[8] = u0;  // 左下角
+        mCoordData[9] = v1;
+        mCoordData[13] = u1; // 右上角
+        mCoordData[14] = v0;
+        mCoordData[18] = u1; // 右下角
+        mCoordData[19] = v1;
+        mCoordBuffer.position(0);
+        mVertexLayout.pack(mCoordData, 5, 4, mCoordBuffer);
+        mCoordBuffer.position(0);
+        if (mVboResource.isResident()) { // VBO 还没有重建时不需要上传，重建时会使用最新的数据
+            GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mVboResource.getId());
+            mGL.glBufferSubData(GLES30.GL_ARRAY_BUFFER, 0, mCoordBuffer.capacity(), mCoordBuffer);
+        }
+        return true;
+    }
+
     public void release() {
-        GLES30.glDeleteBuffers(1, new int[]{mVboId}, 0); // 删除 VBO
-        GLES30.glDeleteProgram(mProgram); // 删除 shader program
+        mRegistry.release(mVaoResource); // 删除 VAO
+        mRegistry.release(mVboResource); // 删除 VBO
+        mRegistry.release(mProgramResource); // 删除 shader program
+        if (mFilterPipeline != null) {
+            mFilterPipeline.release(); // 删除滤镜的离屏目标和 program
+        }
+        mRegistry.release(mBitmapResource); // 删除自己创建的纹理
+        mRegistry.release(mPlaceholderResource);
+        GLBackends.getMemoryTracker().releaseOwner(mTag); // 还没有删除的对象记为泄漏
     }
 }
 
@@ -0,0 +1,223 @@
+package com.example.glsurfaceviewdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * 大图瓦片的后台解码线程：用 BitmapRegionDecoder 只解码请求的区域，并用 inSampleSize 直接解码出金字塔的某一层。
+ * <ul>
+ *     <li>请求按后进先出处理：平移时最新请求的（当前屏幕上的）瓦片先解码</li>
+ *     <li>最近 {@link #STALE_FRAMES} 帧都没有再请求的瓦片已经移出屏幕，直接跳过</li>
+ *     <li>被淘汰的整块瓦片 Bitmap 通过 inBitmap 复用，连续平移时不会反复分配大块内存</li>
+ * </ul>
+ * BitmapRegionDecoder 内部是串行的，所以只用一个线程。{@link #request} 和 {@link #pollCompleted()} 在 GL 线程调用。
+ */
+public class TileDecoder {
+    private static final String TAG = "TileDecoder";
+    public static final int STALE_FRAMES = 2;
+    private static final int MAX_REUSABLE_BITMAPS = 8;
+
+    /**
+     * 一次解码请求，结果通过 {@link #pollCompleted()} 交回 GL 线程
+     */
+    public static class Task {
+        public final long key;
+        final Rect rect;
+        final int sampleSize;
+        volatile long frame; // 最近一次请求这个瓦片的帧序号，仍然需要时由 GL 线程更新
+        public Bitmap bitmap;     // 解码结果，跳过或失败时为 null
+        public int width;         // 有效内容的宽高（复用的 Bitmap 可能比内容大）
+        public int height;
+        public long decodeNanos;
+
+        Task(long key, int left, int top, int right, int bottom, int sampleSize, long frame) {
+            this.key = key;
+            this.rect = new Rect(left, top, right, bottom);
+            this.sampleSize = sampleSize;
+            this.frame = frame;
+        }
+    }
+
+    private final String mPath;
+    private final int mTileSize;
+    private final RenderInvalidator mInvalidator;
+    private final Thread mThread;
+    private final LinkedBlockingDeque<Task> mQueue = new LinkedBlockingDeque<>();
+    private final ConcurrentLinkedQueue<Task> mCompleted = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Bitmap> mReusable = new ConcurrentLinkedQueue<>();
+    private volatile int mImageWidth = 0;  // 打开文件之前为 0
+    private volatile int mImageHeight = 0;
+    private volatile long mCurrentFrame = 0;
+    private volatile boolean mFailed = false;
+    private volatile boolean mReleased = false; // release 之后归还的 Bitmap 直接回收
+
+    /**
+     * @param path     图片文件路径（JPEG / PNG / WebP / HEIF）
+     * @param tileSize 瓦片边长，决定可以复用的 Bitmap 尺寸
+     */
+    public TileDecoder(String path, int tileSize, RenderInvalidator invalidator) {
+        mPath = path;
+        mTileSize = tileSize;
+        mInvalidator = invalidator;
+        mThread = new Thread(this::run, "TileDecoder");
+        mThread.start();
+    }
+
+    @SuppressWarnings("deprecation") // newInstance(String) 需要 API 31，minSdk 为 29
+    private void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        BitmapRegionDecoder decoder;
+        try {
+            // 打开文件需要读取文件头（JPEG 还要建立索引），放在解码线程中
+            decoder = BitmapRegionDecoder.newInstance(mPath, false);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open " + mPath, e);
+            mFailed = true;
+            return;
+        }
+        mImageWidth = decoder.getWidth();
+        mImageHeight = decoder.getHeight();
+        invalidate();
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true; // 淘汰后才能作为 inBitmap 复用
+        try {
+            while (true) {
+                Task task = mQueue.takeLast();
+                if (task.frame < mCurrentFrame - STALE_FRAMES) {
+                    mCompleted.add(task); // 已经不需要了，bitmap 为 null
+                    continue;
+                }
+                long start = SystemClock.elapsedRealtimeNanos();
+                decode(decoder, options, task);
+                task.decodeNanos = SystemClock.elapsedRealtimeNanos() - start;
+                mCompleted.add(task);
+                invalidate();
+            }
+        } catch (InterruptedException e) {
+            // release() 中断了线程
+        } finally {
+            decoder.recycle();
+            if (mReleased) {
+                recycleAll(); // release() 之后才解码完成的瓦片
+            }
+        }
+    }
+
+    private void decode(BitmapRegionDecoder decoder, BitmapFactory.Options options, Task task) {
+        options.inSampleSize = task.sampleSize;
+        // inBitmap 的尺寸保持不变，内容画在左上角，边缘瓦片只占其中一部分
+        options.inBitmap = mReusable.poll();
+        try {
+            task.bitmap = decoder.decodeRegion(task.rect, options);
+        } catch (IllegalArgumentException e) {
+            // 复用的 Bitmap 不兼容，改为新分配
+            options.inBitmap = null;
+            task.bitmap = decoder.decodeRegion(task.rect, options);
+        }
+        options.inBitmap = null;
+        if (task.bitmap == null) {
+            Log.e(TAG, "Failed to decode region " + task.rect);
+            return;
+        }
+        int sample = task.sampleSize;
+        task.width = Math.min(task.bitmap.getWidth(), (task.rect.width() + sample - 1) / sample);
+        task.height = Math.min(task.bitmap.getHeight(), (task.rect.height() + sample - 1) / sample);
+    }
+
+    private void invalidate() {
+        if (mInvalidator != null) {
+            mInvalidator.invalidate();
+        }
+    }
+
+    /**
+     * 请求解码一个瓦片，区域为原图像素（右下边界不包含）
+     */
+    public Task request(long key, int left, int top, int right, int bottom, int sampleSize, long frame) {
+        Task task = new Task(key, left, top, right, bottom, sampleSize, frame);
+        mQueue.offerLast(task);
+        return task;
+    }
+
+    /**
+     * 更新当前帧序号，之前 {@link #STALE_FRAMES} 帧以前请求且没有再更新的任务会被跳过
+     */
+    public void setCurrentFrame(long frame) {
+        mCurrentFrame = frame;
+    }
+
+    // 取出一个已经完成（或被跳过）的任务，没有时返回 null
+    public Task pollCompleted() {
+        return mCompleted.poll();
+    }
+
+    /**
+     * 归还不再使用的 Bitmap：完整瓦片尺寸的可以被下一次解码复用，其余的直接回收，可以在任意线程调用
+     */
+    public void recycle(Bitmap bitmap) {
+        if (!mReleased && bitmap.isMutable() && bitmap.getWidth() == mTileSize && bitmap.getHeight() == mTileSize
+                && mReusable.size() < MAX_REUSABLE_BITMAPS) {
+            mReusable.offer(bitmap);
+            if (mReleased) {
+                recycleAll(); // 与 release() 并发，放进复用池时池已经清空过
+            }
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    // 文件是否已经打开，之后才能获取图片尺寸
+    public boolean isReady() {
+        return mImageWidth > 0;
+    }
+
+    public boolean isFailed() {
+        return mFailed;
+    }
+
+    public int getImageWidth() {
+        return mImageWidth;
+    }
+
+    public int getImageHeight() {
+        return mImageHeight;
+    }
+
+    // 等待解码的任务个数
+    public int getQueuedCount() {
+        return mQueue.size();
+    }
+
+    // 停止解码线程，未完成的任务被丢弃，复用池和已完成但还没取走的瓦片中的 Bitmap 被回收；可以在任意线程调用
+    public void release() {
+        mReleased = true;
+        mThread.interrupt();
+        mQueue.clear();
+        recycleAll();
+    }
+
+    private void recycleAll() {
+        Bitmap bitmap;
+        while ((bitmap = mReusable.poll()) != null) {
+            bitmap.recycle();
+        }
+        Task task;
+        while ((task = mCompleted.poll()) != null) {
+            if (task.bitmap != null) {
+                task.bitmap.recycle();
+                task.bitmap = null;
+            }
+        }
+    }
+}
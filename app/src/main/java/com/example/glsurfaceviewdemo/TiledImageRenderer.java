@@ -0,0 +1,391 @@
+package com.example.glsurfaceviewdemo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.opengl.GLES30;
+
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.LatencyHistogram;
+import com.example.glsurfaceviewdemo.core.LongLruCache;
+import com.example.glsurfaceviewdemo.core.TilePyramid;
+import com.example.glsurfaceviewdemo.core.TileScheduler;
+
+import java.util.ArrayDeque;
+
+/**
+ * 超大图片（8k ~ 16k 像素，超过 GL_MAX_TEXTURE_SIZE，整张解码也会内存不足）的分块显示：
+ * <ol>
+ *     <li>{@link TileScheduler} 根据 mvp 矩阵选出当前缩放对应的金字塔层级和可见瓦片</li>
+ *     <li>{@link TileDecoder} 在后台只解码这些瓦片（BitmapRegionDecoder + inSampleSize）</li>
+ *     <li>解码结果放进内存缓存（Bitmap，按字节数 LRU），需要显示时上传到固定大小的纹理池（按纹理个数 LRU），
+ *     显存中的瓦片被淘汰后可以直接从内存缓存重新上传，不需要再次解码</li>
+ *     <li>平移时预取移动方向上的瓦片（只解码到内存，不占用纹理）</li>
+ * </ol>
+ * 当前层级的瓦片还没有就绪时，先画最粗一层的整图瓦片作为占位，不会出现空白。
+ * <p>
+ * mvp 矩阵沿用 TextureRender 的约定（图片占模型坐标的 [-1, 1]），可以直接使用 calculateViewport2 计算的矩阵。
+ * 除构造函数外所有方法都必须在 GL 线程调用；本对象可以跨 EGL 上下文使用，上下文重建后调用 {@link #onSurfaceCreated()}。
+ */
+public class TiledImageRenderer {
+    public static final int DEFAULT_TILE_SIZE = 512;
+    private static final int DEFAULT_MAX_TEXTURES = 48;
+    // 每帧最多上传的瓦片个数，避免一次上传太多纹理造成掉帧
+    private static final int MAX_UPLOADS_PER_FRAME = 4;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    // 纹理池中的一个瓦片纹理
+    private static class TileTexture {
+        int textureId;
+        int width;       // 有效内容的宽高
+        int height;
+        long lastFrame;  // 最近一次显示的帧
+    }
+
+    private final Context mContext;
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中瓦片纹理的所有者
+    private final RenderInvalidator mInvalidator;
+    private final int mTileSize;
+    private final int mMaxTextures;
+    private final TileDecoder mDecoder;
+    private TilePyramid mPyramid;     // 文件打开后创建
+    private TileScheduler mScheduler;
+
+    // 二级缓存：内存中的 Bitmap（按字节数）和显存中的纹理（按个数）
+    private final LongLruCache<Bitmap> mBitmaps;
+    private LongLruCache<TileTexture> mTextures;
+    private final ArrayDeque<TileTexture> mFreeTextures = new ArrayDeque<>();
+    private int mTextureCount = 0;
+    // 正在解码的瓦片（只当作 long -> Task 的映射使用，不限制权重）
+    private final LongLruCache<TileDecoder.Task> mPending = new LongLruCache<>(Long.MAX_VALUE, null);
+
+    private SpriteBatch mBatch; // 第一次绘制时在 GL 线程创建
+    private final int[] mRect = new int[4];
+    private long mFrame = 0;
+
+    // 统计数据
+    private final LatencyHistogram mDecodeTimes = new LatencyHistogram();
+    private long mDecodeRequests = 0;
+    private long mPrefetchRequests = 0;
+    private long mSkippedDecodes = 0;
+    private long mUploads = 0;
+    private long mTextureEvictions = 0;
+    private long mFallbackFrames = 0; // 画了占位瓦片的帧数
+    private int mLastVisibleCount = 0;
+    private int mLastMissingCount = 0;
+
+    public TiledImageRenderer(Context context, String path, RenderInvalidator invalidator) {
+        this(context, path, invalidator, DEFAULT_TILE_SIZE,
+                Math.min(64L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8), DEFAULT_MAX_TEXTURES);
+    }
+
+    /**
+     * @param tileSize    瓦片边长（像素）
+     * @param maxRamBytes 内存缓存中 Bitmap 的字节数上限
+     * @param maxTextures 纹理池的纹理个数上限，至少要能放下一屏的可见瓦片
+     */
+    public TiledImageRenderer(Context context, String path, RenderInvalidator invalidator,
+                              int tileSize, long maxRamBytes, int maxTextures) {
+        mContext = context;
+        mInvalidator = invalidator;
+        mTileSize = tileSize;
+        mMaxTextures = maxTextures;
+        mDecoder = new TileDecoder(path, tileSize, invalidator);
+        mBitmaps = new LongLruCache<>(maxRamBytes, (key, bitmap) -> mDecoder.recycle(bitmap));
+        mTextures = new LongLruCache<>(Long.MAX_VALUE, (key, texture) -> mFreeTextures.add(texture));
+    }
+
+    /**
+     * EGL 上下文重建后调用：旧的纹理已经随上下文销毁，内存中的 Bitmap 保留，可以直接重新上传
+     */
+    public void onSurfaceCreated() {
+        mTextures = new LongLruCache<>(Long.MAX_VALUE, (key, texture) -> mFreeTextures.add(texture));
+        mFreeTextures.clear();
+        mTextureCount = 0;
+        mBatch = null;
+    }
+
+    // 文件是否已经打开（之后才知道图片尺寸）
+    public boolean isReady() {
+        return mDecoder.isReady();
+    }
+
+    public int getImageWidth() {
+        return mDecoder.getImageWidth();
+    }
+
+    public int getImageHeight() {
+        return mDecoder.getImageHeight();
+    }
+
+    /**
+     * 绘制当前可见的瓦片
+     *
+     * @param mvpMatrix    图片占模型坐标 [-1, 1] 的 mvp 矩阵（包含缩放和平移）
+     * @param surfaceWidth 绘制目标的宽度（像素），用于选择金字塔层级
+     */
+    public void draw(float[] mvpMatrix, int surfaceWidth) {
+        mFrame++;
+        mDecoder.setCurrentFrame(mFrame);
+        drainDecoded();
+        if (mScheduler == null) {
+            if (!mDecoder.isReady()) {
+                return;
+            }
+            mPyramid = new TilePyramid(mDecoder.getImageWidth(), mDecoder.getImageHeight(), mTileSize);
+            mScheduler = new TileScheduler(mPyramid);
+        }
+        mScheduler.update(mvpMatrix, 0, surfaceWidth);
+
+        // 最粗一层的整图瓦片一直保留，作为其他瓦片就绪前的占位
+        long fallbackKey = TilePyramid.key(mPyramid.getCoarsestLevel(), 0, 0);
+        TileTexture fallback = obtainTexture(fallbackKey, 1);
+        int uploads = 0;
+        if (fallback != null) {
+            uploads = fallback.lastFrame == -1 ? 1 : 0;
+            fallback.lastFrame = mFrame; // 先标记，避免被本帧上传的可见瓦片淘汰
+        }
+
+        int missing = 0;
+        int visibleCount = mScheduler.getVisibleCount();
+        for (int i = 0; i < visibleCount; i++) {
+            long key = mScheduler.getVisibleKey(i);
+            TileTexture texture = obtainTexture(key, uploads < MAX_UPLOADS_PER_FRAME ? 1 : 0);
+            if (texture == null) {
+                missing++;
+            } else if (texture.lastFrame == -1) {
+                uploads++;
+            }
+            if (texture != null) {
+                texture.lastFrame = mFrame;
+            }
+        }
+        requestDecodes();
+
+        if (mBatch == null) {
+            mBatch = new SpriteBatch(mContext);
+        }
+        mBatch.begin(mvpMatrix);
+        if (missing > 0 && fallback != null) {
+            drawTile(fallbackKey, fallback);
+            mFallbackFrames++;
+        }
+        for (int i = 0; i < visibleCount; i++) {
+            long key = mScheduler.getVisibleKey(i);
+            TileTexture texture = mTextures.peek(key);
+            if (texture != null) {
+                drawTile(key, texture);
+            }
+        }
+        mBatch.end();
+
+        mLastVisibleCount = visibleCount;
+        mLastMissingCount = missing;
+        if (missing > 0 || fallback == null) {
+            mInvalidator.invalidate(); // 还有瓦片在解码或等待上传，继续出帧
+        }
+    }
+
+    /**
+     * 获取瓦片的纹理：已经在显存中时直接返回；在内存缓存中且还有上传额度时上传，新上传的纹理 lastFrame 为 -1
+     *
+     * @param uploadBudget 本次最多上传的个数（0 或 1）
+     */
+    private TileTexture obtainTexture(long key, int uploadBudget) {
+        TileTexture texture = mTextures.get(key);
+        if (texture != null || uploadBudget == 0) {
+            return texture;
+        }
+        Bitmap bitmap = mBitmaps.get(key);
+        if (bitmap == null) {
+            return null;
+        }
+        texture = allocateTexture();
+        if (texture == null) {
+            return null; // 纹理池中都是本帧正在显示的瓦片
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, texture.textureId);
+        GLBackends.get().texSubImage2D(GLES30.GL_TEXTURE_2D, 0, 0, 0, bitmap, width, height);
+        // 有效内容的尺寸按瓦片区域计算，复用的 Bitmap 可能比内容大
+        mPyramid.getTileRect(TilePyramid.level(key), TilePyramid.column(key), TilePyramid.row(key), mRect);
+        int sample = TilePyramid.getSampleSize(TilePyramid.level(key));
+        texture.width = Math.min(width, (mRect[2] - mRect[0] + sample - 1) / sample);
+        texture.height = Math.min(height, (mRect[3] - mRect[1] + sample - 1) / sample);
+        texture.lastFrame = -1;
+        mTextures.put(key, texture, 1);
+        mUploads++;
+        return texture;
+    }
+
+    // 从纹理池取出一个纹理：优先使用空闲的，未达到上限时新建，否则淘汰最久未显示的瓦片
+    private TileTexture allocateTexture() {
+        TileTexture texture = mFreeTextures.poll();
+        if (texture != null) {
+            return texture;
+        }
+        if (mTextureCount < mMaxTextures) {
+            texture = new TileTexture();
+            int[] ids = new int[1];
+            String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+            try {
+                GLBackends.get().glGenTextures(1, ids, 0);
+            } finally {
+                GLBackends.getMemoryTracker().exitOwner(previousOwner);
+            }
+            texture.textureId = ids[0];
+            GLStateCache.bindTexture(GLES30.GL_TEXTURE_2D, texture.textureId);
+            // 所有瓦片纹理尺寸相同，不可变存储，之后只用 glTexSubImage2D 更新内容
+            GLBackends.get().glTexStorage2D(GLES30.GL_TEXTURE_2D, 1, GLES30.GL_RGBA8, mTileSize, mTileSize);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+            GLBackends.get().glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+            mTextureCount++;
+            return texture;
+        }
+        long eldest = mTextures.getEldestKey(-1);
+        if (eldest == -1) {
+            return null;
+        }
+        texture = mTextures.peek(eldest);
+        if (texture.lastFrame == mFrame) {
+            return null;
+        }
+        mTextures.remove(eldest);
+        mTextureEvictions++;
+        return texture;
+    }
+
+    // 可见瓦片不在内存中时请求解码；预取瓦片只解码到内存。解码按后进先出处理，所以先提交远处的预取，最后提交屏幕中心
+    private void requestDecodes() {
+        for (int i = mScheduler.getPrefetchCount() - 1; i >= 0; i--) {
+            if (requestDecode(mScheduler.getPrefetchKey(i))) {
+                mPrefetchRequests++;
+            }
+        }
+        for (int i = mScheduler.getVisibleCount() - 1; i >= 0; i--) {
+            requestDecode(mScheduler.getVisibleKey(i));
+        }
+        requestDecode(TilePyramid.key(mPyramid.getCoarsestLevel(), 0, 0));
+    }
+
+    // 返回是否提交了新的解码请求
+    private boolean requestDecode(long key) {
+        if (mTextures.containsKey(key) || mBitmaps.containsKey(key)) {
+            return false;
+        }
+        TileDecoder.Task pending = mPending.peek(key);
+        if (pending != null) {
+            pending.frame = mFrame; // 仍然需要，避免被当作过期任务跳过
+            return false;
+        }
+        int level = TilePyramid.level(key);
+        mPyramid.getTileRect(level, TilePyramid.column(key), TilePyramid.row(key), mRect);
+        TileDecoder.Task task = mDecoder.request(key, mRect[0], mRect[1], mRect[2], mRect[3],
+                TilePyramid.getSampleSize(level), mFrame);
+        mPending.put(key, task, 0);
+        mDecodeRequests++;
+        return true;
+    }
+
+    // 把解码完成的瓦片放进内存缓存
+    private void drainDecoded() {
+        TileDecoder.Task task;
+        while ((task = mDecoder.pollCompleted()) != null) {
+            mPending.remove(task.key);
+            if (task.bitmap == null) {
+                mSkippedDecodes++;
+                continue;
+            }
+            mDecodeTimes.record(task.decodeNanos);
+            mBitmaps.put(task.key, task.bitmap, task.bitmap.getAllocationByteCount());
+        }
+    }
+
+    // 按瓦片在原图中的区域换算成模型坐标（图片占 [-1, 1]，y 轴向上）
+    private void drawTile(long key, TileTexture texture) {
+        mPyramid.getTileRect(TilePyramid.level(key), TilePyramid.column(key), TilePyramid.row(key), mRect);
+        float imageWidth = mPyramid.getImageWidth();
+        float imageHeight = mPyramid.getImageHeight();
+        float x = mRect[0] / imageWidth * 2.0f - 1.0f;
+        float y = 1.0f - mRect[3] / imageHeight * 2.0f;
+        float width = (mRect[2] - mRect[0]) / imageWidth * 2.0f;
+        float height = (mRect[3] - mRect[1]) / imageHeight * 2.0f;
+        float u1 = (float) texture.width / mTileSize;
+        float v1 = (float) texture.height / mTileSize;
+        mBatch.draw(texture.textureId, x, y, width, height, 0.0f, 0.0f, u1, v1, WHITE);
+    }
+
+    public TilePyramid getPyramid() {
+        return mPyramid;
+    }
+
+    // 本帧使用的金字塔层级，文件打开之前为 -1
+    public int getLevel() {
+        return mScheduler == null ? -1 : mScheduler.getLevel();
+    }
+
+    // 内存中的 Bitmap 缓存，可以查看命中率、淘汰次数和占用的字节数
+    public LongLruCache<Bitmap> getBitmapCache() {
+        return mBitmaps;
+    }
+
+    // 显存中的瓦片纹理缓存
+    public LongLruCache<?> getTextureCache() {
+        return mTextures;
+    }
+
+    // 已经创建的瓦片纹理个数和占用的显存字节数
+    public int getTextureCount() {
+        return mTextureCount;
+    }
+
+    public long getTextureBytes() {
+        return (long) mTextureCount * mTileSize * mTileSize * 4;
+    }
+
+    public LatencyHistogram getDecodeTimes() {
+        return mDecodeTimes;
+    }
+
+    @Override
+    public String toString() {
+        return "TiledImageRenderer{level=" + getLevel() + ", visible=" + mLastVisibleCount + ", missing=" + mLastMissingCount
+                + ", decodes=" + mDecodeRequests + " (prefetch " + mPrefetchRequests + ", skipped " + mSkippedDecodes
+                + ", queued " + mDecoder.getQueuedCount() + "), decodeP50=" + mDecodeTimes.getPercentile(50) / 1000 + "us"
+                + ", uploads=" + mUploads + ", textures=" + mTextureCount + "/" + mMaxTextures
+                + ", textureEvictions=" + mTextureEvictions + ", fallbackFrames=" + mFallbackFrames
+                + ", ram=" + mBitmaps + "}";
+    }
+
+    /**
+     * 停止解码线程，可以在任意线程调用；纹理和内存中的 Bitmap 仍然由 release 在 GL 线程释放
+     */
+    public void stopDecoding() {
+        mDecoder.release();
+    }
+
+    // 释放纹理、解码线程和内存中的 Bitmap
+    public void release() {
+        // 先淘汰内存中的 Bitmap：淘汰回调会把它们归还给解码器，解码器 release 时再统一回收
+        mBitmaps.evictAll();
+        mDecoder.release();
+        mTextures.evictAll();
+        int[] ids = new int[mFreeTextures.size()];
+        int count = 0;
+        for (TileTexture texture : mFreeTextures) {
+            ids[count++] = texture.textureId;
+        }
+        if (count > 0) {
+            GLStateCache.deleteTextures(count, ids, 0);
+        }
+        mFreeTextures.clear();
+        mTextureCount = 0;
+        if (mBatch != null) {
+            mBatch.release();
+            mBatch = null;
+        }
+        GLBackends.getMemoryTracker().releaseOwner(mTag); // 还没有删除的瓦片纹理记为泄漏
+    }
+}
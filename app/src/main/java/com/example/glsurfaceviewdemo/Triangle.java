@@ -3,22 +3,30 @@ package com.example.glsurfaceviewdemo;
 import android.content.Context;
 import android.opengl.GLES30;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
-import java.nio.ShortBuffer;
+import com.example.glsurfaceviewdemo.core.GLBackend;
+import com.example.glsurfaceviewdemo.core.GpuMemoryTracker;
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.MeshOptimizer;
+import com.example.glsurfaceviewdemo.core.VertexLayout;
+
+import java.nio.Buffer;
 
 import javax.microedition.khronos.opengles.GL;
 
 public class Triangle {
     private final int COORDS_PER_VERTEX = 3;
-    private FloatBuffer mVertexBuffer;
+    private final GLBackend mGL = GLBackends.get(); // GL 命令的后端，创建时确定
+    private final String mTag = GpuMemoryTracker.tag(this); // 显存账本中的所有者
     private int[] mIndices = new int[]{0, 1, 2}; // EBO索引数据
+    private MeshOptimizer.Report mMesh; // 优化后的网格：16 位索引，位置量化为 snorm16
     private int mVboId;
     private int mEboId;
     private int mVaoId; // 添加 VAO ID
-    private int mProgram;
+    private ShaderProgram mProgram;
+    private int mColorIndex = -1; // vColor 在 ShaderProgram 中的下标
+    // 片元着色器的颜色
+    private final float[] mColor = new float[]{0.0f, 1.0f, 0.0f, 1.0f};
+    private RenderInvalidator mInvalidator; // 内容变化时通知重新绘制
     // 定义的三角形顶点坐标数组
     private final float[] mTriangleCoords = new float[]{
         0.0f, 0.2f, 0.0f,   // 顶部
@@ -27,38 +35,38 @@ public class Triangle {
     };
 
     public Triangle(Context context) {
-        // 初始化顶点数据
-        initVertexBuffer();
-        // 加载并编译着色器
-        initShaders(context);
-        // 下面对VBO和EBO的操作，一定要在createGLProgram之后
-        // 使用 VAO，对 VBO 和 EBO 的绑定进行封装（简化 draw）
-        initVao();
-    }
-
-    // 初始化顶点数据
-    private void initVertexBuffer() {
-        // 为顶点坐标分配DMA内存空间
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(mTriangleCoords.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        mVertexBuffer = byteBuffer.asFloatBuffer();
-        mVertexBuffer.put(mTriangleCoords);
-        mVertexBuffer.position(0);
+        String previousOwner = GLBackends.getMemoryTracker().enterOwner(mTag);
+        try {
+            // 加载并编译着色器
+            initShaders(context);
+            // 下面对VBO和EBO的操作，一定要在createGLProgram之后
+            // 使用 VAO，对 VBO 和 EBO 的绑定进行封装（简化 draw）
+            initVao();
+        } finally {
+            GLBackends.getMemoryTracker().exitOwner(previousOwner);
+        }
     }
 
     // 加载并编译着色器
     private void initShaders(Context context) {
         String vertexShaderCode = ShaderController.loadShaderCodeFromFile("triangle_vertex.glsl", context);
         String fragmentShaderCode = ShaderController.loadShaderCodeFromFile("triangle_fragment.glsl", context);
-        mProgram = ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode);
+        mProgram = new ShaderProgram(ShaderController.createGLProgram(vertexShaderCode, fragmentShaderCode));
+        mColorIndex = mProgram.uniformIndex("vColor");
     }
     // 初始化 VAO，封装 VBO 和 EBO 的绑定
     private void initVao() {
         // 生成 VAO
         int[] vaos = new int[1];
-        GLES30.glGenVertexArrays(1, vaos, 0);
+        mGL.glGenVertexArrays(1, vaos, 0);
         mVaoId = vaos[0];
-        GLES30.glBindVertexArray(mVaoId); // 绑定 VAO
+        GLStateCache.bindVertexArray(mVaoId); // 绑定 VAO
+
+        // 优化网格并确定顶点布局：坐标都在 [-1, 1]，量化为 normalized short，shader 中仍然是 float
+        int positionHandle = mProgram.getAttributeLocation(mProgram.attributeIndex("vPosition"));
+        VertexLayout layout = new VertexLayout().add(positionHandle, COORDS_PER_VERTEX, VertexLayout.SNORM16);
+        mMesh = MeshOptimizer.optimize(mTriangleCoords, COORDS_PER_VERTEX, mTriangleCoords.length / COORDS_PER_VERTEX,
+                mIndices, layout);
 
         // 初始化 VBO
         initVbo();
@@ -66,32 +74,22 @@ public class Triangle {
         // 初始化 EBO
         initEbo();
 
-        // 配置顶点属性
-        int positionHandle = GLES30.glGetAttribLocation(mProgram, "vPosition");
-        GLES30.glEnableVertexAttribArray(positionHandle); // 启用顶点属性
-        GLES30.glVertexAttribPointer(
-                positionHandle,
-                COORDS_PER_VERTEX, // 每个顶点的分量个数
-                GLES30.GL_FLOAT,   // 数据类型
-                false,
-                0,
-                0  // 偏移量（VBO 内部偏移位置）
-        );
+        // 配置顶点属性（类型、normalized、步长和偏移由布局决定）
+        layout.apply(mGL, 0);
 
         // 解绑 VAO（可选，防止后续操作误改 VAO 状态）
-        GLES30.glBindVertexArray(0);
+        GLStateCache.bindVertexArray(0);
     }
     private void initVbo() {
         int[] vbos = new int[1];
-        GLES30.glGenBuffers(1, vbos, 0);
+        mGL.glGenBuffers(1, vbos, 0);
         mVboId = vbos[0];
-        GLES30.glBindBuffer(GLES30.GL_ARRAY_BUFFER, mVboId);
-        mVertexBuffer.position(0);
+        GLStateCache.bindBuffer(GLES30.GL_ARRAY_BUFFER, mVboId);
         // 指定顶点属性指针，从 VBO 读取数据
-        GLES30.glBufferData(
+        mGL.glBufferData(
             GLES30.GL_ARRAY_BUFFER,       // 缓冲区目标：顶点缓冲区
-            mVertexBuffer.capacity() * 4, // 总字节大小（mVertexBuffer.capacity()个float，每个占4字节）
-            mVertexBuffer,                // 数据源：顶点缓冲区
+            mMesh.getVertexBytes(),       // 总字节大小（量化后每个顶点 8 字节）
+            mMesh.packVertices(),         // 数据源：量化打包后的顶点
             GLES30.GL_STATIC_DRAW         // 缓冲区类型：静态数据
         );
 
@@ -100,45 +98,59 @@ public class Triangle {
     private void initEbo() {
         // 生成并绑定 EBO （一定要在createGLProgram之后）
         int[] ebos = new int[1];
-        GLES30.glGenBuffers(1, ebos, 0);
+        mGL.glGenBuffers(1, ebos, 0);
         mEboId = ebos[0];
-        GLES30.glBindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, mEboId);
-
-        // 传递索引数据到 EBO
-        ByteBuffer indexBuffer = ByteBuffer.allocateDirect(mIndices.length * 4); // 每个索引是int，4字节
-        indexBuffer.order(ByteOrder.nativeOrder());
-        IntBuffer intIndexBuffer = indexBuffer.asIntBuffer();
-        intIndexBuffer.put(mIndices);
-        intIndexBuffer.position(0);
-        GLES30.glBufferData(GLES30.GL_ELEMENT_ARRAY_BUFFER, indexBuffer.capacity() * 1, indexBuffer, GLES30.GL_STATIC_DRAW);
+        GLStateCache.bindBuffer(GLES30.GL_ELEMENT_ARRAY_BUFFER, mEboId);
+
+        // 传递索引数据到 EBO（顶点数不超过 65536，每个索引 2 字节）
+        Buffer indexBuffer = mMesh.packIndices();
+        mGL.glBufferData(GLES30.GL_ELEMENT_ARRAY_BUFFER, mMesh.getIndexBytes(), indexBuffer, GLES30.GL_STATIC_DRAW);
     }
 
     public void draw() {
-        // 设置片元着色器的颜色
-        float[] color = new float[]{0.0f, 1.0f, 0.0f, 1.0f};
-
-        // 使用 Shader Program
-        GLES30.glUseProgram(mProgram);
+        // 使用 Shader Program（状态没有变化时由 GLStateCache 跳过，下同）
+        mProgram.use();
 
         // 绑定 VAO（自动恢复顶点属性、VBO 和 EBO 的绑定状态）
-        GLES30.glBindVertexArray(mVaoId);
+        GLStateCache.bindVertexArray(mVaoId);
 
-        // 设置片段着色器的颜色值
-        int colorHandle = GLES30.glGetUniformLocation(mProgram, "vColor");
-        GLES30.glUniform4fv(colorHandle, 1, color, 0);
+        // 设置片段着色器的颜色值（颜色没变时不会重复上传）
+        mProgram.setUniform4fv(mColorIndex, mColor, 0);
 
         // 绘制三角形
-        GLES30.glDrawElements(GLES30.GL_TRIANGLES, mIndices.length, GLES30.GL_UNSIGNED_INT, 0);
+        GLStateCache.drawElements(GLES30.GL_TRIANGLES, mMesh.indexCount, mMesh.getIndexType(), 0);
+    }
+
+    // 设置失效通知接口，颜色变化时会调用 invalidate 请求重新绘制
+    public void setInvalidator(RenderInvalidator invalidator) {
+        mInvalidator = invalidator;
+    }
+
+    // 设置三角形的颜色
+    public void setColor(float r, float g, float b, float a) {
+        if (mColor[0] == r && mColor[1] == g && mColor[2] == b && mColor[3] == a) {
+            return;
+        }
+        mColor[0] = r;
+        mColor[1] = g;
+        mColor[2] = b;
+        mColor[3] = a;
+        if (mInvalidator != null) {
+            mInvalidator.invalidate();
+        }
+    }
 
-        // 解绑 VAO（可选，防止影响其他绘图操作）
-        GLES30.glBindVertexArray(0);
+    // 网格优化的结果（顶点数、字节数和 ACMR 的前后对比）
+    public MeshOptimizer.Report getMeshReport() {
+        return mMesh;
     }
 
     // 释放资源
     public void release() {
-        GLES30.glDeleteBuffers(1, new int[]{mVboId}, 0); // 删除 VBO
-        GLES30.glDeleteBuffers(1, new int[]{mEboId}, 0); // 删除 EBO
-        GLES30.glDeleteVertexArrays(1, new int[]{mVaoId}, 0); // 删除 VAO
-        GLES30.glDeleteProgram(mProgram); // 删除 shader program
+        GLStateCache.deleteResource(GpuResourceRegistry.BUFFER, mVboId); // 删除 VBO
+        GLStateCache.deleteResource(GpuResourceRegistry.BUFFER, mEboId); // 删除 EBO
+        GLStateCache.deleteResource(GpuResourceRegistry.VERTEX_ARRAY, mVaoId); // 删除 VAO
+        mProgram.release(); // 删除 shader program
+        GLBackends.getMemoryTracker().releaseOwner(mTag); // 还没有删除的对象记为泄漏
     }
 }
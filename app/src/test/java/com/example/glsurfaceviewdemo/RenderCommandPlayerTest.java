@@ -0,0 +1,152 @@
+package com.example.glsurfaceviewdemo;
+
+import com.example.glsurfaceviewdemo.core.GpuResourceRegistry;
+import com.example.glsurfaceviewdemo.core.Mat4;
+import com.example.glsurfaceviewdemo.core.RecordingGLBackend;
+import com.example.glsurfaceviewdemo.core.RenderCommandList;
+import com.example.glsurfaceviewdemo.core.RenderCommandQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 回放命令队列的绘制调用预算测试：RenderCommandPlayer -> SpriteBatch -> GLStateCache 的真实代码路径，
+ * GL 命令由 RecordingGLBackend 记录，在 JVM 上运行
+ */
+public class RenderCommandPlayerTest {
+    private static final int GL_FLOAT_MAT4 = 0x8B5C;
+    private static final int GL_SAMPLER_2D = 0x8B5E;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final RecordingGLBackend mRecording = new RecordingGLBackend();
+    private final RenderCommandQueue mQueue = new RenderCommandQueue(64, null);
+    private final GpuResourceRegistry mRegistry = new GpuResourceRegistry(GLStateCache::deleteResource);
+    private RenderCommandPlayer mPlayer;
+
+    @Before
+    public void setUp() {
+        GLBackends.set(mRecording);
+        mRecording.setLogging(false);
+        mRecording.addActiveAttribute("aPosition");
+        mRecording.addActiveAttribute("aTexCoord");
+        mRecording.addActiveAttribute("aColor");
+        mRecording.addActiveUniform("uMVPMatrix", GL_FLOAT_MAT4);
+        mRecording.addActiveUniform("uSampler", GL_SAMPLER_2D);
+        mPlayer = new RenderCommandPlayer(new SpriteBatch(mRecording::glCreateProgram, 64, mRegistry));
+    }
+
+    @After
+    public void tearDown() {
+        mPlayer.release();
+        GLBackends.set(null);
+    }
+
+    // 回放最新的一帧，RecordingGLBackend 和 GLStateCache 只统计这一帧
+    private void playFrame() {
+        RenderCommandList commands = mQueue.acquire();
+        mRecording.beginFrame();
+        GLStateCache.beginFrame();
+        mPlayer.play(mQueue, commands);
+    }
+
+    private static void drawSprites(RenderCommandList list, int count) {
+        for (int i = 0; i < count; i++) {
+            list.drawSprite(i * 10.0f, 0.0f, 10.0f, 10.0f, 0.0f, 0.0f, 1.0f, 1.0f, WHITE);
+        }
+    }
+
+    // 每个图集页面上画 20 个精灵
+    private void recordAtlasFrame(int[] atlasPages) {
+        RenderCommandList list = mQueue.beginFrame();
+        for (int page : atlasPages) {
+            list.bindTexture(page);
+            drawSprites(list, 20);
+        }
+        mQueue.publish();
+    }
+
+    @Test
+    public void atlasPagesCostOneDrawAndOneTextureBindEach() {
+        int[] atlasPages = new int[]{7, 8};
+        recordAtlasFrame(atlasPages);
+        playFrame();
+
+        SpriteBatch batch = mPlayer.getSpriteBatch();
+        assertEquals(40, batch.getQuadCount());
+        assertEquals(atlasPages.length, batch.getDrawCallCount());
+        assertEquals(atlasPages.length, mRecording.getFrameDrawCalls());
+        // 每页一次顶点上传，不上传纹理
+        assertEquals(atlasPages.length, mRecording.getFrameBufferUploads());
+        assertEquals(40L * 4 * 20, mRecording.getFrameBufferUploadBytes());
+        assertEquals(0, mRecording.getFrameTextureUploads());
+
+        // 第二帧回放同样的命令：program、VAO、VBO 的绑定都被 GLStateCache 过滤，只剩两页纹理来回切换
+        recordAtlasFrame(atlasPages);
+        playFrame();
+        assertEquals(atlasPages.length, mRecording.getFrameDrawCalls());
+        assertEquals(atlasPages.length, mRecording.getFrameBinds());
+    }
+
+    @Test
+    public void matrixChangeEndsTheBatch() {
+        float[] matrix = new float[16];
+        Mat4.setIdentity(matrix, 0);
+        RenderCommandList list = mQueue.beginFrame();
+        list.bindTexture(7);
+        drawSprites(list, 3);
+        list.setMatrix(matrix, 0);
+        drawSprites(list, 3);
+        mQueue.publish();
+        playFrame();
+
+        assertEquals(2, mRecording.getFrameDrawCalls());
+        // 切换矩阵只提交当前批次，SpriteBatch 的统计覆盖整帧
+        SpriteBatch batch = mPlayer.getSpriteBatch();
+        assertEquals(6, batch.getQuadCount());
+        assertEquals(2, batch.getDrawCallCount());
+    }
+
+    @Test
+    public void statsSpanAllMatrixSegments() {
+        float[] matrix = new float[16];
+        Mat4.setIdentity(matrix, 0);
+        RenderCommandList list = mQueue.beginFrame();
+        list.bindTexture(7);
+        drawSprites(list, 5);
+        list.setMatrix(matrix, 0);
+        drawSprites(list, 2);
+        list.bindTexture(8);
+        drawSprites(list, 4);
+        mQueue.publish();
+        playFrame();
+
+        // 第一段 5 个，第二段按纹理分成 2 + 4 个
+        SpriteBatch batch = mPlayer.getSpriteBatch();
+        assertEquals(3, mRecording.getFrameDrawCalls());
+        assertEquals(3, batch.getDrawCallCount());
+        assertEquals(11, batch.getQuadCount());
+        assertEquals(5, batch.getMaxQuadsPerDraw());
+    }
+
+    @Test
+    public void batchIsRebuiltThroughRegistryAfterContextLoss() {
+        int[] atlasPages = new int[]{7, 8};
+        recordAtlasFrame(atlasPages);
+        playFrame();
+        assertEquals(4, mRegistry.getResourceCount()); // program、VBO、EBO、VAO
+
+        // 新的 EGL 上下文：登记的对象全部失效，同一个 SpriteBatch 在下一帧绘制时重建它们
+        mRegistry.onContextLost();
+        GLStateCache.reset();
+        recordAtlasFrame(atlasPages);
+        playFrame();
+        assertEquals(2, mRecording.getCommandCount("glCreateProgram"));
+        assertEquals(2, mRecording.getCommandCount("glGenVertexArrays"));
+        assertEquals(atlasPages.length, mRecording.getFrameDrawCalls());
+        assertEquals(40, mPlayer.getSpriteBatch().getQuadCount());
+        assertEquals(0, mRegistry.getPendingCount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.glsurfaceviewdemo;
+
+import com.example.glsurfaceviewdemo.core.RecordingGLBackend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 纹理缓存的引用计数和淘汰测试，GL 命令由 RecordingGLBackend 记录，在 JVM 上运行
+ */
+public class TextureCacheTest {
+    private static final int GL_RGBA8 = 0x8058;
+
+    private final RecordingGLBackend mRecording = new RecordingGLBackend();
+    private TextureCache mCache;
+
+    @Before
+    public void setUp() {
+        GLBackends.set(mRecording);
+        mCache = new TextureCache(1024);
+    }
+
+    @After
+    public void tearDown() {
+        GLBackends.set(null);
+    }
+
+    @Test
+    public void replacedTextureInUseIsDeletedOnLastRelease() {
+        TextureCache.Texture old = mCache.put("image", 1, 4, 4, GL_RGBA8, false);
+        mCache.acquire("image"); // 两个使用者
+        TextureCache.Texture replacement = mCache.put("image", 2, 8, 4, GL_RGBA8, false);
+        assertEquals(0, mRecording.getCommandCount("glDeleteTextures"));
+        assertEquals(64 + 128, mCache.getResidentBytes());
+        assertEquals(2, mCache.getResidentCount());
+        assertSame(replacement, mCache.acquire("image"));
+
+        mCache.release(old);
+        assertEquals(0, mRecording.getCommandCount("glDeleteTextures"));
+        mCache.release(old);
+        assertEquals(1, mRecording.getCommandCount("glDeleteTextures"));
+        assertTrue(mRecording.getLog().contains("glDeleteTextures(1, 1)"));
+        assertEquals(128, mCache.getResidentBytes());
+        assertEquals(1, mCache.getResidentCount());
+
+        mCache.release(old); // 多余的 release 不会重复删除
+        assertEquals(1, mRecording.getCommandCount("glDeleteTextures"));
+    }
+
+    @Test
+    public void replacedUnusedTextureIsDeletedImmediately() {
+        TextureCache.Texture old = mCache.put("image", 1, 4, 4, GL_RGBA8, false);
+        mCache.release(old);
+        mCache.put("image", 2, 4, 4, GL_RGBA8, false);
+        assertEquals(1, mRecording.getCommandCount("glDeleteTextures"));
+        assertEquals(64, mCache.getResidentBytes());
+    }
+
+    @Test
+    public void unusedTexturesAreEvictedOverBudget() {
+        TextureCache.Texture first = mCache.put("first", 1, 16, 8, GL_RGBA8, false); // 512 字节
+        TextureCache.Texture second = mCache.put("second", 2, 16, 8, GL_RGBA8, false);
+        mCache.release(first);
+        mCache.release(second);
+        mCache.put("third", 3, 16, 8, GL_RGBA8, false); // 超过 1024，淘汰最久未使用的 first
+        assertFalse(mCache.isCachedOrLoading("first"));
+        assertTrue(mCache.isCachedOrLoading("second"));
+        assertEquals(1, mCache.getEvictions());
+        assertEquals(1024, mCache.getResidentBytes());
+    }
+}
@@ -0,0 +1,22 @@
+// 不依赖 GL 和 Android 的 CPU 端代码：矩阵、视口计算、顶点打包、着色器源码预处理、纹理容器解析、图集装箱等。
+// 单元测试：./gradlew :core:test
+// 基准测试：./gradlew :core:jmh，结果与 src/jmh/baseline.txt 对比
+plugins {
+    id("java-library")
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    includeTests.set(true) // 基准测试使用 src/test 中的 ReferenceMatrix 作为对照
+    resultFormat.set("TEXT")
+}
@@ -0,0 +1,71 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图集装箱基准：10000 个随机尺寸的矩形装进 2048x2048 页面。
+ * <p>
+ * 装箱率和页面数由 AtlasPackerTest 检查，这里只测耗时，运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtlasPackerBenchmark {
+    private static final int RECT_COUNT = 10000;
+    private static final int PAGE_SIZE = 2048;
+
+    // 尺寸范围 "最小..最大"
+    @Param({"8..128", "16..64"})
+    public String mSizes;
+
+    @Param({"0", "4"})
+    public int mPadding;
+
+    private final int[] mWidths = new int[RECT_COUNT];
+    private final int[] mHeights = new int[RECT_COUNT];
+    private final int[] mPages = new int[RECT_COUNT];
+    private final int[] mXs = new int[RECT_COUNT];
+    private final int[] mYs = new int[RECT_COUNT];
+
+    @Setup
+    public void setup() {
+        int dots = mSizes.indexOf("..");
+        int minSize = Integer.parseInt(mSizes.substring(0, dots));
+        int maxSize = Integer.parseInt(mSizes.substring(dots + 2));
+        Random random = new Random(42);
+        for (int i = 0; i < RECT_COUNT; i++) {
+            mWidths[i] = minSize + random.nextInt(maxSize - minSize + 1);
+            mHeights[i] = minSize + random.nextInt(maxSize - minSize + 1);
+        }
+    }
+
+    @Benchmark
+    public AtlasPacker pack() {
+        AtlasPacker packer = new AtlasPacker(PAGE_SIZE, PAGE_SIZE, mPadding, Math.max(1, mPadding));
+        packer.pack(RECT_COUNT, mWidths, mHeights, mPages, mXs, mYs);
+        return packer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AtlasPackerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GLB 加载基准：256 个 primitive，每个是 32 x 32 个顶点的网格（位置 + 法线交错存放，16 位索引），文件约 9MB。
+ * <ul>
+ *     <li>mapAndParse / parseMapped：映射文件并解析，顶点和索引都是映射缓冲区的切片</li>
+ *     <li>parseIncremental：按 64KB 逐步到达的数据增量解析</li>
+ *     <li>parseAndCopy：对照组，解析后按原来的方式把数据读进 Java 数组，再拷贝到新的直接缓冲区用于上传</li>
+ * </ul>
+ * main 中开启了 GC profiler，gc.alloc.rate.norm 即每次加载在 Java 堆上分配的字节数。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlbModelBenchmark {
+    private static final int PRIMITIVES = 256;
+    private static final int GRID = 32;
+    private static final int VERTEX_STRIDE = 24;
+    private static final int INCREMENT = 64 * 1024;
+
+    private File mFile;
+    private ByteBuffer mMapped;
+
+    @Setup
+    public void setup() throws IOException {
+        int vertexBytes = GRID * GRID * VERTEX_STRIDE;
+        int indexCount = (GRID - 1) * (GRID - 1) * 6;
+        int indexBytes = (indexCount * 2 + 3) & ~3;
+        int primitiveBytes = vertexBytes + indexBytes;
+        ByteBuffer bin = ByteBuffer.allocate(PRIMITIVES * primitiveBytes).order(ByteOrder.LITTLE_ENDIAN);
+        StringBuilder views = new StringBuilder();
+        StringBuilder accessors = new StringBuilder();
+        StringBuilder meshes = new StringBuilder();
+        for (int p = 0; p < PRIMITIVES; p++) {
+            int base = p * primitiveBytes;
+            for (int y = 0; y < GRID; y++) {
+                for (int x = 0; x < GRID; x++) {
+                    bin.putFloat(x + p * GRID).putFloat(y).putFloat(0.0f);
+                    bin.putFloat(0.0f).putFloat(0.0f).putFloat(1.0f);
+                }
+            }
+            for (int y = 0; y < GRID - 1; y++) {
+                for (int x = 0; x < GRID - 1; x++) {
+                    int i = y * GRID + x;
+                    bin.putShort((short) i).putShort((short) (i + 1)).putShort((short) (i + GRID));
+                    bin.putShort((short) (i + GRID)).putShort((short) (i + 1)).putShort((short) (i + GRID + 1));
+                }
+            }
+            bin.position(base + primitiveBytes);
+            String separator = p == 0 ? "" : ",";
+            views.append(separator)
+                    .append("{\"buffer\":0,\"byteOffset\":").append(base).append(",\"byteLength\":").append(vertexBytes)
+                    .append(",\"byteStride\":24,\"target\":34962},")
+                    .append("{\"buffer\":0,\"byteOffset\":").append(base + vertexBytes)
+                    .append(",\"byteLength\":").append(indexCount * 2).append(",\"target\":34963}");
+            accessors.append(separator)
+                    .append("{\"bufferView\":").append(p * 2).append(",\"componentType\":5126,\"count\":")
+                    .append(GRID * GRID).append(",\"type\":\"VEC3\",\"min\":[").append(p * GRID)
+                    .append(",0,0],\"max\":[").append(p * GRID + GRID - 1).append(',').append(GRID - 1).append(",0]},")
+                    .append("{\"bufferView\":").append(p * 2).append(",\"byteOffset\":12,\"componentType\":5126,")
+                    .append("\"count\":").append(GRID * GRID).append(",\"type\":\"VEC3\"},")
+                    .append("{\"bufferView\":").append(p * 2 + 1).append(",\"componentType\":5123,\"count\":")
+                    .append(indexCount).append(",\"type\":\"SCALAR\"}");
+            meshes.append(separator).append("{\"name\":\"tile").append(p)
+                    .append("\",\"primitives\":[{\"attributes\":{\"POSITION\":").append(p * 3)
+                    .append(",\"NORMAL\":").append(p * 3 + 1).append("},\"indices\":").append(p * 3 + 2).append("}]}");
+        }
+        bin.flip();
+        String json = "{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":" + bin.remaining() + "}],"
+                + "\"bufferViews\":[" + views + "],\"accessors\":[" + accessors + "],\"meshes\":[" + meshes + "]}";
+        ByteBuffer file = GlbModelTest.glb(json, bin);
+
+        mFile = File.createTempFile("benchmark", ".glb");
+        try (RandomAccessFile output = new RandomAccessFile(mFile, "rw");
+             FileChannel channel = output.getChannel()) {
+            while (file.hasRemaining()) {
+                channel.write(file);
+            }
+        }
+        mMapped = map(mFile);
+        ((MappedByteBuffer) mMapped).load(); // 测量解析本身，不包括第一次缺页
+    }
+
+    @TearDown
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // 取出所有 primitive，模拟上传：每个 bufferView 取一次数据
+    private static long drain(GlbModel model) {
+        long bytes = 0;
+        GlbModel.Primitive primitive;
+        while ((primitive = model.poll()) != null) {
+            bytes += primitive.getAttribute("POSITION").getBufferView().getData().remaining();
+            bytes += primitive.getIndices().getBufferView().getData().remaining();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long mapAndParse() throws IOException {
+        return drain(GlbModel.parse(map(mFile)));
+    }
+
+    @Benchmark
+    public long parseMapped() throws IOException {
+        return drain(GlbModel.parse(mMapped));
+    }
+
+    @Benchmark
+    public long parseIncremental() throws IOException {
+        GlbModel model = new GlbModel(mMapped);
+        long bytes = 0;
+        for (int available = INCREMENT; !model.isComplete(); available += INCREMENT) {
+            model.advance(available);
+            bytes += drain(model);
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long parseAndCopy() throws IOException {
+        GlbModel model = GlbModel.parse(mMapped);
+        long bytes = 0;
+        GlbModel.Primitive primitive;
+        while ((primitive = model.poll()) != null) {
+            // 原来的路径：float[] / short[] 保存几何数据，上传前再拷贝进直接缓冲区
+            GlbModel.Accessor position = primitive.getAttribute("POSITION");
+            GlbModel.Accessor normal = primitive.getAttribute("NORMAL");
+            int vertexCount = position.getCount();
+            float[] vertices = new float[vertexCount * 6];
+            ByteBuffer positions = position.getData();
+            ByteBuffer normals = normal.getData();
+            for (int v = 0; v < vertexCount; v++) {
+                int offset = v * position.getByteStride();
+                for (int c = 0; c < 3; c++) {
+                    vertices[v * 6 + c] = positions.getFloat(offset + c * 4);
+                    vertices[v * 6 + 3 + c] = normals.getFloat(offset + c * 4);
+                }
+            }
+            GlbModel.Accessor indexAccessor = primitive.getIndices();
+            short[] indices = new short[indexAccessor.getCount()];
+            indexAccessor.getData().asShortBuffer().get(indices);
+
+            ByteBuffer vbo = ByteBuffer.allocateDirect(vertices.length * 4).order(ByteOrder.nativeOrder());
+            vbo.asFloatBuffer().put(vertices);
+            ByteBuffer ebo = ByteBuffer.allocateDirect(indices.length * 2).order(ByteOrder.nativeOrder());
+            ebo.asShortBuffer().put(indices);
+            bytes += vbo.capacity() + ebo.capacity();
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GlbModelBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 松散四叉树基准：100 万个 1 ~ 16 单位大小的矩形随机分布在 100000 x 100000 的世界中，
+ * 对比一屏大小（2000 x 1000）的查询、整体缩小后的大范围查询、逐帧移动一部分物体，以及不用索引的暴力遍历。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LooseQuadtreeBenchmark {
+    private static final int ITEMS = 1_000_000;
+    private static final float WORLD = 100_000.0f;
+    private static final int MOVES_PER_FRAME = 1000;
+
+    private LooseQuadtree mTree;
+    private QuadScene mScene;
+    private final float[] mMvp = new float[16];
+    private final Random mRandom = new Random(1);
+    private float mPanX = 0.0f;
+
+    @Setup
+    public void setup() {
+        mTree = new LooseQuadtree(0.0f, 0.0f, WORLD, 14);
+        mScene = new QuadScene(0.0f, 0.0f, WORLD, 14);
+        Random random = new Random(7);
+        for (int i = 0; i < ITEMS; i++) {
+            float x = random.nextFloat() * WORLD;
+            float y = random.nextFloat() * WORLD;
+            float size = 1.0f + random.nextFloat() * 15.0f;
+            mTree.insert(x, y, x + size, y + size);
+            mScene.add(1, x, y, size, size, 0.0f, 0.0f, 1.0f, 1.0f, 0xFFFFFFFF);
+        }
+    }
+
+    // 一屏的范围（约 200 个可见物体），每次平移一点
+    @Benchmark
+    public int queryScreen() {
+        mPanX = (mPanX + 37.0f) % (WORLD - 2000.0f);
+        return mTree.query(mPanX, 50_000.0f, mPanX + 2000.0f, 51_000.0f);
+    }
+
+    // 缩小到能看到 1/100 的世界（约 1 万个可见物体）
+    @Benchmark
+    public int queryZoomedOut() {
+        mPanX = (mPanX + 37.0f) % (WORLD - 10_000.0f);
+        return mTree.query(mPanX, 40_000.0f, mPanX + 10_000.0f, 50_000.0f);
+    }
+
+    // 场景剔除：mvp 反算可见范围 + 查询 + 按添加顺序排序
+    @Benchmark
+    public int sceneCull() {
+        mPanX = (mPanX + 37.0f) % (WORLD - 2000.0f);
+        Mat4.ortho(mMvp, 0, mPanX, mPanX + 2000.0f, 50_000.0f, 51_000.0f, -1.0f, 1.0f);
+        return mScene.cull(mMvp, 0);
+    }
+
+    // 每帧随机移动 1000 个物体一小段距离（大部分仍在原来的格子中）
+    @Benchmark
+    public int moveItems() {
+        for (int i = 0; i < MOVES_PER_FRAME; i++) {
+            int item = mRandom.nextInt(ITEMS);
+            float dx = mRandom.nextFloat() * 4.0f - 2.0f;
+            float left = Math.min(Math.max(mTree.getLeft(item) + dx, 0.0f), WORLD - 20.0f);
+            float width = mTree.getRight(item) - mTree.getLeft(item);
+            mTree.move(item, left, mTree.getBottom(item), left + width, mTree.getTop(item));
+        }
+        return mTree.size();
+    }
+
+    // 对照：不用索引，逐个测试所有物体
+    @Benchmark
+    public int bruteForceScreen() {
+        mPanX = (mPanX + 37.0f) % (WORLD - 2000.0f);
+        float left = mPanX;
+        float right = mPanX + 2000.0f;
+        int count = 0;
+        for (int item = 0; item < ITEMS; item++) {
+            if (mTree.getLeft(item) <= right && mTree.getRight(item) >= left
+                    && mTree.getBottom(item) <= 51_000.0f && mTree.getTop(item) >= 50_000.0f) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LooseQuadtreeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
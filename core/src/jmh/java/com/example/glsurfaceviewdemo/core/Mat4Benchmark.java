@@ -0,0 +1,153 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mat4 / Transform 与 android.opengl.Matrix（ReferenceMatrix 移植版）的 JMH 对比，运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Mat4Benchmark {
+    private static final int BATCH = 1000;
+
+    private final float[] mLhs = new float[16];
+    private final float[] mRhs = new float[16];
+    private final float[] mResult = new float[16];
+    private final float[] mModel = new float[16];
+    private final float[] mModels = new float[BATCH * 16];
+    private final float[] mResults = new float[BATCH * 16];
+    private final float[] mProjection = new float[16];
+    private final float[] mView = new float[16];
+    private float mAngle = 0.0f;
+
+    private Transform mRoot;
+    private Transform mLeaf;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(3);
+        for (int i = 0; i < 16; i++) {
+            mLhs[i] = random.nextFloat();
+            mRhs[i] = random.nextFloat();
+        }
+        for (int i = 0; i < mModels.length; i++) {
+            mModels[i] = random.nextFloat();
+        }
+        // 10 个分组，每组 100 个精灵
+        mRoot = new Transform();
+        for (int g = 0; g < 10; g++) {
+            Transform group = new Transform();
+            group.setPosition(g, 0.0f, 0.0f);
+            mRoot.addChild(group);
+            for (int i = 0; i < 100; i++) {
+                mLeaf = new Transform();
+                mLeaf.setPosition(0.0f, i, 0.0f);
+                group.addChild(mLeaf);
+            }
+        }
+        mRoot.update();
+    }
+
+    @Benchmark
+    public float[] multiplyReference() {
+        ReferenceMatrix.multiplyMM(mResult, 0, mLhs, 0, mRhs, 0);
+        return mResult;
+    }
+
+    @Benchmark
+    public float[] multiplyMat4() {
+        Mat4.multiply(mResult, 0, mLhs, 0, mRhs, 0);
+        return mResult;
+    }
+
+    // 单个精灵：构造 model 矩阵（平移、旋转、缩放）再左乘 viewProjection
+    @Benchmark
+    public float[] spriteMvpReference() {
+        mAngle += 1.0f;
+        ReferenceMatrix.setIdentityM(mModel, 0);
+        ReferenceMatrix.translateM(mModel, 0, 10.0f, 20.0f, 0.0f);
+        ReferenceMatrix.rotateM(mModel, 0, mAngle, 0.0f, 0.0f, 1.0f);
+        ReferenceMatrix.scaleM(mModel, 0, 2.0f, 2.0f, 1.0f);
+        ReferenceMatrix.multiplyMM(mResult, 0, mLhs, 0, mModel, 0);
+        return mResult;
+    }
+
+    @Benchmark
+    public float[] spriteMvpMat4() {
+        mAngle += 1.0f;
+        Mat4.setTranslateRotateScale(mModel, 0, 10.0f, 20.0f, 0.0f, mAngle, 2.0f, 2.0f, 1.0f);
+        Mat4.multiply(mResult, 0, mLhs, 0, mModel, 0);
+        return mResult;
+    }
+
+    // 1000 个 model 矩阵左乘同一个 viewProjection
+    @Benchmark
+    public float[] batchReference() {
+        for (int i = 0; i < BATCH; i++) {
+            ReferenceMatrix.multiplyMM(mResults, i * 16, mLhs, 0, mModels, i * 16);
+        }
+        return mResults;
+    }
+
+    @Benchmark
+    public float[] batchMat4() {
+        Mat4.multiplyBatch(mResults, 0, mLhs, 0, mModels, 0, BATCH);
+        return mResults;
+    }
+
+    // GLRenderTest.calculateViewport2 中的计算
+    @Benchmark
+    public float[] viewportReference() {
+        ReferenceMatrix.orthoM(mProjection, 0, -1.0f, 1.0f, -1.7f, 1.7f, -1.0f, 1.0f);
+        ReferenceMatrix.setLookAtM(mView, 0, 0.0f, 0.0f, -1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        ReferenceMatrix.multiplyMM(mResult, 0, mProjection, 0, mView, 0);
+        return mResult;
+    }
+
+    @Benchmark
+    public float[] viewportMat4() {
+        Mat4.ortho(mProjection, 0, -1.0f, 1.0f, -1.7f, 1.7f, -1.0f, 1.0f);
+        Mat4.lookAt(mView, 0, 0.0f, 0.0f, -1.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        Mat4.multiply(mResult, 0, mProjection, 0, mView, 0);
+        return mResult;
+    }
+
+    // 1011 个节点的层级：根节点变化，全部重新计算
+    @Benchmark
+    public int transformUpdateAll() {
+        mAngle += 1.0f;
+        mRoot.setRotation(mAngle);
+        return mRoot.update();
+    }
+
+    // 只有一个叶子节点变化，其余子树被跳过
+    @Benchmark
+    public int transformUpdateOneLeaf() {
+        mAngle += 1.0f;
+        mLeaf.setRotation(mAngle);
+        return mRoot.update();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Mat4Benchmark.class.getSimpleName()).build()).run();
+    }
+}
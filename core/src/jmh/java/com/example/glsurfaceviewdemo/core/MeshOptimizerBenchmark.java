@@ -0,0 +1,88 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网格优化基准：128 x 128 个格子（32768 个三角形）的三角形汤，
+ * 分别测量完整流程、Forsyth 重排、ACMR 统计和顶点量化打包的耗时，用来估计在加载线程上优化网格的代价。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshOptimizerBenchmark {
+    private static final int GRID = 128;
+    private static final int STRIDE = 5;
+
+    private float[] mSoup;
+    private int mSoupVertexCount;
+    private MeshOptimizer.Mesh mShared;
+    private final VertexLayout mLayout = new VertexLayout()
+            .add(0, 3, VertexLayout.HALF)
+            .add(1, 2, VertexLayout.UNORM16);
+
+    @Setup
+    public void setup() {
+        mSoupVertexCount = GRID * GRID * 6;
+        mSoup = new float[mSoupVertexCount * STRIDE];
+        int i = 0;
+        for (int x = 0; x < GRID; x++) {
+            for (int y = 0; y < GRID; y++) {
+                int[][] corners = {{x, y}, {x + 1, y}, {x, y + 1}, {x, y + 1}, {x + 1, y}, {x + 1, y + 1}};
+                for (int[] corner : corners) {
+                    mSoup[i++] = corner[0];
+                    mSoup[i++] = corner[1];
+                    mSoup[i++] = 0.0f;
+                    mSoup[i++] = (float) corner[0] / GRID;
+                    mSoup[i++] = (float) corner[1] / GRID;
+                }
+            }
+        }
+        int[] indices = new int[mSoupVertexCount];
+        for (int v = 0; v < mSoupVertexCount; v++) {
+            indices[v] = v;
+        }
+        mShared = MeshOptimizer.deduplicate(mSoup, STRIDE, mSoupVertexCount, indices);
+    }
+
+    @Benchmark
+    public MeshOptimizer.Report optimize() {
+        return MeshOptimizer.optimize(mSoup, STRIDE, mSoupVertexCount, null, mLayout);
+    }
+
+    @Benchmark
+    public int[] optimizeVertexCache() {
+        return MeshOptimizer.optimizeVertexCache(mShared.indices, mShared.vertexCount);
+    }
+
+    @Benchmark
+    public float computeAcmr() {
+        return MeshOptimizer.computeAcmr(mShared.indices, mShared.vertexCount, MeshOptimizer.DEFAULT_FIFO_SIZE);
+    }
+
+    @Benchmark
+    public ByteBuffer packVertices() {
+        return mLayout.pack(mShared.vertices, STRIDE, mShared.vertexCount);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MeshOptimizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渲染命令队列基准：记录并发布一帧 1000 个精灵（每 100 个换一次纹理），以及 GL 线程取帧并回放。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderCommandQueueBenchmark {
+    private static final int SPRITES = 1000;
+
+    private final RenderCommandQueue mQueue = new RenderCommandQueue(SPRITES, null);
+    private final float[] mMatrix = new float[16];
+
+    // 把命令参数交给 Blackhole，模拟最轻量的消费者
+    private static class SinkVisitor implements RenderCommandList.Visitor {
+        Blackhole mBlackhole;
+
+        @Override
+        public void setMatrix(float[] matrix, int offset) {
+            mBlackhole.consume(matrix[offset]);
+        }
+
+        @Override
+        public void bindTexture(int textureId) {
+            mBlackhole.consume(textureId);
+        }
+
+        @Override
+        public void drawSprite(float x, float y, float width, float height,
+                               float u0, float v0, float u1, float v1, int rgba) {
+            mBlackhole.consume(x + y + width + height + u0 + v0 + u1 + v1);
+            mBlackhole.consume(rgba);
+        }
+    }
+
+    private final SinkVisitor mVisitor = new SinkVisitor();
+
+    @Setup
+    public void setup() {
+        Mat4.setIdentity(mMatrix, 0);
+        record();
+    }
+
+    private void record() {
+        RenderCommandList list = mQueue.beginFrame();
+        list.setMatrix(mMatrix, 0);
+        for (int i = 0; i < SPRITES; i++) {
+            if (i % 100 == 0) {
+                list.bindTexture(1 + i / 100);
+            }
+            list.drawSprite(i & 31, i >> 5, 1.0f, 1.0f, 0.0f, 0.0f, 1.0f, 1.0f, 0xFFFFFFFF);
+        }
+        mQueue.publish();
+    }
+
+    @Benchmark
+    public void recordAndPublish() {
+        record();
+    }
+
+    @Benchmark
+    public void acquireAndReplay(Blackhole blackhole) {
+        mVisitor.mBlackhole = blackhole;
+        mQueue.replay(mQueue.acquire(), mVisitor);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RenderCommandQueueBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 着色器源码加载基准：读取源码、冷启动展开（include + define）与缓存命中，源码放在内存中。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShaderPreprocessorBenchmark {
+    private final Map<String, String> mFiles = new HashMap<>();
+    private byte[] mVertexBytes;
+    private ShaderPreprocessor mWarm;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder common = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            common.append("vec4 helper").append(i).append("(vec4 v) { return v * ").append(i).append(".0; }\n");
+        }
+        mFiles.put("common.glsl", common.toString());
+        mFiles.put("texture_vertex_shader.glsl", "#version 300 es\n"
+                + "#include \"common.glsl\"\n"
+                + "layout(location = 0) in vec4 aPosition;\n"
+                + "layout(location = 1) in vec2 aTexCoord;\n"
+                + "uniform mat4 uMVPMatrix;\n"
+                + "out vec2 vTexCoord;\n"
+                + "void main() {\n"
+                + "    gl_Position = uMVPMatrix * aPosition;\n"
+                + "    vTexCoord = aTexCoord;\n"
+                + "}\n");
+        mVertexBytes = mFiles.get("texture_vertex_shader.glsl").getBytes(StandardCharsets.UTF_8);
+        mWarm = new ShaderPreprocessor(mFiles::get);
+        mWarm.load("texture_vertex_shader.glsl", "USE_TINT");
+    }
+
+    @Benchmark
+    public String readSource() throws IOException {
+        return ShaderPreprocessor.readSource(new ByteArrayInputStream(mVertexBytes));
+    }
+
+    @Benchmark
+    public String coldResolve() throws IOException {
+        return new ShaderPreprocessor(mFiles::get).load("texture_vertex_shader.glsl", "USE_TINT");
+    }
+
+    @Benchmark
+    public String cachedResolve() throws IOException {
+        return mWarm.load("texture_vertex_shader.glsl", "USE_TINT");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ShaderPreprocessorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 精灵顶点打包基准：每次写 1000 个四边形并拷贝进直接内存，
+ * 对比 int[] 暂存区 + 一次批量 put（SpriteBatch 的做法）与逐个 float 写入 FloatBuffer。运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertexPackingBenchmark {
+    private static final int QUADS = 1000;
+
+    private final int[] mStaging = new int[QUADS * VertexPacking.SPRITE_INTS_PER_QUAD];
+    private ByteBuffer mByteTarget;
+    private IntBuffer mIntTarget;
+    private FloatBuffer mFloatTarget;
+    private final float[] mTriangleCoords = new float[]{
+        0.0f, 0.2f, 0.0f,
+        -0.5f, -0.5f, 0.0f,
+        0.5f, -0.5f, 0.0f
+    };
+
+    @Setup
+    public void setup() {
+        ByteBuffer target = ByteBuffer.allocateDirect(mStaging.length * 4).order(ByteOrder.nativeOrder());
+        mByteTarget = target;
+        mIntTarget = target.asIntBuffer();
+        mFloatTarget = target.asFloatBuffer();
+    }
+
+    @Benchmark
+    public IntBuffer stagingBulkPut() {
+        int color = VertexPacking.nativeColor(0xFF8040FF);
+        int offset = 0;
+        for (int i = 0; i < QUADS; i++) {
+            float x = i & 63;
+            float y = i >> 6;
+            offset = VertexPacking.putSpriteQuad(mStaging, offset, x, y, 1.0f, 1.0f,
+                    0.0f, 0.0f, 1.0f, 1.0f, color);
+        }
+        mIntTarget.clear();
+        mIntTarget.put(mStaging, 0, offset);
+        return mIntTarget;
+    }
+
+    // SpriteBatch.flush 的写法：映射出的缓冲区每次都是新对象，按绝对位置写入，不创建 IntBuffer 视图
+    @Benchmark
+    public ByteBuffer stagingAbsolutePut() {
+        int color = VertexPacking.nativeColor(0xFF8040FF);
+        int offset = 0;
+        for (int i = 0; i < QUADS; i++) {
+            float x = i & 63;
+            float y = i >> 6;
+            offset = VertexPacking.putSpriteQuad(mStaging, offset, x, y, 1.0f, 1.0f,
+                    0.0f, 0.0f, 1.0f, 1.0f, color);
+        }
+        VertexPacking.putInts(mByteTarget, mStaging, offset);
+        return mByteTarget;
+    }
+
+    @Benchmark
+    public FloatBuffer perFloatPut() {
+        float color = Float.intBitsToFloat(VertexPacking.nativeColor(0xFF8040FF));
+        FloatBuffer out = mFloatTarget;
+        out.clear();
+        for (int i = 0; i < QUADS; i++) {
+            float x = i & 63;
+            float y = i >> 6;
+            out.put(x).put(y + 1.0f).put(0.0f).put(0.0f).put(color);
+            out.put(x).put(y).put(0.0f).put(1.0f).put(color);
+            out.put(x + 1.0f).put(y + 1.0f).put(1.0f).put(0.0f).put(color);
+            out.put(x + 1.0f).put(y).put(1.0f).put(1.0f).put(color);
+        }
+        return out;
+    }
+
+    // 静态几何（Triangle / TextureRender）的一次性打包，主要是直接内存分配的开销
+    @Benchmark
+    public FloatBuffer toFloatBuffer() {
+        return VertexPacking.toFloatBuffer(mTriangleCoords);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VertexPackingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 视口计算基准：onSurfaceChanged / 图片切换时的 fitViewport 和 fitOrtho，运行 main 即可。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewportMathBenchmark {
+    private final int[] mViewport = new int[4];
+    private final float[] mProjection = new float[16];
+    private int mSurfaceWidth = 1080;
+
+    @Benchmark
+    public int[] fitViewport() {
+        // 每次改变宽度，避免结果被常量折叠
+        mSurfaceWidth = mSurfaceWidth == 1080 ? 2340 : 1080;
+        ViewportMath.fitViewport(1024, 768, mSurfaceWidth, 1920, mViewport);
+        return mViewport;
+    }
+
+    @Benchmark
+    public float[] fitOrtho() {
+        mSurfaceWidth = mSurfaceWidth == 1080 ? 2340 : 1080;
+        ViewportMath.fitOrtho(mProjection, 0, 1024, 768, mSurfaceWidth, 1920);
+        return mProjection;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ViewportMathBenchmark.class.getSimpleName()).build()).run();
+    }
+}
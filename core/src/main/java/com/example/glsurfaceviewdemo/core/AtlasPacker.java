@@ -0,0 +1,243 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 图集矩形装箱器（skyline 算法，bottom-left 策略），把大量小矩形放进若干固定大小的页面中。
+ * <p>
+ * 每个矩形四周预留 padding 像素（用于复制边缘像素防止 mipmap 串色），并把占用尺寸向上对齐到 alignment，
+ * 保证矩形在前几级 mipmap 中仍然落在整数纹素上。不依赖 GL 和 Android，可以在 JVM 上测试。
+ */
+public class AtlasPacker {
+    private final int mPageWidth;
+    private final int mPageHeight;
+    private final int mPadding;
+    private final int mAlignment;
+    private final List<Page> mPages = new ArrayList<>();
+    private long mPackedArea = 0; // 已放入矩形的面积（不含 padding）
+
+    /**
+     * 一个页面的 skyline：按 x 递增排列的若干水平线段
+     */
+    private static class Page {
+        int[] nodeX = new int[16];
+        int[] nodeY = new int[16];
+        int[] nodeWidth = new int[16];
+        int nodeCount;
+        long usedArea; // 含 padding 的占用面积
+
+        Page(int width) {
+            nodeCount = 1;
+            nodeWidth[0] = width;
+        }
+    }
+
+    /**
+     * @param pageWidth  页面宽
+     * @param pageHeight 页面高
+     * @param padding    每个矩形四周预留的像素
+     * @param alignment  占用尺寸和位置的对齐（2 的幂，1 表示不对齐）
+     */
+    public AtlasPacker(int pageWidth, int pageHeight, int padding, int alignment) {
+        if (pageWidth <= 0 || pageHeight <= 0 || padding < 0 || Integer.bitCount(alignment) != 1) {
+            throw new IllegalArgumentException("Invalid atlas parameters");
+        }
+        mPageWidth = pageWidth;
+        mPageHeight = pageHeight;
+        mPadding = padding;
+        mAlignment = alignment;
+    }
+
+    /**
+     * 放入一个矩形，优先放进已有页面，都放不下时新建页面
+     *
+     * @param out 长度至少为 3，依次写入页面序号、x、y（不含 padding 的内容区域左上角）
+     * @return 矩形比页面还大时返回 false
+     */
+    public boolean insert(int width, int height, int[] out) {
+        int paddedWidth = align(width + 2 * mPadding);
+        int paddedHeight = align(height + 2 * mPadding);
+        if (width <= 0 || height <= 0 || paddedWidth > mPageWidth || paddedHeight > mPageHeight) {
+            return false;
+        }
+        for (int i = 0; i < mPages.size(); i++) {
+            if (insert(mPages.get(i), i, paddedWidth, paddedHeight, out)) {
+                mPackedArea += (long) width * height;
+                return true;
+            }
+        }
+        Page page = new Page(mPageWidth);
+        mPages.add(page);
+        insert(page, mPages.size() - 1, paddedWidth, paddedHeight, out);
+        mPackedArea += (long) width * height;
+        return true;
+    }
+
+    /**
+     * 批量放入矩形：先按高度（其次宽度）从大到小排序再逐个放入，装箱率明显高于按输入顺序放入
+     *
+     * @param outPages 每个矩形所在的页面，放不下的矩形为 -1
+     * @return 成功放入的矩形个数
+     */
+    public int pack(int count, int[] widths, int[] heights, int[] outPages, int[] outX, int[] outY) {
+        // 高 16 位为高度，其次 16 位为宽度，低 32 位为下标，一次排序不需要比较器
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            long h = Math.min(heights[i], 0xFFFF);
+            long w = Math.min(widths[i], 0xFFFF);
+            order[i] = (h << 48) | (w << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] placement = new int[3];
+        int packed = 0;
+        for (int k = count - 1; k >= 0; k--) {
+            int i = (int) order[k];
+            if (insert(widths[i], heights[i], placement)) {
+                outPages[i] = placement[0];
+                outX[i] = placement[1];
+                outY[i] = placement[2];
+                packed++;
+            } else {
+                outPages[i] = -1;
+            }
+        }
+        return packed;
+    }
+
+    private boolean insert(Page page, int pageIndex, int width, int height, int[] out) {
+        int bestIndex = -1;
+        int bestTop = Integer.MAX_VALUE;
+        int bestY = 0;
+        for (int i = 0; i < page.nodeCount; i++) {
+            int y = fitY(page, i, width, height);
+            if (y >= 0 && y + height < bestTop) {
+                bestTop = y + height;
+                bestIndex = i;
+                bestY = y;
+            }
+        }
+        if (bestIndex < 0) {
+            return false;
+        }
+        int x = page.nodeX[bestIndex];
+        addSkylineLevel(page, bestIndex, x, bestY + height, width);
+        page.usedArea += (long) width * height;
+        out[0] = pageIndex;
+        out[1] = x + mPadding;
+        out[2] = bestY + mPadding;
+        return true;
+    }
+
+    // 矩形左边对齐第 index 个线段时能放置的最低 y，放不下时返回 -1
+    private int fitY(Page page, int index, int width, int height) {
+        int x = page.nodeX[index];
+        if (x + width > mPageWidth) {
+            return -1;
+        }
+        int y = 0;
+        int remaining = width;
+        for (int i = index; remaining > 0; i++) {
+            y = Math.max(y, page.nodeY[i]);
+            if (y + height > mPageHeight) {
+                return -1;
+            }
+            remaining -= page.nodeWidth[i];
+        }
+        return y;
+    }
+
+    // 在 index 处插入新线段，截断或删除被它覆盖的线段，再合并相同高度的相邻线段
+    private static void addSkylineLevel(Page page, int index, int x, int y, int width) {
+        insertNode(page, index, x, y, width);
+        int end = x + width;
+        int i = index + 1;
+        while (i < page.nodeCount && page.nodeX[i] < end) {
+            int shrink = end - page.nodeX[i];
+            if (page.nodeWidth[i] <= shrink) {
+                removeNode(page, i);
+            } else {
+                page.nodeX[i] += shrink;
+                page.nodeWidth[i] -= shrink;
+                break;
+            }
+        }
+        for (i = Math.max(0, index - 1); i < page.nodeCount - 1 && i <= index + 1; ) {
+            if (page.nodeY[i] == page.nodeY[i + 1]) {
+                page.nodeWidth[i] += page.nodeWidth[i + 1];
+                removeNode(page, i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void insertNode(Page page, int index, int x, int y, int width) {
+        if (page.nodeCount == page.nodeX.length) {
+            int capacity = page.nodeCount * 2;
+            page.nodeX = Arrays.copyOf(page.nodeX, capacity);
+            page.nodeY = Arrays.copyOf(page.nodeY, capacity);
+            page.nodeWidth = Arrays.copyOf(page.nodeWidth, capacity);
+        }
+        int tail = page.nodeCount - index;
+        System.arraycopy(page.nodeX, index, page.nodeX, index + 1, tail);
+        System.arraycopy(page.nodeY, index, page.nodeY, index + 1, tail);
+        System.arraycopy(page.nodeWidth, index, page.nodeWidth, index + 1, tail);
+        page.nodeX[index] = x;
+        page.nodeY[index] = y;
+        page.nodeWidth[index] = width;
+        page.nodeCount++;
+    }
+
+    private static void removeNode(Page page, int index) {
+        int tail = page.nodeCount - index - 1;
+        System.arraycopy(page.nodeX, index + 1, page.nodeX, index, tail);
+        System.arraycopy(page.nodeY, index + 1, page.nodeY, index, tail);
+        System.arraycopy(page.nodeWidth, index + 1, page.nodeWidth, index, tail);
+        page.nodeCount--;
+    }
+
+    private int align(int size) {
+        return (size + mAlignment - 1) & -mAlignment;
+    }
+
+    // 清空所有页面
+    public void reset() {
+        mPages.clear();
+        mPackedArea = 0;
+    }
+
+    public int getPageCount() {
+        return mPages.size();
+    }
+
+    public int getPageWidth() {
+        return mPageWidth;
+    }
+
+    public int getPageHeight() {
+        return mPageHeight;
+    }
+
+    public int getPadding() {
+        return mPadding;
+    }
+
+    /**
+     * 装箱率：矩形内容面积 / 所有页面的总面积
+     */
+    public float getEfficiency() {
+        if (mPages.isEmpty()) {
+            return 0.0f;
+        }
+        return (float) ((double) mPackedArea / ((long) mPageWidth * mPageHeight * mPages.size()));
+    }
+
+    /**
+     * 某个页面的占用率（含 padding 和对齐）
+     */
+    public float getOccupancy(int page) {
+        return (float) ((double) mPages.get(page).usedArea / ((long) mPageWidth * mPageHeight));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按顺序作用在一张图片上的滤镜链，以及把它划分成全屏 pass 的规划。
+ * <p>
+ * 每个 pass 都要把整张图片读一遍、写一遍，带宽基本和 pass 数成正比，所以规划时尽量合并：
+ * 连续的逐像素滤镜合并进前一个 pass；采样滤镜需要读取上一步结果的相邻像素，必须从纹理读取，因此开始一个新的 pass。
+ * 例如 [亮度, 对比度, 饱和度, gamma, 暗角] 只需要 1 个 pass，[模糊(水平), 模糊(垂直), 饱和度, 暗角] 需要 2 个。
+ * <p>
+ * 不依赖 GL，只能在一个线程（通常是 GL 线程）使用。
+ */
+public class FilterGraph {
+    private final ArrayList<ImageFilter> mFilters = new ArrayList<>();
+    private boolean mFusionEnabled = true;
+    private long mStructureVersion = 0;
+    private List<FilterPass> mPasses; // 结构变化时重新规划
+
+    // 在末尾添加一个滤镜
+    public FilterGraph add(ImageFilter filter) {
+        mFilters.add(filter);
+        structureChanged();
+        return this;
+    }
+
+    public boolean remove(ImageFilter filter) {
+        if (mFilters.remove(filter)) {
+            // 移走的滤镜不再计入 getVersion，把它的版本号并入结构版本，保证版本号只增不减
+            mStructureVersion += filter.getVersion();
+            structureChanged();
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        if (!mFilters.isEmpty()) {
+            mStructureVersion = getVersion(); // 同 remove
+            mFilters.clear();
+            structureChanged();
+        }
+    }
+
+    public int size() {
+        return mFilters.size();
+    }
+
+    public boolean isEmpty() {
+        return mFilters.isEmpty();
+    }
+
+    public ImageFilter get(int index) {
+        return mFilters.get(index);
+    }
+
+    /**
+     * 是否合并逐像素滤镜，默认开启；关闭后每个滤镜单独一个 pass，用于对比性能或排查问题
+     */
+    public void setFusionEnabled(boolean enabled) {
+        if (mFusionEnabled != enabled) {
+            mFusionEnabled = enabled;
+            structureChanged();
+        }
+    }
+
+    public boolean isFusionEnabled() {
+        return mFusionEnabled;
+    }
+
+    private void structureChanged() {
+        mStructureVersion++;
+        mPasses = null;
+    }
+
+    /**
+     * 滤镜链或任意滤镜的参数变化时都会增大，结果没有变化时渲染端可以直接复用上一次的输出。每帧调用，不分配内存
+     */
+    public long getVersion() {
+        long version = mStructureVersion;
+        for (int i = 0; i < mFilters.size(); i++) {
+            version += mFilters.get(i).getVersion();
+        }
+        return version;
+    }
+
+    /**
+     * 规划好的 pass 列表，结构没有变化时返回同一个列表
+     */
+    public List<FilterPass> getPasses() {
+        if (mPasses == null) {
+            mPasses = plan();
+        }
+        return mPasses;
+    }
+
+    private List<FilterPass> plan() {
+        List<FilterPass> passes = new ArrayList<>();
+        List<ImageFilter> current = new ArrayList<>();
+        for (int i = 0; i < mFilters.size(); i++) {
+            ImageFilter filter = mFilters.get(i);
+            // 采样滤镜总是开始新的 pass；关闭合并时每个滤镜都开始新的 pass
+            if (!current.isEmpty() && (!filter.isPointwise() || !mFusionEnabled)) {
+                passes.add(new FilterPass(current));
+                current.clear();
+            }
+            current.add(filter);
+        }
+        if (!current.isEmpty()) {
+            passes.add(new FilterPass(current));
+        }
+        return Collections.unmodifiableList(passes);
+    }
+
+    // 不合并时需要的 pass 数，即滤镜个数
+    public int getUnfusedPassCount() {
+        return mFilters.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        List<FilterPass> passes = getPasses();
+        sb.append(mFilters.size()).append(" filters in ").append(passes.size()).append(" passes:");
+        for (FilterPass pass : passes) {
+            sb.append(" [").append(pass.getKey()).append(']');
+        }
+        return sb.toString();
+    }
+}
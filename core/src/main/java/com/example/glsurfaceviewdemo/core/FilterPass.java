@@ -0,0 +1,127 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link FilterGraph} 规划出的一个全屏 pass：最多一个采样滤镜打头，后面跟若干个逐像素滤镜，
+ * 所有滤镜的代码被拼接进同一个片段着色器，中间结果留在寄存器里，不写回纹理。
+ * <p>
+ * 第 i 个滤镜的 uniform 加上前缀 "u{i}_"，避免同一种滤镜在一个 pass 中出现多次时重名。
+ * 着色器源码只由滤镜的种类和顺序决定，{@link #getKey()} 相同的 pass 可以共用一个 program。
+ */
+public final class FilterPass {
+    private final List<ImageFilter> mFilters;
+    private final String mKey;
+    private String mFragmentShader; // 第一次使用时生成
+
+    FilterPass(List<ImageFilter> filters) {
+        mFilters = Collections.unmodifiableList(new ArrayList<>(filters));
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < filters.size(); i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(filters.get(i).getName());
+        }
+        mKey = key.toString();
+    }
+
+    public List<ImageFilter> getFilters() {
+        return mFilters;
+    }
+
+    public int getFilterCount() {
+        return mFilters.size();
+    }
+
+    public ImageFilter getFilter(int index) {
+        return mFilters.get(index);
+    }
+
+    // 第一个滤镜是否需要采样相邻像素
+    public boolean hasSamplingHead() {
+        return !mFilters.get(0).isPointwise();
+    }
+
+    // program 缓存键，例如 "GaussianBlur|Saturation|Vignette"
+    public String getKey() {
+        return mKey;
+    }
+
+    // 第 index 个滤镜的 uniform 在着色器中的名字
+    public static String uniformName(int index, String name) {
+        return uniformPrefix(index) + name;
+    }
+
+    private static String uniformPrefix(int index) {
+        return "u" + index + "_";
+    }
+
+    /**
+     * 生成片段着色器，配合把纹理坐标输出为 vTexCoord 的全屏顶点着色器使用
+     */
+    public String getFragmentShader() {
+        if (mFragmentShader == null) {
+            mFragmentShader = generateFragmentShader();
+        }
+        return mFragmentShader;
+    }
+
+    private String generateFragmentShader() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("#version 300 es\n");
+        sb.append("precision mediump float;\n");
+        sb.append("// generated: ").append(mKey).append('\n');
+        sb.append("uniform sampler2D uSampler;\n");
+        sb.append("uniform vec2 uTexelSize;\n");
+        sb.append("in vec2 vTexCoord;\n");
+        sb.append("out vec4 fragColor;\n");
+        for (int i = 0; i < mFilters.size(); i++) {
+            ImageFilter filter = mFilters.get(i);
+            for (int u = 0; u < filter.getUniformCount(); u++) {
+                sb.append("uniform ").append(filter.getUniformType(u)).append(' ')
+                        .append(uniformName(i, filter.getUniformName(u))).append(";\n");
+            }
+        }
+        sb.append("void main() {\n");
+        sb.append("    vec2 uv = vTexCoord;\n");
+        int first = 0;
+        if (hasSamplingHead()) {
+            sb.append("    vec4 color;\n");
+            appendFilter(sb, 0);
+            first = 1;
+        } else {
+            sb.append("    vec4 color = texture(uSampler, uv);\n");
+        }
+        if (first < mFilters.size()) {
+            // 纹理中的颜色是预乘 alpha 的，颜色运算在去掉预乘之后进行，整个 pass 只转换一次
+            sb.append("    color.rgb /= max(color.a, 0.0001);\n");
+            for (int i = first; i < mFilters.size(); i++) {
+                appendFilter(sb, i);
+            }
+            sb.append("    color.a = clamp(color.a, 0.0, 1.0);\n");
+            sb.append("    color.rgb = clamp(color.rgb, 0.0, 1.0) * color.a;\n");
+        }
+        sb.append("    fragColor = color;\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    // 每个滤镜的代码放在单独的块中，局部变量不会互相冲突
+    private void appendFilter(StringBuilder sb, int index) {
+        ImageFilter filter = mFilters.get(index);
+        sb.append("    { // ").append(filter.getName()).append('\n');
+        String body = filter.getSource().replace("$", uniformPrefix(index));
+        for (String line : body.split("\n")) {
+            sb.append("        ").append(line).append('\n');
+        }
+        sb.append("    }\n");
+    }
+
+    @Override
+    public String toString() {
+        return mKey;
+    }
+}
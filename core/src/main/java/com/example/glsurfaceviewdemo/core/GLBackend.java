@@ -0,0 +1,176 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.Buffer;
+
+/**
+ * 渲染代码使用的 GL 命令接口，方法名和参数与 android.opengl.GLES30 完全一致。
+ * <p>
+ * 设备上使用直接转发到 GLES30 的实现；在 JVM 上可以换成 {@link RecordingGLBackend}，
+ * 统计并检查一帧产生的 GL 调用，不需要真机。只包含渲染器目前用到的命令，需要时再补充。
+ */
+public interface GLBackend {
+    // 对象创建与删除
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glGenVertexArrays(int n, int[] arrays, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glDeleteVertexArrays(int n, int[] arrays, int offset);
+
+    // 绑定
+    void glBindBuffer(int target, int buffer);
+
+    void glBindTexture(int target, int texture);
+
+    void glBindVertexArray(int array);
+
+    void glActiveTexture(int texture);
+
+    void glUseProgram(int program);
+
+    // 数据上传
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    /**
+     * 对应 GLUtils.texImage2D(target, level, internalformat, bitmap, 0)；
+     * core 模块不依赖 Android，所以 bitmap 声明为 Object，width / height 只用于统计
+     */
+    void texImage2D(int target, int level, int internalformat, Object bitmap, int width, int height);
+
+    /**
+     * 对应 GLUtils.texSubImage2D(target, level, xoffset, yoffset, bitmap)，width / height 只用于统计
+     */
+    void texSubImage2D(int target, int level, int xoffset, int yoffset, Object bitmap, int width, int height);
+
+    void glTexStorage2D(int target, int levels, int internalformat, int width, int height);
+
+    void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                int imageSize, Buffer data);
+
+    void glGenerateMipmap(int target);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    // 顶点属性
+    void glEnableVertexAttribArray(int index);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    // 绘制
+    void glDrawArrays(int mode, int first, int count);
+
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    // uniform
+    void glUniform1i(int location, int x);
+
+    void glUniform1f(int location, float x);
+
+    void glUniform2f(int location, float x, float y);
+
+    void glUniform4f(int location, float x, float y, float z, float w);
+
+    void glUniform4fv(int location, int count, float[] v, int offset);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    // 着色器与 program
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String string);
+
+    void glCompileShader(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glProgramParameteri(int program, int pname, int value);
+
+    void glLinkProgram(int program);
+
+    void glDeleteProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset);
+
+    String glGetActiveUniform(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset);
+
+    int glGetAttribLocation(int program, String name);
+
+    int glGetUniformLocation(int program, String name);
+
+    int glGetError();
+
+    // 帧缓冲与 renderbuffer
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    void glGenRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    void glBindRenderbuffer(int target, int renderbuffer);
+
+    void glRenderbufferStorage(int target, int internalformat, int width, int height);
+
+    void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer);
+
+    void glBlitFramebuffer(int srcX0, int srcY0, int srcX1, int srcY1, int dstX0, int dstY0, int dstX1, int dstY1,
+                           int mask, int filter);
+
+    void glInvalidateFramebuffer(int target, int numAttachments, int[] attachments, int offset);
+
+    /**
+     * 读到当前绑定的 GL_PIXEL_PACK_BUFFER 的 offset 处
+     */
+    void glReadPixels(int x, int y, int width, int height, int format, int type, int offset);
+
+    // 缓冲映射与同步对象
+    Buffer glMapBufferRange(int target, int offset, int length, int access);
+
+    boolean glUnmapBuffer(int target);
+
+    long glFenceSync(int condition, int flags);
+
+    int glClientWaitSync(long sync, int flags, long timeout);
+
+    void glDeleteSync(long sync);
+
+    void glFlush();
+
+    // 其他状态
+    void glViewport(int x, int y, int width, int height);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClear(int mask);
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+}
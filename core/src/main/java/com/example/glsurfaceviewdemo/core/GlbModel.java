@@ -0,0 +1,747 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制 glTF 2.0（.glb）网格解析器，只解析几何数据（bufferView、accessor、mesh 的 primitive），不处理材质、节点和动画。
+ * <p>
+ * 解析过程不拷贝顶点和索引：每个 bufferView 都是输入 ByteBuffer 的切片，输入是内存映射的直接缓冲区时，
+ * 切片可以直接交给 glBufferData，accessor 的偏移、步长和类型直接用于 glVertexAttribPointer / glDrawElements。
+ * <p>
+ * 解析是增量的：输入的前 n 个字节可用时调用 {@link #advance(int)}，JSON 块到齐后就能知道网格结构和包围盒，
+ * 之后每个 primitive 引用的 bufferView 全部到齐时即可通过 {@link #poll()} 取出上传，
+ * 大文件不需要等全部读完就能开始绘制（数据按在文件中的先后顺序就绪）。
+ * 只支持存放在 GLB 的 BIN 块中的缓冲区，外部文件、data URI、稀疏 accessor 和必需的扩展（例如 Draco）会被拒绝。
+ * 不依赖 GL 和 Android，可以在 JVM 上测试；同一个实例只能在一个线程使用。
+ */
+public final class GlbModel {
+    // bufferView 的 target（与 GLES30 一致），文件中没有指定时为 0
+    public static final int GL_ARRAY_BUFFER = 0x8892;
+    public static final int GL_ELEMENT_ARRAY_BUFFER = 0x8893;
+
+    // accessor 的 componentType（与 GLES30 一致）
+    public static final int GL_BYTE = 0x1400;
+    public static final int GL_UNSIGNED_BYTE = 0x1401;
+    public static final int GL_SHORT = 0x1402;
+    public static final int GL_UNSIGNED_SHORT = 0x1403;
+    public static final int GL_UNSIGNED_INT = 0x1405;
+    public static final int GL_FLOAT = 0x1406;
+
+    // primitive 的 mode 与 glDrawArrays / glDrawElements 的 mode 相同
+    public static final int MODE_TRIANGLES = 4;
+    private static final int MAX_MODE = 6; // GL_TRIANGLE_FAN
+
+    private static final int MAGIC = 0x46546C67;      // "glTF"
+    private static final int CHUNK_JSON = 0x4E4F534A; // "JSON"
+    private static final int CHUNK_BIN = 0x004E4942;  // "BIN\0"
+    private static final int HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+
+    // 解析进度
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_JSON = 1;
+    private static final int STATE_BIN = 2;
+    private static final int STATE_DATA = 3;
+
+    /**
+     * 一段连续的顶点或索引数据，上传时通常对应一个 VBO / EBO
+     */
+    public static final class BufferView {
+        private final int mIndex;
+        private final int mByteOffset; // 在 BIN 块中的偏移
+        private final int mByteLength;
+        private final int mByteStride; // 交错存放时每个顶点的字节数，0 表示紧密排列
+        private final int mTarget;
+        private ByteBuffer mData;      // BIN 块的位置确定后创建
+
+        BufferView(int index, int byteOffset, int byteLength, int byteStride, int target) {
+            mIndex = index;
+            mByteOffset = byteOffset;
+            mByteLength = byteLength;
+            mByteStride = byteStride;
+            mTarget = target;
+        }
+
+        public int getIndex() {
+            return mIndex;
+        }
+
+        public int getByteLength() {
+            return mByteLength;
+        }
+
+        public int getByteStride() {
+            return mByteStride;
+        }
+
+        // GL_ARRAY_BUFFER / GL_ELEMENT_ARRAY_BUFFER，文件中没有指定时为 0（可以根据引用它的 accessor 判断）
+        public int getTarget() {
+            return mTarget;
+        }
+
+        /**
+         * 整段数据（输入缓冲区的切片，position 为 0，小端序），引用它的 primitive 就绪之前内容可能还没有到齐
+         */
+        public ByteBuffer getData() {
+            return mData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * bufferView 中的一组同类元素（一个顶点属性或一组索引）
+     */
+    public static final class Accessor {
+        private final BufferView mBufferView;
+        private final int mByteOffset; // 在 bufferView 中的偏移
+        private final int mComponentType;
+        private final int mComponents;
+        private final boolean mNormalized;
+        private final int mCount;
+        private final float[] mMin; // 没有给出时为 null
+        private final float[] mMax;
+
+        Accessor(BufferView bufferView, int byteOffset, int componentType, int components, boolean normalized,
+                 int count, float[] min, float[] max) {
+            mBufferView = bufferView;
+            mByteOffset = byteOffset;
+            mComponentType = componentType;
+            mComponents = components;
+            mNormalized = normalized;
+            mCount = count;
+            mMin = min;
+            mMax = max;
+        }
+
+        public BufferView getBufferView() {
+            return mBufferView;
+        }
+
+        // 在 bufferView 中的字节偏移，即 glVertexAttribPointer / glDrawElements 的 offset（数据单独上传时）
+        public int getByteOffset() {
+            return mByteOffset;
+        }
+
+        // GL_FLOAT / GL_UNSIGNED_SHORT 等，即 glVertexAttribPointer 的 type 或 glDrawElements 的 type
+        public int getComponentType() {
+            return mComponentType;
+        }
+
+        public int getComponents() {
+            return mComponents;
+        }
+
+        public boolean isNormalized() {
+            return mNormalized;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public int getElementSize() {
+            return mComponents * componentSize(mComponentType);
+        }
+
+        // 相邻元素之间的字节数，即 glVertexAttribPointer 的 stride
+        public int getByteStride() {
+            int stride = mBufferView.getByteStride();
+            return stride != 0 ? stride : getElementSize();
+        }
+
+        // 从第一个元素的起点到最后一个元素的终点的字节数
+        public int getByteLength() {
+            return mCount == 0 ? 0 : getByteStride() * (mCount - 1) + getElementSize();
+        }
+
+        /**
+         * 元素数据（bufferView 的切片，position 为 0，小端序），用于在 CPU 端读取或单独上传
+         */
+        public ByteBuffer getData() {
+            ByteBuffer view = mBufferView.mData.duplicate();
+            view.limit(mByteOffset + getByteLength()).position(mByteOffset);
+            return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        // 每个分量的最小值，没有给出时返回 null
+        public float[] getMin() {
+            return mMin == null ? null : mMin.clone();
+        }
+
+        public float[] getMax() {
+            return mMax == null ? null : mMax.clone();
+        }
+    }
+
+    /**
+     * 一次绘制调用：一组顶点属性、可选的索引和图元类型
+     */
+    public static final class Primitive {
+        private final int mIndex;
+        private final int mMeshIndex;
+        private final String mMeshName;
+        private final int mMode;
+        private final String[] mAttributeNames;
+        private final Accessor[] mAttributes;
+        private final Accessor mIndices;
+        private int mEnd; // 所有引用的 bufferView 在文件中的结束位置，数据到这里时就绪
+
+        Primitive(int index, int meshIndex, String meshName, int mode, String[] attributeNames,
+                  Accessor[] attributes, Accessor indices) {
+            mIndex = index;
+            mMeshIndex = meshIndex;
+            mMeshName = meshName;
+            mMode = mode;
+            mAttributeNames = attributeNames;
+            mAttributes = attributes;
+            mIndices = indices;
+        }
+
+        // 在整个文件的 primitive 中的下标
+        public int getIndex() {
+            return mIndex;
+        }
+
+        public int getMeshIndex() {
+            return mMeshIndex;
+        }
+
+        // mesh 的名字，没有给出时为空字符串
+        public String getMeshName() {
+            return mMeshName;
+        }
+
+        public int getMode() {
+            return mMode;
+        }
+
+        public int getAttributeCount() {
+            return mAttributes.length;
+        }
+
+        // 例如 "POSITION"、"NORMAL"、"TEXCOORD_0"
+        public String getAttributeName(int attribute) {
+            return mAttributeNames[attribute];
+        }
+
+        public Accessor getAttribute(int attribute) {
+            return mAttributes[attribute];
+        }
+
+        // 按名字查找属性，没有时返回 null
+        public Accessor getAttribute(String name) {
+            for (int i = 0; i < mAttributeNames.length; i++) {
+                if (mAttributeNames[i].equals(name)) {
+                    return mAttributes[i];
+                }
+            }
+            return null;
+        }
+
+        // 索引，没有索引（用 glDrawArrays 绘制）时为 null
+        public Accessor getIndices() {
+            return mIndices;
+        }
+
+        public int getVertexCount() {
+            return mAttributes.length == 0 ? 0 : mAttributes[0].getCount();
+        }
+
+        // glDrawElements / glDrawArrays 的 count
+        public int getDrawCount() {
+            return mIndices != null ? mIndices.getCount() : getVertexCount();
+        }
+    }
+
+    private final ByteBuffer mData;
+    private int mAvailable = 0;
+    private int mState = STATE_HEADER;
+    private int mLength = -1;   // 文件头中的总长度
+    private int mBinHeader = 0; // BIN 块头的位置
+    private int mBinStart = -1;
+    private int mBinLength = 0;
+    private int mBufferLength = 0; // buffers[0].byteLength
+
+    private BufferView[] mBufferViews;
+    private Accessor[] mAccessors;
+    private Primitive[] mPrimitives;
+    private long[] mReadyOrder; // 高 32 位为就绪位置，低 32 位为 primitive 下标，按就绪的先后排列
+    private int mReadyCount = 0;
+    private int mPollCount = 0;
+    private final float[] mBounds = new float[6]; // 所有 POSITION 的包围盒：minX, minY, minZ, maxX, maxY, maxZ
+    private boolean mHasBounds = false;
+
+    /**
+     * 准备增量解析。data 从 position 到 limit 是整个文件占用的空间，内容可以之后再逐步填入，
+     * 每次填入后调用 {@link #advance(int)}；不会修改 data 的 position / limit / 字节序
+     */
+    public GlbModel(ByteBuffer data) {
+        mData = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 解析完整的 GLB 文件
+     *
+     * @return 所有 primitive 已经就绪的模型，bufferView 的数据是 data 的切片
+     * @throws IOException 文件格式不正确、被截断或使用了不支持的特性
+     */
+    public static GlbModel parse(ByteBuffer data) throws IOException {
+        GlbModel model = new GlbModel(data);
+        model.advance(data.remaining());
+        if (!model.isComplete()) {
+            throw new IOException("Truncated GLB: " + data.remaining() + " of " + model.mLength + " bytes");
+        }
+        return model;
+    }
+
+    /**
+     * 文件的前 available 个字节已经可用，继续解析
+     *
+     * @return 本次新就绪的 primitive 个数
+     * @throws IOException 文件格式不正确或使用了不支持的特性，之后不能再继续解析
+     */
+    public int advance(int available) throws IOException {
+        mAvailable = Math.max(mAvailable, Math.min(available, mData.capacity()));
+        if (mState == STATE_HEADER) {
+            if (mAvailable < HEADER_SIZE) {
+                return 0;
+            }
+            parseHeader();
+        }
+        if (mState == STATE_JSON) {
+            if (mAvailable < HEADER_SIZE + CHUNK_HEADER_SIZE) {
+                return 0;
+            }
+            int jsonLength = chunkLength(HEADER_SIZE, CHUNK_JSON);
+            if (mAvailable < HEADER_SIZE + CHUNK_HEADER_SIZE + jsonLength) {
+                return 0;
+            }
+            int jsonStart = HEADER_SIZE + CHUNK_HEADER_SIZE;
+            parseJson(JsonParser.parse(mData, jsonStart, jsonStart + jsonLength));
+            mBinHeader = jsonStart + jsonLength;
+            mState = STATE_BIN;
+        }
+        if (mState == STATE_BIN) {
+            if (mBinHeader + CHUNK_HEADER_SIZE > mLength) {
+                // 没有 BIN 块，只有不引用任何 bufferView 的 primitive（实际上不会有）
+                if (mBufferViews.length > 0) {
+                    throw new IOException("GLB has bufferViews but no BIN chunk");
+                }
+                mBinStart = mLength;
+            } else {
+                if (mAvailable < mBinHeader + CHUNK_HEADER_SIZE) {
+                    return 0;
+                }
+                mBinLength = chunkLength(mBinHeader, CHUNK_BIN);
+                mBinStart = mBinHeader + CHUNK_HEADER_SIZE;
+            }
+            locateBinary();
+            mState = STATE_DATA;
+        }
+        int ready = 0;
+        while (mReadyCount < mReadyOrder.length && (int) (mReadyOrder[mReadyCount] >>> 32) <= mAvailable) {
+            mReadyCount++;
+            ready++;
+        }
+        return ready;
+    }
+
+    private void parseHeader() throws IOException {
+        if (mData.getInt(0) != MAGIC) {
+            throw new IOException("Not a GLB file");
+        }
+        int version = mData.getInt(4);
+        if (version != 2) {
+            throw new IOException("Unsupported GLB version " + version);
+        }
+        mLength = mData.getInt(8);
+        if (mLength < HEADER_SIZE + CHUNK_HEADER_SIZE) {
+            throw new IOException("Invalid GLB length " + mLength);
+        }
+        if (mLength > mData.capacity()) {
+            throw new IOException("GLB length " + mLength + " exceeds buffer capacity " + mData.capacity());
+        }
+        mState = STATE_JSON;
+    }
+
+    // 读取块头，检查类型和范围，返回块的数据长度
+    private int chunkLength(int offset, int expectedType) throws IOException {
+        int length = mData.getInt(offset);
+        int type = mData.getInt(offset + 4);
+        if (type != expectedType) {
+            throw new IOException("Unexpected GLB chunk type 0x" + Integer.toHexString(type) + " at " + offset);
+        }
+        if (length < 0 || length > mLength - offset - CHUNK_HEADER_SIZE) {
+            throw new IOException("GLB chunk out of range: offset " + offset + ", length " + length);
+        }
+        return length;
+    }
+
+    private void parseJson(Object json) throws IOException {
+        Map<String, Object> root = asObject(json, "root");
+        Map<String, Object> asset = asObject(root.get("asset"), "asset");
+        Object version = asset.get("version");
+        if (!(version instanceof String) || !((String) version).startsWith("2.")) {
+            throw new IOException("Unsupported glTF version " + version);
+        }
+        List<Object> required = optArray(root, "extensionsRequired");
+        if (!required.isEmpty()) {
+            throw new IOException("Required glTF extensions not supported: " + required);
+        }
+
+        List<Object> buffers = optArray(root, "buffers");
+        for (int i = 0; i < buffers.size(); i++) {
+            Map<String, Object> buffer = asObject(buffers.get(i), "buffer");
+            if (i > 0 || buffer.containsKey("uri")) {
+                throw new IOException("Only the GLB-stored buffer is supported, buffer " + i + " is external");
+            }
+            mBufferLength = getInt(buffer, "byteLength", -1);
+        }
+
+        List<Object> views = optArray(root, "bufferViews");
+        mBufferViews = new BufferView[views.size()];
+        for (int i = 0; i < mBufferViews.length; i++) {
+            Map<String, Object> view = asObject(views.get(i), "bufferView");
+            if (getInt(view, "buffer", -1) != 0 || buffers.isEmpty()) {
+                throw new IOException("bufferView " + i + " does not reference the GLB buffer");
+            }
+            int byteOffset = getInt(view, "byteOffset", 0);
+            int byteLength = getInt(view, "byteLength", -1);
+            int byteStride = getInt(view, "byteStride", 0);
+            if (byteLength > mBufferLength - byteOffset) {
+                throw new IOException("bufferView " + i + " out of buffer range");
+            }
+            if (byteStride != 0 && (byteStride < 4 || byteStride > 252 || (byteStride & 3) != 0)) {
+                throw new IOException("Invalid byteStride " + byteStride + " in bufferView " + i);
+            }
+            mBufferViews[i] = new BufferView(i, byteOffset, byteLength, byteStride, getInt(view, "target", 0));
+        }
+
+        List<Object> accessors = optArray(root, "accessors");
+        mAccessors = new Accessor[accessors.size()];
+        for (int i = 0; i < mAccessors.length; i++) {
+            mAccessors[i] = parseAccessor(i, asObject(accessors.get(i), "accessor"));
+        }
+
+        List<Object> meshes = optArray(root, "meshes");
+        int primitiveCount = 0;
+        for (Object mesh : meshes) {
+            primitiveCount += optArray(asObject(mesh, "mesh"), "primitives").size();
+        }
+        mPrimitives = new Primitive[primitiveCount];
+        int index = 0;
+        for (int m = 0; m < meshes.size(); m++) {
+            Map<String, Object> mesh = asObject(meshes.get(m), "mesh");
+            Object name = mesh.get("name");
+            for (Object primitive : optArray(mesh, "primitives")) {
+                mPrimitives[index] = parsePrimitive(index, m, name instanceof String ? (String) name : "",
+                        asObject(primitive, "primitive"));
+                index++;
+            }
+        }
+    }
+
+    private Accessor parseAccessor(int index, Map<String, Object> accessor) throws IOException {
+        if (accessor.containsKey("sparse")) {
+            throw new IOException("Sparse accessor " + index + " not supported");
+        }
+        int viewIndex = getInt(accessor, "bufferView", -1);
+        if (viewIndex >= mBufferViews.length) {
+            throw new IOException("accessor " + index + " references a missing bufferView");
+        }
+        int componentType = getInt(accessor, "componentType", -1);
+        if (componentSize(componentType) == 0) {
+            throw new IOException("Invalid componentType " + componentType + " in accessor " + index);
+        }
+        int components = componentCount(accessor.get("type"));
+        if (components == 0) {
+            throw new IOException("Invalid type " + accessor.get("type") + " in accessor " + index);
+        }
+        Object normalized = accessor.get("normalized");
+        int byteOffset = getInt(accessor, "byteOffset", 0);
+        if (byteOffset % componentSize(componentType) != 0) {
+            throw new IOException("Misaligned accessor " + index);
+        }
+        Accessor result = new Accessor(mBufferViews[viewIndex], byteOffset, componentType, components,
+                Boolean.TRUE.equals(normalized), getInt(accessor, "count", -1),
+                optFloats(accessor, "min", components), optFloats(accessor, "max", components));
+        if (result.getByteLength() > mBufferViews[viewIndex].getByteLength() - byteOffset) {
+            throw new IOException("accessor " + index + " out of bufferView range");
+        }
+        return result;
+    }
+
+    private Primitive parsePrimitive(int index, int meshIndex, String meshName, Map<String, Object> primitive)
+            throws IOException {
+        int mode = getInt(primitive, "mode", MODE_TRIANGLES);
+        if (mode > MAX_MODE) {
+            throw new IOException("Invalid primitive mode " + mode);
+        }
+        Map<String, Object> attributes = asObject(primitive.get("attributes"), "attributes");
+        String[] names = new String[attributes.size()];
+        Accessor[] accessors = new Accessor[attributes.size()];
+        int a = 0;
+        for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+            names[a] = entry.getKey();
+            accessors[a] = accessor(toInt(entry.getValue(), entry.getKey()));
+            if (accessors[a].getCount() != accessors[0].getCount()) {
+                throw new IOException("Attribute counts differ in mesh " + meshIndex);
+            }
+            a++;
+        }
+        Accessor indices = null;
+        if (primitive.containsKey("indices")) {
+            indices = accessor(getInt(primitive, "indices", -1));
+            int type = indices.getComponentType();
+            if (indices.getComponents() != 1
+                    || (type != GL_UNSIGNED_BYTE && type != GL_UNSIGNED_SHORT && type != GL_UNSIGNED_INT)) {
+                throw new IOException("Invalid index accessor in mesh " + meshIndex);
+            }
+        }
+        Accessor position = null;
+        for (int i = 0; i < names.length; i++) {
+            if ("POSITION".equals(names[i])) {
+                position = accessors[i];
+            }
+        }
+        if (position != null) {
+            includeBounds(position);
+        }
+        return new Primitive(index, meshIndex, meshName, mode, names, accessors, indices);
+    }
+
+    private Accessor accessor(int index) throws IOException {
+        if (index >= mAccessors.length) {
+            throw new IOException("Missing accessor " + index);
+        }
+        return mAccessors[index];
+    }
+
+    private void includeBounds(Accessor position) {
+        if (position.mMin == null || position.mMax == null || position.mComponents < 3) {
+            return;
+        }
+        for (int c = 0; c < 3; c++) {
+            if (!mHasBounds || position.mMin[c] < mBounds[c]) {
+                mBounds[c] = position.mMin[c];
+            }
+            if (!mHasBounds || position.mMax[c] > mBounds[c + 3]) {
+                mBounds[c + 3] = position.mMax[c];
+            }
+        }
+        mHasBounds = true;
+    }
+
+    // BIN 块的位置确定后创建 bufferView 的切片，并按数据就绪的先后排列 primitive
+    private void locateBinary() throws IOException {
+        if (mBufferViews.length > 0 && mBufferLength > mBinLength) {
+            throw new IOException("GLB buffer length " + mBufferLength + " exceeds BIN chunk " + mBinLength);
+        }
+        for (BufferView view : mBufferViews) {
+            ByteBuffer data = mData.duplicate();
+            int start = mBinStart + view.mByteOffset;
+            data.limit(start + view.mByteLength).position(start);
+            view.mData = data.slice();
+        }
+        mReadyOrder = new long[mPrimitives.length];
+        for (int i = 0; i < mPrimitives.length; i++) {
+            Primitive primitive = mPrimitives[i];
+            int end = mBinStart;
+            for (Accessor accessor : primitive.mAttributes) {
+                end = Math.max(end, viewEnd(accessor));
+            }
+            if (primitive.mIndices != null) {
+                end = Math.max(end, viewEnd(primitive.mIndices));
+            }
+            primitive.mEnd = end;
+            mReadyOrder[i] = ((long) end << 32) | i;
+        }
+        Arrays.sort(mReadyOrder);
+    }
+
+    private int viewEnd(Accessor accessor) {
+        BufferView view = accessor.mBufferView;
+        return mBinStart + view.mByteOffset + view.mByteLength;
+    }
+
+    /**
+     * 取出下一个已经就绪的 primitive（按数据在文件中的先后顺序），没有时返回 null
+     */
+    public Primitive poll() {
+        if (mPollCount >= mReadyCount) {
+            return null;
+        }
+        return mPrimitives[(int) mReadyOrder[mPollCount++]];
+    }
+
+    // JSON 块已经解析，可以读取网格结构和包围盒
+    public boolean isStructureKnown() {
+        return mPrimitives != null;
+    }
+
+    // 所有 primitive 都已经就绪
+    public boolean isComplete() {
+        return mReadyOrder != null && mReadyCount == mReadyOrder.length;
+    }
+
+    // 文件头中的总长度，文件头到达之前为 -1
+    public int getLength() {
+        return mLength;
+    }
+
+    public int getAvailable() {
+        return mAvailable;
+    }
+
+    public int getPrimitiveCount() {
+        return mPrimitives == null ? 0 : mPrimitives.length;
+    }
+
+    public Primitive getPrimitive(int index) {
+        return mPrimitives[index];
+    }
+
+    public int getReadyCount() {
+        return mReadyCount;
+    }
+
+    public int getBufferViewCount() {
+        return mBufferViews == null ? 0 : mBufferViews.length;
+    }
+
+    public BufferView getBufferView(int index) {
+        return mBufferViews[index];
+    }
+
+    public int getAccessorCount() {
+        return mAccessors == null ? 0 : mAccessors.length;
+    }
+
+    public Accessor getAccessor(int index) {
+        return mAccessors[index];
+    }
+
+    /**
+     * 所有 POSITION 属性的包围盒（由 accessor 的 min / max 得到，JSON 块解析后即可使用）
+     *
+     * @param out minX, minY, minZ, maxX, maxY, maxZ
+     * @return 文件没有给出 POSITION 的范围时返回 false
+     */
+    public boolean getBounds(float[] out) {
+        if (mHasBounds) {
+            System.arraycopy(mBounds, 0, out, 0, 6);
+        }
+        return mHasBounds;
+    }
+
+    static int componentSize(int componentType) {
+        switch (componentType) {
+            case GL_BYTE:
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_SHORT:
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            case GL_UNSIGNED_INT:
+            case GL_FLOAT:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static int componentCount(Object type) {
+        if (!(type instanceof String)) {
+            return 0;
+        }
+        switch ((String) type) {
+            case "SCALAR":
+                return 1;
+            case "VEC2":
+                return 2;
+            case "VEC3":
+                return 3;
+            case "VEC4":
+            case "MAT2":
+                return 4;
+            case "MAT3":
+                return 9;
+            case "MAT4":
+                return 16;
+            default:
+                return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value, String what) throws IOException {
+        if (!(value instanceof Map)) {
+            throw new IOException("Expected JSON object for " + what);
+        }
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> optArray(Map<String, Object> object, String key) throws IOException {
+        Object value = object.get(key);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (!(value instanceof List)) {
+            throw new IOException("Expected JSON array for " + key);
+        }
+        return (List<Object>) value;
+    }
+
+    // 读取非负整数，没有这个键时返回 defaultValue；defaultValue 为 -1 表示必须存在
+    private static int getInt(Map<String, Object> object, String key, int defaultValue) throws IOException {
+        Object value = object.get(key);
+        if (value == null) {
+            if (defaultValue < 0) {
+                throw new IOException("Missing required property " + key);
+            }
+            return defaultValue;
+        }
+        return toInt(value, key);
+    }
+
+    private static int toInt(Object value, String key) throws IOException {
+        if (!(value instanceof Double)) {
+            throw new IOException("Expected number for " + key);
+        }
+        double number = (Double) value;
+        if (number < 0 || number > Integer.MAX_VALUE || number != Math.floor(number)) {
+            throw new IOException("Invalid value " + value + " for " + key);
+        }
+        return (int) number;
+    }
+
+    private static float[] optFloats(Map<String, Object> object, String key, int count) throws IOException {
+        List<Object> values = optArray(object, key);
+        if (values.isEmpty()) {
+            return null;
+        }
+        if (values.size() != count) {
+            throw new IOException("Expected " + count + " values for " + key);
+        }
+        float[] result = new float[count];
+        for (int i = 0; i < count; i++) {
+            if (!(values.get(i) instanceof Double)) {
+                throw new IOException("Expected number in " + key);
+            }
+            result[i] = ((Double) values.get(i)).floatValue();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "GlbModel{length=" + mLength + ", available=" + mAvailable + ", bufferViews=" + getBufferViewCount()
+                + ", accessors=" + getAccessorCount() + ", primitives=" + mReadyCount + "/" + getPrimitiveCount() + "}";
+    }
+}
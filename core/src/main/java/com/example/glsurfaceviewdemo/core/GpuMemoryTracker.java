@@ -0,0 +1,399 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * GPU 显存账本：记录每个存活的缓冲、纹理、program、VAO、帧缓冲和 renderbuffer 的大小、所有者和（可选的）创建位置。
+ * <ul>
+ *     <li>通常由 {@link TrackingGLBackend} 在 glGen* / glDelete* / glBufferData / glTexImage2D / glRenderbufferStorage 等命令中自动记账，
+ *     不经过 GL 后端的分配（例如其他线程的共享上下文）可以直接调用 {@link #onCreate(int, int, String)} 等方法</li>
+ *     <li>所有者是一个字符串标签（通常是 {@link #tag(Object)}），在 {@link #enterOwner(String)} /
+ *     {@link #exitOwner(String)} 之间创建的对象都记在这个所有者名下</li>
+ *     <li>所有者释放后调用 {@link #releaseOwner(String)}，它名下还存活的对象会被标记为泄漏</li>
+ * </ul>
+ * 大小按 宽 x 高 x 每像素字节数估算（压缩纹理按数据大小），驱动的对齐和额外开销不计入。
+ * 只有分配和删除会进入同步块，绘制、绑定和 uniform 不受影响，可以在正式版本中开启；
+ * 记录创建位置需要抓取调用栈，开销较大，只在排查泄漏时打开。所有方法都是线程安全的。
+ */
+public final class GpuMemoryTracker {
+    // 对象类型，和 GpuResourceRegistry 一致
+    public static final int PROGRAM = GpuResourceRegistry.PROGRAM;
+    public static final int BUFFER = GpuResourceRegistry.BUFFER;
+    public static final int TEXTURE = GpuResourceRegistry.TEXTURE;
+    public static final int VERTEX_ARRAY = GpuResourceRegistry.VERTEX_ARRAY;
+    // 只在账本中出现的类型，登记表不负责重建它们
+    public static final int FRAMEBUFFER = 4;
+    public static final int RENDERBUFFER = 5;
+    private static final int KIND_COUNT = 6;
+    private static final String[] KIND_NAMES = {"program", "buffer", "texture", "vertexArray", "framebuffer", "renderbuffer"};
+
+    private static final String UNTAGGED = "untagged";
+    private static final int MAX_LEVELS = 16;
+
+    // 一个存活的 GL 对象
+    private static final class Allocation {
+        final int kind;
+        final int id;
+        final String owner;
+        final Throwable site; // 创建位置，没有开启记录时为 null
+        long bytes = 0;
+        long[] levelBytes; // 纹理每个 mip 层级的字节数
+        int width = 0; // 纹理第 0 层的尺寸和每像素字节数，用于 glGenerateMipmap
+        int height = 0;
+        int bytesPerPixel = 0;
+        boolean leaked = false;
+
+        Allocation(int kind, int id, String owner, Throwable site) {
+            this.kind = kind;
+            this.id = id;
+            this.owner = owner;
+            this.site = site;
+        }
+    }
+
+    private final Map<Long, Allocation> mAllocations = new HashMap<>();
+    private final int[] mLiveCounts = new int[KIND_COUNT];
+    private final long[] mLiveBytes = new long[KIND_COUNT];
+    private long mTotalBytes = 0;
+    private long mPeakBytes = 0;
+    private int mLeakCount = 0;
+    private int mUnknownDeletes = 0; // 删除了没有记账的对象（例如账本开启之前创建的）
+    private String mOwner = UNTAGGED;
+    private volatile boolean mRecordSites = false;
+
+    /**
+     * 生成所有者标签：类名@identityHashCode，同一个类的多个实例可以区分
+     */
+    public static String tag(Object owner) {
+        return owner.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(owner));
+    }
+
+    // 是否记录每个对象的创建位置（调用栈），只影响之后创建的对象
+    public void setRecordCreationSites(boolean record) {
+        mRecordSites = record;
+    }
+
+    /**
+     * 之后（在同一个线程上）创建的对象记在 owner 名下，返回之前的所有者，用于 {@link #exitOwner(String)} 恢复
+     * <pre>
+     *     String previous = tracker.enterOwner(mTag);
+     *     try { ... } finally { tracker.exitOwner(previous); }
+     * </pre>
+     * 所有者只有一个，不区分线程；其他线程请使用带 owner 参数的 {@link #onCreate(int, int, String)}
+     */
+    public synchronized String enterOwner(String owner) {
+        String previous = mOwner;
+        mOwner = owner == null ? UNTAGGED : owner;
+        return previous;
+    }
+
+    public synchronized void exitOwner(String previous) {
+        mOwner = previous == null ? UNTAGGED : previous;
+    }
+
+    public synchronized String getOwner() {
+        return mOwner;
+    }
+
+    // 记录一个新创建的对象，记在当前所有者名下
+    public synchronized void onCreate(int kind, int id) {
+        onCreate(kind, id, mOwner);
+    }
+
+    public synchronized void onCreate(int kind, int id, String owner) {
+        if (id == 0) {
+            return;
+        }
+        Allocation allocation = new Allocation(kind, id, owner == null ? UNTAGGED : owner,
+                mRecordSites ? new Throwable("created") : null);
+        Allocation old = mAllocations.put(key(kind, id), allocation);
+        if (old != null) {
+            remove(old); // 同名对象没有经过删除就被重新创建（例如上下文丢失），旧记录作废
+        }
+        mLiveCounts[kind]++;
+    }
+
+    public synchronized void onDelete(int kind, int id) {
+        Allocation allocation = mAllocations.remove(key(kind, id));
+        if (allocation == null) {
+            if (id != 0) {
+                mUnknownDeletes++;
+            }
+            return;
+        }
+        remove(allocation);
+    }
+
+    /**
+     * EGL 上下文丢失后调用：所有对象已经随上下文销毁，清空账本（泄漏计数保留）
+     */
+    public synchronized void onContextLost() {
+        mAllocations.clear();
+        Arrays.fill(mLiveCounts, 0);
+        Arrays.fill(mLiveBytes, 0);
+        mTotalBytes = 0;
+    }
+
+    // glBufferData：缓冲的大小变为 bytes
+    public synchronized void setBufferSize(int id, long bytes) {
+        Allocation allocation = mAllocations.get(key(BUFFER, id));
+        if (allocation != null) {
+            resize(allocation, bytes);
+        }
+    }
+
+    // glRenderbufferStorage：renderbuffer 的大小变为 bytes
+    public synchronized void setRenderbufferSize(int id, long bytes) {
+        Allocation allocation = mAllocations.get(key(RENDERBUFFER, id));
+        if (allocation != null) {
+            resize(allocation, bytes);
+        }
+    }
+
+    /**
+     * 纹理的一个 mip 层级被（重新）定义
+     *
+     * @param bytes 这一层的字节数；非压缩纹理可以用 width * height * {@link #bytesPerPixel(int)}
+     */
+    public synchronized void setTextureLevel(int id, int level, int width, int height, int bytesPerPixel, long bytes) {
+        Allocation allocation = mAllocations.get(key(TEXTURE, id));
+        if (allocation == null || level < 0 || level >= MAX_LEVELS) {
+            return;
+        }
+        if (allocation.levelBytes == null) {
+            allocation.levelBytes = new long[MAX_LEVELS];
+        }
+        if (level == 0) {
+            allocation.width = width;
+            allocation.height = height;
+            allocation.bytesPerPixel = bytesPerPixel;
+        }
+        long total = allocation.bytes - allocation.levelBytes[level] + bytes;
+        allocation.levelBytes[level] = bytes;
+        resize(allocation, total);
+    }
+
+    /**
+     * glTexStorage2D：一次定义 levels 个层级（非压缩格式）
+     */
+    public void setTextureStorage(int id, int levels, int internalFormat, int width, int height) {
+        int bpp = bytesPerPixel(internalFormat);
+        for (int level = 0; level < levels; level++) {
+            int w = Math.max(1, width >> level);
+            int h = Math.max(1, height >> level);
+            setTextureLevel(id, level, w, h, bpp, (long) w * h * bpp);
+        }
+    }
+
+    /**
+     * glGenerateMipmap：按第 0 层的尺寸补齐所有层级
+     */
+    public synchronized void generateMipmaps(int id) {
+        Allocation allocation = mAllocations.get(key(TEXTURE, id));
+        if (allocation == null || allocation.width == 0) {
+            return;
+        }
+        int width = allocation.width;
+        int height = allocation.height;
+        int bpp = allocation.bytesPerPixel;
+        for (int level = 1; level < MAX_LEVELS && (width > 1 || height > 1); level++) {
+            width = Math.max(1, width >> 1);
+            height = Math.max(1, height >> 1);
+            setTextureLevel(id, level, width, height, bpp, (long) width * height * bpp);
+        }
+    }
+
+    /**
+     * 所有者已经释放：它名下还存活的对象标记为泄漏
+     *
+     * @return 新发现的泄漏对象个数
+     */
+    public synchronized int releaseOwner(String owner) {
+        int leaks = 0;
+        for (Allocation allocation : mAllocations.values()) {
+            if (!allocation.leaked && allocation.owner.equals(owner)) {
+                allocation.leaked = true;
+                leaks++;
+            }
+        }
+        mLeakCount += leaks;
+        return leaks;
+    }
+
+    public synchronized int getLiveCount(int kind) {
+        return mLiveCounts[kind];
+    }
+
+    public synchronized long getLiveBytes(int kind) {
+        return mLiveBytes[kind];
+    }
+
+    // 所有存活对象的总字节数
+    public synchronized long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    public synchronized long getPeakBytes() {
+        return mPeakBytes;
+    }
+
+    // 累计发现的泄漏对象个数
+    public synchronized int getLeakCount() {
+        return mLeakCount;
+    }
+
+    public synchronized int getUnknownDeletes() {
+        return mUnknownDeletes;
+    }
+
+    // owner 名下存活对象的总字节数
+    public synchronized long getOwnerBytes(String owner) {
+        long bytes = 0;
+        for (Allocation allocation : mAllocations.values()) {
+            if (allocation.owner.equals(owner)) {
+                bytes += allocation.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 生成可读的报告：按类型和所有者汇总，列出所有泄漏的对象（开启记录时附带创建位置）
+     */
+    public synchronized String report() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US, "GPU memory: %s live, peak %s, leaks %d%n",
+                formatBytes(mTotalBytes), formatBytes(mPeakBytes), mLeakCount));
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            builder.append(String.format(Locale.US, "  %-12s %5d  %10s%n",
+                    KIND_NAMES[kind], mLiveCounts[kind], formatBytes(mLiveBytes[kind])));
+        }
+
+        // 按所有者汇总，字节数大的在前
+        final Map<String, long[]> owners = new HashMap<>(); // owner -> {字节数, 对象个数}
+        List<Allocation> leaks = new ArrayList<>();
+        for (Allocation allocation : mAllocations.values()) {
+            long[] total = owners.get(allocation.owner);
+            if (total == null) {
+                total = new long[2];
+                owners.put(allocation.owner, total);
+            }
+            total[0] += allocation.bytes;
+            total[1]++;
+            if (allocation.leaked) {
+                leaks.add(allocation);
+            }
+        }
+        List<String> names = new ArrayList<>(owners.keySet());
+        Collections.sort(names, (a, b) -> {
+            int order = Long.compare(owners.get(b)[0], owners.get(a)[0]);
+            return order != 0 ? order : a.compareTo(b);
+        });
+        builder.append("By owner:\n");
+        for (String name : names) {
+            long[] total = owners.get(name);
+            builder.append(String.format(Locale.US, "  %-32s %5d  %10s%n", name, total[1], formatBytes(total[0])));
+        }
+
+        if (!leaks.isEmpty()) {
+            Collections.sort(leaks, (a, b) -> Long.compare(b.bytes, a.bytes));
+            builder.append("Leaked (owner released):\n");
+            for (Allocation leak : leaks) {
+                builder.append(String.format(Locale.US, "  %s #%d  %s  owner=%s",
+                        KIND_NAMES[leak.kind], leak.id, formatBytes(leak.bytes), leak.owner));
+                if (leak.site != null) {
+                    builder.append("  at ").append(creationSite(leak.site));
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "GpuMemoryTracker{live=" + mTotalBytes + "B, peak=" + mPeakBytes + "B, objects="
+                + mAllocations.size() + ", leaks=" + mLeakCount + "}";
+    }
+
+    /**
+     * 非压缩纹理格式（以及 renderbuffer 的深度 / 模板格式）的每像素字节数
+     */
+    public static int bytesPerPixel(int internalFormat) {
+        switch (internalFormat) {
+            case 0x8D48: // GL_STENCIL_INDEX8
+            case 0x8229: // GL_R8
+            case 0x1906: // GL_ALPHA
+            case 0x1909: // GL_LUMINANCE
+                return 1;
+            case 0x822B: // GL_RG8
+            case 0x81A5: // GL_DEPTH_COMPONENT16
+            case 0x8D62: // GL_RGB565
+            case 0x8056: // GL_RGBA4
+            case 0x8057: // GL_RGB5_A1
+            case 0x822D: // GL_R16F
+            case 0x190A: // GL_LUMINANCE_ALPHA
+                return 2;
+            case 0x8051: // GL_RGB8
+            case 0x1907: // GL_RGB
+                return 3;
+            case 0x8CAD: // GL_DEPTH32F_STENCIL8
+            case 0x881A: // GL_RGBA16F
+            case 0x8230: // GL_RG32F
+                return 8;
+            case 0x8814: // GL_RGBA32F
+                return 16;
+            default:
+                // GL_RGBA / GL_RGBA8 / GL_SRGB8_ALPHA8 / GL_DEPTH_COMPONENT24（按 32 位存放）/ GL_DEPTH24_STENCIL8 等
+                return 4;
+        }
+    }
+
+    private static long key(int kind, int id) {
+        return ((long) kind << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private void resize(Allocation allocation, long bytes) {
+        long delta = bytes - allocation.bytes;
+        allocation.bytes = bytes;
+        mLiveBytes[allocation.kind] += delta;
+        mTotalBytes += delta;
+        if (mTotalBytes > mPeakBytes) {
+            mPeakBytes = mTotalBytes;
+        }
+    }
+
+    private void remove(Allocation allocation) {
+        mLiveCounts[allocation.kind]--;
+        mLiveBytes[allocation.kind] -= allocation.bytes;
+        mTotalBytes -= allocation.bytes;
+    }
+
+    // 调用栈中第一个不属于账本和 GL 后端的位置
+    private static String creationSite(Throwable site) {
+        for (StackTraceElement element : site.getStackTrace()) {
+            String className = element.getClassName();
+            if (!className.endsWith("GpuMemoryTracker") && !className.endsWith("Backend")
+                    && !className.endsWith("GLStateCache")) {
+                return element.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format(Locale.US, "%.1fMB", bytes / (1024.0 * 1024.0));
+        }
+        if (bytes >= 1024) {
+            return String.format(Locale.US, "%.1fKB", bytes / 1024.0);
+        }
+        return bytes + "B";
+    }
+}
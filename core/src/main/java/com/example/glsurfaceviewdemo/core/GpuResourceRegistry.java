@@ -0,0 +1,323 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * GPU 资源登记表：记录每个 GL 对象（program、缓冲、纹理、VAO）是怎样创建的，EGL 上下文丢失后按需重建。
+ * <ul>
+ *     <li>{@link #register} 时立即调用创建逻辑，并保留它用于之后的重建（shader 源码、缓冲内容、纹理来源都在创建逻辑里）</li>
+ *     <li>{@link #onContextLost()} 只把所有对象标记为失效，不调用 glDelete*（对象已经随上下文销毁）</li>
+ *     <li>绘制时通过 {@link #require(Resource)} 取 GL 对象名，失效的对象当场重建，所以上下文重建后的第一帧只重建可见的资源</li>
+ *     <li>其余对象每帧调用 {@link #restorePending(long)}，在时间预算内按优先级（高的先）和丢失前最近使用的顺序逐步重建</li>
+ * </ul>
+ * 创建逻辑返回的对象名可能和丢失前不同，使用方不要缓存对象名，或者在对象名变化后重新获取依赖它的状态（例如 uniform 位置）。
+ * 所有方法都必须在 GL 线程调用。
+ */
+public final class GpuResourceRegistry {
+    // 资源类型
+    public static final int PROGRAM = 0;
+    public static final int BUFFER = 1;
+    public static final int TEXTURE = 2;
+    public static final int VERTEX_ARRAY = 3;
+    private static final String[] KIND_NAMES = {"program", "buffer", "texture", "vertexArray"};
+
+    // 常用优先级：可见内容依赖的资源用 HIGH，可以晚一点出现的用 LOW
+    public static final int PRIORITY_HIGH = 100;
+    public static final int PRIORITY_NORMAL = 50;
+    public static final int PRIORITY_LOW = 0;
+
+    /**
+     * 创建 GL 对象，返回对象名，失败时返回 0。在 GL 线程执行，可以调用 {@link #require(Resource)} 先重建依赖的对象
+     */
+    public interface Creator {
+        int create();
+    }
+
+    /**
+     * 删除 GL 对象，例如转发到 glDeleteTextures；由使用方提供，以便同步更新绑定状态的缓存
+     */
+    public interface Deleter {
+        void delete(int kind, int id);
+    }
+
+    /**
+     * 登记的一个 GL 对象
+     */
+    public static final class Resource {
+        private final int mKind;
+        private final String mLabel;
+        private final int mPriority;
+        private final Creator mCreator;
+        private final String mOwner; // 登记时 GpuMemoryTracker 的所有者，重建的对象仍然记在它名下
+        private int mId = 0;
+        private int mCreateCount = 0;
+        private long mLastUsedFrame = 0;
+        private boolean mReleased = false;
+
+        Resource(int kind, String label, int priority, Creator creator, String owner) {
+            mKind = kind;
+            mLabel = label;
+            mPriority = priority;
+            mCreator = creator;
+            mOwner = owner;
+        }
+
+        // 当前的 GL 对象名，失效时为 0；绘制时请使用 GpuResourceRegistry.require
+        public int getId() {
+            return mId;
+        }
+
+        public boolean isResident() {
+            return mId != 0;
+        }
+
+        public int getKind() {
+            return mKind;
+        }
+
+        public String getLabel() {
+            return mLabel;
+        }
+
+        public int getPriority() {
+            return mPriority;
+        }
+
+        // 创建次数，第一次创建为 1，每次重建加 1
+        public int getCreateCount() {
+            return mCreateCount;
+        }
+
+        @Override
+        public String toString() {
+            return KIND_NAMES[mKind] + ":" + mLabel + "#" + mId;
+        }
+    }
+
+    // 优先级高的先重建，同优先级时丢失前最近使用的先重建
+    private static final Comparator<Resource> RESTORE_ORDER = (a, b) -> {
+        if (a.mPriority != b.mPriority) {
+            return a.mPriority > b.mPriority ? -1 : 1;
+        }
+        return Long.compare(b.mLastUsedFrame, a.mLastUsedFrame);
+    };
+
+    private final Deleter mDeleter;
+    private GpuMemoryTracker mMemoryTracker; // 可以为空
+    private final List<Resource> mResources = new ArrayList<>();
+    private final List<Resource> mPending = new ArrayList<>(); // 等待后台重建的对象，按 RESTORE_ORDER 排列
+    private int mPendingCursor = 0;
+    private long mFrame = 1;
+
+    // 统计数据
+    private int mContextLosses = 0;
+    private int mDemandRestores = 0;
+    private int mBackgroundRestores = 0;
+    private int mFailedCreates = 0;
+    private long mRestoreNanos = 0; // 最近一次上下文丢失以来重建花费的总时间
+
+    public GpuResourceRegistry(Deleter deleter) {
+        mDeleter = deleter;
+    }
+
+    /**
+     * 设置显存账本：登记时记住当前的所有者，之后重建（可能发生在任意对象的绘制过程中）时恢复这个所有者
+     */
+    public void setMemoryTracker(GpuMemoryTracker tracker) {
+        mMemoryTracker = tracker;
+    }
+
+    /**
+     * 登记并立即创建一个 GL 对象
+     *
+     * @param kind     {@link #PROGRAM} / {@link #BUFFER} / {@link #TEXTURE} / {@link #VERTEX_ARRAY}
+     * @param label    用于统计和日志的名字
+     * @param priority 上下文丢失后后台重建的优先级，越大越先重建
+     * @param creator  创建逻辑，会被保留用于重建，不要捕获之后会被回收的数据（例如已经 recycle 的 Bitmap）
+     */
+    public Resource register(int kind, String label, int priority, Creator creator) {
+        if (kind < PROGRAM || kind > VERTEX_ARRAY) {
+            throw new IllegalArgumentException("Invalid resource kind: " + kind);
+        }
+        Resource resource = new Resource(kind, label, priority, creator,
+                mMemoryTracker != null ? mMemoryTracker.getOwner() : null);
+        mResources.add(resource);
+        create(resource);
+        resource.mLastUsedFrame = mFrame;
+        return resource;
+    }
+
+    /**
+     * 获取可用的 GL 对象名，对象失效时当场重建
+     *
+     * @return 对象名，重建失败时返回 0（下次调用会再试）
+     */
+    public int require(Resource resource) {
+        checkResource(resource);
+        resource.mLastUsedFrame = mFrame;
+        if (resource.mId == 0 && restore(resource)) {
+            mDemandRestores++;
+        }
+        return resource.mId;
+    }
+
+    /**
+     * 每帧开始时调用，用于记录资源最近使用的帧
+     */
+    public void beginFrame() {
+        mFrame++;
+    }
+
+    /**
+     * 在时间预算内按优先级重建还没有被用到的失效对象，每次至少尝试一个
+     *
+     * @param budgetNanos 本帧用于重建的时间预算
+     * @return 本次重建成功的对象个数
+     */
+    public int restorePending(long budgetNanos) {
+        long start = System.nanoTime();
+        int restored = 0;
+        while (mPendingCursor < mPending.size()) {
+            Resource resource = mPending.get(mPendingCursor++);
+            if (resource.mReleased || resource.mId != 0) {
+                continue; // 已经被释放，或者已经在绘制时重建
+            }
+            if (restore(resource)) {
+                mBackgroundRestores++;
+                restored++;
+            }
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        if (mPendingCursor == mPending.size() && !mPending.isEmpty()) {
+            mPending.clear();
+            mPendingCursor = 0;
+        }
+        return restored;
+    }
+
+    /**
+     * EGL 上下文丢失（onSurfaceCreated 时已经存在登记的对象）后调用：所有对象标记为失效，等待重建
+     */
+    public void onContextLost() {
+        mContextLosses++;
+        mRestoreNanos = 0;
+        mPending.clear();
+        mPendingCursor = 0;
+        for (Resource resource : mResources) {
+            resource.mId = 0;
+            mPending.add(resource);
+        }
+        Collections.sort(mPending, RESTORE_ORDER);
+    }
+
+    /**
+     * 删除 GL 对象并取消登记，之后不能再使用这个资源
+     */
+    public void release(Resource resource) {
+        if (resource == null || resource.mReleased) {
+            return;
+        }
+        if (resource.mId != 0) {
+            mDeleter.delete(resource.mKind, resource.mId);
+            resource.mId = 0;
+        }
+        resource.mReleased = true;
+        mResources.remove(resource);
+    }
+
+    // 还在等待后台重建的对象个数
+    public int getPendingCount() {
+        int count = 0;
+        for (int i = mPendingCursor; i < mPending.size(); i++) {
+            Resource resource = mPending.get(i);
+            if (!resource.mReleased && resource.mId == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getResourceCount() {
+        return mResources.size();
+    }
+
+    public int getResourceCount(int kind) {
+        int count = 0;
+        for (Resource resource : mResources) {
+            if (resource.mKind == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getContextLosses() {
+        return mContextLosses;
+    }
+
+    // 绘制时当场重建的次数
+    public int getDemandRestores() {
+        return mDemandRestores;
+    }
+
+    // 通过 restorePending 在后台重建的次数
+    public int getBackgroundRestores() {
+        return mBackgroundRestores;
+    }
+
+    public int getFailedCreates() {
+        return mFailedCreates;
+    }
+
+    // 最近一次上下文丢失以来重建花费的总时间（纳秒）
+    public long getRestoreNanos() {
+        return mRestoreNanos;
+    }
+
+    private void checkResource(Resource resource) {
+        if (resource.mReleased) {
+            throw new IllegalArgumentException("Resource already released: " + resource);
+        }
+    }
+
+    private boolean restore(Resource resource) {
+        long start = System.nanoTime();
+        boolean created = create(resource);
+        mRestoreNanos += System.nanoTime() - start;
+        return created;
+    }
+
+    private boolean create(Resource resource) {
+        int id;
+        if (mMemoryTracker != null) {
+            String previous = mMemoryTracker.enterOwner(resource.mOwner);
+            try {
+                id = resource.mCreator.create();
+            } finally {
+                mMemoryTracker.exitOwner(previous);
+            }
+        } else {
+            id = resource.mCreator.create();
+        }
+        if (id == 0) {
+            mFailedCreates++;
+            return false;
+        }
+        resource.mId = id;
+        resource.mCreateCount++;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "GpuResourceRegistry{resources=" + mResources.size() + ", pending=" + getPendingCount()
+                + ", contextLosses=" + mContextLosses + ", demandRestores=" + mDemandRestores
+                + ", backgroundRestores=" + mBackgroundRestores + ", failed=" + mFailedCreates
+                + ", restoreMs=" + mRestoreNanos / 1_000_000 + "}";
+    }
+}
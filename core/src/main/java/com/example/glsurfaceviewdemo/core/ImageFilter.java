@@ -0,0 +1,105 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 图像滤镜：一段 GLSL 代码加上它使用的 uniform，由 {@link FilterGraph} 组合成一个或多个全屏 pass。
+ * <ul>
+ *     <li>逐像素滤镜（{@link #POINTWISE}）：只根据当前像素的 color 和纹理坐标 uv 计算新的 color，
+ *     连续的逐像素滤镜会被合并进同一个片段着色器</li>
+ *     <li>采样滤镜（{@link #SAMPLING}）：需要读取输入纹理中的相邻像素（模糊、锐化），只能作为 pass 的第一个滤镜</li>
+ * </ul>
+ * 代码中的 {@code $} 会被替换成滤镜在 pass 中的 uniform 前缀（例如 "u2_"），可以使用的变量有
+ * uSampler（输入纹理）、uTexelSize（输入纹理一个像素的大小）、uv 和 color。逐像素滤镜拿到的 color 已经去掉了预乘 alpha。
+ * <p>
+ * 代码和 uniform 声明只由滤镜的类型决定，参数只通过 uniform 传递，所以修改参数不需要重新编译着色器。
+ * 参数修改后调用 {@link #invalidate()}，渲染端根据 {@link FilterGraph#getVersion()} 判断是否需要重新执行。
+ */
+public abstract class ImageFilter {
+    public static final int POINTWISE = 0;
+    public static final int SAMPLING = 1;
+
+    /**
+     * 上传 uniform 的接口，uniform 参数是它在滤镜 uniform 列表中的下标（见 {@link #getUniformName(int)}）
+     */
+    public interface Uniforms {
+        void set1f(int uniform, float x);
+
+        void set2f(int uniform, float x, float y);
+
+        void set4fv(int uniform, float[] value, int offset);
+
+        void setMatrix4fv(int uniform, float[] value, int offset);
+    }
+
+    private final String mName;
+    private final int mKind;
+    private final String[] mUniformTypes;
+    private final String[] mUniformNames;
+    private final String mSource;
+    private long mVersion = 0;
+
+    /**
+     * @param name         滤镜名字，同时作为生成的着色器的缓存键，代码不同的滤镜名字必须不同
+     * @param kind         {@link #POINTWISE} 或 {@link #SAMPLING}
+     * @param uniformTypes uniform 的 GLSL 类型，例如 "float"、"vec2"、"mat4"
+     * @param uniformNames uniform 的名字（不带前缀），在代码中写作 $name
+     * @param source       GLSL 代码片段
+     */
+    protected ImageFilter(String name, int kind, String[] uniformTypes, String[] uniformNames, String source) {
+        if (uniformTypes.length != uniformNames.length) {
+            throw new IllegalArgumentException("Uniform types and names do not match in " + name);
+        }
+        mName = name;
+        mKind = kind;
+        mUniformTypes = uniformTypes;
+        mUniformNames = uniformNames;
+        mSource = source;
+    }
+
+    /**
+     * 上传当前的参数，在执行 pass 时（GL 线程）调用，不能分配内存
+     */
+    public abstract void applyUniforms(Uniforms uniforms);
+
+    // 参数已修改
+    protected void invalidate() {
+        mVersion++;
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getKind() {
+        return mKind;
+    }
+
+    public boolean isPointwise() {
+        return mKind == POINTWISE;
+    }
+
+    public int getUniformCount() {
+        return mUniformNames.length;
+    }
+
+    public String getUniformType(int uniform) {
+        return mUniformTypes[uniform];
+    }
+
+    public String getUniformName(int uniform) {
+        return mUniformNames[uniform];
+    }
+
+    // 不带前缀的原始代码
+    public String getSource() {
+        return mSource;
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 内置的图像滤镜。颜色类滤镜（亮度、对比度、饱和度、gamma、颜色矩阵、暗角）都是逐像素滤镜，
+ * 连续使用时会合并成一个 pass；模糊和锐化需要采样相邻像素，各自开始一个新的 pass。
+ * <p>
+ * 参数的 setter 不是线程安全的，应该在 GL 线程修改（例如通过 GLSurfaceView.queueEvent），修改后需要请求重新绘制。
+ */
+public final class ImageFilters {
+    // 模糊每个方向的采样半径（像素个数），sigma 较大时拉大采样间距而不是增加采样次数
+    static final int BLUR_RADIUS = 6;
+
+    private ImageFilters() {
+    }
+
+    /**
+     * 亮度：rgb 加上一个偏移量，0 表示不变
+     */
+    public static class Brightness extends ImageFilter {
+        private float mAmount;
+
+        public Brightness(float amount) {
+            super("Brightness", POINTWISE, new String[]{"float"}, new String[]{"amount"},
+                    "color.rgb += $amount;");
+            mAmount = amount;
+        }
+
+        public void setAmount(float amount) {
+            if (mAmount != amount) {
+                mAmount = amount;
+                invalidate();
+            }
+        }
+
+        public float getAmount() {
+            return mAmount;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, mAmount);
+        }
+    }
+
+    /**
+     * 对比度：以 0.5 为中心缩放，1 表示不变
+     */
+    public static class Contrast extends ImageFilter {
+        private float mAmount;
+
+        public Contrast(float amount) {
+            super("Contrast", POINTWISE, new String[]{"float"}, new String[]{"amount"},
+                    "color.rgb = (color.rgb - 0.5) * $amount + 0.5;");
+            mAmount = amount;
+        }
+
+        public void setAmount(float amount) {
+            if (mAmount != amount) {
+                mAmount = amount;
+                invalidate();
+            }
+        }
+
+        public float getAmount() {
+            return mAmount;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, mAmount);
+        }
+    }
+
+    /**
+     * 饱和度：在亮度（Rec. 709 权重）和原色之间插值，0 为灰度，1 表示不变
+     */
+    public static class Saturation extends ImageFilter {
+        private float mAmount;
+
+        public Saturation(float amount) {
+            super("Saturation", POINTWISE, new String[]{"float"}, new String[]{"amount"},
+                    "color.rgb = mix(vec3(dot(color.rgb, vec3(0.2126, 0.7152, 0.0722))), color.rgb, $amount);");
+            mAmount = amount;
+        }
+
+        public void setAmount(float amount) {
+            if (mAmount != amount) {
+                mAmount = amount;
+                invalidate();
+            }
+        }
+
+        public float getAmount() {
+            return mAmount;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, mAmount);
+        }
+    }
+
+    /**
+     * gamma 校正：rgb^(1/gamma)，1 表示不变
+     */
+    public static class Gamma extends ImageFilter {
+        private float mGamma;
+
+        public Gamma(float gamma) {
+            super("Gamma", POINTWISE, new String[]{"float"}, new String[]{"inverseGamma"},
+                    "color.rgb = pow(max(color.rgb, 0.0), vec3($inverseGamma));");
+            mGamma = gamma;
+        }
+
+        public void setGamma(float gamma) {
+            if (mGamma != gamma) {
+                mGamma = gamma;
+                invalidate();
+            }
+        }
+
+        public float getGamma() {
+            return mGamma;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, 1.0f / mGamma);
+        }
+    }
+
+    /**
+     * 颜色矩阵：color = matrix * color + offset，矩阵按列主序存放（和 {@link Mat4} 相同），默认为单位矩阵
+     */
+    public static class ColorMatrix extends ImageFilter {
+        private final float[] mMatrix = new float[16];
+        private final float[] mOffset = new float[4];
+
+        public ColorMatrix() {
+            super("ColorMatrix", POINTWISE, new String[]{"mat4", "vec4"}, new String[]{"matrix", "offset"},
+                    "color = $matrix * color + $offset;");
+            Mat4.setIdentity(mMatrix, 0);
+        }
+
+        public void setMatrix(float[] matrix, int offset) {
+            if (!Mat4.equals(mMatrix, 0, matrix, offset)) {
+                Mat4.copy(mMatrix, 0, matrix, offset);
+                invalidate();
+            }
+        }
+
+        public void setOffset(float r, float g, float b, float a) {
+            if (mOffset[0] != r || mOffset[1] != g || mOffset[2] != b || mOffset[3] != a) {
+                mOffset[0] = r;
+                mOffset[1] = g;
+                mOffset[2] = b;
+                mOffset[3] = a;
+                invalidate();
+            }
+        }
+
+        // 设置为怀旧色（sepia）
+        public void setSepia() {
+            float[] sepia = {
+                    0.393f, 0.349f, 0.272f, 0.0f, // 第一列：输入 r 对输出 rgba 的贡献
+                    0.769f, 0.686f, 0.534f, 0.0f,
+                    0.189f, 0.168f, 0.131f, 0.0f,
+                    0.0f, 0.0f, 0.0f, 1.0f
+            };
+            setMatrix(sepia, 0);
+            setOffset(0.0f, 0.0f, 0.0f, 0.0f);
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.setMatrix4fv(0, mMatrix, 0);
+            uniforms.set4fv(1, mOffset, 0);
+        }
+    }
+
+    /**
+     * 暗角：到图片中心的距离超过 radius 后逐渐变暗，角落处亮度乘以 (1 - strength)
+     */
+    public static class Vignette extends ImageFilter {
+        private float mRadius;
+        private float mStrength;
+
+        public Vignette(float radius, float strength) {
+            super("Vignette", POINTWISE, new String[]{"float", "float"}, new String[]{"radius", "strength"},
+                    "color.rgb *= 1.0 - $strength * smoothstep($radius, 0.7072, distance(uv, vec2(0.5)));");
+            mRadius = radius;
+            mStrength = strength;
+        }
+
+        public void set(float radius, float strength) {
+            if (mRadius != radius || mStrength != strength) {
+                mRadius = radius;
+                mStrength = strength;
+                invalidate();
+            }
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, mRadius);
+            uniforms.set1f(1, mStrength);
+        }
+    }
+
+    /**
+     * 一个方向的高斯模糊，水平和垂直各加一个即为可分离的二维高斯模糊（2 x 13 次采样，而不是 13 x 13 次）
+     */
+    public static class GaussianBlur extends ImageFilter {
+        private final boolean mHorizontal;
+        private float mSigma;
+
+        /**
+         * @param sigma      标准差（像素）
+         * @param horizontal true 为水平方向，false 为垂直方向
+         */
+        public GaussianBlur(float sigma, boolean horizontal) {
+            super("GaussianBlur", SAMPLING, new String[]{"vec2", "float", "float"},
+                    new String[]{"direction", "sigma", "step"},
+                    "vec4 sum = vec4(0.0);\n"
+                            + "float total = 0.0;\n"
+                            + "for (int i = -" + BLUR_RADIUS + "; i <= " + BLUR_RADIUS + "; i++) {\n"
+                            + "    float x = float(i) * $step;\n"
+                            + "    float w = exp(-x * x / (2.0 * $sigma * $sigma));\n"
+                            + "    sum += texture(uSampler, uv + $direction * uTexelSize * x) * w;\n"
+                            + "    total += w;\n"
+                            + "}\n"
+                            + "color = sum / total;");
+            mHorizontal = horizontal;
+            mSigma = sigma;
+        }
+
+        public void setSigma(float sigma) {
+            if (mSigma != sigma) {
+                mSigma = sigma;
+                invalidate();
+            }
+        }
+
+        public float getSigma() {
+            return mSigma;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set2f(0, mHorizontal ? 1.0f : 0.0f, mHorizontal ? 0.0f : 1.0f);
+            float sigma = Math.max(mSigma, 0.01f);
+            uniforms.set1f(1, sigma);
+            // 采样覆盖 ±3 sigma，sigma 较小时按整像素采样
+            uniforms.set1f(2, Math.max(1.0f, 3.0f * sigma / BLUR_RADIUS));
+        }
+    }
+
+    /**
+     * 锐化：当前像素减去上下左右四个相邻像素的拉普拉斯算子，amount 为 0 时不变
+     */
+    public static class Sharpen extends ImageFilter {
+        private float mAmount;
+
+        public Sharpen(float amount) {
+            super("Sharpen", SAMPLING, new String[]{"float"}, new String[]{"amount"},
+                    "vec4 center = texture(uSampler, uv);\n"
+                            + "vec4 neighbors = texture(uSampler, uv + vec2(uTexelSize.x, 0.0))\n"
+                            + "        + texture(uSampler, uv - vec2(uTexelSize.x, 0.0))\n"
+                            + "        + texture(uSampler, uv + vec2(0.0, uTexelSize.y))\n"
+                            + "        + texture(uSampler, uv - vec2(0.0, uTexelSize.y));\n"
+                            + "color = center * (1.0 + 4.0 * $amount) - neighbors * $amount;");
+            mAmount = amount;
+        }
+
+        public void setAmount(float amount) {
+            if (mAmount != amount) {
+                mAmount = amount;
+                invalidate();
+            }
+        }
+
+        public float getAmount() {
+            return mAmount;
+        }
+
+        @Override
+        public void applyUniforms(Uniforms uniforms) {
+            uniforms.set1f(0, mAmount);
+        }
+    }
+}
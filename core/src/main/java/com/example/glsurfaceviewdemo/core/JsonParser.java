@@ -0,0 +1,277 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最小的 JSON 解析器，直接读取 ByteBuffer 中的 UTF-8 字节（用于 glTF 的 JSON 块）。
+ * <p>
+ * 对象解析为 Map&lt;String, Object&gt;（保持键的顺序），数组为 List&lt;Object&gt;，数字为 Double，
+ * 字符串为 String，true / false 为 Boolean，null 为 null。只读取绝对位置，不修改输入的 position。
+ */
+final class JsonParser {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_DEPTH = 64;
+
+    private final ByteBuffer mData;
+    private final int mEnd;
+    private int mPosition;
+    private byte[] mScratch = new byte[64]; // 转义之间的原始字节，解码成字符串之前暂存
+
+    private JsonParser(ByteBuffer data, int start, int end) {
+        mData = data;
+        mPosition = start;
+        mEnd = end;
+    }
+
+    /**
+     * 解析 data 中 [start, end) 范围内的一个 JSON 值，之后只允许空白（glTF 用空格补齐到 4 字节）
+     */
+    static Object parse(ByteBuffer data, int start, int end) throws IOException {
+        JsonParser parser = new JsonParser(data, start, end);
+        Object value = parser.readValue(0);
+        parser.skipWhitespace();
+        if (parser.mPosition < end && data.get(parser.mPosition) != 0) {
+            throw parser.error("Trailing data");
+        }
+        return value;
+    }
+
+    private Object readValue(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw error("Nesting too deep");
+        }
+        skipWhitespace();
+        switch (peek()) {
+            case '{':
+                return readObject(depth);
+            case '[':
+                return readArray(depth);
+            case '"':
+                return readString();
+            case 't':
+                expectLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectLiteral("null");
+                return null;
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject(int depth) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        mPosition++; // '{'
+        skipWhitespace();
+        if (peek() == '}') {
+            mPosition++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected object key");
+            }
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue(depth + 1));
+            skipWhitespace();
+            byte next = next();
+            if (next == '}') {
+                return object;
+            }
+            if (next != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray(int depth) throws IOException {
+        List<Object> array = new ArrayList<>();
+        mPosition++; // '['
+        skipWhitespace();
+        if (peek() == ']') {
+            mPosition++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue(depth + 1));
+            skipWhitespace();
+            byte next = next();
+            if (next == ']') {
+                return array;
+            }
+            if (next != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        mPosition++; // '"'
+        StringBuilder builder = null; // 只有遇到转义时才需要
+        int length = 0;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(new String(mScratch, 0, length, UTF_8));
+                length = 0;
+                appendEscape(builder);
+                continue;
+            }
+            if ((b & 0xFF) < 0x20) {
+                throw error("Control character in string");
+            }
+            if (length == mScratch.length) {
+                byte[] grown = new byte[length * 2];
+                System.arraycopy(mScratch, 0, grown, 0, length);
+                mScratch = grown;
+            }
+            mScratch[length++] = b;
+        }
+        String tail = new String(mScratch, 0, length, UTF_8);
+        return builder == null ? tail : builder.append(tail).toString();
+    }
+
+    private void appendEscape(StringBuilder builder) throws IOException {
+        byte b = next();
+        switch (b) {
+            case '"':
+            case '\\':
+            case '/':
+                builder.append((char) b);
+                break;
+            case 'b':
+                builder.append('\b');
+                break;
+            case 'f':
+                builder.append('\f');
+                break;
+            case 'n':
+                builder.append('\n');
+                break;
+            case 'r':
+                builder.append('\r');
+                break;
+            case 't':
+                builder.append('\t');
+                break;
+            case 'u':
+                // 代理对由两个转义组成，按 UTF-16 码元依次追加即可
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = (code << 4) | digit;
+                }
+                builder.append((char) code);
+                break;
+            default:
+                throw error("Invalid escape");
+        }
+    }
+
+    private Double readNumber() throws IOException {
+        int start = mPosition;
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            mPosition++;
+        }
+        // 不超过 15 位的整数（glTF 中的下标、偏移和长度）直接累加，不创建中间字符串
+        long integer = 0;
+        int digits = 0;
+        while (mPosition < mEnd && isDigit(mData.get(mPosition))) {
+            integer = integer * 10 + (mData.get(mPosition++) - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw error("Unexpected character");
+        }
+        boolean integral = true;
+        while (mPosition < mEnd) {
+            byte b = mData.get(mPosition);
+            if (isDigit(b) || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                integral = false;
+                mPosition++;
+            } else {
+                break;
+            }
+        }
+        if (integral && digits <= 15) {
+            return (double) (negative ? -integer : integer);
+        }
+        byte[] text = new byte[mPosition - start];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = mData.get(start + i);
+        }
+        try {
+            return Double.valueOf(new String(text, UTF_8));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (next() != c) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (mPosition < mEnd) {
+            byte b = mData.get(mPosition);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            mPosition++;
+        }
+    }
+
+    private byte peek() throws IOException {
+        if (mPosition >= mEnd) {
+            throw error("Unexpected end of JSON");
+        }
+        return mData.get(mPosition);
+    }
+
+    private byte next() throws IOException {
+        byte b = peek();
+        mPosition++;
+        return b;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at JSON offset " + mPosition);
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * KTX（1.1）/ KTX2 纹理容器解析器，只处理 2D、单层、单面的纹理。
+ * <p>
+ * 解析过程不拷贝像素数据：每个 mip 层级都是输入 ByteBuffer 的一个切片，输入是内存映射的
+ * 直接缓冲区时，切片可以直接交给 glCompressedTexImage2D。不依赖 GL 和 Android，可以在 JVM 上测试。
+ */
+public class KtxTexture {
+    // 常用压缩格式的 GL 枚举值（ES 3.0 保证支持 ETC2 / EAC，ASTC 需要 GL_KHR_texture_compression_astc_ldr）
+    public static final int GL_COMPRESSED_R11_EAC = 0x9270;
+    public static final int GL_COMPRESSED_SIGNED_R11_EAC = 0x9271;
+    public static final int GL_COMPRESSED_RG11_EAC = 0x9272;
+    public static final int GL_COMPRESSED_SIGNED_RG11_EAC = 0x9273;
+    public static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    public static final int GL_COMPRESSED_SRGB8_ETC2 = 0x9275;
+    public static final int GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2 = 0x9276;
+    public static final int GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2 = 0x9277;
+    public static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+    public static final int GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC = 0x9279;
+    public static final int GL_COMPRESSED_RGBA_ASTC_4x4_KHR = 0x93B0;
+    public static final int GL_COMPRESSED_SRGB8_ALPHA8_ASTC_4x4_KHR = 0x93D0;
+    private static final int ASTC_BLOCK_SIZES = 14; // 4x4 ~ 12x12 共 14 种块大小
+
+    // Vulkan 格式编号（KTX2 使用），ETC2 / EAC 与 ASTC 各自连续
+    private static final int VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK = 147;
+    private static final int VK_FORMAT_EAC_R11G11_SNORM_BLOCK = 156;
+    private static final int VK_FORMAT_ASTC_4x4_UNORM_BLOCK = 157;
+    private static final int VK_FORMAT_ASTC_12x12_SRGB_BLOCK = 184;
+    // 按 VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK 起的顺序对应的 GL 枚举
+    private static final int[] VK_ETC2_TO_GL = {
+            GL_COMPRESSED_RGB8_ETC2,
+            GL_COMPRESSED_SRGB8_ETC2,
+            GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2,
+            GL_COMPRESSED_SRGB8_PUNCHTHROUGH_ALPHA1_ETC2,
+            GL_COMPRESSED_RGBA8_ETC2_EAC,
+            GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC,
+            GL_COMPRESSED_R11_EAC,
+            GL_COMPRESSED_SIGNED_R11_EAC,
+            GL_COMPRESSED_RG11_EAC,
+            GL_COMPRESSED_SIGNED_RG11_EAC
+    };
+
+    private static final byte[] KTX1_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final byte[] KTX2_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final int KTX1_ENDIANNESS = 0x04030201;
+    private static final int KTX1_HEADER_SIZE = 64;
+    private static final int KTX2_HEADER_SIZE = 80;
+    private static final int KTX2_LEVEL_INDEX_ENTRY_SIZE = 24;
+
+    private final int mInternalFormat;
+    private final int mWidth;
+    private final int mHeight;
+    private final boolean mCompressed;
+    private final ByteBuffer[] mLevels;
+
+    private KtxTexture(int internalFormat, int width, int height, boolean compressed, ByteBuffer[] levels) {
+        mInternalFormat = internalFormat;
+        mWidth = width;
+        mHeight = height;
+        mCompressed = compressed;
+        mLevels = levels;
+    }
+
+    /**
+     * 解析 KTX 或 KTX2 容器
+     *
+     * @param data 完整的文件内容，从 position 开始解析；解析不会修改它的 position / limit / 字节序
+     * @return 解析结果，各 mip 层级的数据是 data 的切片
+     * @throws IOException 文件格式不正确或使用了不支持的特性（立方体贴图、纹理数组、超压缩等）
+     */
+    public static KtxTexture parse(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.slice();
+        if (startsWith(buffer, KTX1_IDENTIFIER)) {
+            return parseKtx1(buffer);
+        }
+        if (startsWith(buffer, KTX2_IDENTIFIER)) {
+            return parseKtx2(buffer);
+        }
+        throw new IOException("Not a KTX file");
+    }
+
+    private static KtxTexture parseKtx1(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < KTX1_HEADER_SIZE) {
+            throw new IOException("Truncated KTX header");
+        }
+        // endianness 字段按文件的字节序写入 0x04030201
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(12) != KTX1_ENDIANNESS) {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(12) != KTX1_ENDIANNESS) {
+                throw new IOException("Invalid KTX endianness");
+            }
+        }
+        int glType = buffer.getInt(16);
+        int glInternalFormat = buffer.getInt(28);
+        int width = buffer.getInt(36);
+        int height = Math.max(1, buffer.getInt(40));
+        int depth = buffer.getInt(44);
+        int arrayElements = buffer.getInt(48);
+        int faces = buffer.getInt(52);
+        int levelCount = Math.max(1, buffer.getInt(56));
+        int keyValueBytes = buffer.getInt(60);
+        if (depth > 1 || arrayElements > 0 || faces != 1) {
+            throw new IOException("Only single 2D KTX textures are supported");
+        }
+        checkLevelCount(levelCount, width, height);
+
+        ByteBuffer[] levels = new ByteBuffer[levelCount];
+        int offset = KTX1_HEADER_SIZE + keyValueBytes;
+        for (int level = 0; level < levelCount; level++) {
+            checkRange(buffer, offset, 4);
+            int imageSize = buffer.getInt(offset);
+            offset += 4;
+            levels[level] = slice(buffer, offset, imageSize);
+            // 每个层级的数据按 4 字节对齐
+            offset += (imageSize + 3) & ~3;
+        }
+        // glType 为 0 表示压缩格式
+        return new KtxTexture(glInternalFormat, width, height, glType == 0, levels);
+    }
+
+    private static KtxTexture parseKtx2(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < KTX2_HEADER_SIZE) {
+            throw new IOException("Truncated KTX2 header");
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int vkFormat = buffer.getInt(12);
+        int width = buffer.getInt(20);
+        int height = Math.max(1, buffer.getInt(24));
+        int depth = buffer.getInt(28);
+        int layers = buffer.getInt(32);
+        int faces = buffer.getInt(36);
+        int levelCount = Math.max(1, buffer.getInt(40));
+        int supercompression = buffer.getInt(44);
+        if (depth > 1 || layers > 0 || faces != 1) {
+            throw new IOException("Only single 2D KTX2 textures are supported");
+        }
+        if (supercompression != 0) {
+            throw new IOException("Supercompressed KTX2 is not supported: scheme " + supercompression);
+        }
+        int internalFormat = glFormatFromVk(vkFormat);
+        if (internalFormat == 0) {
+            throw new IOException("Unsupported KTX2 vkFormat " + vkFormat);
+        }
+        checkLevelCount(levelCount, width, height);
+
+        ByteBuffer[] levels = new ByteBuffer[levelCount];
+        checkRange(buffer, KTX2_HEADER_SIZE, levelCount * KTX2_LEVEL_INDEX_ENTRY_SIZE);
+        for (int level = 0; level < levelCount; level++) {
+            int entry = KTX2_HEADER_SIZE + level * KTX2_LEVEL_INDEX_ENTRY_SIZE;
+            long byteOffset = buffer.getLong(entry);
+            long byteLength = buffer.getLong(entry + 8);
+            if (byteOffset < 0 || byteOffset > Integer.MAX_VALUE || byteLength < 0 || byteLength > Integer.MAX_VALUE) {
+                throw new IOException("Invalid KTX2 level index");
+            }
+            levels[level] = slice(buffer, (int) byteOffset, (int) byteLength);
+        }
+        return new KtxTexture(internalFormat, width, height, true, levels);
+    }
+
+    // 把 KTX2 的 Vulkan 格式转换成 GL 压缩格式，不支持时返回 0
+    static int glFormatFromVk(int vkFormat) {
+        if (vkFormat >= VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK && vkFormat <= VK_FORMAT_EAC_R11G11_SNORM_BLOCK) {
+            return VK_ETC2_TO_GL[vkFormat - VK_FORMAT_ETC2_R8G8B8_UNORM_BLOCK];
+        }
+        if (vkFormat >= VK_FORMAT_ASTC_4x4_UNORM_BLOCK && vkFormat <= VK_FORMAT_ASTC_12x12_SRGB_BLOCK) {
+            // UNORM 与 SRGB 交替排列
+            int index = vkFormat - VK_FORMAT_ASTC_4x4_UNORM_BLOCK;
+            int blockSize = index / 2;
+            boolean srgb = (index & 1) != 0;
+            return (srgb ? GL_COMPRESSED_SRGB8_ALPHA8_ASTC_4x4_KHR : GL_COMPRESSED_RGBA_ASTC_4x4_KHR) + blockSize;
+        }
+        return 0;
+    }
+
+    // 是否为 ASTC 格式（需要扩展支持）
+    public static boolean isAstc(int internalFormat) {
+        return (internalFormat >= GL_COMPRESSED_RGBA_ASTC_4x4_KHR
+                && internalFormat < GL_COMPRESSED_RGBA_ASTC_4x4_KHR + ASTC_BLOCK_SIZES)
+                || (internalFormat >= GL_COMPRESSED_SRGB8_ALPHA8_ASTC_4x4_KHR
+                && internalFormat < GL_COMPRESSED_SRGB8_ALPHA8_ASTC_4x4_KHR + ASTC_BLOCK_SIZES);
+    }
+
+    // 是否为 ETC2 / EAC 格式（ES 3.0 必须支持）
+    public static boolean isEtc2(int internalFormat) {
+        return internalFormat >= GL_COMPRESSED_R11_EAC && internalFormat <= GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC;
+    }
+
+    private static void checkLevelCount(int levelCount, int width, int height) throws IOException {
+        if (width <= 0) {
+            throw new IOException("Invalid texture width " + width);
+        }
+        int maxLevels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+        if (levelCount > maxLevels) {
+            throw new IOException("Too many mip levels: " + levelCount);
+        }
+    }
+
+    private static void checkRange(ByteBuffer buffer, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+            throw new IOException("KTX data out of range: offset " + offset + ", length " + length);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) throws IOException {
+        checkRange(buffer, offset, length);
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + length).position(offset);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+        if (buffer.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // GL 内部格式（压缩格式时为 GL_COMPRESSED_*）
+    public int getInternalFormat() {
+        return mInternalFormat;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public boolean isCompressed() {
+        return mCompressed;
+    }
+
+    public int getLevelCount() {
+        return mLevels.length;
+    }
+
+    public int getLevelWidth(int level) {
+        return Math.max(1, mWidth >> level);
+    }
+
+    public int getLevelHeight(int level) {
+        return Math.max(1, mHeight >> level);
+    }
+
+    /**
+     * 某个 mip 层级的数据（输入缓冲区的切片，position 为 0）
+     */
+    public ByteBuffer getLevelData(int level) {
+        return mLevels[level].duplicate();
+    }
+
+    // 所有层级数据的总字节数，即纹理占用的显存
+    public long getTotalBytes() {
+        long total = 0;
+        for (ByteBuffer level : mLevels) {
+            total += level.remaining();
+        }
+        return total;
+    }
+}
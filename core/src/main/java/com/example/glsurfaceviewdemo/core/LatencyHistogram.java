@@ -0,0 +1,119 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 固定内存的延迟直方图（对数-线性分桶，相对误差约 3%），用于统计帧时间等纳秒级耗时。
+ * <p>
+ * 记录一次耗时只是一次数组自增，不分配内存；可以记录的最大值约为 2200 秒（2^41 纳秒），超出部分计入最后一个桶。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;      // 每个 2 的幂区间分成 32 个子桶
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;         // [0, 64) 直接按值分桶
+    private static final int MAX_SHIFT = 35;                           // 最大可表示约 2^41 纳秒
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS;
+
+    private final long[] mCounts = new long[BUCKET_COUNT];
+    private long mTotalCount = 0;
+    private long mSum = 0;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax = 0;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts[bucketIndex(value)]++;
+        mTotalCount++;
+        mSum += value;
+        if (value < mMin) {
+            mMin = value;
+        }
+        if (value > mMax) {
+            mMax = value;
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mTotalCount = 0;
+        mSum = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+    }
+
+    // 把另一个直方图的数据合并进来
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mTotalCount += other.mTotalCount;
+        mSum += other.mSum;
+        mMin = Math.min(mMin, other.mMin);
+        mMax = Math.max(mMax, other.mMax);
+    }
+
+    public long getCount() {
+        return mTotalCount;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public long getMin() {
+        return mTotalCount == 0 ? 0 : mMin;
+    }
+
+    public double getMean() {
+        return mTotalCount == 0 ? 0.0 : (double) mSum / mTotalCount;
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param percentile 0 ~ 100，例如 99 表示 p99
+     * @return 分位数所在桶的代表值（桶中点，且不超过实际最大值），没有数据时返回 0
+     */
+    public long getPercentile(double percentile) {
+        if (mTotalCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(percentile / 100.0 * mTotalCount);
+        if (target < 1) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts[i];
+            if (seen >= target) {
+                return Math.min(Math.max(bucketMidValue(i), getMin()), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> shift) - SUB_BUCKETS; // [0, 32)
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketMidValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        long low = sub << shift;
+        return low + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * long 到 int 的哈希表（开放寻址、线性探测），get / put / remove 都不分配内存（扩容除外），
+ * 用于每帧都要查询的瓦片键等场景，避免 HashMap&lt;Long, Integer&gt; 的装箱。
+ * <p>
+ * {@link Long#MIN_VALUE} 被用作空槽标记，不能作为键。不是线程安全的。
+ */
+public final class LongIntMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private int mMask;
+    private int mShift;
+    private int mSize = 0;
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预计的元素个数，不超过这个数量时不会扩容
+     */
+    public LongIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int size = 16;
+        while (size * LOAD_FACTOR < expectedSize) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        Arrays.fill(mKeys, EMPTY);
+        mMask = capacity - 1;
+        mShift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    // Fibonacci 散列，瓦片键的低位变化不大，需要把高位也混进来
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> mShift);
+    }
+
+    private int indexOf(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = mKeys[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mMask;
+        }
+    }
+
+    public int get(long key, int missingValue) {
+        int i = indexOf(key);
+        return i < 0 ? missingValue : mValues[i];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be used as a key");
+        }
+        int i = slot(key);
+        while (true) {
+            long k = mKeys[i];
+            if (k == key) {
+                mValues[i] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                mKeys[i] = key;
+                mValues[i] = value;
+                if (++mSize > mKeys.length * LOAD_FACTOR) {
+                    rehash(mKeys.length << 1);
+                }
+                return;
+            }
+            i = (i + 1) & mMask;
+        }
+    }
+
+    /**
+     * 删除一个键，返回它的值；后面同一探测链上的元素向前移动，不使用删除标记
+     */
+    public int remove(long key, int missingValue) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return missingValue;
+        }
+        int value = mValues[i];
+        int j = i;
+        while (true) {
+            j = (j + 1) & mMask;
+            long k = mKeys[j];
+            if (k == EMPTY) {
+                break;
+            }
+            int home = slot(k);
+            // home 不在 (i, j] 的循环区间内时，j 处的元素可以移到空出来的 i
+            boolean between = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+            if (!between) {
+                mKeys[i] = k;
+                mValues[i] = mValues[j];
+                i = j;
+            }
+        }
+        mKeys[i] = EMPTY;
+        mSize--;
+        return value;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = mKeys;
+        int[] values = mValues;
+        allocate(capacity);
+        mSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                put(keys[i], values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        if (mSize > 0) {
+            Arrays.fill(mKeys, EMPTY);
+            mSize = 0;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 以 long 为键、按权重（例如字节数或纹理个数）限制总量的 LRU 缓存。
+ * <p>
+ * 节点保存在并行数组中，用下标组成双向链表，表头是最近使用的节点；查找通过 {@link LongIntMap}，
+ * 所以 get / put / remove 都不分配内存（容量增长除外）。超出权重上限时从最久未使用的节点开始淘汰，
+ * 被淘汰的值交给 {@link EvictionListener} 回收（例如把 Bitmap 放回复用池、把纹理槽位还给纹理池）。
+ * <p>
+ * 不是线程安全的。
+ */
+public class LongLruCache<V> {
+    private static final int NONE = -1;
+
+    /**
+     * 值被淘汰时的回调：超出权重上限、被同一个键的新值替换或 {@link #evictAll()} 时调用，{@link #remove} 不调用
+     */
+    public interface EvictionListener<V> {
+        void onEvicted(long key, V value);
+    }
+
+    private final LongIntMap mIndex;
+    private final EvictionListener<V> mListener;
+    private long[] mKeys;
+    private Object[] mValues;
+    private long[] mWeights;
+    private int[] mPrev;
+    private int[] mNext;
+    private int mHead = NONE; // 最近使用
+    private int mTail = NONE; // 最久未使用
+    private int mFree = NONE; // 空闲节点链表（通过 mNext 连接）
+    private int mUsed = 0;    // 分配过的节点个数
+    private int mSize = 0;
+
+    private long mMaxWeight;
+    private long mWeight = 0;
+
+    // 统计数据
+    private long mHits = 0;
+    private long mMisses = 0;
+    private long mEvictions = 0;
+
+    /**
+     * @param maxWeight 权重上限
+     * @param listener  淘汰回调，可以为 null
+     */
+    public LongLruCache(long maxWeight, EvictionListener<V> listener) {
+        mMaxWeight = maxWeight;
+        mListener = listener;
+        mIndex = new LongIntMap(64);
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        mKeys = grow(mKeys, capacity);
+        mWeights = grow(mWeights, capacity);
+        mPrev = grow(mPrev, capacity);
+        mNext = grow(mNext, capacity);
+        Object[] values = new Object[capacity];
+        if (mValues != null) {
+            System.arraycopy(mValues, 0, values, 0, mValues.length);
+        }
+        mValues = values;
+    }
+
+    private static long[] grow(long[] array, int capacity) {
+        long[] result = new long[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, result, 0, array.length);
+        }
+        return result;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] result = new int[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, result, 0, array.length);
+        }
+        return result;
+    }
+
+    /**
+     * 获取值并把它标记为最近使用，计入命中率
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int node = mIndex.get(key, NONE);
+        if (node == NONE) {
+            mMisses++;
+            return null;
+        }
+        mHits++;
+        moveToHead(node);
+        return (V) mValues[node];
+    }
+
+    /**
+     * 获取值，不改变使用顺序，也不计入统计
+     */
+    @SuppressWarnings("unchecked")
+    public V peek(long key) {
+        int node = mIndex.get(key, NONE);
+        return node == NONE ? null : (V) mValues[node];
+    }
+
+    public boolean containsKey(long key) {
+        return mIndex.containsKey(key);
+    }
+
+    /**
+     * 放入一个值（成为最近使用），然后淘汰超出权重上限的部分；同一个键的旧值会交给淘汰回调
+     */
+    @SuppressWarnings("unchecked")
+    public void put(long key, V value, long weight) {
+        int node = mIndex.get(key, NONE);
+        if (node != NONE) {
+            V old = (V) mValues[node];
+            mWeight += weight - mWeights[node];
+            mValues[node] = value;
+            mWeights[node] = weight;
+            moveToHead(node);
+            if (old != value && mListener != null) {
+                mListener.onEvicted(key, old);
+            }
+        } else {
+            node = obtainNode();
+            mKeys[node] = key;
+            mValues[node] = value;
+            mWeights[node] = weight;
+            mIndex.put(key, node);
+            linkHead(node);
+            mWeight += weight;
+            mSize++;
+        }
+        trimToWeight(mMaxWeight);
+    }
+
+    /**
+     * 删除一个值并返回它，不调用淘汰回调（值的所有权交还给调用方）
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int node = mIndex.remove(key, NONE);
+        if (node == NONE) {
+            return null;
+        }
+        V value = (V) mValues[node];
+        releaseNode(node);
+        return value;
+    }
+
+    /**
+     * 从最久未使用的节点开始淘汰，直到总权重不超过 maxWeight
+     */
+    @SuppressWarnings("unchecked")
+    public void trimToWeight(long maxWeight) {
+        while (mWeight > maxWeight && mTail != NONE) {
+            int node = mTail;
+            long key = mKeys[node];
+            V value = (V) mValues[node];
+            mIndex.remove(key, NONE);
+            releaseNode(node);
+            mEvictions++;
+            if (mListener != null) {
+                mListener.onEvicted(key, value);
+            }
+        }
+    }
+
+    // 淘汰所有值
+    public void evictAll() {
+        trimToWeight(-1);
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        mMaxWeight = maxWeight;
+        trimToWeight(maxWeight);
+    }
+
+    // 最久未使用的键，缓存为空时返回 defaultKey
+    public long getEldestKey(long defaultKey) {
+        return mTail == NONE ? defaultKey : mKeys[mTail];
+    }
+
+    private int obtainNode() {
+        if (mFree != NONE) {
+            int node = mFree;
+            mFree = mNext[node];
+            return node;
+        }
+        if (mUsed == mKeys.length) {
+            allocate(mKeys.length << 1);
+        }
+        return mUsed++;
+    }
+
+    private void releaseNode(int node) {
+        unlink(node);
+        mWeight -= mWeights[node];
+        mValues[node] = null;
+        mNext[node] = mFree;
+        mFree = node;
+        mSize--;
+    }
+
+    private void linkHead(int node) {
+        mPrev[node] = NONE;
+        mNext[node] = mHead;
+        if (mHead != NONE) {
+            mPrev[mHead] = node;
+        }
+        mHead = node;
+        if (mTail == NONE) {
+            mTail = node;
+        }
+    }
+
+    private void unlink(int node) {
+        int prev = mPrev[node];
+        int next = mNext[node];
+        if (prev != NONE) {
+            mNext[prev] = next;
+        } else {
+            mHead = next;
+        }
+        if (next != NONE) {
+            mPrev[next] = prev;
+        } else {
+            mTail = prev;
+        }
+    }
+
+    private void moveToHead(int node) {
+        if (mHead != node) {
+            unlink(node);
+            linkHead(node);
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public long getWeight() {
+        return mWeight;
+    }
+
+    public long getMaxWeight() {
+        return mMaxWeight;
+    }
+
+    public long getHits() {
+        return mHits;
+    }
+
+    public long getMisses() {
+        return mMisses;
+    }
+
+    public long getEvictions() {
+        return mEvictions;
+    }
+
+    @Override
+    public String toString() {
+        long lookups = mHits + mMisses;
+        return "LongLruCache{size=" + mSize + ", weight=" + mWeight + "/" + mMaxWeight
+                + ", hitRate=" + (lookups == 0 ? 0 : mHits * 100 / lookups) + "%, evictions=" + mEvictions + "}";
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 二维包围盒的松散四叉树，用于大量物体的可见性查询。
+ * <p>
+ * 每个节点的松散边界是格子向四周各扩大半个格子（边长为格子的 2 倍），物体按尺寸直接放到能容纳它的最深一层、
+ * 按中心点放进对应的格子，所以插入、删除不需要分裂或合并节点；移动后仍在同一个格子时只更新包围盒。
+ * 中心在世界范围以外的物体放在根节点，查询时逐个测试。
+ * <p>
+ * 物体用 {@link #insert} 返回的整数句柄表示，包围盒和链表指针保存在并行数组中，查询不分配内存（结果数组增长除外）。
+ * 不是线程安全的。
+ */
+public class LooseQuadtree {
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    private final float mMinX;      // 根节点格子的左下角和边长
+    private final float mMinY;
+    private final float mSize;
+    private final int mMaxDepth;
+
+    // 物体，按句柄下标
+    private float[] mLeft = new float[64];
+    private float[] mBottom = new float[64];
+    private float[] mRight = new float[64];
+    private float[] mTop = new float[64];
+    private int[] mItemNode = new int[64];   // 所在节点，已删除时为 NONE
+    private int[] mItemPrev = new int[64];   // 节点内的双向链表；空闲句柄通过 mItemNext 连接
+    private int[] mItemNext = new int[64];
+    private int mItemCapacityUsed = 0;
+    private int mFreeItem = NONE;
+    private int mItemCount = 0;
+
+    // 节点，按下标；children 每个节点 4 个（左下、右下、左上、右上）
+    private int[] mChildren = new int[4 * 64];
+    private int[] mFirstItem = new int[64];
+    private int[] mSubtreeCount = new int[64]; // 子树中的物体个数，为 0 时查询直接跳过
+    private int[] mParent = new int[64];
+    private int mNodeCount = 0;
+
+    // 查询结果和统计
+    private int[] mResults = new int[256];
+    private int mResultCount = 0;
+    private int[] mStack = new int[64];      // 遍历栈：节点、深度、格子 x、格子 y
+    private int[] mSubtreeStack = new int[64];
+    private int mNodesVisited = 0;
+    private int mItemsTested = 0;
+
+    /**
+     * @param minX     世界范围左下角
+     * @param size     世界范围的边长（正方形）
+     * @param maxDepth 最大深度，最深一层格子边长为 size / 2^maxDepth
+     */
+    public LooseQuadtree(float minX, float minY, float size, int maxDepth) {
+        if (size <= 0 || maxDepth < 0 || maxDepth > 24) {
+            throw new IllegalArgumentException("Invalid quadtree size " + size + " depth " + maxDepth);
+        }
+        mMinX = minX;
+        mMinY = minY;
+        mSize = size;
+        mMaxDepth = maxDepth;
+        newNode(NONE);
+    }
+
+    private int newNode(int parent) {
+        if (mNodeCount == mFirstItem.length) {
+            int capacity = mNodeCount * 2;
+            mChildren = Arrays.copyOf(mChildren, capacity * 4);
+            mFirstItem = Arrays.copyOf(mFirstItem, capacity);
+            mSubtreeCount = Arrays.copyOf(mSubtreeCount, capacity);
+            mParent = Arrays.copyOf(mParent, capacity);
+        }
+        int node = mNodeCount++;
+        Arrays.fill(mChildren, node * 4, node * 4 + 4, NONE);
+        mFirstItem[node] = NONE;
+        mSubtreeCount[node] = 0;
+        mParent[node] = parent;
+        return node;
+    }
+
+    /**
+     * 插入一个物体，返回句柄（删除后句柄会被复用）
+     */
+    public int insert(float left, float bottom, float right, float top) {
+        int item;
+        if (mFreeItem != NONE) {
+            item = mFreeItem;
+            mFreeItem = mItemNext[item];
+        } else {
+            if (mItemCapacityUsed == mLeft.length) {
+                int capacity = mItemCapacityUsed * 2;
+                mLeft = Arrays.copyOf(mLeft, capacity);
+                mBottom = Arrays.copyOf(mBottom, capacity);
+                mRight = Arrays.copyOf(mRight, capacity);
+                mTop = Arrays.copyOf(mTop, capacity);
+                mItemNode = Arrays.copyOf(mItemNode, capacity);
+                mItemPrev = Arrays.copyOf(mItemPrev, capacity);
+                mItemNext = Arrays.copyOf(mItemNext, capacity);
+            }
+            item = mItemCapacityUsed++;
+        }
+        setBounds(item, left, bottom, right, top);
+        link(item, findNode(left, bottom, right, top, true));
+        mItemCount++;
+        return item;
+    }
+
+    /**
+     * 更新物体的包围盒，仍在同一个格子时只修改包围盒
+     */
+    public void move(int item, float left, float bottom, float right, float top) {
+        checkItem(item);
+        int node = findNode(left, bottom, right, top, false);
+        setBounds(item, left, bottom, right, top);
+        if (node != mItemNode[item]) {
+            unlink(item);
+            link(item, node != NONE ? node : findNode(left, bottom, right, top, true));
+        }
+    }
+
+    public void remove(int item) {
+        checkItem(item);
+        unlink(item);
+        mItemNode[item] = NONE;
+        mItemNext[item] = mFreeItem;
+        mFreeItem = item;
+        mItemCount--;
+    }
+
+    private void checkItem(int item) {
+        if (item < 0 || item >= mItemCapacityUsed || mItemNode[item] == NONE) {
+            throw new IllegalArgumentException("Invalid item " + item);
+        }
+    }
+
+    private void setBounds(int item, float left, float bottom, float right, float top) {
+        mLeft[item] = left;
+        mBottom[item] = bottom;
+        mRight[item] = right;
+        mTop[item] = top;
+    }
+
+    /**
+     * 找到物体应该放入的节点：最深的、格子边长不小于物体尺寸的一层，按中心点选择格子
+     *
+     * @param create 节点不存在时是否创建，不创建时返回 NONE
+     */
+    private int findNode(float left, float bottom, float right, float top, boolean create) {
+        float centerX = (left + right) * 0.5f - mMinX;
+        float centerY = (bottom + top) * 0.5f - mMinY;
+        if (!(centerX >= 0 && centerX < mSize && centerY >= 0 && centerY < mSize)) {
+            return ROOT; // 世界范围以外（或 NaN）
+        }
+        float extent = Math.max(right - left, top - bottom);
+        int depth = 0;
+        float cell = mSize;
+        while (depth < mMaxDepth && cell * 0.5f >= extent) {
+            cell *= 0.5f;
+            depth++;
+        }
+        int cellX = Math.min((int) (centerX / cell), (1 << depth) - 1);
+        int cellY = Math.min((int) (centerY / cell), (1 << depth) - 1);
+        int node = ROOT;
+        for (int level = depth - 1; level >= 0; level--) {
+            int quadrant = ((cellX >> level) & 1) | (((cellY >> level) & 1) << 1);
+            int child = mChildren[node * 4 + quadrant];
+            if (child == NONE) {
+                if (!create) {
+                    return NONE;
+                }
+                child = newNode(node);
+                mChildren[node * 4 + quadrant] = child;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private void link(int item, int node) {
+        mItemNode[item] = node;
+        mItemPrev[item] = NONE;
+        mItemNext[item] = mFirstItem[node];
+        if (mFirstItem[node] != NONE) {
+            mItemPrev[mFirstItem[node]] = item;
+        }
+        mFirstItem[node] = item;
+        for (int n = node; n != NONE; n = mParent[n]) {
+            mSubtreeCount[n]++;
+        }
+    }
+
+    private void unlink(int item) {
+        int node = mItemNode[item];
+        int prev = mItemPrev[item];
+        int next = mItemNext[item];
+        if (prev != NONE) {
+            mItemNext[prev] = next;
+        } else {
+            mFirstItem[node] = next;
+        }
+        if (next != NONE) {
+            mItemPrev[next] = prev;
+        }
+        for (int n = node; n != NONE; n = mParent[n]) {
+            mSubtreeCount[n]--;
+        }
+    }
+
+    /**
+     * 查询和矩形相交（包括边界接触）的所有物体，结果通过 {@link #getResult(int)} 读取，顺序不固定
+     *
+     * @return 结果个数
+     */
+    public int query(float left, float bottom, float right, float top) {
+        mResultCount = 0;
+        mNodesVisited = 0;
+        mItemsTested = 0;
+        int sp = 0;
+        sp = push(sp, ROOT, 0, 0, 0);
+        while (sp > 0) {
+            sp -= 4;
+            int node = mStack[sp];
+            int depth = mStack[sp + 1];
+            int cellX = mStack[sp + 2];
+            int cellY = mStack[sp + 3];
+            mNodesVisited++;
+            if (mSubtreeCount[node] == 0) {
+                continue;
+            }
+            if (node != ROOT) {
+                // 松散边界：格子向四周各扩大半个格子
+                float cell = mSize / (1 << depth);
+                float looseLeft = mMinX + (cellX - 0.5f) * cell;
+                float looseBottom = mMinY + (cellY - 0.5f) * cell;
+                float looseRight = looseLeft + 2.0f * cell;
+                float looseTop = looseBottom + 2.0f * cell;
+                if (looseLeft > right || looseRight < left || looseBottom > top || looseTop < bottom) {
+                    continue;
+                }
+                if (looseLeft >= left && looseRight <= right && looseBottom >= bottom && looseTop <= top) {
+                    addSubtree(node); // 整个节点都在查询范围内，不需要逐个测试
+                    continue;
+                }
+            }
+            for (int item = mFirstItem[node]; item != NONE; item = mItemNext[item]) {
+                mItemsTested++;
+                if (mLeft[item] <= right && mRight[item] >= left && mBottom[item] <= top && mTop[item] >= bottom) {
+                    addResult(item);
+                }
+            }
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = mChildren[node * 4 + quadrant];
+                if (child != NONE) {
+                    sp = push(sp, child, depth + 1, cellX * 2 + (quadrant & 1), cellY * 2 + (quadrant >> 1));
+                }
+            }
+        }
+        return mResultCount;
+    }
+
+    private int push(int sp, int node, int depth, int cellX, int cellY) {
+        if (sp + 4 > mStack.length) {
+            mStack = Arrays.copyOf(mStack, mStack.length * 2);
+        }
+        mStack[sp] = node;
+        mStack[sp + 1] = depth;
+        mStack[sp + 2] = cellX;
+        mStack[sp + 3] = cellY;
+        return sp + 4;
+    }
+
+    // 不做测试地加入整个子树的物体
+    private void addSubtree(int root) {
+        int[] stack = mSubtreeStack;
+        int sp = 0;
+        int node = root;
+        while (true) {
+            mNodesVisited++;
+            for (int item = mFirstItem[node]; item != NONE; item = mItemNext[item]) {
+                addResult(item);
+            }
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = mChildren[node * 4 + quadrant];
+                if (child != NONE && mSubtreeCount[child] > 0) {
+                    if (sp == stack.length) {
+                        stack = Arrays.copyOf(stack, sp * 2);
+                        mSubtreeStack = stack;
+                    }
+                    stack[sp++] = child;
+                }
+            }
+            if (sp == 0) {
+                return;
+            }
+            node = stack[--sp];
+        }
+    }
+
+    private void addResult(int item) {
+        if (mResultCount == mResults.length) {
+            mResults = Arrays.copyOf(mResults, mResultCount * 2);
+        }
+        mResults[mResultCount++] = item;
+    }
+
+    public int getResultCount() {
+        return mResultCount;
+    }
+
+    public int getResult(int index) {
+        return mResults[index];
+    }
+
+    // 最近一次查询的结果数组（前 getResultCount() 个有效），可以直接排序
+    public int[] getResults() {
+        return mResults;
+    }
+
+    public float getLeft(int item) {
+        return mLeft[item];
+    }
+
+    public float getBottom(int item) {
+        return mBottom[item];
+    }
+
+    public float getRight(int item) {
+        return mRight[item];
+    }
+
+    public float getTop(int item) {
+        return mTop[item];
+    }
+
+    public boolean contains(int item) {
+        return item >= 0 && item < mItemCapacityUsed && mItemNode[item] != NONE;
+    }
+
+    public int size() {
+        return mItemCount;
+    }
+
+    public int getNodeCount() {
+        return mNodeCount;
+    }
+
+    // 最近一次查询访问的节点数和逐个测试的物体数
+    public int getLastNodesVisited() {
+        return mNodesVisited;
+    }
+
+    public int getLastItemsTested() {
+        return mItemsTested;
+    }
+
+    @Override
+    public String toString() {
+        return "LooseQuadtree{items=" + mItemCount + ", nodes=" + mNodeCount + ", depth=" + mMaxDepth
+                + ", lastQuery=" + mResultCount + " results/" + mNodesVisited + " nodes/" + mItemsTested + " tested}";
+    }
+}
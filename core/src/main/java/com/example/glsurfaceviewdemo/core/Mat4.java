@@ -0,0 +1,305 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 4x4 矩阵运算，列主序，与 android.opengl.Matrix 和 GLSL 的约定一致。
+ * <p>
+ * 所有方法都直接读写调用方提供的 float[]（带偏移）或 FloatBuffer（绝对下标，不改变 position），
+ * 不分配内存，也不使用共享的临时数组；结果数组可以和输入数组是同一个。不依赖 Android，可以在 JVM 上测试。
+ */
+public final class Mat4 {
+    private Mat4() {
+    }
+
+    public static void setIdentity(float[] m, int offset) {
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0.0f;
+        }
+        m[offset] = 1.0f;
+        m[offset + 5] = 1.0f;
+        m[offset + 10] = 1.0f;
+        m[offset + 15] = 1.0f;
+    }
+
+    public static void copy(float[] dst, int dstOffset, float[] src, int srcOffset) {
+        System.arraycopy(src, srcOffset, dst, dstOffset, 16);
+    }
+
+    public static boolean equals(float[] a, int aOffset, float[] b, int bOffset) {
+        for (int i = 0; i < 16; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * result = lhs * rhs；result 可以与 lhs 或 rhs 相同
+     */
+    public static void multiply(float[] result, int resultOffset, float[] lhs, int lhsOffset,
+                                float[] rhs, int rhsOffset) {
+        float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2], l30 = lhs[lhsOffset + 3];
+        float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6], l31 = lhs[lhsOffset + 7];
+        float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10], l32 = lhs[lhsOffset + 11];
+        float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14], l33 = lhs[lhsOffset + 15];
+        // 逐列计算：每一列先读后写，因此 result 与 rhs 相同时也是安全的
+        for (int c = 0; c < 16; c += 4) {
+            float r0 = rhs[rhsOffset + c], r1 = rhs[rhsOffset + c + 1];
+            float r2 = rhs[rhsOffset + c + 2], r3 = rhs[rhsOffset + c + 3];
+            result[resultOffset + c] = l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3;
+            result[resultOffset + c + 1] = l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3;
+            result[resultOffset + c + 2] = l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3;
+            result[resultOffset + c + 3] = l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3;
+        }
+    }
+
+    /**
+     * result = lhs * rhs，结果写入 FloatBuffer 的 index 处（绝对下标）
+     */
+    public static void multiply(FloatBuffer result, int index, float[] lhs, int lhsOffset,
+                                float[] rhs, int rhsOffset) {
+        float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2], l30 = lhs[lhsOffset + 3];
+        float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6], l31 = lhs[lhsOffset + 7];
+        float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10], l32 = lhs[lhsOffset + 11];
+        float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14], l33 = lhs[lhsOffset + 15];
+        for (int c = 0; c < 16; c += 4) {
+            float r0 = rhs[rhsOffset + c], r1 = rhs[rhsOffset + c + 1];
+            float r2 = rhs[rhsOffset + c + 2], r3 = rhs[rhsOffset + c + 3];
+            result.put(index + c, l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3);
+            result.put(index + c + 1, l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3);
+            result.put(index + c + 2, l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3);
+            result.put(index + c + 3, l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3);
+        }
+    }
+
+    /**
+     * 批量左乘同一个矩阵：results[i] = lhs * models[i]，常用于 viewProjection * 每个精灵的 model 矩阵。
+     * lhs 只读取一次；results 可以与 models 相同
+     *
+     * @param count 矩阵个数，models 和 results 中的矩阵依次紧密排列
+     */
+    public static void multiplyBatch(float[] results, int resultOffset, float[] lhs, int lhsOffset,
+                                     float[] models, int modelOffset, int count) {
+        float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2], l30 = lhs[lhsOffset + 3];
+        float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6], l31 = lhs[lhsOffset + 7];
+        float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10], l32 = lhs[lhsOffset + 11];
+        float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14], l33 = lhs[lhsOffset + 15];
+        int columns = count * 4;
+        for (int c = 0; c < columns; c++) {
+            int r = modelOffset + c * 4;
+            int o = resultOffset + c * 4;
+            float r0 = models[r], r1 = models[r + 1], r2 = models[r + 2], r3 = models[r + 3];
+            results[o] = l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3;
+            results[o + 1] = l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3;
+            results[o + 2] = l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3;
+            results[o + 3] = l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3;
+        }
+    }
+
+    /**
+     * 同 {@link #multiplyBatch(float[], int, float[], int, float[], int, int)}，结果直接写入 FloatBuffer（例如实例化绘制的 VBO 映射区）
+     */
+    public static void multiplyBatch(FloatBuffer results, int index, float[] lhs, int lhsOffset,
+                                     float[] models, int modelOffset, int count) {
+        float l00 = lhs[lhsOffset], l10 = lhs[lhsOffset + 1], l20 = lhs[lhsOffset + 2], l30 = lhs[lhsOffset + 3];
+        float l01 = lhs[lhsOffset + 4], l11 = lhs[lhsOffset + 5], l21 = lhs[lhsOffset + 6], l31 = lhs[lhsOffset + 7];
+        float l02 = lhs[lhsOffset + 8], l12 = lhs[lhsOffset + 9], l22 = lhs[lhsOffset + 10], l32 = lhs[lhsOffset + 11];
+        float l03 = lhs[lhsOffset + 12], l13 = lhs[lhsOffset + 13], l23 = lhs[lhsOffset + 14], l33 = lhs[lhsOffset + 15];
+        int columns = count * 4;
+        for (int c = 0; c < columns; c++) {
+            int r = modelOffset + c * 4;
+            int o = index + c * 4;
+            float r0 = models[r], r1 = models[r + 1], r2 = models[r + 2], r3 = models[r + 3];
+            results.put(o, l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3);
+            results.put(o + 1, l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3);
+            results.put(o + 2, l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3);
+            results.put(o + 3, l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3);
+        }
+    }
+
+    /**
+     * result = m * v（4 维列向量）；result 可以与 v 相同
+     */
+    public static void multiplyVec4(float[] result, int resultOffset, float[] m, int mOffset, float[] v, int vOffset) {
+        float x = v[vOffset], y = v[vOffset + 1], z = v[vOffset + 2], w = v[vOffset + 3];
+        for (int i = 0; i < 4; i++) {
+            result[resultOffset + i] = m[mOffset + i] * x + m[mOffset + 4 + i] * y
+                    + m[mOffset + 8 + i] * z + m[mOffset + 12 + i] * w;
+        }
+    }
+
+    // 从 FloatBuffer 的 index 处读取矩阵
+    public static void load(float[] dst, int dstOffset, FloatBuffer src, int index) {
+        for (int i = 0; i < 16; i++) {
+            dst[dstOffset + i] = src.get(index + i);
+        }
+    }
+
+    // 把矩阵写入 FloatBuffer 的 index 处
+    public static void store(FloatBuffer dst, int index, float[] src, int srcOffset) {
+        for (int i = 0; i < 16; i++) {
+            dst.put(index + i, src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * 正交投影，与 Matrix.orthoM 相同
+     */
+    public static void ortho(float[] m, int offset, float left, float right, float bottom, float top,
+                             float near, float far) {
+        if (left == right || bottom == top || near == far) {
+            throw new IllegalArgumentException("Degenerate ortho projection");
+        }
+        float rWidth = 1.0f / (right - left);
+        float rHeight = 1.0f / (top - bottom);
+        float rDepth = 1.0f / (far - near);
+        m[offset] = 2.0f * rWidth;
+        m[offset + 1] = 0.0f;
+        m[offset + 2] = 0.0f;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = 0.0f;
+        m[offset + 5] = 2.0f * rHeight;
+        m[offset + 6] = 0.0f;
+        m[offset + 7] = 0.0f;
+        m[offset + 8] = 0.0f;
+        m[offset + 9] = 0.0f;
+        m[offset + 10] = -2.0f * rDepth;
+        m[offset + 11] = 0.0f;
+        m[offset + 12] = -(right + left) * rWidth;
+        m[offset + 13] = -(top + bottom) * rHeight;
+        m[offset + 14] = -(far + near) * rDepth;
+        m[offset + 15] = 1.0f;
+    }
+
+    /**
+     * 透视投影，与 Matrix.perspectiveM 相同
+     *
+     * @param fovy 垂直视角（度）
+     */
+    public static void perspective(float[] m, int offset, float fovy, float aspect, float near, float far) {
+        float f = 1.0f / (float) Math.tan(fovy * (Math.PI / 360.0));
+        float rangeReciprocal = 1.0f / (near - far);
+        for (int i = 0; i < 16; i++) {
+            m[offset + i] = 0.0f;
+        }
+        m[offset] = f / aspect;
+        m[offset + 5] = f;
+        m[offset + 10] = (far + near) * rangeReciprocal;
+        m[offset + 11] = -1.0f;
+        m[offset + 14] = 2.0f * far * near * rangeReciprocal;
+    }
+
+    /**
+     * 视图矩阵，与 Matrix.setLookAtM 相同
+     */
+    public static void lookAt(float[] m, int offset, float eyeX, float eyeY, float eyeZ,
+                              float centerX, float centerY, float centerZ, float upX, float upY, float upZ) {
+        float fx = centerX - eyeX;
+        float fy = centerY - eyeY;
+        float fz = centerZ - eyeZ;
+        float rlf = 1.0f / (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx *= rlf;
+        fy *= rlf;
+        fz *= rlf;
+        // s = f x up
+        float sx = fy * upZ - fz * upY;
+        float sy = fz * upX - fx * upZ;
+        float sz = fx * upY - fy * upX;
+        float rls = 1.0f / (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx *= rls;
+        sy *= rls;
+        sz *= rls;
+        // u = s x f
+        float ux = sy * fz - sz * fy;
+        float uy = sz * fx - sx * fz;
+        float uz = sx * fy - sy * fx;
+
+        m[offset] = sx;
+        m[offset + 1] = ux;
+        m[offset + 2] = -fx;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = sy;
+        m[offset + 5] = uy;
+        m[offset + 6] = -fy;
+        m[offset + 7] = 0.0f;
+        m[offset + 8] = sz;
+        m[offset + 9] = uz;
+        m[offset + 10] = -fz;
+        m[offset + 11] = 0.0f;
+        m[offset + 12] = 0.0f;
+        m[offset + 13] = 0.0f;
+        m[offset + 14] = 0.0f;
+        m[offset + 15] = 1.0f;
+        // 平移部分交给 translate，方法体保持在 JIT 内联阈值以内
+        translate(m, offset, -eyeX, -eyeY, -eyeZ);
+    }
+
+    /**
+     * m = m * T(x, y, z)，只修改第 4 列
+     */
+    public static void translate(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            m[offset + 12 + i] += m[offset + i] * x + m[offset + 4 + i] * y + m[offset + 8 + i] * z;
+        }
+    }
+
+    /**
+     * m = m * S(x, y, z)
+     */
+    public static void scale(float[] m, int offset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            m[offset + i] *= x;
+            m[offset + 4 + i] *= y;
+            m[offset + 8 + i] *= z;
+        }
+    }
+
+    /**
+     * m = m * Rz(degrees)，绕 z 轴逆时针旋转
+     */
+    public static void rotateZ(float[] m, int offset, float degrees) {
+        double radians = Math.toRadians(degrees);
+        float c = (float) Math.cos(radians);
+        float s = (float) Math.sin(radians);
+        for (int i = 0; i < 4; i++) {
+            float c0 = m[offset + i];
+            float c1 = m[offset + 4 + i];
+            m[offset + i] = c0 * c + c1 * s;
+            m[offset + 4 + i] = c1 * c - c0 * s;
+        }
+    }
+
+    /**
+     * 直接构造 T * Rz * S，比 setIdentity + translate + rotateZ + scale 少做三次矩阵运算
+     *
+     * @param degrees 绕 z 轴的旋转角度
+     */
+    public static void setTranslateRotateScale(float[] m, int offset, float tx, float ty, float tz,
+                                               float degrees, float sx, float sy, float sz) {
+        float c = 1.0f;
+        float s = 0.0f;
+        if (degrees != 0.0f) {
+            double radians = Math.toRadians(degrees);
+            c = (float) Math.cos(radians);
+            s = (float) Math.sin(radians);
+        }
+        m[offset] = c * sx;
+        m[offset + 1] = s * sx;
+        m[offset + 2] = 0.0f;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = -s * sy;
+        m[offset + 5] = c * sy;
+        m[offset + 6] = 0.0f;
+        m[offset + 7] = 0.0f;
+        m[offset + 8] = 0.0f;
+        m[offset + 9] = 0.0f;
+        m[offset + 10] = sz;
+        m[offset + 11] = 0.0f;
+        m[offset + 12] = tx;
+        m[offset + 13] = ty;
+        m[offset + 14] = tz;
+        m[offset + 15] = 1.0f;
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 三角形网格优化，依次执行：
+ * <ol>
+ *     <li>顶点去重：完全相同的顶点合并为一个</li>
+ *     <li>三角形重排（Forsyth 算法）：让相邻的三角形共享刚变换过的顶点，提高 post-transform 顶点缓存命中率</li>
+ *     <li>顶点重排：按第一次被索引的顺序排列顶点，GPU 读取顶点数据时尽量顺序访问</li>
+ *     <li>顶点数不超过 65536 时使用 16 位索引，属性按 {@link VertexLayout} 量化</li>
+ * </ol>
+ * 只处理 GL_TRIANGLES 的索引数据，不依赖 GL，可以离线预处理，也可以在加载线程中执行。
+ * 优化效果通过 {@link Report} 中的字节数和 ACMR（每个三角形平均的顶点缓存未命中次数，越接近 0.5 越好，最差为 3）查看。
+ */
+public final class MeshOptimizer {
+    // Forsyth 算法模拟的缓存大小和打分参数（来自 "Linear-Speed Vertex Cache Optimisation"）
+    public static final int CACHE_SIZE = 32;
+    private static final float CACHE_DECAY_POWER = 1.5f;
+    private static final float LAST_TRIANGLE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+    private static final float VALENCE_BOOST_POWER = 0.5f;
+    private static final int MAX_VALENCE_TABLE = 32;
+    // 统计 ACMR 时模拟的 FIFO 缓存大小，移动 GPU 常见为 16 ~ 32
+    public static final int DEFAULT_FIFO_SIZE = 16;
+
+    private static final float[] CACHE_SCORES = new float[CACHE_SIZE];
+    private static final float[] VALENCE_SCORES = new float[MAX_VALENCE_TABLE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            // 最后一个三角形的 3 个顶点得分固定，避免总是沿着同一条带子走
+            CACHE_SCORES[i] = i < 3 ? LAST_TRIANGLE_SCORE
+                    : (float) Math.pow(1.0f - (i - 3) / (float) (CACHE_SIZE - 3), CACHE_DECAY_POWER);
+        }
+        for (int i = 1; i < MAX_VALENCE_TABLE; i++) {
+            VALENCE_SCORES[i] = VALENCE_BOOST_SCALE * (float) Math.pow(i, -VALENCE_BOOST_POWER);
+        }
+    }
+
+    private MeshOptimizer() {
+    }
+
+    /**
+     * 交错存放的 float 顶点数据和 32 位三角形索引
+     */
+    public static final class Mesh {
+        public final float[] vertices;
+        public final int stride;       // 每个顶点的 float 个数
+        public final int vertexCount;
+        public final int[] indices;
+
+        public Mesh(float[] vertices, int stride, int vertexCount, int[] indices) {
+            this.vertices = vertices;
+            this.stride = stride;
+            this.vertexCount = vertexCount;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * 优化结果和前后对比
+     */
+    public static final class Report {
+        public final Mesh mesh;
+        public final VertexLayout layout;  // 打包使用的布局，为 null 时按 float 存放
+        public final int vertexCountBefore;
+        public final int indexCount;
+        public final int bytesBefore;      // float 属性 + 32 位索引
+        public final int bytesAfter;       // 量化后的属性 + 收窄后的索引
+        public final float acmrBefore;
+        public final float acmrAfter;
+
+        Report(Mesh mesh, VertexLayout layout, int vertexCountBefore, int bytesBefore,
+               float acmrBefore, float acmrAfter) {
+            this.mesh = mesh;
+            this.layout = layout;
+            this.vertexCountBefore = vertexCountBefore;
+            this.indexCount = mesh.indices.length;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = getVertexBytes() + getIndexBytes();
+            this.acmrBefore = acmrBefore;
+            this.acmrAfter = acmrAfter;
+        }
+
+        // 打包后顶点数据和索引数据的字节数，用于 glBufferData
+        public int getVertexBytes() {
+            return mesh.vertexCount * (layout != null ? layout.getStride() : mesh.stride * 4);
+        }
+
+        public int getIndexBytes() {
+            return indexCount * indexSize(mesh.vertexCount);
+        }
+
+        public int getSavedBytes() {
+            return bytesBefore - bytesAfter;
+        }
+
+        // glDrawElements 的 type 参数
+        public int getIndexType() {
+            return indexType(mesh.vertexCount);
+        }
+
+        // 打包后的顶点数据，可以直接交给 glBufferData
+        public Buffer packVertices() {
+            return layout != null ? layout.pack(mesh.vertices, mesh.stride, mesh.vertexCount)
+                    : VertexPacking.toFloatBuffer(Arrays.copyOf(mesh.vertices, mesh.vertexCount * mesh.stride));
+        }
+
+        // 打包后的索引数据，16 位或 32 位
+        public Buffer packIndices() {
+            return MeshOptimizer.packIndices(mesh.indices, mesh.vertexCount);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "MeshOptimizer.Report{vertices=%d->%d, triangles=%d, "
+                            + "bytes=%d->%d (saved %d), acmr=%.3f->%.3f}", vertexCountBefore, mesh.vertexCount, indexCount / 3, bytesBefore, bytesAfter, getSavedBytes(),
+                    acmrBefore, acmrAfter);
+        }
+    }
+
+    /**
+     * 执行完整的优化流程
+     *
+     * @param indices 三角形索引，为 null 时按顶点顺序每 3 个组成一个三角形
+     * @param layout  量化使用的顶点布局，为 null 时保持 float
+     */
+    public static Report optimize(float[] vertices, int stride, int vertexCount, int[] indices, VertexLayout layout) {
+        if (indices == null) {
+            indices = sequentialIndices(vertexCount);
+        }
+        int bytesBefore = vertexCount * stride * 4 + indices.length * 4;
+        float acmrBefore = computeAcmr(indices, vertexCount, DEFAULT_FIFO_SIZE);
+        Mesh mesh = deduplicate(vertices, stride, vertexCount, indices);
+        int[] ordered = optimizeVertexCache(mesh.indices, mesh.vertexCount);
+        mesh = optimizeVertexFetch(new Mesh(mesh.vertices, stride, mesh.vertexCount, ordered));
+        float acmrAfter = computeAcmr(mesh.indices, mesh.vertexCount, DEFAULT_FIFO_SIZE);
+        return new Report(mesh, layout, vertexCount, bytesBefore, acmrBefore, acmrAfter);
+    }
+
+    private static int[] sequentialIndices(int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * 合并所有分量 bit 完全相同的顶点（0.0 和 -0.0 视为不同），顶点按第一次出现的顺序保留
+     */
+    public static Mesh deduplicate(float[] vertices, int stride, int vertexCount, int[] indices) {
+        int capacity = 16;
+        while (capacity < vertexCount * 2) {
+            capacity <<= 1;
+        }
+        int mask = capacity - 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int[] remap = new int[vertexCount];
+        float[] unique = new float[vertexCount * stride];
+        int uniqueCount = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int source = v * stride;
+            int slot = hash(vertices, source, stride) & mask;
+            while (table[slot] != -1 && !equals(unique, table[slot] * stride, vertices, source, stride)) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == -1) {
+                System.arraycopy(vertices, source, unique, uniqueCount * stride, stride);
+                table[slot] = uniqueCount++;
+            }
+            remap[v] = table[slot];
+        }
+        int[] remapped = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            remapped[i] = remap[indices[i]];
+        }
+        return new Mesh(Arrays.copyOf(unique, uniqueCount * stride), stride, uniqueCount, remapped);
+    }
+
+    private static int hash(float[] data, int offset, int count) {
+        int h = 0;
+        for (int i = 0; i < count; i++) {
+            h = h * 31 + Float.floatToRawIntBits(data[offset + i]);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(float[] a, int aOffset, float[] b, int bOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (Float.floatToRawIntBits(a[aOffset + i]) != Float.floatToRawIntBits(b[bOffset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forsyth 算法重排三角形：模拟一个 {@link #CACHE_SIZE} 大小的 LRU 缓存，每次输出得分最高的三角形。
+     * 顶点得分由它在缓存中的位置和剩余未输出的三角形个数决定（剩余越少越优先，尽快把孤立的三角形处理掉），
+     * 只在和缓存中的顶点相邻的三角形里挑选，整体接近线性时间。返回新的索引数组
+     */
+    public static int[] optimizeVertexCache(int[] indices, int vertexCount) {
+        int triangleCount = indices.length / 3;
+        int[] result = new int[triangleCount * 3];
+        if (triangleCount == 0) {
+            return result;
+        }
+        // 每个顶点相邻的三角形，按顶点连续存放；前 remaining[v] 个是还没有输出的
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            offsets[indices[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] adjacency = new int[triangleCount * 3];
+        int[] remaining = new int[vertexCount];
+        for (int i = 0; i < triangleCount * 3; i++) {
+            int v = indices[i];
+            adjacency[offsets[v] + remaining[v]++] = i / 3;
+        }
+
+        int[] cachePosition = new int[vertexCount];
+        Arrays.fill(cachePosition, -1);
+        float[] scores = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            scores[v] = vertexScore(-1, remaining[v]);
+        }
+        boolean[] emitted = new boolean[triangleCount];
+        int best = 0;
+        float bestScore = -1.0f;
+        for (int t = 0; t < triangleCount; t++) {
+            float score = triangleScore(indices, t, scores);
+            if (score > bestScore) {
+                bestScore = score;
+                best = t;
+            }
+        }
+
+        int[] cache = new int[CACHE_SIZE + 3];
+        int[] nextCache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+        int cursor = 0;
+        int out = 0;
+        while (true) {
+            if (best < 0) {
+                // 缓存中的顶点没有剩余的三角形，按顺序找下一个没有输出的三角形
+                while (cursor < triangleCount && emitted[cursor]) {
+                    cursor++;
+                }
+                if (cursor == triangleCount) {
+                    break;
+                }
+                best = cursor;
+            }
+            emitted[best] = true;
+            int a = indices[best * 3];
+            int b = indices[best * 3 + 1];
+            int c = indices[best * 3 + 2];
+            int nextCount = 0;
+            for (int k = 0; k < 3; k++) {
+                int v = indices[best * 3 + k];
+                result[out++] = v;
+                removeTriangle(adjacency, offsets[v], remaining[v], best);
+                remaining[v]--;
+                if (k == 0 || (k == 1 && v != a) || (k == 2 && v != a && v != b)) {
+                    nextCache[nextCount++] = v; // 退化三角形的重复顶点只放一次
+                }
+            }
+            // 新三角形的顶点移到缓存最前面，其余顶点依次后移
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                if (v != a && v != b && v != c) {
+                    nextCache[nextCount++] = v;
+                }
+            }
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+            // 更新缓存中（包括刚被挤出去的）顶点的得分
+            for (int i = 0; i < nextCount; i++) {
+                int v = cache[i];
+                cachePosition[v] = i < CACHE_SIZE ? i : -1;
+                scores[v] = vertexScore(cachePosition[v], remaining[v]);
+            }
+            // 只在受影响的三角形中挑选下一个
+            best = -1;
+            bestScore = -1.0f;
+            for (int i = 0; i < nextCount; i++) {
+                int v = cache[i];
+                for (int j = offsets[v], end = offsets[v] + remaining[v]; j < end; j++) {
+                    int t = adjacency[j];
+                    float score = triangleScore(indices, t, scores);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = t;
+                    }
+                }
+            }
+            cacheCount = Math.min(nextCount, CACHE_SIZE);
+        }
+        return result;
+    }
+
+    // 把输出的三角形从顶点的待处理列表中移除（和最后一个交换）
+    private static void removeTriangle(int[] adjacency, int start, int count, int triangle) {
+        int last = start + count - 1;
+        for (int i = start; i <= last; i++) {
+            if (adjacency[i] == triangle) {
+                adjacency[i] = adjacency[last];
+                adjacency[last] = triangle;
+                return;
+            }
+        }
+    }
+
+    private static float vertexScore(int cachePosition, int remaining) {
+        if (remaining == 0) {
+            return -1.0f; // 没有剩余的三角形，不再参与打分
+        }
+        float score = cachePosition >= 0 ? CACHE_SCORES[cachePosition] : 0.0f;
+        return score + (remaining < MAX_VALENCE_TABLE ? VALENCE_SCORES[remaining]
+                : VALENCE_BOOST_SCALE * (float) Math.pow(remaining, -VALENCE_BOOST_POWER));
+    }
+
+    private static float triangleScore(int[] indices, int triangle, float[] scores) {
+        return scores[indices[triangle * 3]] + scores[indices[triangle * 3 + 1]] + scores[indices[triangle * 3 + 2]];
+    }
+
+    /**
+     * 按第一次被索引的顺序重新排列顶点并更新索引，没有被任何三角形引用的顶点被删除
+     */
+    public static Mesh optimizeVertexFetch(Mesh mesh) {
+        int stride = mesh.stride;
+        int[] remap = new int[mesh.vertexCount];
+        Arrays.fill(remap, -1);
+        int[] indices = new int[mesh.indices.length];
+        float[] vertices = new float[mesh.vertexCount * stride];
+        int count = 0;
+        for (int i = 0; i < indices.length; i++) {
+            int v = mesh.indices[i];
+            if (remap[v] == -1) {
+                System.arraycopy(mesh.vertices, v * stride, vertices, count * stride, stride);
+                remap[v] = count++;
+            }
+            indices[i] = remap[v];
+        }
+        return new Mesh(count == mesh.vertexCount ? vertices : Arrays.copyOf(vertices, count * stride),
+                stride, count, indices);
+    }
+
+    /**
+     * 模拟 cacheSize 大小的 FIFO 顶点缓存，计算 ACMR（顶点着色器执行次数 / 三角形数）
+     */
+    public static float computeAcmr(int[] indices, int vertexCount, int cacheSize) {
+        int triangleCount = indices.length / 3;
+        if (triangleCount == 0) {
+            return 0.0f;
+        }
+        // 顶点进入缓存时的时间戳，之后又有 cacheSize 个顶点进入缓存时被挤出
+        int[] timestamps = new int[vertexCount];
+        int timestamp = cacheSize + 1;
+        int misses = 0;
+        for (int i = 0; i < triangleCount * 3; i++) {
+            int v = indices[i];
+            if (timestamp - timestamps[v] > cacheSize) {
+                timestamps[v] = timestamp++;
+                misses++;
+            }
+        }
+        return (float) misses / triangleCount;
+    }
+
+    // 顶点数不超过 65536 时使用 16 位索引
+    public static int indexType(int vertexCount) {
+        return vertexCount <= VertexPacking.MAX_VERTICES_16BIT ? VertexLayout.GL_UNSIGNED_SHORT
+                : VertexLayout.GL_UNSIGNED_INT;
+    }
+
+    public static int indexSize(int vertexCount) {
+        return vertexCount <= VertexPacking.MAX_VERTICES_16BIT ? 2 : 4;
+    }
+
+    /**
+     * 按 {@link #indexType(int)} 打包索引：16 位时返回 ShortBuffer，否则返回 IntBuffer，position 为 0
+     */
+    public static Buffer packIndices(int[] indices, int vertexCount) {
+        if (indexSize(vertexCount) == 2) {
+            return VertexPacking.toShortIndices(indices);
+        }
+        IntBuffer buffer = ByteBuffer.allocateDirect(indices.length * 4)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        buffer.put(indices);
+        buffer.position(0);
+        return buffer;
+    }
+}
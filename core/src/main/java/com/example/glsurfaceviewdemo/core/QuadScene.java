@@ -0,0 +1,189 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 由大量带纹理的矩形（地图瓦片、画布上的图片等）组成的二维场景。
+ * <p>
+ * 矩形的包围盒保存在 {@link LooseQuadtree} 中，每帧调用 {@link #cull(float[], int)} 用 mvp 矩阵反算出可见范围，
+ * 只取出可见的矩形交给渲染器；可见列表按添加顺序排列（先添加的先画），相同纹理的矩形容易连在一起合批。
+ * 纹理、纹理坐标和颜色只是数据，不依赖 GL；场景只能在一个线程（通常是 GL 线程）修改和绘制。
+ */
+public class QuadScene {
+    private final LooseQuadtree mIndex;
+
+    // 矩形的绘制数据，按句柄下标（句柄和 LooseQuadtree 的句柄相同）
+    private int[] mTextures = new int[64];
+    private float[] mTexCoords = new float[64 * 4]; // u0, v0, u1, v1（v0 为上边）
+    private int[] mColors = new int[64];
+    private int[] mOrders = new int[64];            // 添加顺序，决定绘制的先后
+    private int mNextOrder = 0;
+
+    // 本帧的可见列表
+    private final float[] mRect = new float[4];
+    private long[] mSortKeys = new long[256];
+    private int[] mVisible = new int[256];
+    private int mVisibleCount = 0;
+
+    // 统计数据
+    private final LatencyHistogram mCullTimes = new LatencyHistogram();
+    private long mLastCullNanos = 0;
+
+    /**
+     * @param minX     场景范围左下角（世界坐标），范围以外的矩形也能显示，只是不能被快速剔除
+     * @param size     场景范围的边长
+     * @param maxDepth 四叉树最大深度，最深一层格子的边长应接近最小的矩形
+     */
+    public QuadScene(float minX, float minY, float size, int maxDepth) {
+        mIndex = new LooseQuadtree(minX, minY, size, maxDepth);
+    }
+
+    /**
+     * 添加一个矩形，返回句柄
+     *
+     * @param x     左下角
+     * @param u0    左上角的纹理坐标
+     * @param rgba  0xRRGGBBAA 颜色，和纹理相乘
+     */
+    public int add(int textureId, float x, float y, float width, float height,
+                   float u0, float v0, float u1, float v1, int rgba) {
+        int item = mIndex.insert(x, y, x + width, y + height);
+        if (item >= mTextures.length) {
+            int capacity = Math.max(item + 1, mTextures.length * 2);
+            mTextures = Arrays.copyOf(mTextures, capacity);
+            mTexCoords = Arrays.copyOf(mTexCoords, capacity * 4);
+            mColors = Arrays.copyOf(mColors, capacity);
+            mOrders = Arrays.copyOf(mOrders, capacity);
+        }
+        mTextures[item] = textureId;
+        mTexCoords[item * 4] = u0;
+        mTexCoords[item * 4 + 1] = v0;
+        mTexCoords[item * 4 + 2] = u1;
+        mTexCoords[item * 4 + 3] = v1;
+        mColors[item] = rgba;
+        mOrders[item] = mNextOrder++;
+        return item;
+    }
+
+    // 移动矩形，大小不变
+    public void move(int item, float x, float y) {
+        mIndex.move(item, x, y, x + getWidth(item), y + getHeight(item));
+    }
+
+    public void setBounds(int item, float x, float y, float width, float height) {
+        mIndex.move(item, x, y, x + width, y + height);
+    }
+
+    public void setColor(int item, int rgba) {
+        mColors[item] = rgba;
+    }
+
+    public void remove(int item) {
+        mIndex.remove(item);
+    }
+
+    /**
+     * 按 mvp 矩阵计算可见的矩形，结果通过 {@link #getVisibleItem(int)} 按绘制顺序读取
+     *
+     * @return 可见的矩形个数
+     */
+    public int cull(float[] mvp, int offset) {
+        long start = System.nanoTime();
+        mVisibleCount = 0;
+        if (ViewportMath.visibleRect(mvp, offset, mRect)) {
+            int count = mIndex.query(mRect[0], mRect[1], mRect[2], mRect[3]);
+            if (count > mSortKeys.length) {
+                int capacity = Math.max(count, mSortKeys.length * 2);
+                mSortKeys = new long[capacity];
+                mVisible = new int[capacity];
+            }
+            // 按添加顺序排序：高 32 位为顺序，低 32 位为句柄
+            int[] results = mIndex.getResults();
+            for (int i = 0; i < count; i++) {
+                int item = results[i];
+                mSortKeys[i] = ((long) mOrders[item] << 32) | item;
+            }
+            Arrays.sort(mSortKeys, 0, count);
+            for (int i = 0; i < count; i++) {
+                mVisible[i] = (int) mSortKeys[i];
+            }
+            mVisibleCount = count;
+        }
+        mLastCullNanos = System.nanoTime() - start;
+        mCullTimes.record(mLastCullNanos);
+        return mVisibleCount;
+    }
+
+    public int getVisibleCount() {
+        return mVisibleCount;
+    }
+
+    public int getVisibleItem(int index) {
+        return mVisible[index];
+    }
+
+    public int size() {
+        return mIndex.size();
+    }
+
+    public float getX(int item) {
+        return mIndex.getLeft(item);
+    }
+
+    public float getY(int item) {
+        return mIndex.getBottom(item);
+    }
+
+    public float getWidth(int item) {
+        return mIndex.getRight(item) - mIndex.getLeft(item);
+    }
+
+    public float getHeight(int item) {
+        return mIndex.getTop(item) - mIndex.getBottom(item);
+    }
+
+    public int getTexture(int item) {
+        return mTextures[item];
+    }
+
+    public float getU0(int item) {
+        return mTexCoords[item * 4];
+    }
+
+    public float getV0(int item) {
+        return mTexCoords[item * 4 + 1];
+    }
+
+    public float getU1(int item) {
+        return mTexCoords[item * 4 + 2];
+    }
+
+    public float getV1(int item) {
+        return mTexCoords[item * 4 + 3];
+    }
+
+    public int getColor(int item) {
+        return mColors[item];
+    }
+
+    public LooseQuadtree getIndex() {
+        return mIndex;
+    }
+
+    // 每帧剔除（查询 + 排序）的耗时分布，单位纳秒
+    public LatencyHistogram getCullTimes() {
+        return mCullTimes;
+    }
+
+    public long getLastCullNanos() {
+        return mLastCullNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "QuadScene{items=" + mIndex.size() + ", visible=" + mVisibleCount
+                + ", nodesVisited=" + mIndex.getLastNodesVisited() + ", tested=" + mIndex.getLastItemsTested()
+                + ", cullP50=" + mCullTimes.getPercentile(50) / 1000 + "us"
+                + ", cullP99=" + mCullTimes.getPercentile(99) / 1000 + "us}";
+    }
+}
@@ -0,0 +1,619 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不连接任何 GPU 的 GL 后端：分配假的对象 ID，记录每一条命令，并按类别统计每帧的调用次数。
+ * <p>
+ * 用于在 JVM 上编写性能预算测试，例如 "这个场景每帧不能超过 N 次绘制调用 / N 次绑定 / N 次缓冲上传"：
+ * <pre>
+ *     backend.beginFrame();
+ *     renderer.draw();
+ *     assertTrue(backend.getFrameDrawCalls() &lt;= 1);
+ * </pre>
+ * 查询类命令返回能让调用方继续执行的值：链接 / 编译状态为成功，glGetError 为 GL_NO_ERROR，帧缓冲总是完整，
+ * fence 总是已经完成，glMapBufferRange 返回一块新的直接缓冲区，视口和帧缓冲绑定返回最后一次设置的值；
+ * 激活的属性和 uniform 由 {@link #addActiveAttribute} / {@link #addActiveUniform} 声明。
+ * 不是线程安全的，和真实的 GL 上下文一样只能在一个线程使用。
+ */
+public class RecordingGLBackend implements GLBackend {
+    private static final int GL_TRUE = 1;
+    private static final int GL_COMPILE_STATUS = 0x8B81;
+    private static final int GL_LINK_STATUS = 0x8B82;
+    private static final int GL_ACTIVE_UNIFORMS = 0x8B86;
+    private static final int GL_ACTIVE_ATTRIBUTES = 0x8B89;
+    private static final int GL_FLOAT_VEC4 = 0x8B52;
+    private static final int GL_FRAMEBUFFER_COMPLETE = 0x8CD5;
+    private static final int GL_ALREADY_SIGNALED = 0x911A;
+    private static final int GL_VIEWPORT = 0x0BA2;
+    private static final int GL_FRAMEBUFFER_BINDING = 0x8CA6;
+    private static final int GL_FRAMEBUFFER = 0x8D40;
+    private static final int GL_DRAW_FRAMEBUFFER = 0x8CA9;
+
+    private int mNextId = 1; // 所有对象共用一个 ID 序列，方便在日志中区分
+    private boolean mLogging = true;
+    private final List<String> mLog = new ArrayList<>();
+    private final Map<String, int[]> mCommandCounts = new HashMap<>();
+
+    // 反射结果：所有 program 共用同一份声明
+    private final List<String> mAttributes = new ArrayList<>();
+    private final List<String> mUniforms = new ArrayList<>();
+    private final List<Integer> mUniformTypes = new ArrayList<>();
+
+    // 查询类命令返回的状态
+    private final int[] mViewport = new int[4];
+    private int mDrawFramebuffer = 0;
+
+    // 当前帧的统计数据，beginFrame() 时清零
+    private int mFrameCommands = 0;
+    private int mFrameDrawCalls = 0;
+    private int mFrameBinds = 0;
+    private int mFrameBufferUploads = 0;
+    private long mFrameBufferUploadBytes = 0;
+    private int mFrameTextureUploads = 0;
+    private int mFrameUniformUpdates = 0;
+    private int mFrameFramebufferBinds = 0;
+    private int mFrameReadbacks = 0;
+    private int mFrames = 0;
+
+    /**
+     * 开始新的一帧，清零每帧的统计数据（命令日志和总次数保留）
+     */
+    public void beginFrame() {
+        mFrameCommands = 0;
+        mFrameDrawCalls = 0;
+        mFrameBinds = 0;
+        mFrameBufferUploads = 0;
+        mFrameBufferUploadBytes = 0;
+        mFrameTextureUploads = 0;
+        mFrameUniformUpdates = 0;
+        mFrameFramebufferBinds = 0;
+        mFrameReadbacks = 0;
+        mFrames++;
+    }
+
+    // 清空命令日志和按名字统计的总次数
+    public void clearLog() {
+        mLog.clear();
+        mCommandCounts.clear();
+    }
+
+    // 是否记录命令日志，大量绘制的测试可以关闭以减少内存占用（统计数据不受影响）
+    public void setLogging(boolean logging) {
+        mLogging = logging;
+    }
+
+    // 声明 program 中的一个激活属性，对之后反射的所有 program 生效
+    public void addActiveAttribute(String name) {
+        mAttributes.add(name);
+    }
+
+    // 声明 program 中的一个激活 uniform，type 为 GL 类型枚举（例如 GL_FLOAT_MAT4）
+    public void addActiveUniform(String name, int type) {
+        mUniforms.add(name);
+        mUniformTypes.add(type);
+    }
+
+    // 按顺序记录的命令，格式为 "glDrawArrays(5, 0, 4)"
+    public List<String> getLog() {
+        return Collections.unmodifiableList(mLog);
+    }
+
+    // 自上次 clearLog() 以来某条命令（例如 "glBindTexture"）的调用次数
+    public int getCommandCount(String name) {
+        int[] count = mCommandCounts.get(name);
+        return count == null ? 0 : count[0];
+    }
+
+    public int getFrameCount() {
+        return mFrames;
+    }
+
+    public int getFrameCommands() {
+        return mFrameCommands;
+    }
+
+    public int getFrameDrawCalls() {
+        return mFrameDrawCalls;
+    }
+
+    // 本帧的绑定次数：缓冲、纹理、VAO、纹理单元、program、帧缓冲和 renderbuffer
+    public int getFrameBinds() {
+        return mFrameBinds;
+    }
+
+    // 本帧 glBufferData / glBufferSubData 的次数
+    public int getFrameBufferUploads() {
+        return mFrameBufferUploads;
+    }
+
+    public long getFrameBufferUploadBytes() {
+        return mFrameBufferUploadBytes;
+    }
+
+    public int getFrameTextureUploads() {
+        return mFrameTextureUploads;
+    }
+
+    public int getFrameUniformUpdates() {
+        return mFrameUniformUpdates;
+    }
+
+    // 本帧的帧缓冲切换次数（分块渲染的 GPU 上每次切换都可能引起一次 tile 的读入 / 写回）
+    public int getFrameFramebufferBinds() {
+        return mFrameFramebufferBinds;
+    }
+
+    // 本帧 glReadPixels 的次数
+    public int getFrameReadbacks() {
+        return mFrameReadbacks;
+    }
+
+    private void record(String name, Object... args) {
+        mFrameCommands++;
+        int[] count = mCommandCounts.get(name);
+        if (count == null) {
+            count = new int[1];
+            mCommandCounts.put(name, count);
+        }
+        count[0]++;
+        if (mLogging) {
+            StringBuilder entry = new StringBuilder(name).append('(');
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) {
+                    entry.append(", ");
+                }
+                entry.append(args[i]);
+            }
+            mLog.add(entry.append(')').toString());
+        }
+    }
+
+    private void generate(String name, int n, int[] ids, int offset) {
+        for (int i = 0; i < n; i++) {
+            ids[offset + i] = mNextId++;
+        }
+        record(name, n);
+    }
+
+    private void bind(String name, int target, int object) {
+        mFrameBinds++;
+        record(name, target, object);
+    }
+
+    private void uniform(String name, int location) {
+        mFrameUniformUpdates++;
+        record(name, location);
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        generate("glGenBuffers", n, buffers, offset);
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        generate("glGenTextures", n, textures, offset);
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        generate("glGenVertexArrays", n, arrays, offset);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        record("glDeleteBuffers", n, buffers[offset]);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        record("glDeleteTextures", n, textures[offset]);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) {
+        record("glDeleteVertexArrays", n, arrays[offset]);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        bind("glBindBuffer", target, buffer);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        bind("glBindTexture", target, texture);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        mFrameBinds++;
+        record("glBindVertexArray", array);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        mFrameBinds++;
+        record("glActiveTexture", texture);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        mFrameBinds++;
+        record("glUseProgram", program);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        mFrameBufferUploads++;
+        mFrameBufferUploadBytes += size;
+        record("glBufferData", target, size, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        mFrameBufferUploads++;
+        mFrameBufferUploadBytes += size;
+        record("glBufferSubData", target, offset, size);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        mFrameTextureUploads++;
+        record("glTexImage2D", target, level, internalformat, width, height);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalformat, Object bitmap, int width, int height) {
+        mFrameTextureUploads++;
+        record("texImage2D", target, level, internalformat, width, height);
+    }
+
+    @Override
+    public void texSubImage2D(int target, int level, int xoffset, int yoffset, Object bitmap, int width, int height) {
+        mFrameTextureUploads++;
+        record("texSubImage2D", target, level, xoffset, yoffset, width, height);
+    }
+
+    @Override
+    public void glTexStorage2D(int target, int levels, int internalformat, int width, int height) {
+        record("glTexStorage2D", target, levels, internalformat, width, height);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        mFrameTextureUploads++;
+        record("glCompressedTexImage2D", target, level, internalformat, width, height, imageSize);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        record("glGenerateMipmap", target);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        record("glTexParameteri", target, pname, param);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        record("glEnableVertexAttribArray", index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        record("glVertexAttribPointer", index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        mFrameDrawCalls++;
+        record("glDrawArrays", mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        mFrameDrawCalls++;
+        record("glDrawElements", mode, count, type, offset);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        uniform("glUniform1i", location);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        uniform("glUniform1f", location);
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        uniform("glUniform2f", location);
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        uniform("glUniform4f", location);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        uniform("glUniform4fv", location);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        uniform("glUniformMatrix4fv", location);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        int shader = mNextId++;
+        record("glCreateShader", type);
+        return shader;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        record("glShaderSource", shader);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        record("glCompileShader", shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        record("glDeleteShader", shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        int program = mNextId++;
+        record("glCreateProgram");
+        return program;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        record("glAttachShader", program, shader);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        record("glProgramParameteri", program, pname, value);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        record("glLinkProgram", program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        record("glDeleteProgram", program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        switch (pname) {
+            case GL_COMPILE_STATUS:
+            case GL_LINK_STATUS:
+                params[offset] = GL_TRUE;
+                break;
+            case GL_ACTIVE_ATTRIBUTES:
+                params[offset] = mAttributes.size();
+                break;
+            case GL_ACTIVE_UNIFORMS:
+                params[offset] = mUniforms.size();
+                break;
+            default:
+                params[offset] = 0;
+                break;
+        }
+        record("glGetProgramiv", program, pname);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        record("glGetProgramInfoLog", program);
+        return "";
+    }
+
+    @Override
+    public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        size[sizeOffset] = 1;
+        type[typeOffset] = GL_FLOAT_VEC4;
+        record("glGetActiveAttrib", program, index);
+        return mAttributes.get(index);
+    }
+
+    @Override
+    public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        size[sizeOffset] = 1;
+        type[typeOffset] = mUniformTypes.get(index);
+        record("glGetActiveUniform", program, index);
+        return mUniforms.get(index);
+    }
+
+    // 位置就是声明的顺序，未声明的名字返回 -1
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        record("glGetAttribLocation", program, name);
+        return mAttributes.indexOf(name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        record("glGetUniformLocation", program, name);
+        return mUniforms.indexOf(name);
+    }
+
+    @Override
+    public int glGetError() {
+        record("glGetError");
+        return 0;
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        generate("glGenFramebuffers", n, framebuffers, offset);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        record("glDeleteFramebuffers", n, framebuffers[offset]);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        mFrameFramebufferBinds++;
+        if (target == GL_FRAMEBUFFER || target == GL_DRAW_FRAMEBUFFER) {
+            mDrawFramebuffer = framebuffer;
+        }
+        bind("glBindFramebuffer", target, framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        record("glFramebufferTexture2D", target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        record("glCheckFramebufferStatus", target);
+        return GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        generate("glGenRenderbuffers", n, renderbuffers, offset);
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        record("glDeleteRenderbuffers", n, renderbuffers[offset]);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        bind("glBindRenderbuffer", target, renderbuffer);
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        record("glRenderbufferStorage", target, internalformat, width, height);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        record("glFramebufferRenderbuffer", target, attachment, renderbuffertarget, renderbuffer);
+    }
+
+    @Override
+    public void glBlitFramebuffer(int srcX0, int srcY0, int srcX1, int srcY1, int dstX0, int dstY0, int dstX1, int dstY1,
+                                  int mask, int filter) {
+        record("glBlitFramebuffer", srcX1 - srcX0, srcY1 - srcY0, dstX1 - dstX0, dstY1 - dstY0, mask, filter);
+    }
+
+    @Override
+    public void glInvalidateFramebuffer(int target, int numAttachments, int[] attachments, int offset) {
+        record("glInvalidateFramebuffer", target, numAttachments);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        mFrameReadbacks++;
+        record("glReadPixels", x, y, width, height, format, type);
+    }
+
+    // 测试中调用方会写入映射的内存，每次返回一块新的直接缓冲区
+    @Override
+    public Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        mFrameBufferUploads++;
+        mFrameBufferUploadBytes += length;
+        record("glMapBufferRange", target, offset, length, access);
+        return ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        record("glUnmapBuffer", target);
+        return true;
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        record("glFenceSync", condition, flags);
+        return mNextId++;
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        record("glClientWaitSync", sync, flags, timeout);
+        return GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        record("glDeleteSync", sync);
+    }
+
+    @Override
+    public void glFlush() {
+        record("glFlush");
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+        record("glViewport", x, y, width, height);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        record("glClearColor", red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        record("glClear", mask);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        record("glEnable", cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        record("glDisable", cap);
+    }
+
+    // 只支持视口和帧缓冲绑定，其他查询写入 0
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        record("glGetIntegerv", pname);
+        if (pname == GL_VIEWPORT) {
+            System.arraycopy(mViewport, 0, params, offset, 4);
+        } else {
+            params[offset] = pname == GL_FRAMEBUFFER_BINDING ? mDrawFramebuffer : 0;
+        }
+    }
+}
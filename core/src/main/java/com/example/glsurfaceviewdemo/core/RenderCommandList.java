@@ -0,0 +1,141 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 一帧的渲染命令列表，命令按原始类型编码在一个 int 数组和一个 float 数组中：
+ * <ul>
+ *     <li>int 流：操作码，以及命令的整数参数（纹理 ID、颜色）</li>
+ *     <li>float 流：命令的浮点参数（矩阵、坐标、纹理坐标）</li>
+ * </ul>
+ * 记录命令只是数组写入，容量不够时按 2 倍扩容，达到稳定大小之后不再分配内存。
+ * 由 {@link RenderCommandQueue} 管理，同一时刻只属于一个线程。
+ */
+public class RenderCommandList {
+    public static final int OP_SET_MATRIX = 1;   // float x16
+    public static final int OP_BIND_TEXTURE = 2; // int 纹理 ID
+    public static final int OP_DRAW_SPRITE = 3;  // float x8（x, y, w, h, u0, v0, u1, v1），int 颜色
+
+    /**
+     * 回放命令的接收方，通常在 GL 线程把命令转换成真正的绘制调用
+     */
+    public interface Visitor {
+        /**
+         * @param matrix 列主序 4x4 矩阵所在的数组，只在本次调用期间有效，需要保留时必须拷贝
+         */
+        void setMatrix(float[] matrix, int offset);
+
+        void bindTexture(int textureId);
+
+        /**
+         * @param rgba tint 颜色，按 0xRRGGBBAA 打包
+         */
+        void drawSprite(float x, float y, float width, float height,
+                        float u0, float v0, float u1, float v1, int rgba);
+    }
+
+    private int[] mInts;
+    private float[] mFloats;
+    private int mIntCount = 0;
+    private int mFloatCount = 0;
+    private int mCommandCount = 0;
+
+    // 由 RenderCommandQueue 写入的时间戳（System.nanoTime）
+    long mBeginNanos;
+    long mPublishNanos;
+
+    public RenderCommandList(int initialCommands) {
+        int commands = Math.max(initialCommands, 16);
+        mInts = new int[commands * 2];
+        mFloats = new float[commands * 8];
+    }
+
+    // 清空命令，保留已经分配的容量
+    public void reset() {
+        mIntCount = 0;
+        mFloatCount = 0;
+        mCommandCount = 0;
+    }
+
+    public int getCommandCount() {
+        return mCommandCount;
+    }
+
+    // 编码后占用的字节数
+    public int getEncodedBytes() {
+        return (mIntCount + mFloatCount) * 4;
+    }
+
+    public void setMatrix(float[] matrix, int offset) {
+        ensureCapacity(1, 16);
+        mInts[mIntCount++] = OP_SET_MATRIX;
+        System.arraycopy(matrix, offset, mFloats, mFloatCount, 16);
+        mFloatCount += 16;
+        mCommandCount++;
+    }
+
+    public void bindTexture(int textureId) {
+        ensureCapacity(2, 0);
+        mInts[mIntCount++] = OP_BIND_TEXTURE;
+        mInts[mIntCount++] = textureId;
+        mCommandCount++;
+    }
+
+    public void drawSprite(float x, float y, float width, float height,
+                           float u0, float v0, float u1, float v1, int rgba) {
+        ensureCapacity(2, 8);
+        int[] ints = mInts;
+        ints[mIntCount++] = OP_DRAW_SPRITE;
+        ints[mIntCount++] = rgba;
+        float[] floats = mFloats;
+        int f = mFloatCount;
+        floats[f] = x;
+        floats[f + 1] = y;
+        floats[f + 2] = width;
+        floats[f + 3] = height;
+        floats[f + 4] = u0;
+        floats[f + 5] = v0;
+        floats[f + 6] = u1;
+        floats[f + 7] = v1;
+        mFloatCount = f + 8;
+        mCommandCount++;
+    }
+
+    /**
+     * 按记录顺序把所有命令交给 visitor，不分配内存
+     */
+    public void replay(Visitor visitor) {
+        int[] ints = mInts;
+        float[] floats = mFloats;
+        int i = 0;
+        int f = 0;
+        int intCount = mIntCount;
+        while (i < intCount) {
+            switch (ints[i++]) {
+                case OP_SET_MATRIX:
+                    visitor.setMatrix(floats, f);
+                    f += 16;
+                    break;
+                case OP_BIND_TEXTURE:
+                    visitor.bindTexture(ints[i++]);
+                    break;
+                case OP_DRAW_SPRITE:
+                    visitor.drawSprite(floats[f], floats[f + 1], floats[f + 2], floats[f + 3],
+                            floats[f + 4], floats[f + 5], floats[f + 6], floats[f + 7], ints[i++]);
+                    f += 8;
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt command list at " + (i - 1));
+            }
+        }
+    }
+
+    private void ensureCapacity(int ints, int floats) {
+        if (mIntCount + ints > mInts.length) {
+            mInts = Arrays.copyOf(mInts, Math.max(mInts.length * 2, mIntCount + ints));
+        }
+        if (mFloatCount + floats > mFloats.length) {
+            mFloats = Arrays.copyOf(mFloats, Math.max(mFloats.length * 2, mFloatCount + floats));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 三重缓冲的渲染命令队列：逻辑线程记录一帧命令，GL 线程只回放最新的一帧完整命令。
+ * <p>
+ * 三个 {@link RenderCommandList} 分别属于生产者（正在记录）、中间槽（最新完成的一帧）和消费者（正在回放），
+ * 交换只有一次 {@link AtomicInteger#getAndSet}，两边都不会加锁或等待：
+ * <ul>
+ *     <li>生产者：{@link #beginFrame()} -> 记录命令 -> {@link #publish()}，只能有一个生产者线程</li>
+ *     <li>消费者：每帧调用 {@link #acquire()}，有新的一帧时换到新帧，否则继续回放上一帧</li>
+ * </ul>
+ * 生产者比消费者快时，中间槽里还没被回放的一帧会被覆盖（计入 dropped），GL 线程永远只画最新的状态。
+ * <p>
+ * 统计数据由生产者和消费者各自写入，{@link #snapshot()} 可以在任意线程调用，读到的是近似值。
+ */
+public class RenderCommandQueue {
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4; // 中间槽中是还没有被消费者取走的新帧
+
+    private final RenderCommandList[] mLists = new RenderCommandList[3];
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    private final Runnable mPublishListener;
+
+    // 只由生产者线程访问
+    private int mBack = 2;
+    private boolean mRecording = false;
+    // 只由消费者线程访问
+    private int mFront = 0;
+    private boolean mHasFrame = false;
+
+    // 统计数据
+    private final LatencyHistogram mRecordTime = new LatencyHistogram();     // beginFrame 到 publish
+    private final LatencyHistogram mPublishLatency = new LatencyHistogram(); // publish 到被 GL 线程取走
+    private final LatencyHistogram mReplayTime = new LatencyHistogram();     // GL 线程回放一帧的耗时
+    private long mPublishedFrames = 0;
+    private long mDroppedFrames = 0;
+    private long mAcquiredFrames = 0;
+    private int mLastCommandCount = 0;
+    private int mMaxCommandCount = 0;
+
+    /**
+     * @param initialCommands 每个命令列表的初始容量（命令个数），不够时自动扩容
+     * @param publishListener 每次 publish 之后在生产者线程调用，例如请求重新绘制，可以为 null
+     */
+    public RenderCommandQueue(int initialCommands, Runnable publishListener) {
+        for (int i = 0; i < mLists.length; i++) {
+            mLists[i] = new RenderCommandList(initialCommands);
+        }
+        mPublishListener = publishListener;
+    }
+
+    /**
+     * 生产者：开始记录新的一帧，返回清空后的命令列表，publish 之前只能由当前线程使用
+     */
+    public RenderCommandList beginFrame() {
+        if (mRecording) {
+            throw new IllegalStateException("publish() must be called before beginFrame()");
+        }
+        mRecording = true;
+        RenderCommandList list = mLists[mBack];
+        list.reset();
+        list.mBeginNanos = System.nanoTime();
+        return list;
+    }
+
+    /**
+     * 生产者：提交 beginFrame 返回的命令列表，之后不能再访问它
+     */
+    public void publish() {
+        if (!mRecording) {
+            throw new IllegalStateException("beginFrame() must be called before publish()");
+        }
+        mRecording = false;
+        RenderCommandList list = mLists[mBack];
+        long now = System.nanoTime();
+        list.mPublishNanos = now;
+        mRecordTime.record(now - list.mBeginNanos);
+        int commands = list.getCommandCount();
+        mLastCommandCount = commands;
+        if (commands > mMaxCommandCount) {
+            mMaxCommandCount = commands;
+        }
+        mPublishedFrames++;
+        // getAndSet 同时保证命令内容对消费者可见
+        int previous = mMiddle.getAndSet(mBack | FRESH);
+        if ((previous & FRESH) != 0) {
+            mDroppedFrames++;
+        }
+        mBack = previous & INDEX_MASK;
+        if (mPublishListener != null) {
+            mPublishListener.run();
+        }
+    }
+
+    /**
+     * 消费者：获取最新完成的一帧命令；没有新帧时返回上一次的帧，从未发布过任何帧时返回 null
+     */
+    public RenderCommandList acquire() {
+        if ((mMiddle.get() & FRESH) != 0) {
+            int previous = mMiddle.getAndSet(mFront);
+            mFront = previous & INDEX_MASK;
+            mHasFrame = true;
+            mAcquiredFrames++;
+            mPublishLatency.record(System.nanoTime() - mLists[mFront].mPublishNanos);
+        }
+        return mHasFrame ? mLists[mFront] : null;
+    }
+
+    /**
+     * 消费者：回放 acquire 返回的命令列表，并记录回放耗时
+     */
+    public void replay(RenderCommandList list, RenderCommandList.Visitor visitor) {
+        long start = System.nanoTime();
+        list.replay(visitor);
+        mReplayTime.record(System.nanoTime() - start);
+    }
+
+    // 消费者还没有取走的帧数（0 或 1）
+    public int getPendingFrames() {
+        return (mMiddle.get() & FRESH) != 0 ? 1 : 0;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * 某一时刻的统计数据，耗时单位是纳秒
+     */
+    public static class Snapshot {
+        public final long publishedFrames;
+        public final long droppedFrames;  // 还没被回放就被新帧覆盖的帧数
+        public final long acquiredFrames;
+        public final int pendingFrames;
+        public final int lastCommandCount;
+        public final int maxCommandCount;
+        public final long recordTimeP50;
+        public final long recordTimeP99;
+        public final long publishLatencyP50;
+        public final long publishLatencyP99;
+        public final long replayTimeP50;
+        public final long replayTimeP99;
+
+        private Snapshot(RenderCommandQueue queue) {
+            publishedFrames = queue.mPublishedFrames;
+            droppedFrames = queue.mDroppedFrames;
+            acquiredFrames = queue.mAcquiredFrames;
+            pendingFrames = queue.getPendingFrames();
+            lastCommandCount = queue.mLastCommandCount;
+            maxCommandCount = queue.mMaxCommandCount;
+            recordTimeP50 = queue.mRecordTime.getPercentile(50);
+            recordTimeP99 = queue.mRecordTime.getPercentile(99);
+            publishLatencyP50 = queue.mPublishLatency.getPercentile(50);
+            publishLatencyP99 = queue.mPublishLatency.getPercentile(99);
+            replayTimeP50 = queue.mReplayTime.getPercentile(50);
+            replayTimeP99 = queue.mReplayTime.getPercentile(99);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "published=%d dropped=%d acquired=%d pending=%d commands last=%d max=%d"
+                            + " record p50=%.3fms p99=%.3fms latency p50=%.3fms p99=%.3fms"
+                            + " replay p50=%.3fms p99=%.3fms",
+                    publishedFrames, droppedFrames, acquiredFrames, pendingFrames,
+                    lastCommandCount, maxCommandCount,
+                    recordTimeP50 / 1e6, recordTimeP99 / 1e6,
+                    publishLatencyP50 / 1e6, publishLatencyP99 / 1e6,
+                    replayTimeP50 / 1e6, replayTimeP99 / 1e6);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Locale;
+
+/**
+ * 动态分辨率控制器：根据最近的帧耗时在若干个分辨率档位之间切换。
+ * <p>
+ * 档位在 [minScale, maxScale] 之间等距分布，初始为最高档。为了避免画质来回跳动，升降采用不对称的滞后策略：
+ * <ul>
+ *     <li>降档：最近 {@link #WINDOW} 帧的平均耗时超过目标时立即降档，按填充率与 scale² 成正比一次降到预计够用的档位</li>
+ *     <li>升档：平均耗时连续 {@link #UP_FRAMES} 帧低于目标的 {@link #UP_THRESHOLD} 倍才升一档</li>
+ *     <li>每次切换之后的 {@link #COOLDOWN_FRAMES} 帧内不再切换，新档位的耗时需要重新积累</li>
+ * </ul>
+ * 不依赖 GL，只能在一个线程（通常是 GL 线程）使用。
+ */
+public class ResolutionController {
+    public static final int WINDOW = 8;
+    public static final float UP_THRESHOLD = 0.75f;
+    public static final int UP_FRAMES = 60;
+    public static final int COOLDOWN_FRAMES = 30;
+    // 降档时按目标的 90% 估算，留出一些余量
+    private static final float DOWN_HEADROOM = 0.9f;
+
+    private final float[] mScales;
+    private final long mTargetNanos;
+    private final long[] mWindow = new long[WINDOW];
+    private int mWindowCount = 0;
+    private int mWindowIndex = 0;
+    private long mWindowSum = 0;
+
+    private int mLevel;
+    private int mCooldown = 0;
+    private int mUnderFrames = 0; // 连续低于升档阈值的帧数
+
+    // 统计数据
+    private final long[] mTimeAtLevel;
+    private final long[] mFramesAtLevel;
+    private long mScaleChanges = 0;
+
+    /**
+     * @param minScale         最低档位的缩放比例，例如 0.5
+     * @param maxScale         最高档位的缩放比例，通常为 1.0
+     * @param levelCount       档位个数，至少为 2
+     * @param targetFrameNanos 每帧的目标耗时
+     */
+    public ResolutionController(float minScale, float maxScale, int levelCount, long targetFrameNanos) {
+        if (levelCount < 2 || minScale <= 0.0f || minScale >= maxScale || targetFrameNanos <= 0) {
+            throw new IllegalArgumentException("Invalid resolution levels");
+        }
+        mScales = new float[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            mScales[i] = minScale + (maxScale - minScale) * i / (levelCount - 1);
+        }
+        mTargetNanos = targetFrameNanos;
+        mTimeAtLevel = new long[levelCount];
+        mFramesAtLevel = new long[levelCount];
+        mLevel = levelCount - 1;
+    }
+
+    /**
+     * 输入一帧的耗时（最好是 GPU 耗时），需要切换档位时返回 true
+     */
+    public boolean addSample(long frameTimeNanos) {
+        if (mWindowCount == WINDOW) {
+            mWindowSum -= mWindow[mWindowIndex];
+        } else {
+            mWindowCount++;
+        }
+        mWindow[mWindowIndex] = frameTimeNanos;
+        mWindowSum += frameTimeNanos;
+        mWindowIndex = (mWindowIndex + 1) % WINDOW;
+
+        if (mCooldown > 0) {
+            mCooldown--;
+            return false;
+        }
+        if (mWindowCount < WINDOW) {
+            return false;
+        }
+        long average = mWindowSum / WINDOW;
+        if (average > mTargetNanos) {
+            mUnderFrames = 0;
+            if (mLevel == 0) {
+                return false;
+            }
+            // 填充率与面积（scale²）成正比，估算能回到目标以内的比例
+            float desired = mScales[mLevel] * (float) Math.sqrt(DOWN_HEADROOM * mTargetNanos / average);
+            int level = mLevel - 1;
+            while (level > 0 && mScales[level] > desired) {
+                level--;
+            }
+            return setLevel(level);
+        }
+        if (average < mTargetNanos * UP_THRESHOLD && mLevel < mScales.length - 1) {
+            if (++mUnderFrames >= UP_FRAMES) {
+                return setLevel(mLevel + 1);
+            }
+        } else {
+            mUnderFrames = 0;
+        }
+        return false;
+    }
+
+    /**
+     * 按实际经过的时间（例如帧间隔）累计当前档位的停留时间，每帧调用一次
+     */
+    public void advance(long elapsedNanos) {
+        mTimeAtLevel[mLevel] += elapsedNanos;
+        mFramesAtLevel[mLevel]++;
+    }
+
+    private boolean setLevel(int level) {
+        mLevel = level;
+        mScaleChanges++;
+        mCooldown = COOLDOWN_FRAMES;
+        mUnderFrames = 0;
+        // 旧档位的耗时不能代表新档位
+        mWindowCount = 0;
+        mWindowIndex = 0;
+        mWindowSum = 0;
+        return true;
+    }
+
+    // 回到最高档并清空历史（例如 surface 尺寸变化后），统计数据保留
+    public void reset() {
+        mLevel = mScales.length - 1;
+        mCooldown = 0;
+        mUnderFrames = 0;
+        mWindowCount = 0;
+        mWindowIndex = 0;
+        mWindowSum = 0;
+    }
+
+    public float getScale() {
+        return mScales[mLevel];
+    }
+
+    public int getLevel() {
+        return mLevel;
+    }
+
+    public int getLevelCount() {
+        return mScales.length;
+    }
+
+    public float getLevelScale(int level) {
+        return mScales[level];
+    }
+
+    public long getTimeAtLevel(int level) {
+        return mTimeAtLevel[level];
+    }
+
+    public long getFramesAtLevel(int level) {
+        return mFramesAtLevel[level];
+    }
+
+    public long getScaleChanges() {
+        return mScaleChanges;
+    }
+
+    public long getTargetFrameNanos() {
+        return mTargetNanos;
+    }
+
+    @Override
+    public String toString() {
+        long total = 0;
+        for (long time : mTimeAtLevel) {
+            total += time;
+        }
+        StringBuilder sb = new StringBuilder(String.format(Locale.US,
+                "scale=%.3f changes=%d", getScale(), mScaleChanges));
+        for (int i = 0; i < mScales.length; i++) {
+            sb.append(String.format(Locale.US, " %.3fx=%.1f%%", mScales[i],
+                    total == 0 ? 0.0 : 100.0 * mTimeAtLevel[i] / total));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 着色器源码预处理器：展开 #include 指令、为每个变体注入 #define，并按（文件, define 集合）缓存展开后的源码。
+ * <p>
+ * 不依赖 GL 和 Android，可以在任意线程使用；原始文件内容由 {@link SourceProvider} 提供（例如 assets 目录）。
+ * <ul>
+ *     <li>#include "name.glsl"：相对于 provider 根目录解析，同一个文件在一次展开中只会被包含一次</li>
+ *     <li>define 写作 "NAME" 或 "NAME=VALUE"，插入到 #version 之后（没有 #version 时插在最前面）</li>
+ * </ul>
+ */
+public class ShaderPreprocessor {
+    private static final String INCLUDE = "#include";
+    private static final String VERSION = "#version";
+
+    /**
+     * 原始着色器文件的来源
+     */
+    public interface SourceProvider {
+        String read(String name) throws IOException;
+    }
+
+    private final SourceProvider mProvider;
+    private final ConcurrentHashMap<String, String> mRawSources = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> mResolvedSources = new ConcurrentHashMap<>();
+
+    public ShaderPreprocessor(SourceProvider provider) {
+        mProvider = provider;
+    }
+
+    /**
+     * 读取整个输入流作为着色器源码（统一使用 \n 换行），读取完成后关闭输入流
+     */
+    public static String readSource(InputStream inputStream) throws IOException {
+        // 用于存储读取的着色器代码的字符串
+        StringBuilder shaderCode = new StringBuilder();
+        // 使用 BufferedReader 包装输入流，以便逐行读取文件内容
+        try (BufferedReader bufferedReader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            // 逐行读取文件内容并将每行内容追加到 shaderCode 中
+            while ((line = bufferedReader.readLine()) != null) {
+                shaderCode.append(line).append("\n");
+            }
+        }
+        return shaderCode.toString();
+    }
+
+    /**
+     * 获取展开后的着色器源码
+     *
+     * @param name    文件名
+     * @param defines 本变体需要注入的宏定义
+     * @return 展开 #include 并注入 #define 之后的源码
+     * @throws IOException 文件或其包含的文件无法读取，或者存在循环包含
+     */
+    public String load(String name, String... defines) throws IOException {
+        String key = cacheKey(name, defines);
+        String resolved = mResolvedSources.get(key);
+        if (resolved == null) {
+            StringBuilder body = new StringBuilder();
+            expand(name, body, new HashSet<String>(), new ArrayList<String>());
+            resolved = injectDefines(body.toString(), defines);
+            mResolvedSources.put(key, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * 预先读取一批文件的原始内容并展开默认（不带 define）变体，适合在后台线程调用
+     */
+    public void preload(Iterable<String> names) {
+        for (String name : names) {
+            try {
+                load(name);
+            } catch (IOException e) {
+                // 预加载失败不影响后续按需加载，真正使用时会再次报告错误
+            }
+        }
+    }
+
+    // 丢弃所有缓存的源码
+    public void clear() {
+        mRawSources.clear();
+        mResolvedSources.clear();
+    }
+
+    // 已缓存的展开结果个数
+    public int getResolvedCount() {
+        return mResolvedSources.size();
+    }
+
+    private String raw(String name) throws IOException {
+        String source = mRawSources.get(name);
+        if (source == null) {
+            source = mProvider.read(name);
+            mRawSources.put(name, source);
+        }
+        return source;
+    }
+
+    private void expand(String name, StringBuilder out, Set<String> included, List<String> stack)
+            throws IOException {
+        if (stack.contains(name)) {
+            throw new IOException("Circular #include: " + stack + " -> " + name);
+        }
+        if (!included.add(name)) {
+            return; // 已经包含过，相当于自动的 include guard
+        }
+        stack.add(name);
+        String source = raw(name);
+        int start = 0;
+        int length = source.length();
+        while (start < length) {
+            int end = source.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            String line = source.substring(start, end);
+            String trimmed = line.trim();
+            if (trimmed.startsWith(INCLUDE)) {
+                expand(includeTarget(trimmed, name), out, included, stack);
+            } else {
+                out.append(line).append('\n');
+            }
+            start = end + 1;
+        }
+        stack.remove(stack.size() - 1);
+    }
+
+    // 解析 #include "file" 或 #include <file> 中的文件名
+    private static String includeTarget(String line, String from) throws IOException {
+        String rest = line.substring(INCLUDE.length()).trim();
+        if (rest.length() >= 2) {
+            char open = rest.charAt(0);
+            char close = open == '<' ? '>' : open;
+            int end = rest.indexOf(close, 1);
+            if ((open == '"' || open == '<') && end > 1) {
+                return rest.substring(1, end);
+            }
+        }
+        throw new IOException("Malformed #include in " + from + ": " + line);
+    }
+
+    private static String injectDefines(String source, String[] defines) {
+        if (defines == null || defines.length == 0) {
+            return source;
+        }
+        StringBuilder block = new StringBuilder();
+        for (String define : defines) {
+            int eq = define.indexOf('=');
+            block.append("#define ");
+            if (eq < 0) {
+                block.append(define);
+            } else {
+                block.append(define, 0, eq).append(' ').append(define.substring(eq + 1));
+            }
+            block.append('\n');
+        }
+        // #version 必须是第一行，宏定义插到它后面
+        int versionLine = source.startsWith(VERSION) ? 0 : source.indexOf("\n" + VERSION);
+        if (versionLine < 0) {
+            return block + source;
+        }
+        int insertAt = source.indexOf('\n', versionLine == 0 ? 0 : versionLine + 1);
+        if (insertAt < 0) {
+            return source + "\n" + block;
+        }
+        return source.substring(0, insertAt + 1) + block + source.substring(insertAt + 1);
+    }
+
+    // define 的顺序不影响结果，排序后作为缓存 key 的一部分
+    private static String cacheKey(String name, String[] defines) {
+        if (defines == null || defines.length == 0) {
+            return name;
+        }
+        String[] sorted = defines.clone();
+        Arrays.sort(sorted);
+        StringBuilder key = new StringBuilder(name);
+        for (String define : sorted) {
+            key.append('|').append(define);
+        }
+        return key.toString();
+    }
+}
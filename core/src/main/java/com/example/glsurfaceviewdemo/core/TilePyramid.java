@@ -0,0 +1,134 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 大图的瓦片金字塔：第 level 层按 inSampleSize = 2^level 解码，每个瓦片解码后最多 tileSize x tileSize 像素，
+ * 在原图中覆盖 (tileSize * 2^level) 见方的区域。最粗的一层整张图只有一个瓦片，可以作为加载期间的占位。
+ * <p>
+ * 瓦片用一个 long 键表示（层级、列、行），坐标都以原图像素为单位，原点在左上角。不依赖 Android，可以在 JVM 上测试。
+ */
+public final class TilePyramid {
+    private final int mImageWidth;
+    private final int mImageHeight;
+    private final int mTileSize;
+    private final int mLevelCount;
+
+    public TilePyramid(int imageWidth, int imageHeight, int tileSize) {
+        if (imageWidth <= 0 || imageHeight <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("Invalid pyramid " + imageWidth + "x" + imageHeight + "/" + tileSize);
+        }
+        mImageWidth = imageWidth;
+        mImageHeight = imageHeight;
+        mTileSize = tileSize;
+        int levels = 1;
+        while ((long) tileSize << (levels - 1) < Math.max(imageWidth, imageHeight)) {
+            levels++;
+        }
+        mLevelCount = levels;
+    }
+
+    public int getImageWidth() {
+        return mImageWidth;
+    }
+
+    public int getImageHeight() {
+        return mImageHeight;
+    }
+
+    public int getTileSize() {
+        return mTileSize;
+    }
+
+    public int getLevelCount() {
+        return mLevelCount;
+    }
+
+    // 最粗的一层（整张图一个瓦片）
+    public int getCoarsestLevel() {
+        return mLevelCount - 1;
+    }
+
+    // 解码时使用的 inSampleSize
+    public static int getSampleSize(int level) {
+        return 1 << level;
+    }
+
+    // 一个瓦片在原图中覆盖的边长
+    public int getTileSpan(int level) {
+        return mTileSize << level;
+    }
+
+    public int getColumns(int level) {
+        int span = getTileSpan(level);
+        return (mImageWidth + span - 1) / span;
+    }
+
+    public int getRows(int level) {
+        int span = getTileSpan(level);
+        return (mImageHeight + span - 1) / span;
+    }
+
+    /**
+     * 根据屏幕上一个像素覆盖的原图像素数选择层级：选择不比屏幕更粗的最粗层级，
+     * 例如缩小到 1/3 显示时使用 inSampleSize = 2 的层级，放大显示时使用原图
+     */
+    public int selectLevel(float imagePixelsPerScreenPixel) {
+        int level = 0;
+        while (level < mLevelCount - 1 && (1 << (level + 1)) <= imagePixelsPerScreenPixel) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 瓦片在原图中的区域，右下边界不包含；最右一列和最下一行会被裁剪到图片范围以内
+     *
+     * @param out 输出 {left, top, right, bottom}
+     */
+    public void getTileRect(int level, int column, int row, int[] out) {
+        int span = getTileSpan(level);
+        out[0] = column * span;
+        out[1] = row * span;
+        out[2] = Math.min(out[0] + span, mImageWidth);
+        out[3] = Math.min(out[1] + span, mImageHeight);
+    }
+
+    /**
+     * 计算和原图区域相交的瓦片范围
+     *
+     * @param out 输出 {firstColumn, firstRow, lastColumn, lastRow}（包含）
+     * @return 区域和图片不相交时返回 false
+     */
+    public boolean getTileRange(int level, float left, float top, float right, float bottom, int[] out) {
+        if (right <= 0 || bottom <= 0 || left >= mImageWidth || top >= mImageHeight || right <= left || bottom <= top) {
+            return false;
+        }
+        int span = getTileSpan(level);
+        out[0] = Math.max(0, (int) (left / span));
+        out[1] = Math.max(0, (int) (top / span));
+        out[2] = Math.min(getColumns(level) - 1, (int) Math.ceil(right / span) - 1);
+        out[3] = Math.min(getRows(level) - 1, (int) Math.ceil(bottom / span) - 1);
+        return true;
+    }
+
+    // 瓦片键：高 8 位为层级，中间 28 位为行，低 28 位为列
+    public static long key(int level, int column, int row) {
+        return ((long) level << 56) | ((long) row << 28) | column;
+    }
+
+    public static int level(long key) {
+        return (int) (key >>> 56);
+    }
+
+    public static int row(long key) {
+        return (int) ((key >>> 28) & 0xFFFFFFF);
+    }
+
+    public static int column(long key) {
+        return (int) (key & 0xFFFFFFF);
+    }
+
+    @Override
+    public String toString() {
+        return "TilePyramid{" + mImageWidth + "x" + mImageHeight + ", tile=" + mTileSize + ", levels=" + mLevelCount + "}";
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.Arrays;
+
+/**
+ * 每帧根据 mvp 矩阵计算大图的哪些瓦片需要显示、哪些需要预取。
+ * <ul>
+ *     <li>可见瓦片：屏幕范围内、按当前缩放选择的层级上的所有瓦片，按到屏幕中心的距离排序，中间的先加载</li>
+ *     <li>预取瓦片：可见范围外一圈的瓦片；平移时再沿移动方向多取 {@link #PREFETCH_AHEAD} 圈，
+ *     让新露出来的瓦片在进入屏幕之前就已经解码</li>
+ * </ul>
+ * mvp 矩阵沿用 TextureRender 的约定：图片占模型坐标的 [-1, 1] 正方形，左上角是原图的 (0, 0)。
+ * 不依赖 GL，只能在一个线程（通常是 GL 线程）使用，update 不分配内存（列表容量增长除外）。
+ */
+public class TileScheduler {
+    public static final int PREFETCH_RING = 1;
+    public static final int PREFETCH_AHEAD = 2;
+    // 中心移动超过可见宽度的这个比例才认为在平移，过滤掉手指的抖动
+    private static final float PAN_THRESHOLD = 0.005f;
+
+    private final TilePyramid mPyramid;
+    private final float[] mRect = new float[4];
+    private final int[] mRange = new int[4];
+
+    private int mLevel = 0;
+    private float mImageLeft;   // 可见区域（原图像素，可能超出图片范围）
+    private float mImageTop;
+    private float mImageRight;
+    private float mImageBottom;
+    private float mScale;       // 屏幕上一个像素覆盖的原图像素数
+    private float mLastCenterX = Float.NaN;
+    private float mLastCenterY = Float.NaN;
+    private int mPanX = 0;      // 本帧的平移方向，-1 / 0 / 1
+    private int mPanY = 0;
+
+    private long[] mVisible = new long[64];
+    private float[] mVisibleDistance = new float[64];
+    private int mVisibleCount = 0;
+    private long[] mPrefetch = new long[64];
+    private float[] mPrefetchDistance = new float[64];
+    private int mPrefetchCount = 0;
+
+    public TileScheduler(TilePyramid pyramid) {
+        mPyramid = pyramid;
+    }
+
+    /**
+     * 根据本帧的 mvp 矩阵更新可见和预取列表
+     *
+     * @param surfaceWidth 绘制目标的宽度（像素），用于选择层级
+     */
+    public void update(float[] mvp, int offset, int surfaceWidth) {
+        mVisibleCount = 0;
+        mPrefetchCount = 0;
+        if (!ViewportMath.visibleRect(mvp, offset, mRect) || surfaceWidth <= 0) {
+            return;
+        }
+        int width = mPyramid.getImageWidth();
+        int height = mPyramid.getImageHeight();
+        // 模型坐标 -> 原图像素（y 轴向下）
+        mImageLeft = (mRect[0] + 1.0f) * 0.5f * width;
+        mImageRight = (mRect[2] + 1.0f) * 0.5f * width;
+        mImageTop = (1.0f - mRect[3]) * 0.5f * height;
+        mImageBottom = (1.0f - mRect[1]) * 0.5f * height;
+        mScale = (mImageRight - mImageLeft) / surfaceWidth;
+        int level = mPyramid.selectLevel(mScale);
+
+        float centerX = (mImageLeft + mImageRight) * 0.5f;
+        float centerY = (mImageTop + mImageBottom) * 0.5f;
+        float threshold = (mImageRight - mImageLeft) * PAN_THRESHOLD;
+        mPanX = 0;
+        mPanY = 0;
+        if (level == mLevel && !Float.isNaN(mLastCenterX)) {
+            float dx = centerX - mLastCenterX;
+            float dy = centerY - mLastCenterY;
+            mPanX = dx > threshold ? 1 : (dx < -threshold ? -1 : 0);
+            mPanY = dy > threshold ? 1 : (dy < -threshold ? -1 : 0);
+        }
+        mLevel = level;
+        mLastCenterX = centerX;
+        mLastCenterY = centerY;
+
+        if (!mPyramid.getTileRange(level, mImageLeft, mImageTop, mImageRight, mImageBottom, mRange)) {
+            return;
+        }
+        int firstColumn = mRange[0];
+        int firstRow = mRange[1];
+        int lastColumn = mRange[2];
+        int lastRow = mRange[3];
+        float span = mPyramid.getTileSpan(level);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                addVisible(TilePyramid.key(level, column, row), distance(column, row, span, centerX, centerY));
+            }
+        }
+
+        // 预取范围：外扩一圈，平移方向上再多扩几圈
+        int prefetchLeft = Math.max(0, firstColumn - PREFETCH_RING - (mPanX < 0 ? PREFETCH_AHEAD : 0));
+        int prefetchRight = Math.min(mPyramid.getColumns(level) - 1,
+                lastColumn + PREFETCH_RING + (mPanX > 0 ? PREFETCH_AHEAD : 0));
+        int prefetchTop = Math.max(0, firstRow - PREFETCH_RING - (mPanY < 0 ? PREFETCH_AHEAD : 0));
+        int prefetchBottom = Math.min(mPyramid.getRows(level) - 1,
+                lastRow + PREFETCH_RING + (mPanY > 0 ? PREFETCH_AHEAD : 0));
+        for (int row = prefetchTop; row <= prefetchBottom; row++) {
+            for (int column = prefetchLeft; column <= prefetchRight; column++) {
+                if (row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn) {
+                    continue;
+                }
+                addPrefetch(TilePyramid.key(level, column, row), distance(column, row, span, centerX, centerY));
+            }
+        }
+    }
+
+    // 瓦片中心到屏幕中心的距离平方（原图像素）
+    private static float distance(int column, int row, float span, float centerX, float centerY) {
+        float dx = (column + 0.5f) * span - centerX;
+        float dy = (row + 0.5f) * span - centerY;
+        return dx * dx + dy * dy;
+    }
+
+    // 插入排序，每帧只有几十个瓦片
+    private void addVisible(long key, float distance) {
+        if (mVisibleCount == mVisible.length) {
+            mVisible = Arrays.copyOf(mVisible, mVisibleCount * 2);
+            mVisibleDistance = Arrays.copyOf(mVisibleDistance, mVisibleCount * 2);
+        }
+        mVisibleCount = insert(mVisible, mVisibleDistance, mVisibleCount, key, distance);
+    }
+
+    private void addPrefetch(long key, float distance) {
+        if (mPrefetchCount == mPrefetch.length) {
+            mPrefetch = Arrays.copyOf(mPrefetch, mPrefetchCount * 2);
+            mPrefetchDistance = Arrays.copyOf(mPrefetchDistance, mPrefetchCount * 2);
+        }
+        mPrefetchCount = insert(mPrefetch, mPrefetchDistance, mPrefetchCount, key, distance);
+    }
+
+    private static int insert(long[] keys, float[] distances, int count, long key, float distance) {
+        int i = count;
+        while (i > 0 && distances[i - 1] > distance) {
+            keys[i] = keys[i - 1];
+            distances[i] = distances[i - 1];
+            i--;
+        }
+        keys[i] = key;
+        distances[i] = distance;
+        return count + 1;
+    }
+
+    public TilePyramid getPyramid() {
+        return mPyramid;
+    }
+
+    // 本帧使用的层级
+    public int getLevel() {
+        return mLevel;
+    }
+
+    // 屏幕上一个像素覆盖的原图像素数
+    public float getScale() {
+        return mScale;
+    }
+
+    public int getVisibleCount() {
+        return mVisibleCount;
+    }
+
+    public long getVisibleKey(int index) {
+        return mVisible[index];
+    }
+
+    public int getPrefetchCount() {
+        return mPrefetchCount;
+    }
+
+    public long getPrefetchKey(int index) {
+        return mPrefetch[index];
+    }
+
+    // 本帧的平移方向，-1 / 0 / 1（图片坐标，y 轴向下）
+    public int getPanX() {
+        return mPanX;
+    }
+
+    public int getPanY() {
+        return mPanY;
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+
+/**
+ * 记账的 GL 后端：所有命令原样转发给被包装的后端，同时把对象的创建、删除和数据上传记入 {@link GpuMemoryTracker}。
+ * <p>
+ * glBufferData / glTexImage2D 作用于当前绑定的对象，所以这里跟踪缓冲绑定和每个纹理单元的 GL_TEXTURE_2D 绑定；
+ * 其他纹理目标只统计对象个数；帧缓冲只统计个数（存储在附着的纹理和 renderbuffer 上），
+ * renderbuffer 按 glRenderbufferStorage 时绑定的对象记大小，同步对象只转发。绑定跟踪只是写几个字段，不加锁，只能在 GL 线程使用（和 GL 上下文一样）。
+ */
+public final class TrackingGLBackend implements GLBackend {
+    private static final int GL_TEXTURE_2D = 0x0DE1;
+    private static final int GL_TEXTURE0 = 0x84C0;
+    private static final int GL_ELEMENT_ARRAY_BUFFER = 0x8893;
+    private static final int MAX_TEXTURE_UNITS = 32;
+    private static final int MAX_BUFFER_TARGETS = 8;
+
+    private final GLBackend mDelegate;
+    private final GpuMemoryTracker mTracker;
+
+    // 当前的绑定状态
+    private final int[] mBufferTargets = new int[MAX_BUFFER_TARGETS];
+    private final int[] mBoundBuffers = new int[MAX_BUFFER_TARGETS];
+    private int mBufferTargetCount = 0;
+    private final int[] mBoundTextures = new int[MAX_TEXTURE_UNITS]; // 每个纹理单元的 GL_TEXTURE_2D
+    private int mActiveUnit = 0;
+    private int mBoundRenderbuffer = 0;
+
+    public TrackingGLBackend(GLBackend delegate, GpuMemoryTracker tracker) {
+        mDelegate = delegate;
+        mTracker = tracker;
+    }
+
+    public GLBackend getDelegate() {
+        return mDelegate;
+    }
+
+    public GpuMemoryTracker getTracker() {
+        return mTracker;
+    }
+
+    /**
+     * 新的 EGL 上下文中所有绑定都是 0，上下文重建后调用
+     */
+    public void resetBindings() {
+        mBufferTargetCount = 0;
+        Arrays.fill(mBoundTextures, 0);
+        mActiveUnit = 0;
+        mBoundRenderbuffer = 0;
+    }
+
+    private int boundBuffer(int target) {
+        for (int i = 0; i < mBufferTargetCount; i++) {
+            if (mBufferTargets[i] == target) {
+                return mBoundBuffers[i];
+            }
+        }
+        return 0;
+    }
+
+    private void setBoundBuffer(int target, int buffer) {
+        for (int i = 0; i < mBufferTargetCount; i++) {
+            if (mBufferTargets[i] == target) {
+                mBoundBuffers[i] = buffer;
+                return;
+            }
+        }
+        if (mBufferTargetCount < MAX_BUFFER_TARGETS) {
+            mBufferTargets[mBufferTargetCount] = target;
+            mBoundBuffers[mBufferTargetCount++] = buffer;
+        }
+    }
+
+    private int boundTexture(int target) {
+        return target == GL_TEXTURE_2D ? mBoundTextures[mActiveUnit] : 0;
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        mDelegate.glGenBuffers(n, buffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onCreate(GpuMemoryTracker.BUFFER, buffers[i]);
+        }
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        mDelegate.glGenTextures(n, textures, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onCreate(GpuMemoryTracker.TEXTURE, textures[i]);
+        }
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        mDelegate.glGenVertexArrays(n, arrays, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onCreate(GpuMemoryTracker.VERTEX_ARRAY, arrays[i]);
+        }
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        mDelegate.glDeleteBuffers(n, buffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onDelete(GpuMemoryTracker.BUFFER, buffers[i]);
+            // 删除正在绑定的缓冲会使其绑定点回到 0
+            for (int t = 0; t < mBufferTargetCount; t++) {
+                if (mBoundBuffers[t] == buffers[i]) {
+                    mBoundBuffers[t] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        mDelegate.glDeleteTextures(n, textures, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onDelete(GpuMemoryTracker.TEXTURE, textures[i]);
+            for (int unit = 0; unit < MAX_TEXTURE_UNITS; unit++) {
+                if (mBoundTextures[unit] == textures[i]) {
+                    mBoundTextures[unit] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int n, int[] arrays, int offset) {
+        mDelegate.glDeleteVertexArrays(n, arrays, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onDelete(GpuMemoryTracker.VERTEX_ARRAY, arrays[i]);
+        }
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        mDelegate.glBindBuffer(target, buffer);
+        setBoundBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        mDelegate.glBindTexture(target, texture);
+        if (target == GL_TEXTURE_2D) {
+            mBoundTextures[mActiveUnit] = texture;
+        }
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        mDelegate.glBindVertexArray(array);
+        // GL_ELEMENT_ARRAY_BUFFER 的绑定属于 VAO，切换 VAO 后不知道绑定的是哪个，等下一次显式绑定
+        setBoundBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        mDelegate.glActiveTexture(texture);
+        int unit = texture - GL_TEXTURE0;
+        if (unit >= 0 && unit < MAX_TEXTURE_UNITS) {
+            mActiveUnit = unit;
+        }
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        mDelegate.glUseProgram(program);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        mDelegate.glBufferData(target, size, data, usage);
+        mTracker.setBufferSize(boundBuffer(target), size);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        mDelegate.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        mDelegate.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+        int bpp = GpuMemoryTracker.bytesPerPixel(internalformat);
+        mTracker.setTextureLevel(boundTexture(target), level, width, height, bpp, (long) width * height * bpp);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalformat, Object bitmap, int width, int height) {
+        mDelegate.texImage2D(target, level, internalformat, bitmap, width, height);
+        int bpp = GpuMemoryTracker.bytesPerPixel(internalformat);
+        mTracker.setTextureLevel(boundTexture(target), level, width, height, bpp, (long) width * height * bpp);
+    }
+
+    @Override
+    public void texSubImage2D(int target, int level, int xoffset, int yoffset, Object bitmap, int width, int height) {
+        mDelegate.texSubImage2D(target, level, xoffset, yoffset, bitmap, width, height);
+    }
+
+    @Override
+    public void glTexStorage2D(int target, int levels, int internalformat, int width, int height) {
+        mDelegate.glTexStorage2D(target, levels, internalformat, width, height);
+        mTracker.setTextureStorage(boundTexture(target), levels, internalformat, width, height);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data) {
+        mDelegate.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+        mTracker.setTextureLevel(boundTexture(target), level, width, height, 0, imageSize);
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        mDelegate.glGenerateMipmap(target);
+        mTracker.generateMipmaps(boundTexture(target));
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        mDelegate.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        mDelegate.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        mDelegate.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        mDelegate.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        mDelegate.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        mDelegate.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        mDelegate.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y) {
+        mDelegate.glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w) {
+        mDelegate.glUniform4f(location, x, y, z, w);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        mDelegate.glUniform4fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        mDelegate.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        return mDelegate.glCreateShader(type);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        mDelegate.glShaderSource(shader, string);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        mDelegate.glCompileShader(shader);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        mDelegate.glDeleteShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        int program = mDelegate.glCreateProgram();
+        mTracker.onCreate(GpuMemoryTracker.PROGRAM, program);
+        return program;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        mDelegate.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        mDelegate.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        mDelegate.glLinkProgram(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        mDelegate.glDeleteProgram(program);
+        mTracker.onDelete(GpuMemoryTracker.PROGRAM, program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        mDelegate.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        return mDelegate.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        return mDelegate.glGetActiveAttrib(program, index, size, sizeOffset, type, typeOffset);
+    }
+
+    @Override
+    public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset, int[] type, int typeOffset) {
+        return mDelegate.glGetActiveUniform(program, index, size, sizeOffset, type, typeOffset);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        return mDelegate.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        return mDelegate.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int glGetError() {
+        return mDelegate.glGetError();
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        mDelegate.glGenFramebuffers(n, framebuffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onCreate(GpuMemoryTracker.FRAMEBUFFER, framebuffers[i]);
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        mDelegate.glDeleteFramebuffers(n, framebuffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onDelete(GpuMemoryTracker.FRAMEBUFFER, framebuffers[i]);
+        }
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        mDelegate.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        mDelegate.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        return mDelegate.glCheckFramebufferStatus(target);
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        mDelegate.glGenRenderbuffers(n, renderbuffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onCreate(GpuMemoryTracker.RENDERBUFFER, renderbuffers[i]);
+        }
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        mDelegate.glDeleteRenderbuffers(n, renderbuffers, offset);
+        for (int i = offset; i < offset + n; i++) {
+            mTracker.onDelete(GpuMemoryTracker.RENDERBUFFER, renderbuffers[i]);
+            // 删除正在绑定的 renderbuffer 会使绑定点回到 0
+            if (mBoundRenderbuffer == renderbuffers[i]) {
+                mBoundRenderbuffer = 0;
+            }
+        }
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        mDelegate.glBindRenderbuffer(target, renderbuffer);
+        mBoundRenderbuffer = renderbuffer; // ES 3.0 只有 GL_RENDERBUFFER 一个目标
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        mDelegate.glRenderbufferStorage(target, internalformat, width, height);
+        mTracker.setRenderbufferSize(mBoundRenderbuffer,
+                (long) width * height * GpuMemoryTracker.bytesPerPixel(internalformat));
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        mDelegate.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+    }
+
+    @Override
+    public void glBlitFramebuffer(int srcX0, int srcY0, int srcX1, int srcY1, int dstX0, int dstY0, int dstX1, int dstY1,
+                                  int mask, int filter) {
+        mDelegate.glBlitFramebuffer(srcX0, srcY0, srcX1, srcY1, dstX0, dstY0, dstX1, dstY1, mask, filter);
+    }
+
+    @Override
+    public void glInvalidateFramebuffer(int target, int numAttachments, int[] attachments, int offset) {
+        mDelegate.glInvalidateFramebuffer(target, numAttachments, attachments, offset);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        mDelegate.glReadPixels(x, y, width, height, format, type, offset);
+    }
+
+    @Override
+    public Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        return mDelegate.glMapBufferRange(target, offset, length, access);
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        return mDelegate.glUnmapBuffer(target);
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        return mDelegate.glFenceSync(condition, flags);
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        return mDelegate.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        mDelegate.glDeleteSync(sync);
+    }
+
+    @Override
+    public void glFlush() {
+        mDelegate.glFlush();
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        mDelegate.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        mDelegate.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        mDelegate.glClear(mask);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        mDelegate.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        mDelegate.glDisable(cap);
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        mDelegate.glGetIntegerv(pname, params, offset);
+    }
+}
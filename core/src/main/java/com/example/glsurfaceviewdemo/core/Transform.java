@@ -0,0 +1,166 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 层级变换节点：局部变换为 平移 * 绕 z 轴旋转 * 缩放，世界矩阵 = 父节点世界矩阵 * 局部矩阵。
+ * <p>
+ * 修改局部变换只会标记脏标记，并让祖先节点记住“有脏的后代”；对根节点调用 {@link #update()} 时，
+ * 没有变化的子树既不重新计算也不遍历。矩阵数组在创建节点时分配，更新过程不分配内存。
+ * 不依赖 Android，需要在同一个线程中使用。
+ */
+public class Transform {
+    private Transform mParent;
+    private final List<Transform> mChildren = new ArrayList<>();
+
+    private float mX = 0.0f;
+    private float mY = 0.0f;
+    private float mZ = 0.0f;
+    private float mRotation = 0.0f; // 绕 z 轴的角度
+    private float mScaleX = 1.0f;
+    private float mScaleY = 1.0f;
+    private float mScaleZ = 1.0f;
+
+    private final float[] mLocalMatrix = new float[16];
+    private final float[] mWorldMatrix = new float[16];
+    private boolean mLocalDirty = true;     // 局部变换参数有变化
+    private boolean mWorldDirty = true;     // 世界矩阵需要重新计算
+    private boolean mDescendantDirty = false; // 有后代节点需要更新
+    private int mVersion = 0;               // 世界矩阵每次重新计算后加一，渲染器可以据此跳过重复上传
+
+    public Transform() {
+        Mat4.setIdentity(mLocalMatrix, 0);
+        Mat4.setIdentity(mWorldMatrix, 0);
+    }
+
+    public void setPosition(float x, float y, float z) {
+        if (mX == x && mY == y && mZ == z) {
+            return;
+        }
+        mX = x;
+        mY = y;
+        mZ = z;
+        markLocalDirty();
+    }
+
+    public void setRotation(float degrees) {
+        if (mRotation == degrees) {
+            return;
+        }
+        mRotation = degrees;
+        markLocalDirty();
+    }
+
+    public void setScale(float x, float y, float z) {
+        if (mScaleX == x && mScaleY == y && mScaleZ == z) {
+            return;
+        }
+        mScaleX = x;
+        mScaleY = y;
+        mScaleZ = z;
+        markLocalDirty();
+    }
+
+    public void addChild(Transform child) {
+        if (child.mParent != null) {
+            child.mParent.removeChild(child);
+        }
+        child.mParent = this;
+        mChildren.add(child);
+        child.mWorldDirty = true;
+        markDescendantDirty();
+    }
+
+    public void removeChild(Transform child) {
+        if (mChildren.remove(child)) {
+            child.mParent = null;
+            child.mWorldDirty = true;
+        }
+    }
+
+    public Transform getParent() {
+        return mParent;
+    }
+
+    public int getChildCount() {
+        return mChildren.size();
+    }
+
+    public Transform getChild(int index) {
+        return mChildren.get(index);
+    }
+
+    private void markLocalDirty() {
+        mLocalDirty = true;
+        if (!mWorldDirty) {
+            mWorldDirty = true;
+            if (mParent != null) {
+                mParent.markDescendantDirty();
+            }
+        }
+    }
+
+    // 向上标记，直到遇到已经标记过的祖先
+    private void markDescendantDirty() {
+        Transform node = this;
+        while (node != null && !node.mDescendantDirty) {
+            node.mDescendantDirty = true;
+            node = node.mParent;
+        }
+    }
+
+    /**
+     * 更新本节点及所有后代的世界矩阵，应当对根节点调用
+     *
+     * @return 本次重新计算的世界矩阵个数
+     */
+    public int update() {
+        return update(false);
+    }
+
+    private int update(boolean parentChanged) {
+        if (mLocalDirty) {
+            Mat4.setTranslateRotateScale(mLocalMatrix, 0, mX, mY, mZ, mRotation, mScaleX, mScaleY, mScaleZ);
+            mLocalDirty = false;
+        }
+        int updated = 0;
+        boolean changed = mWorldDirty || parentChanged;
+        if (changed) {
+            if (mParent == null) {
+                Mat4.copy(mWorldMatrix, 0, mLocalMatrix, 0);
+            } else {
+                Mat4.multiply(mWorldMatrix, 0, mParent.mWorldMatrix, 0, mLocalMatrix, 0);
+            }
+            mWorldDirty = false;
+            mVersion++;
+            updated++;
+        }
+        if (changed || mDescendantDirty) {
+            for (int i = 0, n = mChildren.size(); i < n; i++) {
+                Transform child = mChildren.get(i);
+                if (changed || child.mWorldDirty || child.mDescendantDirty) {
+                    updated += child.update(changed);
+                }
+            }
+        }
+        mDescendantDirty = false;
+        return updated;
+    }
+
+    /**
+     * 世界矩阵（调用方不能修改），需要先对根节点调用 {@link #update()}
+     */
+    public float[] getWorldMatrix() {
+        return mWorldMatrix;
+    }
+
+    // 局部矩阵，update 之后有效
+    public float[] getLocalMatrix() {
+        return mLocalMatrix;
+    }
+
+    public int getVersion() {
+        return mVersion;
+    }
+}
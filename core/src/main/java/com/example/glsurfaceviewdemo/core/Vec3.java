@@ -0,0 +1,73 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 三维向量运算，直接读写调用方提供的 float[]（带偏移），不分配内存；结果可以与输入是同一个位置。
+ */
+public final class Vec3 {
+    private Vec3() {
+    }
+
+    public static void set(float[] v, int offset, float x, float y, float z) {
+        v[offset] = x;
+        v[offset + 1] = y;
+        v[offset + 2] = z;
+    }
+
+    // result = a + b
+    public static void add(float[] result, int resultOffset, float[] a, int aOffset, float[] b, int bOffset) {
+        result[resultOffset] = a[aOffset] + b[bOffset];
+        result[resultOffset + 1] = a[aOffset + 1] + b[bOffset + 1];
+        result[resultOffset + 2] = a[aOffset + 2] + b[bOffset + 2];
+    }
+
+    // result = a - b
+    public static void subtract(float[] result, int resultOffset, float[] a, int aOffset, float[] b, int bOffset) {
+        result[resultOffset] = a[aOffset] - b[bOffset];
+        result[resultOffset + 1] = a[aOffset + 1] - b[bOffset + 1];
+        result[resultOffset + 2] = a[aOffset + 2] - b[bOffset + 2];
+    }
+
+    public static void scale(float[] v, int offset, float s) {
+        v[offset] *= s;
+        v[offset + 1] *= s;
+        v[offset + 2] *= s;
+    }
+
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset) {
+        return a[aOffset] * b[bOffset] + a[aOffset + 1] * b[bOffset + 1] + a[aOffset + 2] * b[bOffset + 2];
+    }
+
+    // result = a x b
+    public static void cross(float[] result, int resultOffset, float[] a, int aOffset, float[] b, int bOffset) {
+        float ax = a[aOffset], ay = a[aOffset + 1], az = a[aOffset + 2];
+        float bx = b[bOffset], by = b[bOffset + 1], bz = b[bOffset + 2];
+        result[resultOffset] = ay * bz - az * by;
+        result[resultOffset + 1] = az * bx - ax * bz;
+        result[resultOffset + 2] = ax * by - ay * bx;
+    }
+
+    public static float length(float[] v, int offset) {
+        return (float) Math.sqrt(dot(v, offset, v, offset));
+    }
+
+    // 归一化，零向量保持不变
+    public static void normalize(float[] v, int offset) {
+        float length = length(v, offset);
+        if (length > 0.0f) {
+            scale(v, offset, 1.0f / length);
+        }
+    }
+
+    /**
+     * 用矩阵变换点（w = 1，结果做透视除法）
+     */
+    public static void transformPoint(float[] result, int resultOffset, float[] m, int mOffset, float[] v, int vOffset) {
+        float x = v[vOffset], y = v[vOffset + 1], z = v[vOffset + 2];
+        float w = m[mOffset + 3] * x + m[mOffset + 7] * y + m[mOffset + 11] * z + m[mOffset + 15];
+        float rw = w != 0.0f ? 1.0f / w : 1.0f;
+        for (int i = 0; i < 3; i++) {
+            result[resultOffset + i] = (m[mOffset + i] * x + m[mOffset + 4 + i] * y
+                    + m[mOffset + 8 + i] * z + m[mOffset + 12 + i]) * rw;
+        }
+    }
+}
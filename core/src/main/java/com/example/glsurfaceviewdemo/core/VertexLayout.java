@@ -0,0 +1,241 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 交错存放的顶点布局：描述每个属性在 VBO 中的格式，负责把 float 顶点数据量化打包，
+ * 并生成对应的 glVertexAttribPointer 调用。
+ * <pre>
+ *     VertexLayout layout = new VertexLayout()
+ *             .add(0, 3, VertexLayout.SNORM16)   // 位置
+ *             .add(1, 2, VertexLayout.UNORM16);  // 纹理坐标
+ *     ByteBuffer data = layout.pack(vertices, 5, vertexCount);
+ *     layout.apply(gl, 0);                       // 在绑定 VAO 和 VBO 之后调用
+ * </pre>
+ * 每个属性按 4 字节对齐（例如 3 个半精度分量占 8 字节），GPU 读取未对齐的属性可能会变慢。
+ * 量化后的属性在着色器中仍然是 float，shader 代码不需要修改。
+ */
+public final class VertexLayout {
+    // 属性格式
+    public static final int FLOAT = 0;    // 32 位浮点，不量化
+    public static final int HALF = 1;     // 16 位浮点，适合范围较大但精度要求不高的数据
+    public static final int SNORM16 = 2;  // [-1, 1] 的 16 位定点数
+    public static final int UNORM16 = 3;  // [0, 1] 的 16 位定点数，例如纹理坐标
+    public static final int UNORM8 = 4;   // [0, 1] 的 8 位定点数，例如颜色
+    private static final String[] FORMAT_NAMES = {"float", "half", "snorm16", "unorm16", "unorm8"};
+
+    // glVertexAttribPointer / glDrawElements 使用的类型常量（与 GLES30 一致）
+    public static final int GL_BYTE = 0x1400;
+    public static final int GL_UNSIGNED_BYTE = 0x1401;
+    public static final int GL_SHORT = 0x1402;
+    public static final int GL_UNSIGNED_SHORT = 0x1403;
+    public static final int GL_UNSIGNED_INT = 0x1405;
+    public static final int GL_FLOAT = 0x1406;
+    public static final int GL_HALF_FLOAT = 0x140B;
+
+    private int mCount = 0;
+    private int[] mLocations = new int[4];
+    private int[] mComponents = new int[4];
+    private int[] mFormats = new int[4];
+    private int[] mOffsets = new int[4];
+    private int mStride = 0;
+    private int mSourceComponents = 0; // 打包时每个顶点读取的 float 个数
+
+    /**
+     * 追加一个属性，在源数据中按添加顺序依次读取 components 个 float
+     *
+     * @param location 着色器中的属性位置
+     * @param format   {@link #FLOAT} / {@link #HALF} / {@link #SNORM16} / {@link #UNORM16} / {@link #UNORM8}
+     */
+    public VertexLayout add(int location, int components, int format) {
+        if (components < 1 || components > 4 || format < FLOAT || format > UNORM8) {
+            throw new IllegalArgumentException("Invalid attribute: " + components + " x format " + format);
+        }
+        if (mCount == mLocations.length) {
+            mLocations = Arrays.copyOf(mLocations, mCount * 2);
+            mComponents = Arrays.copyOf(mComponents, mCount * 2);
+            mFormats = Arrays.copyOf(mFormats, mCount * 2);
+            mOffsets = Arrays.copyOf(mOffsets, mCount * 2);
+        }
+        mLocations[mCount] = location;
+        mComponents[mCount] = components;
+        mFormats[mCount] = format;
+        mOffsets[mCount] = mStride;
+        mStride += (components * componentSize(format) + 3) & ~3;
+        mSourceComponents += components;
+        mCount++;
+        return this;
+    }
+
+    private static int componentSize(int format) {
+        switch (format) {
+            case FLOAT:
+                return 4;
+            case UNORM8:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+
+    public int getAttributeCount() {
+        return mCount;
+    }
+
+    public int getLocation(int attribute) {
+        return mLocations[attribute];
+    }
+
+    public int getComponents(int attribute) {
+        return mComponents[attribute];
+    }
+
+    public int getFormat(int attribute) {
+        return mFormats[attribute];
+    }
+
+    // 属性在顶点中的字节偏移
+    public int getOffset(int attribute) {
+        return mOffsets[attribute];
+    }
+
+    // glVertexAttribPointer 的 type 参数
+    public int getGLType(int attribute) {
+        switch (mFormats[attribute]) {
+            case HALF:
+                return GL_HALF_FLOAT;
+            case SNORM16:
+                return GL_SHORT;
+            case UNORM16:
+                return GL_UNSIGNED_SHORT;
+            case UNORM8:
+                return GL_UNSIGNED_BYTE;
+            default:
+                return GL_FLOAT;
+        }
+    }
+
+    // glVertexAttribPointer 的 normalized 参数
+    public boolean isNormalized(int attribute) {
+        int format = mFormats[attribute];
+        return format == SNORM16 || format == UNORM16 || format == UNORM8;
+    }
+
+    // 每个顶点的字节数
+    public int getStride() {
+        return mStride;
+    }
+
+    // 源数据中每个顶点的 float 个数（所有属性分量之和）
+    public int getSourceComponents() {
+        return mSourceComponents;
+    }
+
+    /**
+     * 把交错存放的 float 顶点数据量化打包到新分配的直接内存中（本机字节序），返回的缓冲区 position 为 0
+     *
+     * @param sourceStride 源数据中每个顶点的 float 个数，不能小于 {@link #getSourceComponents()}
+     */
+    public ByteBuffer pack(float[] vertices, int sourceStride, int vertexCount) {
+        ByteBuffer out = ByteBuffer.allocateDirect(vertexCount * mStride).order(ByteOrder.nativeOrder());
+        pack(vertices, sourceStride, vertexCount, out);
+        out.position(0);
+        return out;
+    }
+
+    /**
+     * 把顶点数据量化打包到 out 的 position 处，写完后 position 位于最后一个顶点之后
+     */
+    public void pack(float[] vertices, int sourceStride, int vertexCount, ByteBuffer out) {
+        if (sourceStride < mSourceComponents) {
+            throw new IllegalArgumentException("Source stride " + sourceStride + " < " + mSourceComponents);
+        }
+        int base = out.position();
+        for (int v = 0; v < vertexCount; v++) {
+            int source = v * sourceStride;
+            int vertex = base + v * mStride;
+            for (int a = 0; a < mCount; a++) {
+                int position = vertex + mOffsets[a];
+                int components = mComponents[a];
+                int format = mFormats[a];
+                for (int c = 0; c < components; c++) {
+                    float value = vertices[source++];
+                    switch (format) {
+                        case FLOAT:
+                            out.putFloat(position + c * 4, value);
+                            break;
+                        case HALF:
+                            out.putShort(position + c * 2, VertexPacking.toHalfFloat(value));
+                            break;
+                        case SNORM16:
+                            out.putShort(position + c * 2, VertexPacking.toSnorm16(value));
+                            break;
+                        case UNORM16:
+                            out.putShort(position + c * 2, VertexPacking.toUnorm16(value));
+                            break;
+                        default:
+                            out.put(position + c, (byte) Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f));
+                            break;
+                    }
+                }
+                // 对齐填充的字节写 0
+                int size = components * componentSize(format);
+                for (int p = size; p < ((size + 3) & ~3); p++) {
+                    out.put(position + p, (byte) 0);
+                }
+            }
+        }
+        out.position(base + vertexCount * mStride);
+    }
+
+    /**
+     * 启用并配置所有属性，调用前需要绑定 VAO 和保存顶点数据的 VBO
+     *
+     * @param baseOffset 顶点数据在 VBO 中的起始字节
+     */
+    public void apply(GLBackend gl, int baseOffset) {
+        for (int a = 0; a < mCount; a++) {
+            gl.glEnableVertexAttribArray(mLocations[a]);
+            gl.glVertexAttribPointer(mLocations[a], mComponents[a], getGLType(a), isNormalized(a),
+                    mStride, baseOffset + mOffsets[a]);
+        }
+    }
+
+    /**
+     * 根据数据范围选择最省空间的格式：[0, 1] 用 {@link #UNORM16}，[-1, 1] 用 {@link #SNORM16}，其余用 {@link #HALF}。
+     * 位置等需要高精度的大范围数据请自行选择 {@link #FLOAT}
+     *
+     * @param offset     属性在源顶点中的 float 偏移
+     * @param components 属性的分量个数
+     */
+    public static int suggestFormat(float[] vertices, int stride, int vertexCount, int offset, int components) {
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int v = 0; v < vertexCount; v++) {
+            for (int c = 0; c < components; c++) {
+                float value = vertices[v * stride + offset + c];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (min >= 0.0f && max <= 1.0f) {
+            return UNORM16;
+        }
+        if (min >= -1.0f && max <= 1.0f) {
+            return SNORM16;
+        }
+        return HALF;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("VertexLayout{stride=").append(mStride);
+        for (int a = 0; a < mCount; a++) {
+            builder.append(", ").append(mLocations[a]).append(':').append(mComponents[a])
+                    .append(" x ").append(FORMAT_NAMES[mFormats[a]]).append(" @").append(mOffsets[a]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.glsurfaceviewdemo.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 顶点数据打包：把 CPU 端的坐标、索引和颜色整理成可以直接交给 glBufferData 的格式。
+ * <p>
+ * 只做内存布局，不调用 GL，可以在任意线程使用。
+ */
+public final class VertexPacking {
+    // 精灵顶点布局：x, y, u, v, rgba(4 个 unsigned byte)，每个顶点 5 个 int
+    public static final int SPRITE_INTS_PER_VERTEX = 5;
+    public static final int VERTICES_PER_QUAD = 4;
+    public static final int INDICES_PER_QUAD = 6;
+    public static final int SPRITE_INTS_PER_QUAD = SPRITE_INTS_PER_VERTEX * VERTICES_PER_QUAD;
+    // 16 位索引最多能寻址 65536 个顶点
+    public static final int MAX_VERTICES_16BIT = 65536;
+    public static final int MAX_QUADS_16BIT = MAX_VERTICES_16BIT / VERTICES_PER_QUAD;
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private VertexPacking() {
+    }
+
+    /**
+     * 把 float 数组拷贝到本机字节序的直接内存中（DMA 内存空间），返回的缓冲区 position 为 0
+     */
+    public static FloatBuffer toFloatBuffer(float[] data) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(data.length * 4)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        buffer.put(data);
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * 生成 quadCount 个四边形的 16 位索引，每个四边形都是 0,1,2, 2,1,3 的模式，
+     * 和 TRIANGLE_STRIP 的顶点顺序（左上、左下、右上、右下）一致。返回的缓冲区 position 为 0
+     */
+    public static ShortBuffer quadIndices(int quadCount) {
+        if (quadCount < 0 || quadCount > MAX_QUADS_16BIT) {
+            throw new IllegalArgumentException("quadCount must be in [0, " + MAX_QUADS_16BIT + "]: " + quadCount);
+        }
+        ShortBuffer indices = ByteBuffer.allocateDirect(quadCount * INDICES_PER_QUAD * 2)
+                .order(ByteOrder.nativeOrder())
+                .asShortBuffer();
+        for (int i = 0; i < quadCount; i++) {
+            short base = (short) (i * VERTICES_PER_QUAD);
+            indices.put(base);
+            indices.put((short) (base + 1));
+            indices.put((short) (base + 2));
+            indices.put((short) (base + 2));
+            indices.put((short) (base + 1));
+            indices.put((short) (base + 3));
+        }
+        indices.position(0);
+        return indices;
+    }
+
+    /**
+     * 把 32 位索引收窄成 16 位，所有索引必须小于 {@link #MAX_VERTICES_16BIT}。返回的缓冲区 position 为 0
+     */
+    public static ShortBuffer toShortIndices(int[] indices) {
+        ShortBuffer buffer = ByteBuffer.allocateDirect(indices.length * 2)
+                .order(ByteOrder.nativeOrder())
+                .asShortBuffer();
+        for (int index : indices) {
+            if ((index & 0xFFFF0000) != 0) {
+                throw new IllegalArgumentException("Index does not fit in 16 bits: " + index);
+            }
+            buffer.put((short) index);
+        }
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * float 转换成 IEEE 754 半精度浮点（GL_HALF_FLOAT），就近舍入到偶数；超出范围的值变成无穷大，
+     * 半精度只有 11 位有效数字，相对误差约为 1/2048
+     */
+    public static short toHalfFloat(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+        if (abs >= 0x7F800000) {
+            // 无穷大和 NaN
+            return (short) (sign | 0x7C00 | (abs > 0x7F800000 ? 0x200 : 0));
+        }
+        if (abs >= 0x47800000) {
+            return (short) (sign | 0x7C00); // >= 65536，溢出
+        }
+        if (abs < 0x38800000) {
+            // 小于 2^-14，变成半精度的非规格化数
+            if (abs < 0x33000000) {
+                return (short) sign; // 小于 2^-25，舍入为 0
+            }
+            int shift = 126 - (abs >>> 23);
+            int mantissa = (abs & 0x7FFFFF) | 0x800000;
+            int result = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (result & 1) != 0)) {
+                result++;
+            }
+            return (short) (sign | result);
+        }
+        // 重新计算指数偏移（127 -> 15），舍入进位可以自然地进到指数位
+        int result = (abs - 0x38000000) >> 13;
+        int remainder = abs & 0x1FFF;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (result & 1) != 0)) {
+            result++;
+        }
+        return (short) (sign | result);
+    }
+
+    // 半精度浮点转换回 float，用于检查量化误差
+    public static float halfToFloat(short half) {
+        int sign = (half & 0x8000) << 16;
+        int exponent = (half >>> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        if (exponent == 0) {
+            float value = mantissa * (1.0f / (1 << 24)); // 非规格化数
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 31) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    // [-1, 1] 量化为 GL_SHORT（normalized），超出范围的值被截断
+    public static short toSnorm16(float value) {
+        float clamped = Math.max(-1.0f, Math.min(1.0f, value));
+        return (short) Math.round(clamped * 32767.0f);
+    }
+
+    // [0, 1] 量化为 GL_UNSIGNED_SHORT（normalized），超出范围的值被截断
+    public static short toUnorm16(float value) {
+        float clamped = Math.max(0.0f, Math.min(1.0f, value));
+        return (short) Math.round(clamped * 65535.0f);
+    }
+
+    /**
+     * 把 0xRRGGBBAA 颜色转换成本机字节序的 int，写入内存后按 r, g, b, a 的顺序排列
+     */
+    public static int nativeColor(int rgba) {
+        return LITTLE_ENDIAN ? Integer.reverseBytes(rgba) : rgba;
+    }
+
+    /**
+     * 按精灵顶点布局写入一个四边形的 4 个顶点（左上、左下、右上、右下），float 以原始 bit 形式存放
+     *
+     * @param data   暂存区
+     * @param offset 写入位置（int 下标）
+     * @param color  已经用 {@link #nativeColor(int)} 转换过的颜色
+     * @return 写入后的下一个位置，即 offset + {@link #SPRITE_INTS_PER_QUAD}
+     */
+    public static int putSpriteQuad(int[] data, int offset, float x, float y, float width, float height,
+                                    float u0, float v0, float u1, float v1, int color) {
+        int left = Float.floatToRawIntBits(x);
+        int bottom = Float.floatToRawIntBits(y);
+        int right = Float.floatToRawIntBits(x + width);
+        int top = Float.floatToRawIntBits(y + height);
+        int s0 = Float.floatToRawIntBits(u0);
+        int t0 = Float.floatToRawIntBits(v0);
+        int s1 = Float.floatToRawIntBits(u1);
+        int t1 = Float.floatToRawIntBits(v1);
+        int i = offset;
+        // 左上角
+        data[i++] = left;
+        data[i++] = top;
+        data[i++] = s0;
+        data[i++] = t0;
+        data[i++] = color;
+        // 左下角
+        data[i++] = left;
+        data[i++] = bottom;
+        data[i++] = s0;
+        data[i++] = t1;
+        data[i++] = color;
+        // 右上角
+        data[i++] = right;
+        data[i++] = top;
+        data[i++] = s1;
+        data[i++] = t0;
+        data[i++] = color;
+        // 右下角
+        data[i++] = right;
+        data[i++] = bottom;
+        data[i++] = s1;
+        data[i++] = t1;
+        data[i++] = color;
+        return i;
+    }
+
+    /**
+     * 把暂存区的前 count 个 int 按绝对位置写入 target（从下标 0 开始），不改变 target 的 position，也不创建视图对象。
+     * glMapBufferRange 每次映射都返回新的 ByteBuffer，缓存 asIntBuffer 视图没有意义，每帧调用时用这个方法避免分配
+     *
+     * @param target 本机字节序的缓冲区，容量至少为 count * 4 字节
+     */
+    public static void putInts(ByteBuffer target, int[] data, int count) {
+        for (int i = 0; i < count; i++) {
+            target.putInt(i << 2, data[i]);
+        }
+    }
+}
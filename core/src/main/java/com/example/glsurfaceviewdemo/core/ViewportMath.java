@@ -0,0 +1,104 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * 视口和宽高比计算：让图片在窗口中等比例显示（不拉伸、居中、留黑边）。
+ * <p>
+ * 提供两种等价的做法：调整 glViewport 的区域，或者保持全屏视口、用正交投影矩阵压缩坐标范围。
+ */
+public final class ViewportMath {
+    private ViewportMath() {
+    }
+
+    /**
+     * 视口变换：计算居中且保持图片宽高比的最大视口
+     *
+     * @param out 输出 {x, y, width, height}，可以直接传给 glViewport
+     */
+    public static void fitViewport(int imageWidth, int imageHeight, int surfaceWidth, int surfaceHeight, int[] out) {
+        // 获取图片的宽高比
+        float imageRatio = (float) imageWidth / imageHeight;
+        // 获取surface（窗口）的宽高比
+        float surfaceRatio = (float) surfaceWidth / surfaceHeight;
+
+        int viewportWidth;
+        int viewportHeight;
+        if (imageRatio > surfaceRatio) {
+            // 图片宽高比大于窗口的宽高比，按照宽度填满
+            viewportWidth = surfaceWidth;
+            viewportHeight = (int) (surfaceWidth / imageRatio);
+        } else {
+            // 图片宽高比小于等于窗口的宽高比，按照高度填满
+            viewportWidth = (int) (surfaceHeight * imageRatio);
+            viewportHeight = surfaceHeight;
+        }
+
+        // 计算视口的中心位置
+        out[0] = (surfaceWidth - viewportWidth) / 2;
+        out[1] = (surfaceHeight - viewportHeight) / 2;
+        out[2] = viewportWidth;
+        out[3] = viewportHeight;
+    }
+
+    /**
+     * 正交投影变换：视口保持全屏，计算让 [-1, 1] 的图片按原始宽高比显示的正交投影矩阵
+     *
+     * @param projection 输出的列主序 4x4 矩阵
+     * @param offset     矩阵在数组中的起始下标
+     */
+    public static void fitOrtho(float[] projection, int offset,
+                                int imageWidth, int imageHeight, int surfaceWidth, int surfaceHeight) {
+        float imageAspectRatio = (float) imageWidth / (float) imageHeight;
+        float surfaceAspectRatio = (float) surfaceWidth / (float) surfaceHeight;
+
+        if (imageAspectRatio > surfaceAspectRatio) {
+            // 图片宽高比大于屏幕,按照宽度填满计算高度
+            float tb = imageAspectRatio / surfaceAspectRatio;
+            Mat4.ortho(projection, offset, -1.0f, 1.0f, -tb, tb, -1.0f, 1.0f);
+        } else {
+            // 图片宽高比小于等于屏幕,按照高度填满计算宽度
+            float tb = surfaceAspectRatio / imageAspectRatio;
+            Mat4.ortho(projection, offset, -tb, tb, -1.0f, 1.0f, -1.0f, 1.0f);
+        }
+    }
+
+    /**
+     * fitOrtho 的逆运算：计算整个屏幕（NDC 的 [-1, 1] 正方形）对应的模型坐标范围，用于判断图片的哪一部分可见。
+     * 只使用 mvp 矩阵在 xy 平面上的仿射部分（正交投影加缩放、平移，允许镜像）
+     *
+     * @param out 输出 {left, bottom, right, top}（模型坐标）
+     * @return 矩阵在 xy 平面上不可逆时返回 false
+     */
+    public static boolean visibleRect(float[] mvp, int offset, float[] out) {
+        // ndc = A * (x, y) + t，A = [[m0, m4], [m1, m5]]
+        float a = mvp[offset];
+        float b = mvp[offset + 4];
+        float c = mvp[offset + 1];
+        float d = mvp[offset + 5];
+        float det = a * d - b * c;
+        if (det == 0.0f) {
+            return false;
+        }
+        float tx = mvp[offset + 12];
+        float ty = mvp[offset + 13];
+        float left = Float.MAX_VALUE;
+        float bottom = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float top = -Float.MAX_VALUE;
+        // 依次变换 NDC 的四个角
+        for (int i = 0; i < 4; i++) {
+            float nx = (i & 1) == 0 ? -1.0f - tx : 1.0f - tx;
+            float ny = (i & 2) == 0 ? -1.0f - ty : 1.0f - ty;
+            float x = (d * nx - b * ny) / det;
+            float y = (a * ny - c * nx) / det;
+            left = Math.min(left, x);
+            right = Math.max(right, x);
+            bottom = Math.min(bottom, y);
+            top = Math.max(top, y);
+        }
+        out[0] = left;
+        out[1] = bottom;
+        out[2] = right;
+        out[3] = top;
+        return true;
+    }
+}
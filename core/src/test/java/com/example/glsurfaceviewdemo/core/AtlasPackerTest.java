@@ -0,0 +1,109 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 图集装箱器测试，在 JVM 上运行
+ */
+public class AtlasPackerTest {
+
+    // 检查所有矩形（含 padding）都在页面内且互不重叠
+    private static void assertValidPacking(AtlasPacker packer, int count, int[] widths, int[] heights,
+                                           int[] pages, int[] xs, int[] ys) {
+        int pad = packer.getPadding();
+        for (int i = 0; i < count; i++) {
+            assertTrue(pages[i] >= 0);
+            assertTrue(xs[i] - pad >= 0 && ys[i] - pad >= 0);
+            assertTrue(xs[i] + widths[i] + pad <= packer.getPageWidth());
+            assertTrue(ys[i] + heights[i] + pad <= packer.getPageHeight());
+            for (int j = i + 1; j < count; j++) {
+                if (pages[i] != pages[j]) {
+                    continue;
+                }
+                boolean separated = xs[i] + widths[i] + pad <= xs[j] - pad
+                        || xs[j] + widths[j] + pad <= xs[i] - pad
+                        || ys[i] + heights[i] + pad <= ys[j] - pad
+                        || ys[j] + heights[j] + pad <= ys[i] - pad;
+                assertTrue("rects " + i + " and " + j + " overlap", separated);
+            }
+        }
+    }
+
+    @Test
+    public void packsRandomRectsWithoutOverlap() {
+        int count = 500;
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            widths[i] = 4 + random.nextInt(60);
+            heights[i] = 4 + random.nextInt(60);
+        }
+        AtlasPacker packer = new AtlasPacker(512, 512, 2, 4);
+        int[] pages = new int[count];
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        assertEquals(count, packer.pack(count, widths, heights, pages, xs, ys));
+        assertValidPacking(packer, count, widths, heights, pages, xs, ys);
+        assertTrue(packer.getPageCount() > 1);
+        assertTrue(packer.getEfficiency() > 0.5f);
+    }
+
+    @Test
+    public void packsTenThousandRectsDensely() {
+        // 与 AtlasPackerBenchmark 相同的数据集，防止装箱率在优化中退化
+        int count = 10000;
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            widths[i] = 8 + random.nextInt(121);
+            heights[i] = 8 + random.nextInt(121);
+        }
+        AtlasPacker packer = new AtlasPacker(2048, 2048, 0, 1);
+        int[] pages = new int[count];
+        assertEquals(count, packer.pack(count, widths, heights, pages, new int[count], new int[count]));
+        assertTrue(packer.getPageCount() <= 13);
+        assertTrue(packer.getEfficiency() >= 0.85f);
+    }
+
+    @Test
+    public void alignsPositions() {
+        AtlasPacker packer = new AtlasPacker(256, 256, 4, 4);
+        int[] out = new int[3];
+        for (int i = 0; i < 50; i++) {
+            assertTrue(packer.insert(3 + i % 17, 5 + i % 11, out));
+            assertEquals(0, (out[1] - 4) % 4);
+            assertEquals(0, (out[2] - 4) % 4);
+        }
+    }
+
+    @Test
+    public void fillsPageExactlyWithoutPadding() {
+        AtlasPacker packer = new AtlasPacker(64, 64, 0, 1);
+        int[] out = new int[3];
+        for (int i = 0; i < 16; i++) {
+            assertTrue(packer.insert(16, 16, out));
+            assertEquals(0, out[0]);
+        }
+        assertEquals(1, packer.getPageCount());
+        assertEquals(1.0f, packer.getEfficiency(), 1e-6f);
+        assertTrue(packer.insert(16, 16, out));
+        assertEquals(1, out[0]);
+    }
+
+    @Test
+    public void rejectsOversizedRect() {
+        AtlasPacker packer = new AtlasPacker(128, 128, 2, 1);
+        int[] out = new int[3];
+        assertFalse(packer.insert(126, 10, out)); // 加上 padding 后超出页面
+        assertTrue(packer.insert(124, 10, out));
+        int[] pages = new int[1];
+        assertEquals(0, packer.pack(1, new int[]{200}, new int[]{10}, pages, new int[1], new int[1]));
+        assertEquals(-1, pages[0]);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 滤镜链的 pass 规划和着色器生成测试，在 JVM 上运行
+ */
+public class FilterGraphTest {
+
+    private static FilterGraph colorChain() {
+        return new FilterGraph()
+                .add(new ImageFilters.Brightness(0.1f))
+                .add(new ImageFilters.Contrast(1.2f))
+                .add(new ImageFilters.Saturation(0.8f))
+                .add(new ImageFilters.Gamma(2.2f))
+                .add(new ImageFilters.Vignette(0.4f, 0.5f));
+    }
+
+    @Test
+    public void fusesConsecutivePointwiseFiltersIntoOnePass() {
+        FilterGraph graph = colorChain();
+        assertEquals(1, graph.getPasses().size());
+        assertEquals(5, graph.getUnfusedPassCount());
+        assertEquals("Brightness|Contrast|Saturation|Gamma|Vignette", graph.getPasses().get(0).getKey());
+    }
+
+    @Test
+    public void samplingFiltersStartNewPasses() {
+        FilterGraph graph = new FilterGraph()
+                .add(new ImageFilters.Saturation(0.5f))
+                .add(new ImageFilters.GaussianBlur(2.0f, true))
+                .add(new ImageFilters.GaussianBlur(2.0f, false))
+                .add(new ImageFilters.ColorMatrix())
+                .add(new ImageFilters.Sharpen(0.5f))
+                .add(new ImageFilters.Vignette(0.4f, 0.5f));
+        List<String> keys = new ArrayList<>();
+        for (FilterPass pass : graph.getPasses()) {
+            keys.add(pass.getKey());
+        }
+        // 逐像素滤镜跟在采样滤镜后面合并，采样滤镜之前的逐像素滤镜只能单独一个 pass
+        assertEquals(4, keys.size());
+        assertEquals("Saturation", keys.get(0));
+        assertEquals("GaussianBlur", keys.get(1));
+        assertEquals("GaussianBlur|ColorMatrix", keys.get(2));
+        assertEquals("Sharpen|Vignette", keys.get(3));
+        assertFalse(graph.getPasses().get(0).hasSamplingHead());
+        assertTrue(graph.getPasses().get(3).hasSamplingHead());
+    }
+
+    @Test
+    public void disablingFusionGivesOnePassPerFilter() {
+        FilterGraph graph = colorChain();
+        List<FilterPass> fused = graph.getPasses();
+        graph.setFusionEnabled(false);
+        assertEquals(5, graph.getPasses().size());
+        assertNotSame(fused, graph.getPasses());
+        graph.setFusionEnabled(true);
+        assertEquals(1, graph.getPasses().size());
+    }
+
+    @Test
+    public void planIsCachedUntilStructureChanges() {
+        FilterGraph graph = colorChain();
+        List<FilterPass> passes = graph.getPasses();
+        ((ImageFilters.Contrast) graph.get(1)).setAmount(1.5f);
+        assertSame(passes, graph.getPasses());
+        graph.add(new ImageFilters.Sharpen(1.0f));
+        assertNotSame(passes, graph.getPasses());
+        assertEquals(2, graph.getPasses().size());
+    }
+
+    @Test
+    public void versionChangesWithParametersAndStructure() {
+        FilterGraph graph = colorChain();
+        ImageFilters.Saturation saturation = (ImageFilters.Saturation) graph.get(2);
+        long version = graph.getVersion();
+        saturation.setAmount(0.8f); // 没有变化
+        assertEquals(version, graph.getVersion());
+        saturation.setAmount(0.3f);
+        assertNotEquals(version, graph.getVersion());
+        version = graph.getVersion();
+        assertTrue(graph.remove(saturation));
+        assertNotEquals(version, graph.getVersion());
+        assertFalse(graph.remove(saturation));
+    }
+
+    @Test
+    public void generatedShaderPrefixesUniformsPerFilter() {
+        FilterGraph graph = new FilterGraph()
+                .add(new ImageFilters.GaussianBlur(3.0f, true))
+                .add(new ImageFilters.Saturation(0.5f))
+                .add(new ImageFilters.Saturation(2.0f));
+        String source = graph.getPasses().get(0).getFragmentShader();
+        assertTrue(source.startsWith("#version 300 es\n"));
+        assertTrue(source.contains("uniform vec2 u0_direction;"));
+        assertTrue(source.contains("uniform float u1_amount;"));
+        assertTrue(source.contains("uniform float u2_amount;"));
+        assertTrue(source.contains("texture(uSampler, uv + u0_direction * uTexelSize * x)"));
+        assertTrue(source.contains("), color.rgb, u2_amount);"));
+        assertFalse(source.contains("$"));
+        // 采样滤镜自己负责读取纹理，只有逐像素部分需要去掉预乘 alpha，而且只做一次
+        assertFalse(source.contains("vec4 color = texture(uSampler, uv);"));
+        assertEquals(1, count(source, "color.rgb /= max(color.a, 0.0001);"));
+    }
+
+    @Test
+    public void passesWithSameFilterKindsShareShaderSource() {
+        FilterGraph a = new FilterGraph().add(new ImageFilters.Contrast(1.1f)).add(new ImageFilters.Gamma(1.8f));
+        FilterGraph b = new FilterGraph().add(new ImageFilters.Contrast(0.7f)).add(new ImageFilters.Gamma(2.4f));
+        FilterPass passA = a.getPasses().get(0);
+        FilterPass passB = b.getPasses().get(0);
+        assertEquals(passA.getKey(), passB.getKey());
+        assertEquals(passA.getFragmentShader(), passB.getFragmentShader());
+    }
+
+    @Test
+    public void uploadsUniformsByLocalIndex() {
+        final List<String> uploads = new ArrayList<>();
+        ImageFilter.Uniforms recorder = new ImageFilter.Uniforms() {
+            @Override
+            public void set1f(int uniform, float x) {
+                uploads.add(uniform + "=" + x);
+            }
+
+            @Override
+            public void set2f(int uniform, float x, float y) {
+                uploads.add(uniform + "=" + x + "," + y);
+            }
+
+            @Override
+            public void set4fv(int uniform, float[] value, int offset) {
+                uploads.add(uniform + "=vec4");
+            }
+
+            @Override
+            public void setMatrix4fv(int uniform, float[] value, int offset) {
+                uploads.add(uniform + "=mat4");
+            }
+        };
+        new ImageFilters.GaussianBlur(4.0f, false).applyUniforms(recorder);
+        new ImageFilters.Gamma(2.0f).applyUniforms(recorder);
+        new ImageFilters.ColorMatrix().applyUniforms(recorder);
+        assertEquals("[0=0.0,1.0, 1=4.0, 2=2.0, 0=0.5, 0=mat4, 1=vec4]", uploads.toString());
+    }
+
+    @Test
+    public void toStringListsPasses() {
+        FilterGraph graph = colorChain().add(new ImageFilters.Sharpen(0.3f));
+        assertEquals("6 filters in 2 passes: [Brightness|Contrast|Saturation|Gamma|Vignette] [Sharpen]",
+                graph.toString());
+    }
+
+    private static int count(String text, String pattern) {
+        int count = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
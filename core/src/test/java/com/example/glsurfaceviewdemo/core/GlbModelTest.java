@@ -0,0 +1,229 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+/**
+ * GLB 网格解析测试，在 JVM 上运行
+ */
+public class GlbModelTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // 按规范拼出 GLB：JSON 块用空格、BIN 块用 0 补齐到 4 字节
+    static ByteBuffer glb(String json, ByteBuffer bin) {
+        byte[] text = json.getBytes(UTF_8);
+        int jsonLength = (text.length + 3) & ~3;
+        int binLength = bin == null ? 0 : (bin.remaining() + 3) & ~3;
+        int length = 12 + 8 + jsonLength + (bin == null ? 0 : 8 + binLength);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0x46546C67).putInt(2).putInt(length);
+        buffer.putInt(jsonLength).putInt(0x4E4F534A).put(text);
+        while (buffer.position() < 20 + jsonLength) {
+            buffer.put((byte) ' ');
+        }
+        if (bin != null) {
+            buffer.putInt(binLength).putInt(0x004E4942).put(bin.duplicate());
+        }
+        buffer.position(0);
+        return buffer;
+    }
+
+    // 两个三角形组成的正方形：位置和法线交错存放（步长 24），加上 6 个 16 位索引
+    private static ByteBuffer quadBin() {
+        ByteBuffer bin = ByteBuffer.allocate(96 + 12).order(ByteOrder.LITTLE_ENDIAN);
+        float[][] corners = {{0, 0}, {2, 0}, {0, 1}, {2, 1}};
+        for (float[] corner : corners) {
+            bin.putFloat(corner[0]).putFloat(corner[1]).putFloat(-1.0f);
+            bin.putFloat(0.0f).putFloat(0.0f).putFloat(1.0f);
+        }
+        for (int index : new int[]{0, 1, 2, 2, 1, 3}) {
+            bin.putShort((short) index);
+        }
+        bin.flip();
+        return bin;
+    }
+
+    private static final String QUAD_JSON = "{\"asset\":{\"version\":\"2.0\",\"generator\":\"test\"},"
+            + "\"buffers\":[{\"byteLength\":108}],"
+            + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":96,\"byteStride\":24,\"target\":34962},"
+            + "{\"buffer\":0,\"byteOffset\":96,\"byteLength\":12,\"target\":34963}],"
+            + "\"accessors\":["
+            + "{\"bufferView\":0,\"componentType\":5126,\"count\":4,\"type\":\"VEC3\",\"min\":[0,0,-1],\"max\":[2,1,-1]},"
+            + "{\"bufferView\":0,\"byteOffset\":12,\"componentType\":5126,\"count\":4,\"type\":\"VEC3\"},"
+            + "{\"bufferView\":1,\"componentType\":5123,\"count\":6,\"type\":\"SCALAR\"}],"
+            + "\"meshes\":[{\"name\":\"quad \\u00e9\\n\",\"primitives\":[{\"attributes\":{\"POSITION\":0,\"NORMAL\":1},"
+            + "\"indices\":2}]}]}";
+
+    @Test
+    public void parsesInterleavedAttributesAndIndicesWithoutCopying() throws IOException {
+        ByteBuffer file = glb(QUAD_JSON, quadBin());
+        GlbModel model = GlbModel.parse(file);
+        assertEquals(0, file.position()); // 输入不被修改
+        assertTrue(model.isComplete());
+        assertEquals(1, model.getPrimitiveCount());
+
+        GlbModel.Primitive primitive = model.poll();
+        assertNotNull(primitive);
+        assertNull(model.poll());
+        assertEquals("quad é\n", primitive.getMeshName());
+        assertEquals(GlbModel.MODE_TRIANGLES, primitive.getMode());
+        assertEquals(4, primitive.getVertexCount());
+        assertEquals(6, primitive.getDrawCount());
+
+        GlbModel.Accessor position = primitive.getAttribute("POSITION");
+        GlbModel.Accessor normal = primitive.getAttribute("NORMAL");
+        assertSame(position.getBufferView(), normal.getBufferView());
+        assertEquals(24, normal.getByteStride());
+        assertEquals(12, normal.getByteOffset());
+        assertEquals(GlbModel.GL_FLOAT, normal.getComponentType());
+        assertEquals(84, normal.getByteLength());
+        assertNull(primitive.getAttribute("TEXCOORD_0"));
+
+        GlbModel.BufferView vertices = position.getBufferView();
+        assertEquals(GlbModel.GL_ARRAY_BUFFER, vertices.getTarget());
+        ByteBuffer data = vertices.getData();
+        assertTrue(data.isDirect());
+        assertEquals(96, data.remaining());
+        assertEquals(2.0f, data.getFloat(24), 0.0f);
+        assertEquals(1.0f, normal.getData().getFloat(8), 0.0f);
+
+        // 切片和输入共享内存
+        file.putFloat(12 + 8 + ((QUAD_JSON.getBytes(UTF_8).length + 3) & ~3) + 8 + 24, 5.0f);
+        assertEquals(5.0f, vertices.getData().getFloat(24), 0.0f);
+
+        GlbModel.Accessor indices = primitive.getIndices();
+        assertEquals(GlbModel.GL_UNSIGNED_SHORT, indices.getComponentType());
+        assertEquals(GlbModel.GL_ELEMENT_ARRAY_BUFFER, indices.getBufferView().getTarget());
+        assertEquals(3, indices.getData().getShort(10));
+
+        float[] bounds = new float[6];
+        assertTrue(model.getBounds(bounds));
+        assertArrayEquals(new float[]{0, 0, -1, 2, 1, -1}, bounds, 0.0f);
+    }
+
+    @Test
+    public void primitivesBecomeReadyAsDataArrives() throws IOException {
+        // 两个 mesh：第一个的数据在 BIN 块后半段，第二个在前半段，没有索引
+        ByteBuffer bin = ByteBuffer.allocate(72).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 18; i++) {
+            bin.putFloat(i);
+        }
+        bin.flip();
+        String json = "{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":72}],"
+                + "\"bufferViews\":[{\"buffer\":0,\"byteOffset\":36,\"byteLength\":36},"
+                + "{\"buffer\":0,\"byteLength\":36}],"
+                + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\","
+                + "\"min\":[-1,-2,-3],\"max\":[1,2,3]},"
+                + "{\"bufferView\":1,\"componentType\":5126,\"count\":3,\"type\":\"VEC3\","
+                + "\"min\":[-4,0,0],\"max\":[0,5,1e1]}],"
+                + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0}}]},"
+                + "{\"name\":\"first\",\"primitives\":[{\"attributes\":{\"POSITION\":1},\"mode\":1}]}]}";
+        ByteBuffer file = glb(json, bin);
+        int length = file.remaining();
+        int binStart = length - 72;
+
+        GlbModel model = new GlbModel(file);
+        assertEquals(0, model.advance(8));
+        assertEquals(-1, model.getLength());
+        assertEquals(0, model.advance(binStart - 8)); // JSON 已经完整，BIN 块头还没到
+        assertTrue(model.isStructureKnown());
+        assertEquals(2, model.getPrimitiveCount());
+        float[] bounds = new float[6];
+        assertTrue(model.getBounds(bounds)); // 顶点数据到达之前就能确定包围盒
+        assertArrayEquals(new float[]{-4, -2, -3, 1, 5, 10}, bounds, 0.0f);
+        assertNull(model.poll());
+
+        assertEquals(0, model.advance(binStart + 35));
+        assertEquals(1, model.advance(binStart + 36));
+        GlbModel.Primitive first = model.poll();
+        assertEquals("first", first.getMeshName());
+        assertEquals(1, first.getMode());
+        assertEquals(3, first.getDrawCount());
+        assertNull(first.getIndices());
+        assertNull(model.poll());
+        assertFalse(model.isComplete());
+
+        assertEquals(0, model.advance(binStart + 20)); // 可用字节数不会倒退
+        assertEquals(1, model.advance(length));
+        assertEquals(0, model.poll().getMeshIndex());
+        assertTrue(model.isComplete());
+        assertEquals(2, model.getReadyCount());
+    }
+
+    @Test
+    public void rejectsMalformedAndUnsupportedFiles() {
+        String prefix = "{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":108}],";
+        String views = "\"bufferViews\":[{\"buffer\":0,\"byteLength\":96}],";
+        String[] invalid = {
+                "{\"asset\":{\"version\":\"1.0\"}}",
+                "{\"asset\":{\"version\":\"2.0\"},\"extensionsRequired\":[\"KHR_draco_mesh_compression\"]}",
+                "{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":4,\"uri\":\"mesh.bin\"}]}",
+                prefix + "\"bufferViews\":[{\"buffer\":0,\"byteOffset\":100,\"byteLength\":96}]}",
+                prefix + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":96,\"byteStride\":6}]}",
+                prefix + views + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":9,\"type\":\"VEC3\"}]}",
+                prefix + views + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":1,\"type\":\"VEC5\"}]}",
+                prefix + views + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":1,\"type\":\"VEC3\","
+                        + "\"sparse\":{}}]}",
+                prefix + views + "\"accessors\":[{\"bufferView\":0,\"componentType\":5126,\"count\":1,\"type\":\"VEC3\"}],"
+                        + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0},\"indices\":0}]}]}",
+                prefix + views + "\"accessors\":[]," + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":3}}]}]}",
+                "{\"asset\":{\"version\":\"2.0\"},\"meshes\":[{\"primitives\":[{\"attributes\":{}}]}] trailing",
+                "{\"asset\":{\"version\":\"2.0\",}",
+        };
+        for (String json : invalid) {
+            try {
+                GlbModel.parse(glb(json, quadBin()));
+                fail("expected failure for " + json);
+            } catch (IOException expected) {
+                // 格式不正确或不支持
+            }
+        }
+
+        ByteBuffer badMagic = glb(QUAD_JSON, quadBin());
+        badMagic.putInt(0, 0x12345678);
+        ByteBuffer truncated = glb(QUAD_JSON, quadBin());
+        truncated.limit(truncated.limit() - 4);
+        ByteBuffer missingBin = glb(QUAD_JSON, null);
+        for (ByteBuffer file : new ByteBuffer[]{badMagic, truncated, missingBin}) {
+            try {
+                GlbModel.parse(file);
+                fail("expected failure");
+            } catch (IOException expected) {
+                // 文件头或块不正确
+            }
+        }
+    }
+
+    @Test
+    public void acceptsEmptyModelsAndByteIndices() throws IOException {
+        GlbModel empty = GlbModel.parse(glb("{\"asset\":{\"version\":\"2.1\"}}", null));
+        assertTrue(empty.isComplete());
+        assertEquals(0, empty.getPrimitiveCount());
+        assertFalse(empty.getBounds(new float[6]));
+
+        ByteBuffer bin = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        bin.put(new byte[]{0, 1, 2, 0}).putShort((short) -32767).putShort((short) 32767).putInt(0).putInt(0);
+        bin.flip();
+        String json = "{\"asset\":{\"version\":\"2.0\"},\"buffers\":[{\"byteLength\":16}],"
+                + "\"bufferViews\":[{\"buffer\":0,\"byteLength\":4},{\"buffer\":0,\"byteOffset\":4,\"byteLength\":12}],"
+                + "\"accessors\":[{\"bufferView\":0,\"componentType\":5121,\"count\":3,\"type\":\"SCALAR\"},"
+                + "{\"bufferView\":1,\"componentType\":5122,\"normalized\":true,\"count\":3,\"type\":\"VEC2\"}],"
+                + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"TEXCOORD_0\":1},\"indices\":0,\"mode\":4.0}]}]}";
+        GlbModel model = GlbModel.parse(glb(json, bin));
+        GlbModel.Primitive primitive = model.poll();
+        assertEquals(GlbModel.GL_UNSIGNED_BYTE, primitive.getIndices().getComponentType());
+        assertEquals(3, primitive.getDrawCount());
+        GlbModel.Accessor texCoord = primitive.getAttribute(0);
+        assertEquals("TEXCOORD_0", primitive.getAttributeName(0));
+        assertTrue(texCoord.isNormalized());
+        assertEquals(4, texCoord.getByteStride());
+        assertEquals(-32767, texCoord.getData().getShort(0));
+        assertFalse(model.getBounds(new float[6]));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 显存账本和记账后端测试，在 JVM 上运行
+ */
+public class GpuMemoryTrackerTest {
+    private static final int GL_ARRAY_BUFFER = 0x8892;
+    private static final int GL_ELEMENT_ARRAY_BUFFER = 0x8893;
+    private static final int GL_TEXTURE_2D = 0x0DE1;
+    private static final int GL_TEXTURE0 = 0x84C0;
+    private static final int GL_RGBA = 0x1908;
+    private static final int GL_RGBA8 = 0x8058;
+    private static final int GL_R8 = 0x8229;
+    private static final int GL_UNSIGNED_BYTE = 0x1401;
+    private static final int GL_STATIC_DRAW = 0x88E4;
+    private static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    private static final int GL_FRAMEBUFFER = 0x8D40;
+    private static final int GL_RENDERBUFFER = 0x8D41;
+    private static final int GL_DEPTH_ATTACHMENT = 0x8D00;
+    private static final int GL_DEPTH_COMPONENT24 = 0x81A6;
+
+    private final RecordingGLBackend mRecording = new RecordingGLBackend();
+    private final GpuMemoryTracker mTracker = new GpuMemoryTracker();
+    private final TrackingGLBackend mGL = new TrackingGLBackend(mRecording, mTracker);
+
+    private int genBuffer() {
+        int[] ids = new int[1];
+        mGL.glGenBuffers(1, ids, 0);
+        return ids[0];
+    }
+
+    private int genTexture() {
+        int[] ids = new int[1];
+        mGL.glGenTextures(1, ids, 0);
+        return ids[0];
+    }
+
+    @Test
+    public void buffersAreSizedByTheBoundTarget() {
+        int vbo = genBuffer();
+        int ebo = genBuffer();
+        mGL.glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+        mGL.glBufferData(GL_ARRAY_BUFFER, 4096, null, GL_STATIC_DRAW);
+        mGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER, 600, null, GL_STATIC_DRAW);
+        assertEquals(2, mTracker.getLiveCount(GpuMemoryTracker.BUFFER));
+        assertEquals(4696, mTracker.getLiveBytes(GpuMemoryTracker.BUFFER));
+
+        // 重新定义大小（orphan）替换原来的大小
+        mGL.glBufferData(GL_ARRAY_BUFFER, 1024, null, GL_STATIC_DRAW);
+        assertEquals(1624, mTracker.getTotalBytes());
+        assertEquals(4696, mTracker.getPeakBytes());
+
+        mGL.glDeleteBuffers(1, new int[]{vbo}, 0);
+        assertEquals(600, mTracker.getTotalBytes());
+        // 删除后绑定点回到 0，之后的 glBufferData 不会记到已删除的对象上
+        mGL.glBufferData(GL_ARRAY_BUFFER, 1 << 20, null, GL_STATIC_DRAW);
+        assertEquals(600, mTracker.getTotalBytes());
+        assertEquals(1, mRecording.getCommandCount("glDeleteBuffers")); // 命令仍然转发给被包装的后端
+    }
+
+    @Test
+    public void elementBufferBindingFollowsTheVertexArray() {
+        int ebo = genBuffer();
+        int[] vao = new int[1];
+        mGL.glGenVertexArrays(1, vao, 0);
+        mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+        mGL.glBindVertexArray(vao[0]);
+        // 切换 VAO 后不知道绑定的是哪个 EBO，不能记到之前的 EBO 上
+        mGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER, 512, null, GL_STATIC_DRAW);
+        assertEquals(0, mTracker.getLiveBytes(GpuMemoryTracker.BUFFER));
+        mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
+        mGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER, 512, null, GL_STATIC_DRAW);
+        assertEquals(512, mTracker.getLiveBytes(GpuMemoryTracker.BUFFER));
+        assertEquals(1, mTracker.getLiveCount(GpuMemoryTracker.VERTEX_ARRAY));
+    }
+
+    @Test
+    public void texturesAreSizedPerLevel() {
+        int image = genTexture();
+        int storage = genTexture();
+        int compressed = genTexture();
+
+        mGL.glBindTexture(GL_TEXTURE_2D, image);
+        mGL.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 8, 4, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
+        assertEquals(128, mTracker.getTotalBytes());
+        mGL.glGenerateMipmap(GL_TEXTURE_2D); // 4x2, 2x1, 1x1
+        assertEquals(128 + 32 + 8 + 4, mTracker.getTotalBytes());
+
+        // 每个纹理单元分别记录绑定
+        mGL.glActiveTexture(GL_TEXTURE0 + 1);
+        mGL.glBindTexture(GL_TEXTURE_2D, storage);
+        mGL.glTexStorage2D(GL_TEXTURE_2D, 3, GL_RGBA8, 16, 16);
+        mGL.glActiveTexture(GL_TEXTURE0 + 2);
+        mGL.glBindTexture(GL_TEXTURE_2D, compressed);
+        mGL.glCompressedTexImage2D(GL_TEXTURE_2D, 0, GL_COMPRESSED_RGB8_ETC2, 64, 64, 0, 2048, null);
+        mGL.glActiveTexture(GL_TEXTURE0);
+        mGL.texImage2D(GL_TEXTURE_2D, 0, GL_R8, null, 8, 4); // 重新定义 image 的第 0 层
+        assertEquals(3, mTracker.getLiveCount(GpuMemoryTracker.TEXTURE));
+        assertEquals(32 + 32 + 8 + 4 + 1024 + 256 + 64 + 2048, mTracker.getLiveBytes(GpuMemoryTracker.TEXTURE));
+
+        mGL.glDeleteTextures(1, new int[]{storage}, 0);
+        assertEquals(32 + 32 + 8 + 4 + 2048, mTracker.getTotalBytes());
+        mTracker.onDelete(GpuMemoryTracker.TEXTURE, 12345);
+        assertEquals(1, mTracker.getUnknownDeletes());
+    }
+
+    @Test
+    public void objectsLeftAfterOwnerReleaseAreLeaks() {
+        String owner = GpuMemoryTracker.tag(this);
+        mTracker.setRecordCreationSites(true);
+        String previous = mTracker.enterOwner(owner);
+        int kept = genTexture();
+        int leaked = genBuffer();
+        int program = mGL.glCreateProgram();
+        mTracker.exitOwner(previous);
+        int other = genBuffer();
+
+        mGL.glBindBuffer(GL_ARRAY_BUFFER, leaked);
+        mGL.glBufferData(GL_ARRAY_BUFFER, 3000, null, GL_STATIC_DRAW);
+        assertEquals(3000, mTracker.getOwnerBytes(owner));
+        assertEquals(1, mTracker.getLiveCount(GpuMemoryTracker.PROGRAM));
+
+        mGL.glDeleteProgram(program);
+        mGL.glDeleteTextures(1, new int[]{kept}, 0);
+        assertEquals(1, mTracker.releaseOwner(owner));
+        assertEquals(1, mTracker.getLeakCount());
+        assertEquals(0, mTracker.releaseOwner(owner)); // 同一个泄漏只计一次
+
+        String report = mTracker.report();
+        assertTrue(report, report.contains("Leaked"));
+        assertTrue(report, report.contains("buffer #" + leaked));
+        assertTrue(report, report.contains("owner=" + owner));
+        assertTrue(report, report.contains(getClass().getSimpleName())); // 创建位置
+        assertFalse(report, report.contains("buffer #" + other + " "));
+
+        // 上下文丢失后所有对象随上下文销毁，泄漏计数保留
+        mTracker.onContextLost();
+        mGL.resetBindings();
+        assertEquals(0, mTracker.getTotalBytes());
+        assertEquals(0, mTracker.getLiveCount(GpuMemoryTracker.BUFFER));
+        assertEquals(1, mTracker.getLeakCount());
+    }
+
+    @Test
+    public void depthAttachmentIsSizedAndLeakedWithItsFramebuffer() {
+        // OffscreenTarget 的做法：帧缓冲 + 深度 renderbuffer，都记在目标名下
+        String owner = "OffscreenTarget@1";
+        String previous = mTracker.enterOwner(owner);
+        int[] fbo = new int[1];
+        int[] depth = new int[1];
+        mGL.glGenFramebuffers(1, fbo, 0);
+        mGL.glBindFramebuffer(GL_FRAMEBUFFER, fbo[0]);
+        mGL.glGenRenderbuffers(1, depth, 0);
+        mGL.glBindRenderbuffer(GL_RENDERBUFFER, depth[0]);
+        mGL.glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, 1080, 2400);
+        mGL.glBindRenderbuffer(GL_RENDERBUFFER, 0);
+        mGL.glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depth[0]);
+        mGL.glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        mTracker.exitOwner(previous);
+
+        assertEquals(1, mTracker.getLiveCount(GpuMemoryTracker.FRAMEBUFFER));
+        assertEquals(1, mTracker.getLiveCount(GpuMemoryTracker.RENDERBUFFER));
+        assertEquals(1080L * 2400 * 4, mTracker.getLiveBytes(GpuMemoryTracker.RENDERBUFFER));
+        assertEquals(1080L * 2400 * 4, mTracker.getOwnerBytes(owner));
+        // 没有绑定 renderbuffer 时的 glRenderbufferStorage 不会记到之前的对象上
+        mGL.glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, 16, 16);
+        assertEquals(1080L * 2400 * 4, mTracker.getTotalBytes());
+
+        // 只删除了 renderbuffer 就释放所有者：帧缓冲被标记为泄漏
+        mGL.glDeleteRenderbuffers(1, depth, 0);
+        assertEquals(0, mTracker.getLiveBytes(GpuMemoryTracker.RENDERBUFFER));
+        assertEquals(1, mTracker.releaseOwner(owner));
+        String report = mTracker.report();
+        assertTrue(report, report.contains("framebuffer #" + fbo[0]));
+
+        mGL.glDeleteFramebuffers(1, fbo, 0);
+        assertEquals(0, mTracker.getLiveCount(GpuMemoryTracker.FRAMEBUFFER));
+        assertEquals(0, mTracker.getUnknownDeletes());
+    }
+
+    @Test
+    public void registryRestoresUnderTheOriginalOwner() {
+        GpuResourceRegistry registry = new GpuResourceRegistry((kind, id) ->
+                mGL.glDeleteTextures(1, new int[]{id}, 0));
+        registry.setMemoryTracker(mTracker);
+        String owner = "renderer";
+        String previous = mTracker.enterOwner(owner);
+        GpuResourceRegistry.Resource texture = registry.register(GpuResourceRegistry.TEXTURE, "image",
+                GpuResourceRegistry.PRIORITY_NORMAL, () -> {
+            int id = genTexture();
+            mGL.glBindTexture(GL_TEXTURE_2D, id);
+            mGL.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 4, 4, 0, GL_RGBA, GL_UNSIGNED_BYTE, null);
+            return id;
+        });
+        mTracker.exitOwner(previous);
+        assertEquals(64, mTracker.getOwnerBytes(owner));
+
+        mTracker.onContextLost();
+        mGL.resetBindings();
+        registry.onContextLost();
+        // 在其他所有者的作用域中按需重建，仍然记在原来的所有者名下
+        previous = mTracker.enterOwner("other");
+        registry.require(texture);
+        mTracker.exitOwner(previous);
+        assertEquals(64, mTracker.getOwnerBytes(owner));
+        assertEquals(0, mTracker.getOwnerBytes("other"));
+
+        registry.release(texture);
+        assertEquals(0, mTracker.releaseOwner(owner));
+        assertEquals(0, mTracker.getTotalBytes());
+    }
+}
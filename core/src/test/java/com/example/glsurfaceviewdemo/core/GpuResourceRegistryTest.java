@@ -0,0 +1,151 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * GPU 资源登记表测试，在 JVM 上运行
+ */
+public class GpuResourceRegistryTest {
+    private final RecordingGLBackend mGL = new RecordingGLBackend();
+    private final List<String> mCreated = new ArrayList<>();
+    private final GpuResourceRegistry mRegistry = new GpuResourceRegistry((kind, id) -> {
+        if (kind == GpuResourceRegistry.TEXTURE) {
+            mGL.glDeleteTextures(1, new int[]{id}, 0);
+        } else if (kind == GpuResourceRegistry.BUFFER) {
+            mGL.glDeleteBuffers(1, new int[]{id}, 0);
+        }
+    });
+
+    private GpuResourceRegistry.Resource texture(final String label, int priority) {
+        return mRegistry.register(GpuResourceRegistry.TEXTURE, label, priority, () -> {
+            int[] ids = new int[1];
+            mGL.glGenTextures(1, ids, 0);
+            mCreated.add(label);
+            return ids[0];
+        });
+    }
+
+    @Test
+    public void createsImmediatelyAndDeletesOnRelease() {
+        GpuResourceRegistry.Resource resource = texture("a", GpuResourceRegistry.PRIORITY_NORMAL);
+        assertTrue(resource.isResident());
+        assertEquals(1, resource.getCreateCount());
+        assertEquals(resource.getId(), mRegistry.require(resource));
+        assertEquals(1, mGL.getCommandCount("glGenTextures"));
+
+        mRegistry.release(resource);
+        assertEquals(1, mGL.getCommandCount("glDeleteTextures"));
+        assertEquals(0, mRegistry.getResourceCount());
+        try {
+            mRegistry.require(resource);
+            fail("released resource must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // 已经释放的资源不能再使用
+        }
+    }
+
+    @Test
+    public void contextLossRestoresOnDemandWithoutDeleting() {
+        GpuResourceRegistry.Resource visible = texture("visible", GpuResourceRegistry.PRIORITY_LOW);
+        texture("other", GpuResourceRegistry.PRIORITY_HIGH);
+        mCreated.clear();
+
+        mRegistry.onContextLost();
+        assertFalse(visible.isResident());
+        assertEquals(2, mRegistry.getPendingCount());
+        assertEquals(0, mGL.getCommandCount("glDeleteTextures")); // 对象已经随上下文销毁
+
+        // 绘制时用到的对象当场重建，不管优先级
+        assertNotEquals(0, mRegistry.require(visible));
+        assertEquals(2, visible.getCreateCount());
+        assertEquals(1, mRegistry.getDemandRestores());
+        assertEquals(1, mRegistry.getPendingCount());
+
+        // 后台重建跳过已经重建的对象
+        assertEquals(1, mRegistry.restorePending(Long.MAX_VALUE));
+        assertEquals(0, mRegistry.getPendingCount());
+        assertEquals(1, mRegistry.getBackgroundRestores());
+        assertEquals(2, mCreated.size());
+        assertEquals("visible", mCreated.get(0));
+        assertEquals(0, mRegistry.restorePending(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void backgroundRestoreFollowsPriorityThenRecency() {
+        GpuResourceRegistry.Resource low = texture("low", GpuResourceRegistry.PRIORITY_LOW);
+        GpuResourceRegistry.Resource oldNormal = texture("oldNormal", GpuResourceRegistry.PRIORITY_NORMAL);
+        GpuResourceRegistry.Resource recentNormal = texture("recentNormal", GpuResourceRegistry.PRIORITY_NORMAL);
+        texture("high", GpuResourceRegistry.PRIORITY_HIGH);
+        mRegistry.beginFrame();
+        mRegistry.require(recentNormal);
+        mCreated.clear();
+
+        mRegistry.onContextLost();
+        // 预算为 0 时每次只重建一个
+        for (int i = 0; i < 4; i++) {
+            assertEquals(1, mRegistry.restorePending(0));
+        }
+        assertEquals(0, mRegistry.getPendingCount());
+        assertEquals("high", mCreated.get(0));
+        assertEquals("recentNormal", mCreated.get(1));
+        assertEquals("oldNormal", mCreated.get(2));
+        assertEquals("low", mCreated.get(3));
+        assertTrue(low.isResident() && oldNormal.isResident());
+        assertTrue(mRegistry.toString().contains("backgroundRestores=4"));
+    }
+
+    @Test
+    public void creatorMayRequireDependencies() {
+        final GpuResourceRegistry.Resource buffer = mRegistry.register(GpuResourceRegistry.BUFFER, "vbo",
+                GpuResourceRegistry.PRIORITY_LOW, () -> {
+            int[] ids = new int[1];
+            mGL.glGenBuffers(1, ids, 0);
+            return ids[0];
+        });
+        GpuResourceRegistry.Resource vao = mRegistry.register(GpuResourceRegistry.VERTEX_ARRAY, "vao",
+                GpuResourceRegistry.PRIORITY_HIGH, () -> {
+            int[] ids = new int[1];
+            mGL.glGenVertexArrays(1, ids, 0);
+            mGL.glBindBuffer(0x8892, mRegistry.require(buffer));
+            return ids[0];
+        });
+        mRegistry.onContextLost();
+
+        // VAO 的优先级更高，先重建时顺带重建了它依赖的 VBO
+        mRegistry.restorePending(0);
+        assertTrue(vao.isResident());
+        assertTrue(buffer.isResident());
+        assertEquals(0, mRegistry.getPendingCount());
+        assertEquals(2, mGL.getCommandCount("glGenBuffers"));
+        assertTrue(mGL.getLog().contains("glBindBuffer(34962, " + buffer.getId() + ")"));
+    }
+
+    @Test
+    public void failedRestoreIsRetriedOnDemand() {
+        final boolean[] fail = {false};
+        GpuResourceRegistry.Resource resource = mRegistry.register(GpuResourceRegistry.TEXTURE, "flaky",
+                GpuResourceRegistry.PRIORITY_NORMAL, () -> {
+            if (fail[0]) {
+                return 0;
+            }
+            int[] ids = new int[1];
+            mGL.glGenTextures(1, ids, 0);
+            return ids[0];
+        });
+        mRegistry.onContextLost();
+        fail[0] = true;
+        assertEquals(0, mRegistry.restorePending(Long.MAX_VALUE));
+        assertEquals(1, mRegistry.getFailedCreates());
+        assertEquals(0, mRegistry.require(resource));
+
+        fail[0] = false;
+        assertNotEquals(0, mRegistry.require(resource));
+        assertEquals(2, mRegistry.getFailedCreates());
+        assertEquals(1, mRegistry.getDemandRestores());
+    }
+}
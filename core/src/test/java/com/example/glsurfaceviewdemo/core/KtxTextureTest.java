@@ -0,0 +1,160 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * KTX / KTX2 容器解析测试，在 JVM 上运行
+ */
+public class KtxTextureTest {
+    private static final byte[] KTX1_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    private static final byte[] KTX2_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+
+    // 8x8 ETC2 RGB：每个 4x4 块 8 字节，三个层级分别为 32、8、8 字节
+    private static ByteBuffer ktx1(ByteOrder order, int keyValueBytes) {
+        int[] levelSizes = {32, 8, 8};
+        ByteBuffer buffer = ByteBuffer.allocate(64 + keyValueBytes + 3 * 4 + 48).order(order);
+        buffer.put(KTX1_IDENTIFIER);
+        buffer.putInt(0x04030201);
+        buffer.putInt(0);                                   // glType，压缩格式为 0
+        buffer.putInt(1);                                   // glTypeSize
+        buffer.putInt(0);                                   // glFormat
+        buffer.putInt(KtxTexture.GL_COMPRESSED_RGB8_ETC2);  // glInternalFormat
+        buffer.putInt(0x1907);                              // glBaseInternalFormat，GL_RGB
+        buffer.putInt(8);                                   // pixelWidth
+        buffer.putInt(8);                                   // pixelHeight
+        buffer.putInt(0);                                   // pixelDepth
+        buffer.putInt(0);                                   // numberOfArrayElements
+        buffer.putInt(1);                                   // numberOfFaces
+        buffer.putInt(levelSizes.length);                   // numberOfMipmapLevels
+        buffer.putInt(keyValueBytes);
+        buffer.position(buffer.position() + keyValueBytes);
+        for (int level = 0; level < levelSizes.length; level++) {
+            buffer.putInt(levelSizes[level]);
+            for (int i = 0; i < levelSizes[level]; i++) {
+                buffer.put((byte) (level + 1));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // 16x16 ASTC 4x4 sRGB：每个块 16 字节，层级数据按从小到大的顺序存放
+    private static ByteBuffer ktx2(int vkFormat, int supercompression) {
+        int[] levelSizes = {256, 64, 16};
+        int dataStart = 80 + levelSizes.length * 24;
+        ByteBuffer buffer = ByteBuffer.allocate(dataStart + 336).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(KTX2_IDENTIFIER);
+        buffer.putInt(vkFormat);
+        buffer.putInt(1);                                   // typeSize
+        buffer.putInt(16);                                  // pixelWidth
+        buffer.putInt(16);                                  // pixelHeight
+        buffer.putInt(0);                                   // pixelDepth
+        buffer.putInt(0);                                   // layerCount
+        buffer.putInt(1);                                   // faceCount
+        buffer.putInt(levelSizes.length);                   // levelCount
+        buffer.putInt(supercompression);
+        buffer.position(80);                                // dfd / kvd / sgd 索引全部为 0
+        int offset = dataStart + 336;
+        for (int size : levelSizes) {
+            offset -= size;
+            buffer.putLong(offset);
+            buffer.putLong(size);
+            buffer.putLong(size);
+        }
+        offset = dataStart + 336;
+        for (int level = 0; level < levelSizes.length; level++) {
+            offset -= levelSizes[level];
+            for (int i = 0; i < levelSizes[level]; i++) {
+                buffer.put(offset + i, (byte) (level + 1));
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    @Test
+    public void parsesKtx1Levels() throws IOException {
+        KtxTexture texture = KtxTexture.parse(ktx1(ByteOrder.LITTLE_ENDIAN, 0));
+        assertTrue(texture.isCompressed());
+        assertEquals(KtxTexture.GL_COMPRESSED_RGB8_ETC2, texture.getInternalFormat());
+        assertEquals(8, texture.getWidth());
+        assertEquals(8, texture.getHeight());
+        assertEquals(3, texture.getLevelCount());
+        assertEquals(48, texture.getTotalBytes());
+        assertEquals(2, texture.getLevelWidth(2));
+        ByteBuffer level1 = texture.getLevelData(1);
+        assertEquals(8, level1.remaining());
+        assertEquals(2, level1.get(0));
+    }
+
+    @Test
+    public void parsesBigEndianKtx1WithKeyValueData() throws IOException {
+        KtxTexture texture = KtxTexture.parse(ktx1(ByteOrder.BIG_ENDIAN, 16));
+        assertEquals(KtxTexture.GL_COMPRESSED_RGB8_ETC2, texture.getInternalFormat());
+        assertEquals(32, texture.getLevelData(0).remaining());
+        assertEquals(3, texture.getLevelData(2).get(0));
+    }
+
+    @Test
+    public void levelDataIsZeroCopySlice() throws IOException {
+        ByteBuffer file = ktx1(ByteOrder.LITTLE_ENDIAN, 0);
+        ByteBuffer direct = ByteBuffer.allocateDirect(file.remaining());
+        direct.put(file).flip();
+        KtxTexture texture = KtxTexture.parse(direct);
+        ByteBuffer level0 = texture.getLevelData(0);
+        assertTrue(level0.isDirect());
+        direct.put(64 + 4, (byte) 42);
+        assertEquals(42, level0.get(0));
+        assertEquals(0, direct.position()); // 解析不修改输入缓冲区
+    }
+
+    @Test
+    public void parsesKtx2Astc() throws IOException {
+        KtxTexture texture = KtxTexture.parse(ktx2(158, 0)); // VK_FORMAT_ASTC_4x4_SRGB_BLOCK
+        assertEquals(KtxTexture.GL_COMPRESSED_SRGB8_ALPHA8_ASTC_4x4_KHR, texture.getInternalFormat());
+        assertTrue(KtxTexture.isAstc(texture.getInternalFormat()));
+        assertEquals(3, texture.getLevelCount());
+        assertEquals(256, texture.getLevelData(0).remaining());
+        assertEquals(16, texture.getLevelData(2).remaining());
+        assertEquals(2, texture.getLevelData(1).get(63));
+    }
+
+    @Test
+    public void mapsVulkanFormats() {
+        assertEquals(KtxTexture.GL_COMPRESSED_RGB8_ETC2, KtxTexture.glFormatFromVk(147));
+        assertEquals(KtxTexture.GL_COMPRESSED_SIGNED_RG11_EAC, KtxTexture.glFormatFromVk(156));
+        assertEquals(KtxTexture.GL_COMPRESSED_RGBA_ASTC_4x4_KHR, KtxTexture.glFormatFromVk(157));
+        assertEquals(0x93BD, KtxTexture.glFormatFromVk(183)); // ASTC 12x12 UNORM
+        assertEquals(0x93DD, KtxTexture.glFormatFromVk(184)); // ASTC 12x12 SRGB
+        assertEquals(0, KtxTexture.glFormatFromVk(37));       // VK_FORMAT_R8G8B8A8_UNORM
+        assertTrue(KtxTexture.isEtc2(KtxTexture.glFormatFromVk(151)));
+        assertFalse(KtxTexture.isAstc(KtxTexture.GL_COMPRESSED_RGBA8_ETC2_EAC));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsSupercompressedKtx2() throws IOException {
+        KtxTexture.parse(ktx2(158, 2)); // Zstandard
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsUnknownIdentifier() throws IOException {
+        KtxTexture.parse(ByteBuffer.wrap(new byte[128]));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedLevel() throws IOException {
+        ByteBuffer file = ktx1(ByteOrder.LITTLE_ENDIAN, 0);
+        file.limit(file.limit() - 4);
+        KtxTexture.parse(file);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * LongIntMap 和 LongLruCache 测试，在 JVM 上运行
+ */
+public class LongLruCacheTest {
+
+    @Test
+    public void longIntMapMatchesHashMap() {
+        LongIntMap map = new LongIntMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            // 键取值范围较小，保证有足够多的覆盖和删除；包含负数和 0
+            long key = random.nextInt(512) - 256;
+            if (random.nextInt(3) == 0) {
+                Integer expected = reference.remove(key);
+                assertEquals(expected == null ? -1 : expected, map.remove(key, -1));
+            } else {
+                int value = random.nextInt(1000);
+                reference.put(key, value);
+                map.put(key, value);
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = -256; key < 256; key++) {
+            Integer expected = reference.get(key);
+            assertEquals(expected == null ? -1 : expected, map.get(key, -1));
+            assertEquals(expected != null, map.containsKey(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() {
+        List<Long> evicted = new ArrayList<>();
+        LongLruCache<String> cache = new LongLruCache<>(30, (key, value) -> evicted.add(key));
+        cache.put(1, "a", 10);
+        cache.put(2, "b", 10);
+        cache.put(3, "c", 10);
+        assertEquals("a", cache.get(1)); // 1 变为最近使用
+        cache.put(4, "d", 10);
+        assertEquals(1, evicted.size());
+        assertEquals(2L, (long) evicted.get(0));
+        assertNull(cache.peek(2));
+        assertEquals(3, cache.size());
+        assertEquals(30, cache.getWeight());
+        assertEquals(3, cache.getEldestKey(-1));
+
+        // 一个重的值挤掉多个旧值
+        cache.put(5, "e", 25);
+        assertEquals(4, evicted.size());
+        assertEquals(1, cache.size());
+        assertEquals(5, cache.getEvictions() + cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void replaceNotifiesAndRemoveDoesNot() {
+        List<String> evicted = new ArrayList<>();
+        LongLruCache<String> cache = new LongLruCache<>(100, (key, value) -> evicted.add(value));
+        cache.put(1, "old", 10);
+        cache.put(1, "new", 20);
+        assertEquals(1, evicted.size());
+        assertEquals("old", evicted.get(0));
+        assertEquals(20, cache.getWeight());
+
+        assertEquals("new", cache.remove(1));
+        assertEquals(1, evicted.size());
+        assertEquals(0, cache.getWeight());
+        assertEquals(-1, cache.getEldestKey(-1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void peekDoesNotChangeOrder() {
+        LongLruCache<String> cache = new LongLruCache<>(100, null);
+        for (int i = 0; i < 200; i++) {
+            cache.put(i, "v" + i, 0); // 超过初始容量，节点数组会增长
+        }
+        assertEquals("v0", cache.peek(0));
+        assertEquals(0, cache.getEldestKey(-1));
+        cache.get(0);
+        assertEquals(1, cache.getEldestKey(-1));
+
+        cache.setMaxWeight(0);
+        assertEquals(200, cache.size()); // 权重为 0 的值不会被淘汰
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        cache.put(7, "x", 0); // 释放的节点可以重新使用
+        assertEquals("x", cache.get(7));
+    }
+}
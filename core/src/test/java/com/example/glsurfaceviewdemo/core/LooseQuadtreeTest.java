@@ -0,0 +1,139 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 松散四叉树和场景剔除测试，在 JVM 上运行
+ */
+public class LooseQuadtreeTest {
+
+    private static Set<Integer> results(LooseQuadtree tree) {
+        Set<Integer> set = new HashSet<>();
+        for (int i = 0; i < tree.getResultCount(); i++) {
+            assertTrue("duplicate result", set.add(tree.getResult(i)));
+        }
+        return set;
+    }
+
+    // 暴力测试所有物体，作为对照
+    private static Set<Integer> bruteForce(LooseQuadtree tree, List<Integer> items,
+                                           float left, float bottom, float right, float top) {
+        Set<Integer> set = new HashSet<>();
+        for (int item : items) {
+            if (tree.getLeft(item) <= right && tree.getRight(item) >= left
+                    && tree.getBottom(item) <= top && tree.getTop(item) >= bottom) {
+                set.add(item);
+            }
+        }
+        return set;
+    }
+
+    @Test
+    public void randomOperationsMatchBruteForce() {
+        Random random = new Random(42);
+        LooseQuadtree tree = new LooseQuadtree(0.0f, 0.0f, 1024.0f, 8);
+        List<Integer> items = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || items.isEmpty()) {
+                // 大部分是小物体，偶尔有大物体和世界范围以外的物体
+                float size = random.nextInt(20) == 0 ? random.nextFloat() * 600 : random.nextFloat() * 8;
+                float x = random.nextFloat() * 1300 - 150;
+                float y = random.nextFloat() * 1300 - 150;
+                items.add(tree.insert(x, y, x + size, y + size * 0.5f));
+            } else if (op < 8) {
+                int item = items.get(random.nextInt(items.size()));
+                float dx = random.nextInt(4) == 0 ? random.nextFloat() * 400 - 200 : random.nextFloat() * 2 - 1;
+                float dy = random.nextFloat() * 2 - 1;
+                tree.move(item, tree.getLeft(item) + dx, tree.getBottom(item) + dy,
+                        tree.getRight(item) + dx, tree.getTop(item) + dy);
+            } else {
+                int item = items.remove(random.nextInt(items.size()));
+                tree.remove(item);
+                assertFalse(tree.contains(item));
+            }
+            if (step % 50 == 0) {
+                float x = random.nextFloat() * 1200 - 100;
+                float y = random.nextFloat() * 1200 - 100;
+                float w = random.nextFloat() * 500;
+                float h = random.nextFloat() * 500;
+                tree.query(x, y, x + w, y + h);
+                assertEquals(bruteForce(tree, items, x, y, x + w, y + h), results(tree));
+            }
+        }
+        assertEquals(items.size(), tree.size());
+        // 覆盖整个世界的查询走整棵子树的快速路径
+        tree.query(-1e6f, -1e6f, 1e6f, 1e6f);
+        assertEquals(items.size(), tree.getResultCount());
+    }
+
+    @Test
+    public void smallQueryVisitsFewItems() {
+        LooseQuadtree tree = new LooseQuadtree(0.0f, 0.0f, 1000.0f, 10);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 100; x++) {
+                tree.insert(x * 10, y * 10, x * 10 + 8, y * 10 + 8);
+            }
+        }
+        int count = tree.query(500, 500, 540, 520);
+        assertEquals(5 * 3, count);
+        // 只测试查询范围附近的物体，而不是全部 10000 个
+        assertTrue(tree.getLastItemsTested() < 200);
+        assertTrue(tree.getLastNodesVisited() < 200);
+    }
+
+    @Test
+    public void moveWithinCellKeepsNode() {
+        LooseQuadtree tree = new LooseQuadtree(0.0f, 0.0f, 256.0f, 4);
+        int item = tree.insert(10, 10, 12, 12);
+        int nodes = tree.getNodeCount();
+        tree.move(item, 11, 11, 13, 13);
+        assertEquals(nodes, tree.getNodeCount());
+        assertEquals(1, tree.query(12.5f, 12.5f, 20, 20));
+        assertEquals(0, tree.query(0, 0, 10.5f, 10.5f));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removedHandleIsRejected() {
+        LooseQuadtree tree = new LooseQuadtree(0.0f, 0.0f, 256.0f, 4);
+        int item = tree.insert(1, 1, 2, 2);
+        tree.remove(item);
+        tree.move(item, 3, 3, 4, 4);
+    }
+
+    @Test
+    public void sceneCullsAgainstMvpInInsertionOrder() {
+        QuadScene scene = new QuadScene(0.0f, 0.0f, 1000.0f, 8);
+        int far = scene.add(1, 900, 900, 10, 10, 0, 0, 1, 1, 0xFFFFFFFF);
+        int back = scene.add(2, 0, 0, 100, 100, 0, 0, 1, 1, 0xFFFFFFFF);
+        int front = scene.add(3, 40, 40, 10, 10, 0, 0, 1, 1, 0xFF0000FF);
+
+        // 相机看 [0, 200] x [0, 100]
+        float[] mvp = new float[16];
+        Mat4.ortho(mvp, 0, 0, 200, 0, 100, -1, 1);
+        assertEquals(2, scene.cull(mvp, 0));
+        assertEquals(back, scene.getVisibleItem(0)); // 先添加的先画
+        assertEquals(front, scene.getVisibleItem(1));
+
+        scene.move(far, 150, 50);
+        assertEquals(3, scene.cull(mvp, 0));
+        assertEquals(far, scene.getVisibleItem(0));
+        assertEquals(10.0f, scene.getWidth(far), 0.0f);
+
+        scene.remove(back);
+        assertEquals(2, scene.cull(mvp, 0));
+        int reused = scene.add(4, 60, 60, 5, 5, 0, 0, 1, 1, 0xFFFFFFFF);
+        assertEquals(3, scene.cull(mvp, 0));
+        assertEquals(reused, scene.getVisibleItem(2)); // 复用的句柄按新的添加顺序排在最后
+        assertEquals(4, scene.getTexture(reused));
+        assertEquals(4, scene.getCullTimes().getCount());
+    }
+}
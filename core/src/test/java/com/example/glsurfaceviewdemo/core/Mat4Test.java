@@ -0,0 +1,163 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mat4 / Vec3 / Transform 测试，以 android.opengl.Matrix 的移植版本为参照，在 JVM 上运行
+ */
+public class Mat4Test {
+    private static final float EPSILON = 1e-5f;
+    private final Random mRandom = new Random(1);
+
+    private float[] randomMatrix() {
+        float[] m = new float[16];
+        for (int i = 0; i < 16; i++) {
+            m[i] = mRandom.nextFloat() * 2.0f - 1.0f;
+        }
+        return m;
+    }
+
+    @Test
+    public void multiplyMatchesReference() {
+        float[] a = randomMatrix();
+        float[] b = randomMatrix();
+        float[] expected = new float[16];
+        float[] actual = new float[16];
+        ReferenceMatrix.multiplyMM(expected, 0, a, 0, b, 0);
+        Mat4.multiply(actual, 0, a, 0, b, 0);
+        assertArrayEquals(expected, actual, EPSILON);
+
+        // 结果与输入是同一个数组
+        float[] lhsAlias = a.clone();
+        Mat4.multiply(lhsAlias, 0, lhsAlias, 0, b, 0);
+        assertArrayEquals(expected, lhsAlias, EPSILON);
+        float[] rhsAlias = b.clone();
+        Mat4.multiply(rhsAlias, 0, a, 0, rhsAlias, 0);
+        assertArrayEquals(expected, rhsAlias, EPSILON);
+    }
+
+    @Test
+    public void multiplyIntoFloatBuffer() {
+        float[] a = randomMatrix();
+        float[] b = randomMatrix();
+        float[] expected = new float[16];
+        ReferenceMatrix.multiplyMM(expected, 0, a, 0, b, 0);
+        FloatBuffer buffer = ByteBuffer.allocateDirect(32 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        Mat4.multiply(buffer, 16, a, 0, b, 0);
+        assertEquals(0, buffer.position());
+        float[] actual = new float[16];
+        Mat4.load(actual, 0, buffer, 16);
+        assertArrayEquals(expected, actual, EPSILON);
+    }
+
+    @Test
+    public void batchMultiplyMatchesSingle() {
+        int count = 5;
+        float[] viewProjection = randomMatrix();
+        float[] models = new float[count * 16];
+        for (int i = 0; i < models.length; i++) {
+            models[i] = mRandom.nextFloat();
+        }
+        float[] results = new float[count * 16];
+        Mat4.multiplyBatch(results, 0, viewProjection, 0, models, 0, count);
+        FloatBuffer buffer = FloatBuffer.allocate(count * 16);
+        Mat4.multiplyBatch(buffer, 0, viewProjection, 0, models, 0, count);
+        float[] expected = new float[16];
+        for (int i = 0; i < count; i++) {
+            ReferenceMatrix.multiplyMM(expected, 0, viewProjection, 0, models, i * 16);
+            for (int j = 0; j < 16; j++) {
+                assertEquals(expected[j], results[i * 16 + j], EPSILON);
+                assertEquals(expected[j], buffer.get(i * 16 + j), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void projectionsMatchReference() {
+        float[] expected = new float[16];
+        float[] actual = new float[16];
+        ReferenceMatrix.orthoM(expected, 0, -1.0f, 1.0f, -1.7f, 1.7f, -1.0f, 1.0f);
+        Mat4.ortho(actual, 0, -1.0f, 1.0f, -1.7f, 1.7f, -1.0f, 1.0f);
+        assertArrayEquals(expected, actual, EPSILON);
+
+        ReferenceMatrix.perspectiveM(expected, 0, 60.0f, 1.5f, 0.1f, 100.0f);
+        Mat4.perspective(actual, 0, 60.0f, 1.5f, 0.1f, 100.0f);
+        assertArrayEquals(expected, actual, EPSILON);
+
+        ReferenceMatrix.setLookAtM(expected, 0, 1.0f, 2.0f, -3.0f, 0.5f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        Mat4.lookAt(actual, 0, 1.0f, 2.0f, -3.0f, 0.5f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f);
+        assertArrayEquals(expected, actual, EPSILON);
+    }
+
+    @Test
+    public void translateRotateScaleMatchesReference() {
+        float[] expected = new float[16];
+        ReferenceMatrix.setIdentityM(expected, 0);
+        ReferenceMatrix.translateM(expected, 0, 3.0f, -2.0f, 0.5f);
+        ReferenceMatrix.rotateM(expected, 0, 30.0f, 0.0f, 0.0f, 1.0f);
+        ReferenceMatrix.scaleM(expected, 0, 2.0f, 4.0f, 1.0f);
+
+        float[] composed = new float[16];
+        Mat4.setTranslateRotateScale(composed, 0, 3.0f, -2.0f, 0.5f, 30.0f, 2.0f, 4.0f, 1.0f);
+        assertArrayEquals(expected, composed, EPSILON);
+
+        float[] stepwise = new float[16];
+        Mat4.setIdentity(stepwise, 0);
+        Mat4.translate(stepwise, 0, 3.0f, -2.0f, 0.5f);
+        Mat4.rotateZ(stepwise, 0, 30.0f);
+        Mat4.scale(stepwise, 0, 2.0f, 4.0f, 1.0f);
+        assertArrayEquals(expected, stepwise, EPSILON);
+    }
+
+    @Test
+    public void vectorOperations() {
+        float[] v = {1.0f, 0.0f, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0.0f};
+        Vec3.cross(v, 6, v, 0, v, 3);
+        assertArrayEquals(new float[]{0.0f, 0.0f, 1.0f}, new float[]{v[6], v[7], v[8]}, EPSILON);
+        Vec3.set(v, 0, 3.0f, 4.0f, 0.0f);
+        assertEquals(5.0f, Vec3.length(v, 0), EPSILON);
+        Vec3.normalize(v, 0);
+        assertEquals(1.0f, Vec3.length(v, 0), EPSILON);
+
+        float[] m = new float[16];
+        Mat4.setTranslateRotateScale(m, 0, 1.0f, 2.0f, 3.0f, 90.0f, 1.0f, 1.0f, 1.0f);
+        float[] p = {1.0f, 0.0f, 0.0f};
+        Vec3.transformPoint(p, 0, m, 0, p, 0);
+        assertArrayEquals(new float[]{1.0f, 3.0f, 3.0f}, p, EPSILON);
+    }
+
+    @Test
+    public void transformUpdatesOnlyDirtySubtrees() {
+        Transform root = new Transform();
+        Transform left = new Transform();
+        Transform right = new Transform();
+        Transform leaf = new Transform();
+        root.addChild(left);
+        root.addChild(right);
+        left.addChild(leaf);
+        assertEquals(4, root.update());
+        assertEquals(0, root.update());
+
+        leaf.setPosition(1.0f, 0.0f, 0.0f);
+        assertEquals(1, root.update());
+        left.setPosition(0.0f, 2.0f, 0.0f);
+        assertEquals(2, root.update()); // left 和它的子节点
+        right.setScale(2.0f, 2.0f, 1.0f);
+        right.setScale(2.0f, 2.0f, 1.0f); // 相同的值不会标记脏
+        assertEquals(1, root.update());
+        root.setRotation(90.0f);
+        assertEquals(4, root.update());
+
+        // leaf 的世界坐标原点：先平移 (1, 0)，再平移 (0, 2)，最后绕 z 轴旋转 90 度
+        float[] origin = {0.0f, 0.0f, 0.0f};
+        Vec3.transformPoint(origin, 0, leaf.getWorldMatrix(), 0, origin, 0);
+        assertArrayEquals(new float[]{-2.0f, 1.0f, 0.0f}, origin, EPSILON);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 网格优化和顶点布局测试，在 JVM 上运行
+ */
+public class MeshOptimizerTest {
+
+    /**
+     * 生成 n x n 个格子的平面，每个三角形单独存放 3 个顶点（不共享，和三角形汤一样），
+     * 顶点为 x, y, z, u, v；三角形按列优先的顺序排列，缓存命中率很差
+     */
+    private static float[] gridSoup(int n) {
+        float[] vertices = new float[n * n * 6 * 5];
+        int i = 0;
+        for (int x = 0; x < n; x++) {
+            for (int y = 0; y < n; y++) {
+                int[][] corners = {{x, y}, {x + 1, y}, {x, y + 1}, {x, y + 1}, {x + 1, y}, {x + 1, y + 1}};
+                for (int[] corner : corners) {
+                    float u = (float) corner[0] / n;
+                    float v = (float) corner[1] / n;
+                    vertices[i++] = u * 2.0f - 1.0f;
+                    vertices[i++] = v * 2.0f - 1.0f;
+                    vertices[i++] = 0.0f;
+                    vertices[i++] = u;
+                    vertices[i++] = v;
+                }
+            }
+        }
+        return vertices;
+    }
+
+    // 每个三角形的顶点数据（按位置排序后拼成字符串），用于检查重排前后三角形集合不变
+    private static List<String> triangles(float[] vertices, int stride, int[] indices) {
+        List<String> result = new ArrayList<>();
+        for (int t = 0; t < indices.length; t += 3) {
+            String[] corners = new String[3];
+            for (int k = 0; k < 3; k++) {
+                int base = indices[t + k] * stride;
+                corners[k] = Arrays.toString(Arrays.copyOfRange(vertices, base, base + stride));
+            }
+            // 保持绕序：旋转到最小的顶点开头
+            int first = 0;
+            for (int k = 1; k < 3; k++) {
+                if (corners[k].compareTo(corners[first]) < 0) {
+                    first = k;
+                }
+            }
+            result.add(corners[first] + corners[(first + 1) % 3] + corners[(first + 2) % 3]);
+        }
+        result.sort(null);
+        return result;
+    }
+
+    @Test
+    public void deduplicateMergesSharedCorners() {
+        int n = 8;
+        float[] soup = gridSoup(n);
+        MeshOptimizer.Mesh mesh = MeshOptimizer.deduplicate(soup, 5, n * n * 6, sequential(n * n * 6));
+        assertEquals((n + 1) * (n + 1), mesh.vertexCount);
+        assertEquals(n * n * 6, mesh.indices.length);
+        assertEquals(triangles(soup, 5, sequential(n * n * 6)), triangles(mesh.vertices, 5, mesh.indices));
+    }
+
+    @Test
+    public void optimizeImprovesAcmrAndKeepsTriangles() {
+        int n = 32;
+        float[] soup = gridSoup(n);
+        MeshOptimizer.Mesh shared = MeshOptimizer.deduplicate(soup, 5, n * n * 6, sequential(n * n * 6));
+        float sharedAcmr = MeshOptimizer.computeAcmr(shared.indices, shared.vertexCount, MeshOptimizer.DEFAULT_FIFO_SIZE);
+
+        VertexLayout layout = new VertexLayout().add(0, 3, VertexLayout.SNORM16).add(1, 2, VertexLayout.UNORM16);
+        MeshOptimizer.Report report = MeshOptimizer.optimize(soup, 5, n * n * 6, null, layout);
+        assertEquals(3.0f, report.acmrBefore, 0.0f); // 三角形汤每个顶点都要变换一次
+        assertEquals((n + 1) * (n + 1), report.mesh.vertexCount);
+        // 去重后按原来的顺序绘制，列优先的长条超出了缓存；重排后明显更好
+        assertTrue("acmr " + report.acmrAfter + " vs " + sharedAcmr, report.acmrAfter < sharedAcmr * 0.85f);
+        assertTrue(report.acmrAfter < 0.8f);
+        assertEquals(triangles(soup, 5, sequential(n * n * 6)),
+                triangles(report.mesh.vertices, 5, report.mesh.indices));
+
+        // 顶点按第一次被索引的顺序排列
+        int next = 0;
+        for (int index : report.mesh.indices) {
+            assertTrue(index <= next);
+            if (index == next) {
+                next++;
+            }
+        }
+
+        assertEquals(VertexLayout.GL_UNSIGNED_SHORT, report.getIndexType());
+        int expectedBytes = (n + 1) * (n + 1) * 12 + n * n * 6 * 2;
+        assertEquals(expectedBytes, report.bytesAfter);
+        assertEquals(n * n * 6 * (20 + 4), report.bytesBefore);
+        assertTrue(report.packIndices() instanceof ShortBuffer);
+        assertEquals(expectedBytes - n * n * 6 * 2, report.packVertices().capacity());
+    }
+
+    @Test
+    public void vertexCacheOrderHandlesDegenerateAndIsolatedTriangles() {
+        int[] indices = {0, 0, 1, 2, 3, 4, 5, 6, 7, 2, 3, 8};
+        int[] ordered = MeshOptimizer.optimizeVertexCache(indices, 9);
+        assertEquals(indices.length, ordered.length);
+        int[] sortedBefore = indices.clone();
+        int[] sortedAfter = ordered.clone();
+        Arrays.sort(sortedBefore);
+        Arrays.sort(sortedAfter);
+        assertArrayEquals(sortedBefore, sortedAfter);
+        assertEquals(0, MeshOptimizer.optimizeVertexCache(new int[0], 0).length);
+    }
+
+    @Test
+    public void acmrCountsFifoMisses() {
+        // 两个共享一条边的三角形：4 次未命中
+        assertEquals(2.0f, MeshOptimizer.computeAcmr(new int[]{0, 1, 2, 2, 1, 3}, 4, 16), 0.0f);
+        // 缓存只有 3 个顶点时，第二个三角形的 1 和 2 仍在缓存中
+        assertEquals(2.0f, MeshOptimizer.computeAcmr(new int[]{0, 1, 2, 2, 1, 3}, 4, 3), 0.0f);
+        // 缓存只有 1 个顶点
+        assertEquals(2.5f, MeshOptimizer.computeAcmr(new int[]{0, 1, 2, 2, 1, 3}, 4, 1), 0.0f);
+    }
+
+    @Test
+    public void largeMeshKeeps32BitIndices() {
+        int[] indices = {0, 1, 70000};
+        Buffer packed = MeshOptimizer.packIndices(indices, 70001);
+        assertTrue(packed instanceof IntBuffer);
+        assertEquals(70000, ((IntBuffer) packed).get(2));
+        assertEquals(VertexLayout.GL_UNSIGNED_INT, MeshOptimizer.indexType(70001));
+        assertEquals(VertexLayout.GL_UNSIGNED_SHORT, MeshOptimizer.indexType(65536));
+    }
+
+    @Test
+    public void layoutPacksAlignedAttributesAndConfiguresPointers() {
+        VertexLayout layout = new VertexLayout()
+                .add(0, 3, VertexLayout.HALF)
+                .add(2, 4, VertexLayout.UNORM8)
+                .add(1, 2, VertexLayout.UNORM16);
+        assertEquals(8 + 4 + 4, layout.getStride());
+        assertEquals(9, layout.getSourceComponents());
+
+        float[] vertex = {1.5f, -2.0f, 0.25f, 1.0f, 0.0f, 0.5f, 1.0f, 0.0f, 1.0f};
+        ByteBuffer packed = layout.pack(vertex, 9, 1);
+        assertEquals(16, packed.capacity());
+        assertEquals(1.5f, VertexPacking.halfToFloat(packed.getShort(0)), 0.0f);
+        assertEquals(-2.0f, VertexPacking.halfToFloat(packed.getShort(2)), 0.0f);
+        assertEquals(0.25f, VertexPacking.halfToFloat(packed.getShort(4)), 0.0f);
+        assertEquals(0, packed.getShort(6)); // 对齐填充
+        assertEquals((byte) 255, packed.get(8));
+        assertEquals(0, packed.get(9));
+        assertEquals((byte) 128, packed.get(10));
+        assertEquals(0, packed.getShort(12));
+        assertEquals((short) 65535, packed.getShort(14));
+
+        RecordingGLBackend gl = new RecordingGLBackend();
+        layout.apply(gl, 64);
+        List<String> log = gl.getLog();
+        assertTrue(log.contains("glVertexAttribPointer(0, 3, 5131, false, 16, 64)"));
+        assertTrue(log.contains("glVertexAttribPointer(2, 4, 5121, true, 16, 72)"));
+        assertTrue(log.contains("glVertexAttribPointer(1, 2, 5123, true, 16, 76)"));
+        assertEquals(3, gl.getCommandCount("glEnableVertexAttribArray"));
+    }
+
+    @Test
+    public void suggestFormatFollowsRange() {
+        float[] data = {0.0f, 1.0f, -1.0f, 0.5f, 3.0f, 0.0f};
+        assertEquals(VertexLayout.UNORM16, VertexLayout.suggestFormat(data, 3, 2, 0, 1));
+        assertEquals(VertexLayout.HALF, VertexLayout.suggestFormat(data, 3, 2, 1, 1));
+        assertEquals(VertexLayout.SNORM16, VertexLayout.suggestFormat(data, 3, 2, 2, 1));
+    }
+
+    private static int[] sequential(int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+}
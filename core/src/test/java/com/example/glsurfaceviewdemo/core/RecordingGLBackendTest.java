@@ -0,0 +1,121 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 记录型 GL 后端测试，在 JVM 上运行
+ */
+public class RecordingGLBackendTest {
+    private static final int GL_TEXTURE_2D = 0x0DE1;
+    private static final int GL_ARRAY_BUFFER = 0x8892;
+    private static final int GL_STREAM_DRAW = 0x88E0;
+    private static final int GL_TRIANGLES = 0x0004;
+    private static final int GL_UNSIGNED_SHORT = 0x1403;
+    private static final int GL_LINK_STATUS = 0x8B82;
+    private static final int GL_ACTIVE_UNIFORMS = 0x8B86;
+    private static final int GL_FLOAT_MAT4 = 0x8B5C;
+    private static final int GL_FRAMEBUFFER = 0x8D40;
+    private static final int GL_FRAMEBUFFER_BINDING = 0x8CA6;
+    private static final int GL_VIEWPORT = 0x0BA2;
+    private static final int GL_RGBA = 0x1908;
+    private static final int GL_UNSIGNED_BYTE = 0x1401;
+    private static final int GL_SYNC_GPU_COMMANDS_COMPLETE = 0x9117;
+    private static final int GL_ALREADY_SIGNALED = 0x911A;
+
+    // 直接发出的一组命令，用来检查记录器自己的计数：每张纹理一次绑定、一次缓冲上传、一次绘制。
+    // 渲染器真实代码路径的预算测试见 app 模块的 RenderCommandPlayerTest
+    private static void issueDraws(GLBackend gl, int[] textures) {
+        for (int texture : textures) {
+            gl.glBindTexture(GL_TEXTURE_2D, texture);
+            gl.glBufferSubData(GL_ARRAY_BUFFER, 0, 80 * 64, ByteBuffer.allocate(0));
+            gl.glDrawElements(GL_TRIANGLES, 6 * 64, GL_UNSIGNED_SHORT, 0);
+        }
+    }
+
+    @Test
+    public void handsOutDistinctIds() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        int[] ids = new int[4];
+        gl.glGenBuffers(2, ids, 0);
+        gl.glGenTextures(2, ids, 2);
+        int program = gl.glCreateProgram();
+        for (int i = 0; i < ids.length; i++) {
+            assertTrue(ids[i] > 0);
+            assertNotEquals(program, ids[i]);
+            for (int j = i + 1; j < ids.length; j++) {
+                assertNotEquals(ids[i], ids[j]);
+            }
+        }
+    }
+
+    @Test
+    public void reportsSuccessfulLinkAndDeclaredUniforms() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        gl.addActiveUniform("uMVPMatrix", GL_FLOAT_MAT4);
+        int program = gl.glCreateProgram();
+        int[] value = new int[1];
+        gl.glGetProgramiv(program, GL_LINK_STATUS, value, 0);
+        assertEquals(1, value[0]);
+        gl.glGetProgramiv(program, GL_ACTIVE_UNIFORMS, value, 0);
+        assertEquals(1, value[0]);
+        int[] size = new int[1];
+        int[] type = new int[1];
+        assertEquals("uMVPMatrix", gl.glGetActiveUniform(program, 0, size, 0, type, 0));
+        assertEquals(GL_FLOAT_MAT4, type[0]);
+        assertEquals(0, gl.glGetUniformLocation(program, "uMVPMatrix"));
+        assertEquals(-1, gl.glGetUniformLocation(program, "uMissing"));
+    }
+
+    @Test
+    public void countsPerFrameAndLogsCommands() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        gl.beginFrame();
+        issueDraws(gl, new int[]{1, 2, 3});
+        assertEquals(3, gl.getFrameDrawCalls());
+        assertEquals(3, gl.getFrameBinds());
+        assertEquals(3, gl.getFrameBufferUploads());
+        assertEquals(3L * 80 * 64, gl.getFrameBufferUploadBytes());
+        assertEquals(9, gl.getFrameCommands());
+        assertEquals("glDrawElements(4, 384, 5123, 0)", gl.getLog().get(2));
+
+        // 新的一帧只清零每帧统计，日志和总次数保留
+        gl.beginFrame();
+        assertEquals(0, gl.getFrameDrawCalls());
+        issueDraws(gl, new int[]{1});
+        assertEquals(1, gl.getFrameDrawCalls());
+        assertEquals(4, gl.getCommandCount("glDrawElements"));
+        assertEquals(12, gl.getLog().size());
+        assertEquals(2, gl.getFrameCount());
+    }
+
+    @Test
+    public void tracksFramebufferStateAndReadbacks() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        int[] ids = new int[1];
+        gl.glGenFramebuffers(1, ids, 0);
+        gl.beginFrame();
+        gl.glBindFramebuffer(GL_FRAMEBUFFER, ids[0]);
+        gl.glViewport(0, 0, 320, 240);
+        int[] value = new int[4];
+        gl.glGetIntegerv(GL_FRAMEBUFFER_BINDING, value, 0);
+        assertEquals(ids[0], value[0]);
+        gl.glGetIntegerv(GL_VIEWPORT, value, 0);
+        assertArrayEquals(new int[]{0, 0, 320, 240}, value);
+
+        gl.glReadPixels(0, 0, 320, 240, GL_RGBA, GL_UNSIGNED_BYTE, 0);
+        long fence = gl.glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        assertEquals(GL_ALREADY_SIGNALED, gl.glClientWaitSync(fence, 0, 0));
+        gl.glDeleteSync(fence);
+        gl.glBindFramebuffer(GL_FRAMEBUFFER, 0);
+
+        assertEquals(2, gl.getFrameFramebufferBinds());
+        assertEquals(2, gl.getFrameBinds());
+        assertEquals(1, gl.getFrameReadbacks());
+        gl.glGetIntegerv(GL_FRAMEBUFFER_BINDING, value, 0);
+        assertEquals(0, value[0]);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.glsurfaceviewdemo.core;
+
+/**
+ * android.opengl.Matrix 中用到的方法在 JVM 上的移植，作为 Mat4 的正确性参照和基准测试的对照组。
+ * <p>
+ * 本地单元测试只能拿到 android.jar 的桩实现，而且 multiplyMM 在设备上是 JNI 方法，所以这里按 AOSP 的实现原样移植：
+ * multiplyMM 对应 android_opengl_Matrix.cpp 中的循环，其余方法对应 Matrix.java（rotateM 通过共享的 sTemp 加锁计算）。
+ * 在设备上原版还要额外付出 JNI 调用和数组 pin 的开销。
+ */
+final class ReferenceMatrix {
+    private static final float[] sTemp = new float[32];
+
+    private ReferenceMatrix() {
+    }
+
+    static void multiplyMM(float[] result, int resultOffset, float[] lhs, int lhsOffset, float[] rhs, int rhsOffset) {
+        for (int i = 0; i < 4; i++) {
+            float rhsI0 = rhs[rhsOffset + 4 * i];
+            float ri0 = lhs[lhsOffset] * rhsI0;
+            float ri1 = lhs[lhsOffset + 1] * rhsI0;
+            float ri2 = lhs[lhsOffset + 2] * rhsI0;
+            float ri3 = lhs[lhsOffset + 3] * rhsI0;
+            for (int j = 1; j < 4; j++) {
+                float rhsIJ = rhs[rhsOffset + 4 * i + j];
+                ri0 += lhs[lhsOffset + 4 * j] * rhsIJ;
+                ri1 += lhs[lhsOffset + 4 * j + 1] * rhsIJ;
+                ri2 += lhs[lhsOffset + 4 * j + 2] * rhsIJ;
+                ri3 += lhs[lhsOffset + 4 * j + 3] * rhsIJ;
+            }
+            result[resultOffset + 4 * i] = ri0;
+            result[resultOffset + 4 * i + 1] = ri1;
+            result[resultOffset + 4 * i + 2] = ri2;
+            result[resultOffset + 4 * i + 3] = ri3;
+        }
+    }
+
+    static void setIdentityM(float[] sm, int smOffset) {
+        for (int i = 0; i < 16; i++) {
+            sm[smOffset + i] = 0;
+        }
+        for (int i = 0; i < 16; i += 5) {
+            sm[smOffset + i] = 1.0f;
+        }
+    }
+
+    static void orthoM(float[] m, int mOffset, float left, float right, float bottom, float top,
+                       float near, float far) {
+        float rWidth = 1.0f / (right - left);
+        float rHeight = 1.0f / (top - bottom);
+        float rDepth = 1.0f / (far - near);
+        float x = 2.0f * (rWidth);
+        float y = 2.0f * (rHeight);
+        float z = -2.0f * (rDepth);
+        float tx = -(right + left) * rWidth;
+        float ty = -(top + bottom) * rHeight;
+        float tz = -(far + near) * rDepth;
+        m[mOffset] = x;
+        m[mOffset + 5] = y;
+        m[mOffset + 10] = z;
+        m[mOffset + 12] = tx;
+        m[mOffset + 13] = ty;
+        m[mOffset + 14] = tz;
+        m[mOffset + 15] = 1.0f;
+        m[mOffset + 1] = 0.0f;
+        m[mOffset + 2] = 0.0f;
+        m[mOffset + 3] = 0.0f;
+        m[mOffset + 4] = 0.0f;
+        m[mOffset + 6] = 0.0f;
+        m[mOffset + 7] = 0.0f;
+        m[mOffset + 8] = 0.0f;
+        m[mOffset + 9] = 0.0f;
+        m[mOffset + 11] = 0.0f;
+    }
+
+    static void perspectiveM(float[] m, int offset, float fovy, float aspect, float zNear, float zFar) {
+        float f = 1.0f / (float) Math.tan(fovy * (Math.PI / 360.0));
+        float rangeReciprocal = 1.0f / (zNear - zFar);
+        m[offset] = f / aspect;
+        m[offset + 1] = 0.0f;
+        m[offset + 2] = 0.0f;
+        m[offset + 3] = 0.0f;
+        m[offset + 4] = 0.0f;
+        m[offset + 5] = f;
+        m[offset + 6] = 0.0f;
+        m[offset + 7] = 0.0f;
+        m[offset + 8] = 0.0f;
+        m[offset + 9] = 0.0f;
+        m[offset + 10] = (zFar + zNear) * rangeReciprocal;
+        m[offset + 11] = -1.0f;
+        m[offset + 12] = 0.0f;
+        m[offset + 13] = 0.0f;
+        m[offset + 14] = 2.0f * zFar * zNear * rangeReciprocal;
+        m[offset + 15] = 0.0f;
+    }
+
+    static void setLookAtM(float[] rm, int rmOffset, float eyeX, float eyeY, float eyeZ,
+                           float centerX, float centerY, float centerZ, float upX, float upY, float upZ) {
+        float fx = centerX - eyeX;
+        float fy = centerY - eyeY;
+        float fz = centerZ - eyeZ;
+        float rlf = 1.0f / (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        fx *= rlf;
+        fy *= rlf;
+        fz *= rlf;
+        float sx = fy * upZ - fz * upY;
+        float sy = fz * upX - fx * upZ;
+        float sz = fx * upY - fy * upX;
+        float rls = 1.0f / (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+        sx *= rls;
+        sy *= rls;
+        sz *= rls;
+        float ux = sy * fz - sz * fy;
+        float uy = sz * fx - sx * fz;
+        float uz = sx * fy - sy * fx;
+        rm[rmOffset] = sx;
+        rm[rmOffset + 1] = ux;
+        rm[rmOffset + 2] = -fx;
+        rm[rmOffset + 3] = 0.0f;
+        rm[rmOffset + 4] = sy;
+        rm[rmOffset + 5] = uy;
+        rm[rmOffset + 6] = -fy;
+        rm[rmOffset + 7] = 0.0f;
+        rm[rmOffset + 8] = sz;
+        rm[rmOffset + 9] = uz;
+        rm[rmOffset + 10] = -fz;
+        rm[rmOffset + 11] = 0.0f;
+        rm[rmOffset + 12] = 0.0f;
+        rm[rmOffset + 13] = 0.0f;
+        rm[rmOffset + 14] = 0.0f;
+        rm[rmOffset + 15] = 1.0f;
+        translateM(rm, rmOffset, -eyeX, -eyeY, -eyeZ);
+    }
+
+    static void translateM(float[] m, int mOffset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int mi = mOffset + i;
+            m[12 + mi] += m[mi] * x + m[4 + mi] * y + m[8 + mi] * z;
+        }
+    }
+
+    static void scaleM(float[] m, int mOffset, float x, float y, float z) {
+        for (int i = 0; i < 4; i++) {
+            int mi = mOffset + i;
+            m[mi] *= x;
+            m[4 + mi] *= y;
+            m[8 + mi] *= z;
+        }
+    }
+
+    static void rotateM(float[] m, int mOffset, float a, float x, float y, float z) {
+        synchronized (sTemp) {
+            setRotateM(sTemp, 0, a, x, y, z);
+            multiplyMM(sTemp, 16, m, mOffset, sTemp, 0);
+            System.arraycopy(sTemp, 16, m, mOffset, 16);
+        }
+    }
+
+    static void setRotateM(float[] rm, int rmOffset, float a, float x, float y, float z) {
+        rm[rmOffset + 3] = 0;
+        rm[rmOffset + 7] = 0;
+        rm[rmOffset + 11] = 0;
+        rm[rmOffset + 12] = 0;
+        rm[rmOffset + 13] = 0;
+        rm[rmOffset + 14] = 0;
+        rm[rmOffset + 15] = 1;
+        a *= (float) (Math.PI / 180.0f);
+        float s = (float) Math.sin(a);
+        float c = (float) Math.cos(a);
+        if (0.0f == x && 0.0f == y && 1.0f == z) {
+            rm[rmOffset] = c;
+            rm[rmOffset + 5] = c;
+            rm[rmOffset + 1] = s;
+            rm[rmOffset + 4] = -s;
+            rm[rmOffset + 2] = 0;
+            rm[rmOffset + 6] = 0;
+            rm[rmOffset + 8] = 0;
+            rm[rmOffset + 9] = 0;
+            rm[rmOffset + 10] = 1;
+        } else {
+            float len = (float) Math.sqrt(x * x + y * y + z * z);
+            if (1.0f != len) {
+                float recipLen = 1.0f / len;
+                x *= recipLen;
+                y *= recipLen;
+                z *= recipLen;
+            }
+            float nc = 1.0f - c;
+            float xy = x * y;
+            float yz = y * z;
+            float zx = z * x;
+            float xs = x * s;
+            float ys = y * s;
+            float zs = z * s;
+            rm[rmOffset] = x * x * nc + c;
+            rm[rmOffset + 4] = xy * nc - zs;
+            rm[rmOffset + 8] = zx * nc + ys;
+            rm[rmOffset + 1] = xy * nc + zs;
+            rm[rmOffset + 5] = y * y * nc + c;
+            rm[rmOffset + 9] = yz * nc - xs;
+            rm[rmOffset + 2] = zx * nc - ys;
+            rm[rmOffset + 6] = yz * nc + xs;
+            rm[rmOffset + 10] = z * z * nc + c;
+        }
+    }
+}
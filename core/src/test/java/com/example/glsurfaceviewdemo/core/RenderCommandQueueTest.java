@@ -0,0 +1,174 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 渲染命令列表和三重缓冲队列测试，在 JVM 上运行
+ */
+public class RenderCommandQueueTest {
+
+    // 把回放的命令转换成字符串，方便比较
+    private static class Recorder implements RenderCommandList.Visitor {
+        final List<String> mCommands = new ArrayList<>();
+
+        @Override
+        public void setMatrix(float[] matrix, int offset) {
+            mCommands.add("matrix " + matrix[offset] + " " + matrix[offset + 15]);
+        }
+
+        @Override
+        public void bindTexture(int textureId) {
+            mCommands.add("texture " + textureId);
+        }
+
+        @Override
+        public void drawSprite(float x, float y, float width, float height,
+                               float u0, float v0, float u1, float v1, int rgba) {
+            mCommands.add("sprite " + x + " " + y + " " + width + " " + height + " "
+                    + u0 + " " + v0 + " " + u1 + " " + v1 + " " + Integer.toHexString(rgba));
+        }
+    }
+
+    // 每个帧只包含一条纹理命令，纹理 ID 就是帧号
+    private static void publishFrame(RenderCommandQueue queue, int frame) {
+        queue.beginFrame().bindTexture(frame);
+        queue.publish();
+    }
+
+    private static int frameOf(RenderCommandList list) {
+        Recorder recorder = new Recorder();
+        list.replay(recorder);
+        return Integer.parseInt(recorder.mCommands.get(0).substring("texture ".length()));
+    }
+
+    @Test
+    public void replaysCommandsInOrder() {
+        RenderCommandList list = new RenderCommandList(1);
+        float[] matrix = new float[17];
+        matrix[1] = 2.0f;
+        matrix[16] = 3.0f;
+        list.setMatrix(matrix, 1);
+        list.bindTexture(7);
+        list.drawSprite(1, 2, 3, 4, 0.0f, 0.25f, 0.5f, 1.0f, 0xFF00FF80);
+        assertEquals(3, list.getCommandCount());
+
+        Recorder recorder = new Recorder();
+        list.replay(recorder);
+        assertEquals("matrix 2.0 3.0", recorder.mCommands.get(0));
+        assertEquals("texture 7", recorder.mCommands.get(1));
+        assertEquals("sprite 1.0 2.0 3.0 4.0 0.0 0.25 0.5 1.0 ff00ff80", recorder.mCommands.get(2));
+
+        list.reset();
+        assertEquals(0, list.getCommandCount());
+        assertEquals(0, list.getEncodedBytes());
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        RenderCommandList list = new RenderCommandList(16);
+        for (int i = 0; i < 1000; i++) {
+            list.bindTexture(i);
+            list.drawSprite(i, 0, 1, 1, 0, 0, 1, 1, -1);
+        }
+        Recorder recorder = new Recorder();
+        list.replay(recorder);
+        assertEquals(2000, recorder.mCommands.size());
+        assertEquals("texture 999", recorder.mCommands.get(1998));
+    }
+
+    @Test
+    public void acquireReturnsLatestCompleteFrame() {
+        RenderCommandQueue queue = new RenderCommandQueue(16, null);
+        assertNull(queue.acquire());
+
+        publishFrame(queue, 1);
+        assertEquals(1, queue.getPendingFrames());
+        assertEquals(1, frameOf(queue.acquire()));
+        assertEquals(0, queue.getPendingFrames());
+        // 没有新帧时继续回放上一帧
+        assertEquals(1, frameOf(queue.acquire()));
+
+        // 生产者更快时只保留最新的一帧
+        publishFrame(queue, 2);
+        publishFrame(queue, 3);
+        publishFrame(queue, 4);
+        assertEquals(4, frameOf(queue.acquire()));
+
+        RenderCommandQueue.Snapshot snapshot = queue.snapshot();
+        assertEquals(4, snapshot.publishedFrames);
+        assertEquals(2, snapshot.droppedFrames);
+        assertEquals(2, snapshot.acquiredFrames);
+        assertEquals(1, snapshot.lastCommandCount);
+    }
+
+    @Test
+    public void recordingListIsNeverHandedToConsumer() {
+        RenderCommandQueue queue = new RenderCommandQueue(16, null);
+        publishFrame(queue, 1);
+        RenderCommandList recording = queue.beginFrame();
+        recording.bindTexture(99);
+        RenderCommandList front = queue.acquire();
+        assertNotSame(recording, front);
+        assertEquals(1, frameOf(front));
+        queue.publish();
+        assertEquals(99, frameOf(queue.acquire()));
+    }
+
+    @Test
+    public void notifiesListenerOnPublish() {
+        AtomicInteger published = new AtomicInteger();
+        RenderCommandQueue queue = new RenderCommandQueue(16, published::incrementAndGet);
+        publishFrame(queue, 1);
+        publishFrame(queue, 2);
+        assertEquals(2, published.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsPublishWithoutBegin() {
+        new RenderCommandQueue(16, null).publish();
+    }
+
+    @Test
+    public void frameNumbersNeverGoBackwardsAcrossThreads() throws InterruptedException {
+        final RenderCommandQueue queue = new RenderCommandQueue(64, null);
+        final int frames = 200000;
+        Thread producer = new Thread(() -> {
+            for (int frame = 1; frame <= frames; frame++) {
+                RenderCommandList list = queue.beginFrame();
+                for (int i = 0; i < 8; i++) {
+                    list.bindTexture(frame);
+                }
+                queue.publish();
+            }
+        });
+        producer.start();
+
+        int last = 0;
+        while (last < frames) {
+            RenderCommandList list = queue.acquire();
+            if (list == null) {
+                continue;
+            }
+            Recorder recorder = new Recorder();
+            queue.replay(list, recorder);
+            // 一帧内的所有命令都带有相同的帧号，读到混合的帧号说明消费者看到了正在写入的列表
+            int frame = frameOf(list);
+            for (String command : recorder.mCommands) {
+                assertEquals("texture " + frame, command);
+            }
+            assertEquals(8, recorder.mCommands.size());
+            assertTrue(frame >= last);
+            last = frame;
+        }
+        producer.join();
+        RenderCommandQueue.Snapshot snapshot = queue.snapshot();
+        assertEquals(frames, snapshot.publishedFrames);
+        assertEquals(frames, snapshot.acquiredFrames + snapshot.droppedFrames);
+    }
+}
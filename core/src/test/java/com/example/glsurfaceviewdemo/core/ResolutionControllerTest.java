@@ -0,0 +1,135 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 动态分辨率控制器测试，在 JVM 上运行
+ */
+public class ResolutionControllerTest {
+    private static final long MS = 1000000L;
+    private static final long TARGET = 10 * MS;
+
+    // 0.5, 0.625, 0.75, 0.875, 1.0 五个档位
+    private static ResolutionController newController() {
+        return new ResolutionController(0.5f, 1.0f, 5, TARGET);
+    }
+
+    // 连续输入 count 帧同样的耗时，返回切换档位的次数
+    private static int feed(ResolutionController controller, long frameTime, int count) {
+        int changes = 0;
+        for (int i = 0; i < count; i++) {
+            if (controller.addSample(frameTime)) {
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    @Test
+    public void startsAtHighestLevel() {
+        ResolutionController controller = newController();
+        assertEquals(4, controller.getLevel());
+        assertEquals(1.0f, controller.getScale(), 0.0f);
+        assertEquals(0.5f, controller.getLevelScale(0), 0.0f);
+        assertEquals(0.625f, controller.getLevelScale(1), 1e-6f);
+    }
+
+    @Test
+    public void dropsSeveralLevelsAtOnceWhenFarOverTarget() {
+        ResolutionController controller = newController();
+        assertEquals(0, feed(controller, 20 * MS, ResolutionController.WINDOW - 1));
+        // 窗口填满后立即降档：耗时是目标的 2 倍，面积需要减半以上，1.0 * sqrt(0.45) = 0.67 -> 0.625
+        assertTrue(controller.addSample(20 * MS));
+        assertEquals(1, controller.getLevel());
+        assertEquals(1, controller.getScaleChanges());
+    }
+
+    @Test
+    public void dropsAtLeastOneLevelWhenSlightlyOverTarget() {
+        ResolutionController controller = newController();
+        assertEquals(1, feed(controller, 11 * MS, ResolutionController.WINDOW));
+        assertEquals(3, controller.getLevel());
+    }
+
+    @Test
+    public void waitsForCooldownBeforeDroppingAgain() {
+        ResolutionController controller = newController();
+        feed(controller, 20 * MS, ResolutionController.WINDOW);
+        assertEquals(1, controller.getLevel());
+        assertEquals(0, feed(controller, 20 * MS, ResolutionController.COOLDOWN_FRAMES));
+        assertEquals(1, controller.getLevel());
+        assertTrue(controller.addSample(20 * MS));
+        assertEquals(0, controller.getLevel());
+        // 已经是最低档，不再切换
+        assertEquals(0, feed(controller, 40 * MS, 200));
+        assertEquals(0, controller.getLevel());
+    }
+
+    @Test
+    public void raisesOneLevelOnlyAfterSustainedHeadroom() {
+        ResolutionController controller = newController();
+        feed(controller, 20 * MS, ResolutionController.WINDOW);
+        assertEquals(1, controller.getLevel());
+        // 冷却期内的帧和连续 UP_FRAMES - 1 帧都不够
+        int frames = ResolutionController.COOLDOWN_FRAMES + ResolutionController.UP_FRAMES;
+        assertEquals(0, feed(controller, 5 * MS, frames - 1));
+        assertTrue(controller.addSample(5 * MS));
+        assertEquals(2, controller.getLevel());
+    }
+
+    @Test
+    public void headroomStreakResetsOnSlowFrames() {
+        ResolutionController controller = newController();
+        feed(controller, 20 * MS, ResolutionController.WINDOW);
+        feed(controller, 5 * MS, ResolutionController.COOLDOWN_FRAMES + ResolutionController.UP_FRAMES - 10);
+        // 平均值回到升档阈值以上，之前积累的帧数作废
+        feed(controller, 9 * MS, ResolutionController.WINDOW);
+        assertEquals(0, feed(controller, 5 * MS, ResolutionController.UP_FRAMES - 1));
+        assertEquals(1, controller.getLevel());
+    }
+
+    @Test
+    public void doesNotOscillateNearTarget() {
+        ResolutionController controller = newController();
+        feed(controller, 20 * MS, ResolutionController.WINDOW);
+        long changes = controller.getScaleChanges();
+        Random random = new Random(42);
+        // 耗时在目标的 76% ~ 99% 之间抖动：既不需要降档，也没有足够的余量升档
+        for (int i = 0; i < 10000; i++) {
+            controller.addSample(TARGET * (76 + random.nextInt(24)) / 100);
+        }
+        assertEquals(changes, controller.getScaleChanges());
+        assertEquals(1, controller.getLevel());
+    }
+
+    @Test
+    public void tracksTimeAtEachLevel() {
+        ResolutionController controller = newController();
+        for (int i = 0; i < ResolutionController.WINDOW; i++) {
+            controller.advance(16 * MS);
+            controller.addSample(20 * MS);
+        }
+        controller.advance(16 * MS);
+        controller.advance(16 * MS);
+        assertEquals(ResolutionController.WINDOW * 16 * MS, controller.getTimeAtLevel(4));
+        assertEquals(ResolutionController.WINDOW, controller.getFramesAtLevel(4));
+        assertEquals(32 * MS, controller.getTimeAtLevel(1));
+        assertEquals(2, controller.getFramesAtLevel(1));
+        assertEquals("scale=0.625 changes=1 0.500x=0.0% 0.625x=20.0% 0.750x=0.0% 0.875x=0.0% 1.000x=80.0%",
+                controller.toString());
+
+        // reset 回到最高档，统计数据保留
+        controller.reset();
+        assertEquals(4, controller.getLevel());
+        assertEquals(32 * MS, controller.getTimeAtLevel(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSingleLevel() {
+        new ResolutionController(0.5f, 1.0f, 1, TARGET);
+    }
+}
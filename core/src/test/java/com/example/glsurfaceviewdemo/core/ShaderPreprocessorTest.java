@@ -0,0 +1,71 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 着色器源码预处理测试，在 JVM 上运行
+ */
+public class ShaderPreprocessorTest {
+    private final Map<String, String> mFiles = new HashMap<>();
+    private int mReads = 0;
+
+    private ShaderPreprocessor newPreprocessor() {
+        return new ShaderPreprocessor(name -> {
+            mReads++;
+            String source = mFiles.get(name);
+            if (source == null) {
+                throw new IOException("missing " + name);
+            }
+            return source;
+        });
+    }
+
+    @Test
+    public void readSourceNormalizesLineEndings() throws IOException {
+        byte[] bytes = "#version 300 es\r\nvoid main() {}".getBytes(StandardCharsets.UTF_8);
+        assertEquals("#version 300 es\nvoid main() {}\n",
+                ShaderPreprocessor.readSource(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void expandsIncludesOnce() throws IOException {
+        mFiles.put("a.glsl", "float a;\n");
+        mFiles.put("b.glsl", "#include \"a.glsl\"\nfloat b;\n");
+        mFiles.put("main.glsl", "#include \"a.glsl\"\n#include <b.glsl>\nvoid main() {}\n");
+        String source = newPreprocessor().load("main.glsl");
+        assertEquals("float a;\nfloat b;\nvoid main() {}\n", source);
+    }
+
+    @Test
+    public void injectsDefinesAfterVersion() throws IOException {
+        mFiles.put("main.glsl", "#version 300 es\nvoid main() {}\n");
+        String source = newPreprocessor().load("main.glsl", "USE_TINT", "SAMPLES=4");
+        assertEquals("#version 300 es\n#define USE_TINT\n#define SAMPLES 4\nvoid main() {}\n", source);
+    }
+
+    @Test
+    public void cachesByDefineSetRegardlessOfOrder() throws IOException {
+        mFiles.put("main.glsl", "void main() {}\n");
+        ShaderPreprocessor preprocessor = newPreprocessor();
+        String first = preprocessor.load("main.glsl", "A", "B");
+        assertSame(first, preprocessor.load("main.glsl", "B", "A"));
+        preprocessor.load("main.glsl");
+        assertEquals(2, preprocessor.getResolvedCount());
+        assertEquals(1, mReads); // 原始文件只读取一次
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCircularInclude() throws IOException {
+        mFiles.put("a.glsl", "#include \"b.glsl\"\n");
+        mFiles.put("b.glsl", "#include \"a.glsl\"\n");
+        newPreprocessor().load("a.glsl");
+    }
+}
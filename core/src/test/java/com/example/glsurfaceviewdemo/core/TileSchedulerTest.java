@@ -0,0 +1,127 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 大图瓦片金字塔和可见瓦片计算测试，在 JVM 上运行
+ */
+public class TileSchedulerTest {
+    private static final int SURFACE = 1000;
+
+    // 正方形窗口显示正方形图片：放大 zoom 倍，视图中心为模型坐标 (centerX, centerY)
+    private static float[] mvp(float zoom, float centerX, float centerY) {
+        float[] m = new float[16];
+        ViewportMath.fitOrtho(m, 0, 1, 1, SURFACE, SURFACE);
+        Mat4.scale(m, 0, zoom, zoom, 1.0f);
+        Mat4.translate(m, 0, -centerX, -centerY, 0.0f);
+        return m;
+    }
+
+    private static Set<Long> visible(TileScheduler scheduler) {
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < scheduler.getVisibleCount(); i++) {
+            keys.add(scheduler.getVisibleKey(i));
+        }
+        return keys;
+    }
+
+    @Test
+    public void pyramidGeometry() {
+        TilePyramid pyramid = new TilePyramid(16384, 8000, 512);
+        assertEquals(6, pyramid.getLevelCount()); // 512 << 5 = 16384
+        assertEquals(1, pyramid.getColumns(pyramid.getCoarsestLevel()));
+        assertEquals(1, pyramid.getRows(pyramid.getCoarsestLevel()));
+        assertEquals(32, pyramid.getColumns(0));
+        assertEquals(16, pyramid.getRows(0));
+
+        int[] rect = new int[4];
+        pyramid.getTileRect(1, 15, 7, rect);
+        assertArrayEquals(new int[]{15360, 7168, 16384, 8000}, rect); // 最下一行被裁剪
+
+        assertEquals(0, pyramid.selectLevel(0.5f));
+        assertEquals(0, pyramid.selectLevel(1.9f));
+        assertEquals(1, pyramid.selectLevel(3.0f));
+        assertEquals(5, pyramid.selectLevel(1000.0f));
+
+        long key = TilePyramid.key(3, 12345, 678);
+        assertEquals(3, TilePyramid.level(key));
+        assertEquals(12345, TilePyramid.column(key));
+        assertEquals(678, TilePyramid.row(key));
+    }
+
+    @Test
+    public void wholeImageUsesCoarseLevel() {
+        TilePyramid pyramid = new TilePyramid(8192, 8192, 512);
+        TileScheduler scheduler = new TileScheduler(pyramid);
+        scheduler.update(mvp(1.0f, 0.0f, 0.0f), 0, SURFACE);
+        // 8192 像素显示在 1000 像素宽的窗口上，每个屏幕像素约 8 个原图像素
+        assertEquals(3, scheduler.getLevel());
+        assertEquals(8.192f, scheduler.getScale(), 1e-3f);
+        assertEquals(4, scheduler.getVisibleCount()); // 第 3 层是 2x2 个瓦片
+        assertEquals(0, scheduler.getPrefetchCount());
+    }
+
+    @Test
+    public void zoomedViewSelectsOnlyVisibleTilesNearestFirst() {
+        TilePyramid pyramid = new TilePyramid(8192, 8192, 512);
+        TileScheduler scheduler = new TileScheduler(pyramid);
+        // 放大 8 倍，看图片中心 1024 x 1024 的区域（原图 3584 ~ 4608）
+        scheduler.update(mvp(8.0f, 0.0f, 0.0f), 0, SURFACE);
+        assertEquals(0, scheduler.getLevel());
+        Set<Long> keys = visible(scheduler);
+        assertEquals(4, keys.size());
+        for (int row = 7; row <= 8; row++) {
+            for (int column = 7; column <= 8; column++) {
+                assertTrue(keys.contains(TilePyramid.key(0, column, row)));
+            }
+        }
+        // 外扩一圈：4x4 减去可见的 2x2
+        assertEquals(12, scheduler.getPrefetchCount());
+
+        // 稍微偏左上，最近的瓦片排在最前面
+        scheduler.update(mvp(8.0f, -0.05f, 0.05f), 0, SURFACE);
+        assertEquals(TilePyramid.key(0, 7, 7), scheduler.getVisibleKey(0));
+    }
+
+    @Test
+    public void panningPrefetchesAhead() {
+        TilePyramid pyramid = new TilePyramid(8192, 8192, 512);
+        TileScheduler scheduler = new TileScheduler(pyramid);
+        scheduler.update(mvp(8.0f, 0.0f, 0.0f), 0, SURFACE);
+        assertEquals(0, scheduler.getPanX());
+        // 视图向右移动（模型坐标 x 增大），y 不变
+        scheduler.update(mvp(8.0f, 0.02f, 0.0f), 0, SURFACE);
+        assertEquals(1, scheduler.getPanX());
+        assertEquals(0, scheduler.getPanY());
+
+        int rightmost = 0;
+        int leftmost = Integer.MAX_VALUE;
+        Set<Long> keys = visible(scheduler);
+        for (int i = 0; i < scheduler.getPrefetchCount(); i++) {
+            long key = scheduler.getPrefetchKey(i);
+            assertFalse(keys.contains(key));
+            rightmost = Math.max(rightmost, TilePyramid.column(key));
+            leftmost = Math.min(leftmost, TilePyramid.column(key));
+        }
+        // 可见列为 7 ~ 8（或 7 ~ 9），左边只多取一圈，右边多取 PREFETCH_AHEAD 圈
+        assertEquals(6, leftmost);
+        assertTrue(rightmost >= 8 + TileScheduler.PREFETCH_RING + TileScheduler.PREFETCH_AHEAD);
+
+        // 层级变化时不认为在平移
+        scheduler.update(mvp(2.0f, 0.5f, 0.0f), 0, SURFACE);
+        assertEquals(0, scheduler.getPanX());
+    }
+
+    @Test
+    public void offscreenViewHasNoTiles() {
+        TileScheduler scheduler = new TileScheduler(new TilePyramid(4096, 4096, 512));
+        scheduler.update(mvp(4.0f, 5.0f, 5.0f), 0, SURFACE);
+        assertEquals(0, scheduler.getVisibleCount());
+        assertEquals(0, scheduler.getPrefetchCount());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 顶点打包测试，在 JVM 上运行
+ */
+public class VertexPackingTest {
+
+    @Test
+    public void toFloatBufferIsDirectAndRewound() {
+        float[] coords = {0.0f, 0.2f, 0.0f, -0.5f, -0.5f, 0.0f};
+        FloatBuffer buffer = VertexPacking.toFloatBuffer(coords);
+        assertTrue(buffer.isDirect());
+        assertEquals(ByteOrder.nativeOrder(), buffer.order());
+        assertEquals(0, buffer.position());
+        assertEquals(coords.length, buffer.remaining());
+        for (float coord : coords) {
+            assertEquals(coord, buffer.get(), 0.0f);
+        }
+    }
+
+    @Test
+    public void quadIndicesFollowStripOrder() {
+        ShortBuffer indices = VertexPacking.quadIndices(3);
+        assertEquals(0, indices.position());
+        assertEquals(18, indices.remaining());
+        short[] expected = {0, 1, 2, 2, 1, 3, 4, 5, 6, 6, 5, 7, 8, 9, 10, 10, 9, 11};
+        for (short index : expected) {
+            assertEquals(index, indices.get());
+        }
+    }
+
+    @Test
+    public void quadIndicesCoverLastVertex() {
+        ShortBuffer indices = VertexPacking.quadIndices(VertexPacking.MAX_QUADS_16BIT);
+        // 最后一个索引是 65535，作为无符号 short 读取
+        assertEquals(65535, indices.get(indices.limit() - 1) & 0xFFFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quadIndicesRejectsOverflow() {
+        VertexPacking.quadIndices(VertexPacking.MAX_QUADS_16BIT + 1);
+    }
+
+    @Test
+    public void nativeColorStoresRgbaInMemoryOrder() {
+        ByteBuffer memory = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+        memory.putInt(0, VertexPacking.nativeColor(0x11223344));
+        assertEquals(0x11, memory.get(0));
+        assertEquals(0x22, memory.get(1));
+        assertEquals(0x33, memory.get(2));
+        assertEquals(0x44, memory.get(3));
+    }
+
+    @Test
+    public void putIntsWritesAbsoluteWithoutMovingPosition() {
+        ByteBuffer target = ByteBuffer.allocateDirect(16).order(ByteOrder.nativeOrder());
+        VertexPacking.putInts(target, new int[]{1, -2, 3, 99}, 3);
+        assertEquals(0, target.position());
+        assertEquals(1, target.getInt(0));
+        assertEquals(-2, target.getInt(4));
+        assertEquals(3, target.getInt(8));
+        assertEquals(0, target.getInt(12));
+    }
+
+    @Test
+    public void putSpriteQuadWritesFourVertices() {
+        int[] data = new int[VertexPacking.SPRITE_INTS_PER_QUAD + 2];
+        int end = VertexPacking.putSpriteQuad(data, 2, 10.0f, 20.0f, 4.0f, 8.0f,
+                0.25f, 0.5f, 0.75f, 1.0f, 7);
+        assertEquals(2 + VertexPacking.SPRITE_INTS_PER_QUAD, end);
+        float[][] expected = {
+                {10.0f, 28.0f, 0.25f, 0.5f},  // 左上角
+                {10.0f, 20.0f, 0.25f, 1.0f},  // 左下角
+                {14.0f, 28.0f, 0.75f, 0.5f},  // 右上角
+                {14.0f, 20.0f, 0.75f, 1.0f},  // 右下角
+        };
+        for (int v = 0; v < 4; v++) {
+            int base = 2 + v * VertexPacking.SPRITE_INTS_PER_VERTEX;
+            for (int c = 0; c < 4; c++) {
+                assertEquals(expected[v][c], Float.intBitsToFloat(data[base + c]), 0.0f);
+            }
+            assertEquals(7, data[base + 4]);
+        }
+    }
+
+    @Test
+    public void halfFloatRoundTrip() {
+        assertEquals(0x3C00, VertexPacking.toHalfFloat(1.0f) & 0xFFFF);
+        assertEquals(0xC000, VertexPacking.toHalfFloat(-2.0f) & 0xFFFF);
+        assertEquals(0x7BFF, VertexPacking.toHalfFloat(65504.0f) & 0xFFFF);  // 最大的有限值
+        assertEquals(0x7C00, VertexPacking.toHalfFloat(65520.0f) & 0xFFFF);  // 舍入后溢出
+        assertEquals(0x7C00, VertexPacking.toHalfFloat(1e10f) & 0xFFFF);
+        assertEquals(0x0001, VertexPacking.toHalfFloat(5.9604645e-8f) & 0xFFFF); // 最小的非规格化数
+        assertEquals(0x0000, VertexPacking.toHalfFloat(2.9802322e-8f) & 0xFFFF); // 正好一半，舍入到偶数
+        assertTrue(Float.isNaN(VertexPacking.halfToFloat(VertexPacking.toHalfFloat(Float.NaN))));
+        // 1 + 2^-11 正好在 1 和 1 + 2^-10 中间，舍入到偶数
+        assertEquals(0x3C00, VertexPacking.toHalfFloat(1.0f + 1.0f / 2048) & 0xFFFF);
+        assertEquals(0x3C02, VertexPacking.toHalfFloat(1.0f + 3.0f / 2048) & 0xFFFF);
+        for (int bits = 0; bits < 0x7C00; bits++) {
+            short half = (short) bits;
+            assertEquals(bits, VertexPacking.toHalfFloat(VertexPacking.halfToFloat(half)) & 0xFFFF);
+        }
+    }
+
+    @Test
+    public void normalizedShortsClampAndRound() {
+        assertEquals(32767, VertexPacking.toSnorm16(1.0f));
+        assertEquals(-32767, VertexPacking.toSnorm16(-2.0f));
+        assertEquals(0, VertexPacking.toSnorm16(0.0f));
+        assertEquals(65535, VertexPacking.toUnorm16(1.5f) & 0xFFFF);
+        assertEquals(32768, VertexPacking.toUnorm16(0.5f) & 0xFFFF);
+        assertEquals(0, VertexPacking.toUnorm16(-1.0f));
+    }
+
+    @Test
+    public void toShortIndicesNarrows() {
+        ShortBuffer indices = VertexPacking.toShortIndices(new int[]{0, 65535, 7});
+        assertEquals(3, indices.remaining());
+        assertEquals(65535, indices.get(1) & 0xFFFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toShortIndicesRejectsOverflow() {
+        VertexPacking.toShortIndices(new int[]{65536});
+    }
+}
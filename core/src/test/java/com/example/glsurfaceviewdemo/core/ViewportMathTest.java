@@ -0,0 +1,88 @@
+package com.example.glsurfaceviewdemo.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 视口计算测试，在 JVM 上运行
+ */
+public class ViewportMathTest {
+
+    @Test
+    public void fitViewportLetterboxesWideImage() {
+        int[] viewport = new int[4];
+        // 16:9 的图片放进竖屏，上下留黑边
+        ViewportMath.fitViewport(1600, 900, 1080, 1920, viewport);
+        assertArrayEquals(new int[]{0, 656, 1080, 607}, viewport);
+    }
+
+    @Test
+    public void fitViewportPillarboxesTallImage() {
+        int[] viewport = new int[4];
+        ViewportMath.fitViewport(500, 1000, 1000, 500, viewport);
+        assertArrayEquals(new int[]{375, 0, 250, 500}, viewport);
+    }
+
+    @Test
+    public void fitViewportFillsMatchingAspect() {
+        int[] viewport = new int[4];
+        ViewportMath.fitViewport(2, 1, 800, 400, viewport);
+        assertArrayEquals(new int[]{0, 0, 800, 400}, viewport);
+    }
+
+    @Test
+    public void fitOrthoKeepsImageAspect() {
+        float[] projection = new float[16];
+        float[] corner = new float[4];
+        float[] clip = new float[4];
+        int imageWidth = 1600;
+        int imageHeight = 900;
+        int surfaceWidth = 1080;
+        int surfaceHeight = 1920;
+        ViewportMath.fitOrtho(projection, 0, imageWidth, imageHeight, surfaceWidth, surfaceHeight);
+
+        // 图片的右上角 (1, 1) 投影到裁剪空间后，换算成像素的宽高比应与图片一致
+        corner[0] = 1.0f;
+        corner[1] = 1.0f;
+        corner[3] = 1.0f;
+        Mat4.multiplyVec4(clip, 0, projection, 0, corner, 0);
+        float pixelWidth = clip[0] * surfaceWidth;
+        float pixelHeight = clip[1] * surfaceHeight;
+        assertEquals((float) imageWidth / imageHeight, pixelWidth / pixelHeight, 1e-4f);
+        // 较宽的一边正好填满
+        assertEquals(1.0f, clip[0], 1e-6f);
+        assertTrue(clip[1] < 1.0f);
+    }
+
+    @Test
+    public void fitOrthoMatchesViewportFit() {
+        float[] projection = new float[16];
+        int[] viewport = new int[4];
+        ViewportMath.fitOrtho(projection, 0, 500, 1000, 1000, 500);
+        ViewportMath.fitViewport(500, 1000, 1000, 500, viewport);
+        // x 方向的缩放系数等于视口宽度占 surface 的比例
+        assertEquals((float) viewport[2] / 1000, projection[0], 1e-6f);
+        assertEquals(1.0f, projection[5], 1e-6f);
+    }
+
+    @Test
+    public void visibleRectInvertsZoomedOrtho() {
+        float[] projection = new float[16];
+        float[] mvp = new float[16];
+        float[] rect = new float[4];
+        // 正方形图片放进 2:1 的窗口，整张图可见，左右各有一部分空白
+        ViewportMath.fitOrtho(projection, 0, 1000, 1000, 800, 400);
+        assertTrue(ViewportMath.visibleRect(projection, 0, rect));
+        assertArrayEquals(new float[]{-2.0f, -1.0f, 2.0f, 1.0f}, rect, 1e-5f);
+
+        // 放大 4 倍并把视图中心移到 (0.5, -0.5)
+        Mat4.copy(mvp, 0, projection, 0);
+        Mat4.scale(mvp, 0, 4.0f, 4.0f, 1.0f);
+        Mat4.translate(mvp, 0, -0.5f, 0.5f, 0.0f);
+        assertTrue(ViewportMath.visibleRect(mvp, 0, rect));
+        assertArrayEquals(new float[]{0.0f, -0.75f, 1.0f, -0.25f}, rect, 1e-5f);
+
+        assertFalse(ViewportMath.visibleRect(new float[16], 0, rect));
+    }
+}
@@ -15,4 +15,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "GLSurfaceViewDemo"
 include(":app")
+include(":core")
  
\ No newline at end of file